@@ -16,6 +16,11 @@
 
 package krati.store.avro.protocol;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import krati.store.BatchDataStore;
 import krati.store.DataStore;
 
 /**
@@ -25,7 +30,7 @@ import krati.store.DataStore;
  * @author jwu
  * @since 09/23, 2011
  */
-public class BasicDataStoreProtocolHandler implements StoreProtocolHandler {
+public class BasicDataStoreProtocolHandler implements BatchStoreProtocolHandler {
     protected final DataStore<byte[], byte[]> _store;
     
     /**
@@ -89,4 +94,34 @@ public class BasicDataStoreProtocolHandler implements StoreProtocolHandler {
     public boolean delete(byte[] key) throws Exception {
         return _store.delete(key);
     }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<byte[]> getAll(List<byte[]> keys) {
+        if(_store instanceof BatchDataStore) {
+            return ((BatchDataStore<byte[], byte[]>)_store).getAll(keys);
+        }
+        
+        List<byte[]> values = new ArrayList<byte[]>(keys.size());
+        for(byte[] key : keys) {
+            values.add(key == null ? null : _store.get(key));
+        }
+        return values;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean putAll(Map<byte[], byte[]> map) throws Exception {
+        if(_store instanceof BatchDataStore) {
+            return ((BatchDataStore<byte[], byte[]>)_store).putAll(map);
+        }
+        
+        boolean ret = false;
+        for(Map.Entry<byte[], byte[]> e : map.entrySet()) {
+            if(_store.put(e.getKey(), e.getValue())) {
+                ret = true;
+            }
+        }
+        return ret;
+    }
 }
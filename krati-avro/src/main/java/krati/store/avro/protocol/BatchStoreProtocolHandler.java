@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.store.avro.protocol;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BatchStoreProtocolHandler defines a {@link StoreProtocolHandler} which handles
+ * the messages <tt>mget</tt> and <tt>mput</tt> in one batch rather than key by key.
+ * 
+ * @since 0.4.9
+ */
+public interface BatchStoreProtocolHandler extends StoreProtocolHandler {
+    
+    /**
+     * Gets the values to which the specified <code>keys</code> are mapped.
+     * 
+     * @param keys - the keys
+     * @return a list of values in the order of the specified <code>keys</code>.
+     *         The value is <code>null</code> if the corresponding key is not known.
+     */
+    public List<byte[]> getAll(List<byte[]> keys);
+    
+    /**
+     * Maps the keys to the values in the specified <code>map</code>.
+     * A key mapped to the <code>null</code> value is removed.
+     * 
+     * @param map - the mappings from keys to values
+     * @return <code>true</code> if this operation is completed successfully.
+     *         Otherwise, <code>false</code>.
+     * @throws Exception if this operation cannot be completed for any reasons.
+     *         The <tt>mput</tt> message is then handled key by key.
+     */
+    public boolean putAll(Map<byte[], byte[]> map) throws Exception;
+}
@@ -17,6 +17,10 @@
 package krati.store.avro.protocol;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 
@@ -110,6 +114,31 @@ public class StoreResponder extends GenericResponder {
             Schema schema = getLocal().getMessages().get(ProtocolConstants.MSG_MGET).getRequest().getField("keys").schema();
             GenericArray<GenericRecord> array = new GenericData.Array<GenericRecord>(keys.size(), schema); 
             
+            if(_handler instanceof BatchStoreProtocolHandler) {
+                List<ByteBuffer> keyList = new ArrayList<ByteBuffer>(keys.size());
+                List<byte[]> keyBytesList = new ArrayList<byte[]>(keys.size());
+                for(ByteBuffer key : keys) {
+                    if(key != null) {
+                        keyList.add(key);
+                        keyBytesList.add(key.array());
+                    }
+                }
+                
+                // Include only non-null value in response
+                List<byte[]> values = ((BatchStoreProtocolHandler)_handler).getAll(keyBytesList);
+                for(int i = 0, cnt = keyList.size(); i < cnt; i++) {
+                    byte[] bytes = values.get(i);
+                    if(bytes != null) {
+                        GenericRecord kv = new GenericData.Record(schemaKV);
+                        kv.put("key", keyList.get(i));
+                        kv.put("value", ByteBuffer.wrap(bytes));
+                        array.add(kv);
+                    }
+                }
+                
+                return array;
+            }
+            
             // Include only non-null key and non-null value in response
             for(ByteBuffer key : keys) {
                 if(key != null) {
@@ -129,6 +158,23 @@ public class StoreResponder extends GenericResponder {
         if (msgName.equals(ProtocolConstants.MSG_MPUT)) {
             boolean ret = false;
             GenericArray<GenericRecord> array = (GenericArray<GenericRecord>)record.get("kvList");
+            
+            if(_handler instanceof BatchStoreProtocolHandler) {
+                Map<byte[], byte[]> map = new LinkedHashMap<byte[], byte[]>();
+                for(GenericRecord kv : array) {
+                    ByteBuffer key = (ByteBuffer)kv.get("key");
+                    ByteBuffer value = (ByteBuffer)kv.get("value");
+                    map.put(key.array(), value == null ? null : value.array());
+                }
+                
+                try {
+                    return ((BatchStoreProtocolHandler)_handler).putAll(map);
+                } catch(Exception e) {
+                    // Fall back to applying keys one by one for per-key outcomes
+                    _logger.warn("putAll failed", e);
+                }
+            }
+            
             for(GenericRecord kv : array) {
                 ByteBuffer key = (ByteBuffer)kv.get("key");
                 ByteBuffer value = (ByteBuffer)kv.get("value");
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import krati.core.segment.ChannelSegmentFactory;
+import krati.core.segment.DirectBufferSegmentFactory;
+import krati.core.segment.MappedSegmentFactory;
+import krati.core.segment.MemorySegmentFactory;
+import krati.core.segment.SegmentFactory;
+import krati.core.segment.WriteBufferSegmentFactory;
+
+/**
+ * BenchmarkUtils provides the helper methods shared by benchmarks.
+ * 
+ * @since 0.4.9
+ */
+public final class BenchmarkUtils {
+    
+    private BenchmarkUtils() {}
+    
+    /**
+     * Creates a {@link SegmentFactory} by its short name, which is one of
+     * <code>mapped</code>, <code>channel</code>, <code>memory</code>, <code>writeBuffer</code> and <code>directBuffer</code>.
+     */
+    public static SegmentFactory createSegmentFactory(String name) {
+        if("mapped".equals(name)) {
+            return new MappedSegmentFactory();
+        } else if("channel".equals(name)) {
+            return new ChannelSegmentFactory();
+        } else if("memory".equals(name)) {
+            return new MemorySegmentFactory();
+        } else if("writeBuffer".equals(name)) {
+            return new WriteBufferSegmentFactory();
+        } else if("directBuffer".equals(name)) {
+            return new DirectBufferSegmentFactory();
+        }
+        
+        throw new IllegalArgumentException("Unknown segment factory: " + name);
+    }
+    
+    /**
+     * Creates a new empty directory under <code>java.io.tmpdir</code> or the directory specified
+     * by the system property <code>krati.benchmark.dir</code>.
+     */
+    public static File createTempDir(String prefix) throws IOException {
+        File parent = new File(System.getProperty("krati.benchmark.dir", System.getProperty("java.io.tmpdir")));
+        File dir = new File(parent, prefix + "-" + System.nanoTime());
+        if(!dir.mkdirs()) {
+            throw new IOException("Failed to create " + dir.getAbsolutePath());
+        }
+        return dir;
+    }
+    
+    /**
+     * Deletes the specified directory recursively.
+     */
+    public static void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if(files != null) {
+            for(File f : files) {
+                if(f.isDirectory()) {
+                    deleteDirectory(f);
+                } else {
+                    f.delete();
+                }
+            }
+        }
+        dir.delete();
+    }
+    
+    /**
+     * Creates an array of the specified number of distinct random keys.
+     */
+    public static byte[][] createKeys(Random random, int numKeys, int keySize) {
+        byte[][] keys = new byte[numKeys][];
+        for(int i = 0; i < numKeys; i++) {
+            byte[] key = randomBytes(random, Math.max(keySize, 4));
+            
+            // Make keys distinct by embedding the key number
+            key[0] = (byte)(i >>> 24);
+            key[1] = (byte)(i >>> 16);
+            key[2] = (byte)(i >>> 8);
+            key[3] = (byte)i;
+            keys[i] = key;
+        }
+        return keys;
+    }
+    
+    /**
+     * Creates an array of random bytes.
+     */
+    public static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
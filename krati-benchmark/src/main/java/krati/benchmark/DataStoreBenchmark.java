@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.benchmark;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import krati.core.StoreConfig;
+import krati.core.StoreFactory;
+import krati.store.DataStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DataStoreBenchmark measures <code>get</code>, <code>put</code> and <code>delete</code> on
+ * {@link krati.store.DynamicDataStore DynamicDataStore}, {@link krati.store.StaticDataStore StaticDataStore}
+ * and {@link krati.store.IndexedDataStore IndexedDataStore}. The number of threads is set by the JMH option
+ * <code>-t</code>, e.g.
+ * 
+ * <pre>
+ *   java -jar target/benchmarks.jar DataStoreBenchmark -t 4 -p storeType=dynamic -p writerConcurrency=4
+ * </pre>
+ * 
+ * @since 0.4.9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DataStoreBenchmark {
+    
+    @Param({"dynamic", "static", "indexed"})
+    public String storeType;
+    
+    @Param({"mapped"})
+    public String segmentType;
+    
+    @Param({"16"})
+    public int keySize;
+    
+    @Param({"100", "1000"})
+    public int valueSize;
+    
+    @Param({"100000"})
+    public int numKeys;
+    
+    @Param({"1"})
+    public int writerConcurrency;
+    
+    private File _homeDir;
+    private DataStore<byte[], byte[]> _store;
+    private byte[][] _keys;
+    private byte[][] _absentKeys;
+    private byte[] _value;
+    
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Random random = new Random(17);
+        _keys = BenchmarkUtils.createKeys(random, numKeys, keySize);
+        _absentKeys = BenchmarkUtils.createKeys(new Random(19), numKeys, keySize);
+        _value = BenchmarkUtils.randomBytes(random, valueSize);
+        
+        _homeDir = BenchmarkUtils.createTempDir("DataStoreBenchmark");
+        StoreConfig config = new StoreConfig(_homeDir, numKeys);
+        config.setSegmentFactory(BenchmarkUtils.createSegmentFactory(segmentType));
+        config.setSegmentFileSizeMB(64);
+        config.setWriterConcurrency(writerConcurrency);
+        
+        if("dynamic".equals(storeType)) {
+            _store = StoreFactory.createDynamicDataStore(config);
+        } else if("static".equals(storeType)) {
+            _store = StoreFactory.createStaticDataStore(config);
+        } else if("indexed".equals(storeType)) {
+            _store = StoreFactory.createIndexedDataStore(config);
+        } else {
+            throw new IllegalArgumentException("Unknown store type: " + storeType);
+        }
+        
+        // Absent keys differ from known keys in the embedded key number
+        for(byte[] key : _absentKeys) {
+            key[0] = (byte)0xFF;
+        }
+        
+        for(byte[] key : _keys) {
+            _store.put(key, _value);
+        }
+        _store.sync();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        _store.close();
+        BenchmarkUtils.deleteDirectory(_homeDir);
+    }
+    
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final Random random = new Random(Thread.currentThread().getId());
+    }
+    
+    @Benchmark
+    public byte[] get(ThreadState state) {
+        return _store.get(_keys[state.random.nextInt(numKeys)]);
+    }
+    
+    @Benchmark
+    public byte[] getAbsent(ThreadState state) {
+        return _store.get(_absentKeys[state.random.nextInt(numKeys)]);
+    }
+    
+    @Benchmark
+    public boolean put(ThreadState state) throws Exception {
+        return _store.put(_keys[state.random.nextInt(numKeys)], _value);
+    }
+    
+    /**
+     * Deletes a known key and puts it back so that the store keeps the same set of keys.
+     */
+    @Benchmark
+    public boolean deleteThenPut(ThreadState state) throws Exception {
+        byte[] key = _keys[state.random.nextInt(numKeys)];
+        _store.delete(key);
+        return _store.put(key, _value);
+    }
+}
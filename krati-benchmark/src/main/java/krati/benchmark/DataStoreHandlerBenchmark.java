@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import krati.store.DefaultDataStoreHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DataStoreHandlerBenchmark measures how {@link DefaultDataStoreHandler} assembles and extracts
+ * the data of a hash bucket holding the specified number of colliding entries.
+ * 
+ * @since 0.4.9
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataStoreHandlerBenchmark {
+    
+    @Param({"16"})
+    public int keySize;
+    
+    @Param({"100", "1000"})
+    public int valueSize;
+    
+    @Param({"1", "4"})
+    public int collisions;
+    
+    private final DefaultDataStoreHandler _handler = new DefaultDataStoreHandler();
+    private byte[][] _keys;
+    private byte[] _value;
+    private byte[] _data;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(17);
+        _keys = BenchmarkUtils.createKeys(random, collisions, keySize);
+        _value = BenchmarkUtils.randomBytes(random, valueSize);
+        
+        _data = _handler.assemble(_keys[0], _value);
+        for(int i = 1; i < collisions; i++) {
+            _data = _handler.assemble(_keys[i], _value, _data);
+        }
+    }
+    
+    @Benchmark
+    public byte[] assemble() {
+        return _handler.assemble(_keys[0], _value);
+    }
+    
+    /**
+     * Replaces the value of the last entry in the bucket.
+     */
+    @Benchmark
+    public byte[] assembleExisting() {
+        return _handler.assemble(_keys[collisions - 1], _value, _data);
+    }
+    
+    /**
+     * Extracts the value of the last entry in the bucket.
+     */
+    @Benchmark
+    public byte[] extractByKey() {
+        return _handler.extractByKey(_keys[collisions - 1], _data);
+    }
+    
+    @Benchmark
+    public int countCollisions() {
+        return _handler.countCollisions(_keys[0], _data);
+    }
+}
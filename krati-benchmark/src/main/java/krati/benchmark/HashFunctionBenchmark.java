@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import krati.util.HashFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HashFunctionBenchmark measures the hash functions in the package <code>krati.util</code>.
+ * 
+ * @since 0.4.9
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashFunctionBenchmark {
+    private final static int NUM_KEYS = 1024;
+    
+    @Param({"FnvHashFunction", "Fnv1Hash32", "Fnv1Hash64", "Fnv1aHash32", "Fnv1aHash64", "JenkinsHashFunction", "MurmurHashFunction"})
+    public String hashFunction;
+    
+    @Param({"8", "16", "64", "256"})
+    public int keySize;
+    
+    private HashFunction<byte[]> _hashFunction;
+    private byte[][] _keys;
+    private int _next = 0;
+    
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        _hashFunction = (HashFunction<byte[]>)Class.forName("krati.util." + hashFunction).newInstance();
+        _keys = BenchmarkUtils.createKeys(new Random(17), NUM_KEYS, keySize);
+    }
+    
+    @Benchmark
+    public long hash() {
+        return _hashFunction.hash(_keys[(_next++) & (NUM_KEYS - 1)]);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.benchmark;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import krati.core.segment.Segment;
+import krati.core.segment.SegmentManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SegmentBenchmark measures random reads and sequential appends on the segments
+ * created by each {@link krati.core.segment.SegmentFactory SegmentFactory}.
+ * 
+ * @since 0.4.9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SegmentBenchmark {
+    
+    @Param({"mapped", "channel", "memory", "writeBuffer", "directBuffer"})
+    public String segmentType;
+    
+    @Param({"100", "1000"})
+    public int dataSize;
+    
+    @Param({"64"})
+    public int segmentFileSizeMB;
+    
+    private File _homeDir;
+    private SegmentManager _segManager;
+    private Segment _readSegment;
+    private Segment _appendSegment;
+    private int[] _positions;
+    private byte[] _data;
+    
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Random random = new Random(17);
+        _data = BenchmarkUtils.randomBytes(random, dataSize);
+        
+        _homeDir = BenchmarkUtils.createTempDir("SegmentBenchmark");
+        _segManager = SegmentManager.getInstance(
+                new File(_homeDir, "segs").getCanonicalPath(),
+                BenchmarkUtils.createSegmentFactory(segmentType),
+                segmentFileSizeMB);
+        
+        // Fill up the read segment
+        _readSegment = _segManager.nextSegment();
+        int cnt = (int)((_readSegment.getInitialSize() - Segment.dataStartPosition) / dataSize);
+        _positions = new int[cnt];
+        for(int i = 0; i < cnt; i++) {
+            _positions[i] = _readSegment.append(_data);
+        }
+        _readSegment.force();
+        
+        _appendSegment = _segManager.nextSegment();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        _segManager.close();
+        BenchmarkUtils.deleteDirectory(_homeDir);
+    }
+    
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final Random random = new Random(Thread.currentThread().getId());
+        byte[] dst;
+        ByteBuffer dstBuffer;
+        
+        @Setup(Level.Trial)
+        public void setup(SegmentBenchmark benchmark) {
+            dst = new byte[benchmark.dataSize];
+            dstBuffer = ByteBuffer.allocate(benchmark.dataSize);
+        }
+    }
+    
+    @Benchmark
+    public byte[] read(ThreadState state) throws Exception {
+        _readSegment.read(_positions[state.random.nextInt(_positions.length)], state.dst);
+        return state.dst;
+    }
+    
+    @Benchmark
+    public ByteBuffer readByteBuffer(ThreadState state) throws Exception {
+        state.dstBuffer.clear();
+        _readSegment.read(_positions[state.random.nextInt(_positions.length)], state.dstBuffer);
+        return state.dstBuffer;
+    }
+    
+    @Benchmark
+    public int readInt(ThreadState state) throws Exception {
+        return _readSegment.readInt(_positions[state.random.nextInt(_positions.length)]);
+    }
+    
+    /**
+     * Appends data to a segment, which is rewound once full. Segments are appended by a single writer.
+     */
+    @Benchmark
+    @Threads(1)
+    public int append() throws Exception {
+        if(_appendSegment.getAppendPosition() + dataSize > _appendSegment.getInitialSize()) {
+            _appendSegment.setAppendPosition(Segment.dataStartPosition);
+        }
+        return _appendSegment.append(_data);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import krati.io.serializer.IntSerializer;
+import krati.io.serializer.LongSerializer;
+import krati.io.serializer.StringSerializer;
+import krati.io.serializer.StringSerializerUtf8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SerializerBenchmark measures the serializers used by object stores for keys.
+ * 
+ * @since 0.4.9
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+    
+    @Param({"16", "256"})
+    public int stringLength;
+    
+    private final IntSerializer _intSerializer = new IntSerializer();
+    private final LongSerializer _longSerializer = new LongSerializer();
+    private final StringSerializer _stringSerializer = new StringSerializer();
+    private final StringSerializerUtf8 _stringSerializerUtf8 = new StringSerializerUtf8();
+    
+    private String _string;
+    private byte[] _stringBytes;
+    private byte[] _stringBytesUtf8;
+    private byte[] _intBytes;
+    private byte[] _longBytes;
+    private int _next = 0;
+    
+    @Setup
+    public void setup() throws Exception {
+        StringBuilder buf = new StringBuilder();
+        for(int i = 0; i < stringLength; i++) {
+            buf.append((char)('a' + (i % 26)));
+        }
+        _string = buf.toString();
+        _stringBytes = _stringSerializer.serialize(_string);
+        _stringBytesUtf8 = _stringSerializerUtf8.serialize(_string);
+        _intBytes = _intSerializer.serialize(12345);
+        _longBytes = _longSerializer.serialize(123456789L);
+    }
+    
+    @Benchmark
+    public byte[] serializeString() throws Exception {
+        return _stringSerializer.serialize(_string);
+    }
+    
+    @Benchmark
+    public String deserializeString() throws Exception {
+        return _stringSerializer.deserialize(_stringBytes);
+    }
+    
+    @Benchmark
+    public byte[] serializeStringUtf8() throws Exception {
+        return _stringSerializerUtf8.serialize(_string);
+    }
+    
+    @Benchmark
+    public String deserializeStringUtf8() throws Exception {
+        return _stringSerializerUtf8.deserialize(_stringBytesUtf8);
+    }
+    
+    @Benchmark
+    public byte[] serializeInt() throws Exception {
+        return _intSerializer.serialize(_next++);
+    }
+    
+    @Benchmark
+    public Integer deserializeInt() throws Exception {
+        return _intSerializer.deserialize(_intBytes);
+    }
+    
+    @Benchmark
+    public byte[] serializeLong() throws Exception {
+        return _longSerializer.serialize((long)_next++);
+    }
+    
+    @Benchmark
+    public Long deserializeLong() throws Exception {
+        return _longSerializer.deserialize(_longBytes);
+    }
+}
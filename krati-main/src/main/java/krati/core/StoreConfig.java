@@ -32,8 +32,13 @@ import krati.core.segment.SegmentFactory;
 import krati.store.DataHandler;
 import krati.store.DefaultDataSetHandler;
 import krati.store.DefaultDataStoreHandler;
+import krati.store.DefaultHashedDataStoreHandler;
+import krati.metrics.DefaultMetricsRegistry;
+import krati.metrics.MetricsRegistry;
+import krati.store.cache.CachePolicy;
 import krati.util.FnvHashFunction;
 import krati.util.HashFunction;
+import krati.util.XxHash64;
 
 import org.apache.log4j.Logger;
 
@@ -47,6 +52,9 @@ import org.apache.log4j.Logger;
  * <p>
  * 06/25, 2011 - Added method validate() <br/>
  * 10/01, 2011 - Added static method newInstance(File) <br/>
+ * 10/17, 2026 - Defaulted new stores to XxHash64 and disallowed changing the hash function of existing stores <br/>
+ * 10/17, 2026 - Disallowed changing the data handler of existing stores <br/>
+ * 10/17, 2026 - Bound DefaultHashedDataStoreHandler to the store hash function <br/>
  */
 public class StoreConfig extends StoreParams {
     private final static Logger _logger = Logger.getLogger(StoreConfig.class);
@@ -55,6 +63,9 @@ public class StoreConfig extends StoreParams {
     private DataHandler _dataHandler = null;
     private SegmentFactory _segmentFactory = null;
     private HashFunction<byte[]> _hashFunction = null;
+    private MetricsRegistry _metricsRegistry = null;
+    private String _storeHashFunctionClass = null;
+    private String _storeDataHandlerClass = null;
     
     /**
      * The store configuration properties file: <code>config.properties</code>.
@@ -69,6 +80,9 @@ public class StoreConfig extends StoreParams {
      * @throws IOException if the store configuration file cannot be created.
      */
     public StoreConfig(File homeDir, int initialCapacity) throws IOException {
+        String[] homeFiles = homeDir.list();
+        boolean newStore = (homeFiles == null || homeFiles.length == 0);
+        
         if(!homeDir.exists()) {
             homeDir.mkdirs();
         }
@@ -88,13 +102,20 @@ public class StoreConfig extends StoreParams {
         // Set the default segment factory
         this.setSegmentFactory(new MappedSegmentFactory());
         
-        // Set the default hash function
-        this.setHashFunction(new FnvHashFunction());
+        // Set the default hash function. Only a brand-new store gets XxHash64 because
+        // an existing store without config.properties was created with FnvHashFunction.
+        this.setHashFunction(newStore ? new XxHash64() : new FnvHashFunction());
         
         // Load properties from the default configuration file
         File file = new File(homeDir, CONFIG_PROPERTIES_FILE);
         if(file.exists()) {
             this.load(file);
+            
+            // Pin the hash function and data format once the store holds more than its configuration
+            if(homeFiles.length > 1) {
+                this._storeHashFunctionClass = getHashFunction().getClass().getName();
+                this._storeDataHandlerClass = getDataHandlerClassName();
+            }
             this.validate();
         } else {
             this.save();
@@ -213,6 +234,14 @@ public class StoreConfig extends StoreParams {
         paramValue = _properties.getProperty(paramName);
         setIndexesCached(parseBoolean(paramName, paramValue, StoreParams.INDEXES_CACHED_DEFAULT));
         
+        paramName = StoreParams.PARAM_INDEXES_OFF_HEAP;
+        paramValue = _properties.getProperty(paramName);
+        setIndexesOffHeap(parseBoolean(paramName, paramValue, StoreParams.INDEXES_OFF_HEAP_DEFAULT));
+        
+        paramName = StoreParams.PARAM_INDEXES_PACKED;
+        paramValue = _properties.getProperty(paramName);
+        setIndexesPacked(parseBoolean(paramName, paramValue, StoreParams.INDEXES_PACKED_DEFAULT));
+        
         paramName = StoreParams.PARAM_BATCH_SIZE;
         paramValue = _properties.getProperty(paramName);
         setBatchSize(parseInt(paramName, paramValue, StoreParams.BATCH_SIZE_DEFAULT));
@@ -229,10 +258,58 @@ public class StoreConfig extends StoreParams {
         paramValue = _properties.getProperty(paramName);
         setSegmentCompactFactor(parseDouble(paramName, paramValue, StoreParams.SEGMENT_COMPACT_FACTOR_DEFAULT));
         
+        paramName = StoreParams.PARAM_SEGMENT_COMPACT_PARALLELISM;
+        paramValue = _properties.getProperty(paramName);
+        setSegmentCompactParallelism(parseInt(paramName, paramValue, StoreParams.SEGMENT_COMPACT_PARALLELISM_DEFAULT));
+        
+        paramName = StoreParams.PARAM_SEGMENT_COMPACT_RATE_MB;
+        paramValue = _properties.getProperty(paramName);
+        setSegmentCompactRateMB(parseInt(paramName, paramValue, StoreParams.SEGMENT_COMPACT_RATE_MB_DEFAULT));
+        
+        paramName = StoreParams.PARAM_SEGMENT_COMPACT_BACKOFF_LATENCY;
+        paramValue = _properties.getProperty(paramName);
+        setSegmentCompactBackoffLatency(parseInt(paramName, paramValue, StoreParams.SEGMENT_COMPACT_BACKOFF_LATENCY_DEFAULT));
+        
         paramName = StoreParams.PARAM_HASH_LOAD_FACTOR;
         paramValue = _properties.getProperty(paramName);
         setHashLoadFactor(parseDouble(paramName, paramValue, StoreParams.HASH_LOAD_FACTOR_DEFAULT));
         
+        paramName = StoreParams.PARAM_WRITER_CONCURRENCY;
+        paramValue = _properties.getProperty(paramName);
+        setWriterConcurrency(parseInt(paramName, paramValue, StoreParams.WRITER_CONCURRENCY_DEFAULT));
+        
+        paramName = StoreParams.PARAM_SPLIT_BACKGROUND;
+        paramValue = _properties.getProperty(paramName);
+        setSplitBackground(parseBoolean(paramName, paramValue, StoreParams.SPLIT_BACKGROUND_DEFAULT));
+        
+        paramName = StoreParams.PARAM_SPLIT_STEPS_PER_WRITE;
+        paramValue = _properties.getProperty(paramName);
+        setSplitStepsPerWrite(parseInt(paramName, paramValue, StoreParams.SPLIT_STEPS_PER_WRITE_DEFAULT));
+        
+        paramName = StoreParams.PARAM_READ_ONLY;
+        paramValue = _properties.getProperty(paramName);
+        setReadOnly(parseBoolean(paramName, paramValue, StoreParams.READ_ONLY_DEFAULT));
+        
+        paramName = StoreParams.PARAM_BLOOM_FILTER_ENABLED;
+        paramValue = _properties.getProperty(paramName);
+        setBloomFilterEnabled(parseBoolean(paramName, paramValue, StoreParams.BLOOM_FILTER_ENABLED_DEFAULT));
+        
+        paramName = StoreParams.PARAM_BLOOM_FILTER_FPP;
+        paramValue = _properties.getProperty(paramName);
+        setBloomFilterFpp(parseDouble(paramName, paramValue, StoreParams.BLOOM_FILTER_FPP_DEFAULT));
+        
+        paramName = StoreParams.PARAM_VALUE_CACHE_SIZE_MB;
+        paramValue = _properties.getProperty(paramName);
+        setValueCacheSizeMB(parseInt(paramName, paramValue, StoreParams.VALUE_CACHE_SIZE_MB_DEFAULT));
+        
+        paramName = StoreParams.PARAM_VALUE_CACHE_POLICY;
+        paramValue = _properties.getProperty(paramName);
+        setValueCachePolicy(parseCachePolicy(paramName, paramValue, StoreParams.VALUE_CACHE_POLICY_DEFAULT));
+        
+        paramName = StoreParams.PARAM_METRICS_ENABLED;
+        paramValue = _properties.getProperty(paramName);
+        setMetricsEnabled(parseBoolean(paramName, paramValue, StoreParams.METRICS_ENABLED_DEFAULT));
+        
         // Create _segmentFactory
         paramName = StoreParams.PARAM_SEGMENT_FACTORY_CLASS;
         paramValue = _properties.getProperty(paramName);
@@ -279,14 +356,33 @@ public class StoreConfig extends StoreParams {
         if(dataHandler != null) {
             setDataHandler(dataHandler);
         }
+        
+        // Create _metricsRegistry
+        paramName = StoreParams.PARAM_METRICS_REGISTRY_CLASS;
+        paramValue = _properties.getProperty(paramName);
+        MetricsRegistry metricsRegistry = null;
+        if(paramValue != null) {
+            try {
+                metricsRegistry = Class.forName(paramValue).asSubclass(MetricsRegistry.class).newInstance();
+            } catch(Exception e) {
+                _logger.warn("Invalid MetricsRegistry class: " + paramValue);
+            }
+        }
+        if(metricsRegistry != null) {
+            setMetricsRegistry(metricsRegistry);
+        }
     }
     
     /**
-     * Saves configuration to the default file <code>config.properties</code>
+     * Saves configuration to the default file <code>config.properties</code>.
+     * A read-only configuration is not saved so that the store home directory is left untouched.
      * 
      * @throws IOException
      */
     public void save() throws IOException {
+        if(isReadOnly()) {
+            return;
+        }
         save(new File(getHomeDir(), CONFIG_PROPERTIES_FILE), null);
     }
     
@@ -317,6 +413,18 @@ public class StoreConfig extends StoreParams {
             throw new InvalidStoreConfigException("Store hash function not found");
         }
         
+        // Keys already stored are placed by the hash function the store was created with
+        if(_storeHashFunctionClass != null && !_storeHashFunctionClass.equals(getHashFunction().getClass().getName())) {
+            throw new InvalidStoreConfigException(StoreParams.PARAM_HASH_FUNCTION_CLASS + "=" + getHashFunction().getClass().getName() +
+                                                  " differs from " + _storeHashFunctionClass + " of the existing store");
+        }
+        
+        // Data already stored is assembled in the format of the data handler the store was created with
+        if(_storeDataHandlerClass != null && !_storeDataHandlerClass.equals(getDataHandlerClassName())) {
+            throw new InvalidStoreConfigException(StoreParams.PARAM_DATA_HANDLER_CLASS + "=" + getDataHandlerClassName() +
+                                                  " differs from " + _storeDataHandlerClass + " of the existing store");
+        }
+        
         if(getBatchSize() < StoreParams.BATCH_SIZE_MIN) {
             throw new InvalidStoreConfigException(StoreParams.PARAM_BATCH_SIZE + "=" + getBatchSize());
         }
@@ -336,6 +444,38 @@ public class StoreConfig extends StoreParams {
         if(getSegmentCompactFactor() < StoreParams.SEGMENT_COMPACT_FACTOR_MIN || getSegmentCompactFactor() > StoreParams.SEGMENT_COMPACT_FACTOR_MAX) {
             throw new InvalidStoreConfigException(StoreParams.PARAM_SEGMENT_COMPACT_FACTOR + "=" + getSegmentCompactFactor());
         }
+        
+        if(getSegmentCompactParallelism() < StoreParams.SEGMENT_COMPACT_PARALLELISM_MIN || getSegmentCompactParallelism() > StoreParams.SEGMENT_COMPACT_PARALLELISM_MAX) {
+            throw new InvalidStoreConfigException(StoreParams.PARAM_SEGMENT_COMPACT_PARALLELISM + "=" + getSegmentCompactParallelism());
+        }
+        
+        if(getSegmentCompactRateMB() < StoreParams.SEGMENT_COMPACT_RATE_MB_MIN) {
+            throw new InvalidStoreConfigException(StoreParams.PARAM_SEGMENT_COMPACT_RATE_MB + "=" + getSegmentCompactRateMB());
+        }
+        
+        if(getSegmentCompactBackoffLatency() < StoreParams.SEGMENT_COMPACT_BACKOFF_LATENCY_MIN) {
+            throw new InvalidStoreConfigException(StoreParams.PARAM_SEGMENT_COMPACT_BACKOFF_LATENCY + "=" + getSegmentCompactBackoffLatency());
+        }
+        
+        if(getWriterConcurrency() < StoreParams.WRITER_CONCURRENCY_MIN || getWriterConcurrency() > StoreParams.WRITER_CONCURRENCY_MAX) {
+            throw new InvalidStoreConfigException(StoreParams.PARAM_WRITER_CONCURRENCY + "=" + getWriterConcurrency());
+        }
+        
+        if(getSplitStepsPerWrite() < StoreParams.SPLIT_STEPS_PER_WRITE_MIN) {
+            throw new InvalidStoreConfigException(StoreParams.PARAM_SPLIT_STEPS_PER_WRITE + "=" + getSplitStepsPerWrite());
+        }
+        
+        if(getBloomFilterFpp() < StoreParams.BLOOM_FILTER_FPP_MIN || getBloomFilterFpp() > StoreParams.BLOOM_FILTER_FPP_MAX) {
+            throw new InvalidStoreConfigException(StoreParams.PARAM_BLOOM_FILTER_FPP + "=" + getBloomFilterFpp());
+        }
+        
+        if(getValueCacheSizeMB() < StoreParams.VALUE_CACHE_SIZE_MB_MIN) {
+            throw new InvalidStoreConfigException(StoreParams.PARAM_VALUE_CACHE_SIZE_MB + "=" + getValueCacheSizeMB());
+        }
+        
+        if(getValueCachePolicy() == null) {
+            throw new InvalidStoreConfigException(StoreParams.PARAM_VALUE_CACHE_POLICY + "=null");
+        }
     }
     
     /**
@@ -518,6 +658,18 @@ public class StoreConfig extends StoreParams {
         return defaultValue;
     }
     
+    static CachePolicy parseCachePolicy(String pName, String pValue, CachePolicy defaultValue) {
+        try {
+            if(pValue != null) {
+                return CachePolicy.valueOf(pValue.trim().toUpperCase());
+            }
+        } catch(Exception e) {
+            _logger.warn("failed to parse " + pName + "=" + pValue + " default=" + defaultValue);
+        }
+        
+        return defaultValue;
+    }
+    
     static Class<?> parseClass(String pName, String pValue, Class<?> defaultValue) {
         try {
             if(pValue != null) {
@@ -553,6 +705,8 @@ public class StoreConfig extends StoreParams {
     
     /**
      * Sets the hash function of the target {#link krati.store.DataStore DataStore}.
+     * New stores default to {@link XxHash64}. The hash function of an existing store
+     * cannot be changed and is rejected by {@link #validate()}.
      * 
      * @param hashFunction
      */
@@ -563,6 +717,7 @@ public class StoreConfig extends StoreParams {
         
         this._hashFunction = hashFunction;
         this._properties.setProperty(PARAM_HASH_FUNCTION_CLASS, hashFunction.getClass().getName());
+        this.bindDataHandler();
     }
     
     /**
@@ -574,6 +729,9 @@ public class StoreConfig extends StoreParams {
     
     /**
      * Sets the data handler of the target {#link krati.store.DataStore DataStore}.
+     * A {@link DefaultHashedDataStoreHandler} is replaced with one using the hash
+     * function of this StoreConfig so that the hash codes it caches always match
+     * the hash codes of the store.
      * 
      * @param dataHandler
      */
@@ -587,6 +745,7 @@ public class StoreConfig extends StoreParams {
                 _properties.setProperty(PARAM_DATA_HANDLER_CLASS, dataHandler.getClass().getName());
             }
         }
+        this.bindDataHandler();
     }
     
     /**
@@ -596,6 +755,52 @@ public class StoreConfig extends StoreParams {
         return _dataHandler;
     }
     
+    /**
+     * Binds a {@link DefaultHashedDataStoreHandler} to the hash function of this StoreConfig.
+     */
+    private void bindDataHandler() {
+        if(_dataHandler instanceof DefaultHashedDataStoreHandler && _hashFunction != null) {
+            HashFunction<byte[]> h = ((DefaultHashedDataStoreHandler)_dataHandler).getHashFunction();
+            if(h.getClass() != _hashFunction.getClass()) {
+                _dataHandler = new DefaultHashedDataStoreHandler(_hashFunction);
+            }
+        }
+    }
+    
+    /**
+     * @return the class name of the data handler, or an empty string for the default data handlers.
+     */
+    private String getDataHandlerClassName() {
+        if(_dataHandler == null ||
+           _dataHandler.getClass() == DefaultDataSetHandler.class ||
+           _dataHandler.getClass() == DefaultDataStoreHandler.class) {
+            return "";
+        }
+        return _dataHandler.getClass().getName();
+    }
+    
+    /**
+     * Sets the metrics registry of the target store. A store creates its own
+     * {@link DefaultMetricsRegistry} if no metrics registry is specified.
+     * 
+     * @param metricsRegistry
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this._metricsRegistry = metricsRegistry;
+        if(metricsRegistry == null || metricsRegistry.getClass() == DefaultMetricsRegistry.class) {
+            _properties.remove(PARAM_METRICS_REGISTRY_CLASS);
+        } else {
+            _properties.setProperty(PARAM_METRICS_REGISTRY_CLASS, metricsRegistry.getClass().getName());
+        }
+    }
+    
+    /**
+     * Gets the metrics registry of the target store.
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return _metricsRegistry;
+    }
+    
     /**
      * Creates a new instance of StoreConfig.
      * 
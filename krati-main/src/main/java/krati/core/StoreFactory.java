@@ -21,6 +21,7 @@ import java.io.File;
 import krati.core.segment.SegmentFactory;
 import krati.store.ArrayStore;
 import krati.store.ArrayStorePartition;
+import krati.store.DataStore;
 import krati.store.DynamicDataArray;
 import krati.store.DynamicDataSet;
 import krati.store.DynamicDataStore;
@@ -29,6 +30,8 @@ import krati.store.StaticArrayStorePartition;
 import krati.store.StaticDataArray;
 import krati.store.StaticDataSet;
 import krati.store.StaticDataStore;
+import krati.store.cache.CachePolicy;
+import krati.store.cache.CachedDataStore;
 import krati.util.FnvHashFunction;
 
 /**
@@ -43,6 +46,7 @@ import krati.util.FnvHashFunction;
  * 06/11, 2011 - Added methods for creating static and dynamic DataSet <br/>
  * 06/12, 2011 - Added JavaDoc comment <br/>
  * 06/25, 2011 - Added factory methods using StoreConfig <br/>
+ * 10/17, 2026 - Added factory methods for CachedDataStore <br/>
  */
 public class StoreFactory {
     
@@ -802,6 +806,32 @@ public class StoreFactory {
                 storeSegmentFactory);
     }
     
+    /**
+     * Creates a read-through {@link krati.store.cache.CachedDataStore CachedDataStore} of hot values
+     * above the specified {@link krati.store.DataStore DataStore}. The cache size and eviction policy
+     * are specified by the parameters <code>krati.store.cache.size</code> and <code>krati.store.cache.policy</code>.
+     * 
+     * @param store  - the underlying DataStore
+     * @param config - DataStore configuration
+     * @return A CachedDataStore above the specified store.
+     */
+    public static CachedDataStore createCachedDataStore(DataStore<byte[], byte[]> store, StoreConfig config) {
+        return createCachedDataStore(store, config.getValueCacheSizeMB(), config.getValueCachePolicy());
+    }
+    
+    /**
+     * Creates a read-through {@link krati.store.cache.CachedDataStore CachedDataStore} of hot values
+     * above the specified {@link krati.store.DataStore DataStore}.
+     * 
+     * @param store            - the underlying DataStore
+     * @param valueCacheSizeMB - the maximum number of MB of cached keys and values
+     * @param policy           - the cache eviction policy
+     * @return A CachedDataStore above the specified store.
+     */
+    public static CachedDataStore createCachedDataStore(DataStore<byte[], byte[]> store, int valueCacheSizeMB, CachePolicy policy) {
+        return new CachedDataStore(store, ((long)valueCacheSizeMB) << 20, policy);
+    }
+    
     /**
      * Creates a static {@link krati.store.DataSet DataSet} with a fixed-capacity.
      * A configuration file <code>config.properties</code> is created automatically in the store home directory. 
@@ -20,6 +20,7 @@ import java.util.Properties;
 
 import krati.core.array.basic.DynamicConstants;
 import krati.core.segment.Segment;
+import krati.store.cache.CachePolicy;
 import krati.util.LinearHashing;
 
 /**
@@ -43,6 +44,16 @@ public class StoreParams {
      */
     public static final boolean INDEXES_CACHED_DEFAULT = true;
     
+    /**
+     * The cached indexes (indexes.dat) is kept on the Java heap by default.
+     */
+    public static final boolean INDEXES_OFF_HEAP_DEFAULT = false;
+    
+    /**
+     * The cached indexes (indexes.dat) is not bit-packed by default.
+     */
+    public static final boolean INDEXES_PACKED_DEFAULT = false;
+    
     /**
      * The minimum number of updates per update batch is 1.
      * This value is not recommended due to its inefficiency.
@@ -98,6 +109,41 @@ public class StoreParams {
      */
     public static final double SEGMENT_COMPACT_FACTOR_DEFAULT = Segment.defaultSegmentCompactFactor;
     
+    /**
+     * The minimum segment compaction parallelism is 1, which compacts one group of segments at a time.
+     */
+    public static final int SEGMENT_COMPACT_PARALLELISM_MIN = 1;
+    
+    /**
+     * The maximum segment compaction parallelism is 16.
+     */
+    public static final int SEGMENT_COMPACT_PARALLELISM_MAX = 16;
+    
+    /**
+     * The default segment compaction parallelism is 1.
+     */
+    public static final int SEGMENT_COMPACT_PARALLELISM_DEFAULT = 1;
+    
+    /**
+     * The minimum segment compaction rate in MB per second is 0, which means unlimited.
+     */
+    public static final int SEGMENT_COMPACT_RATE_MB_MIN = 0;
+    
+    /**
+     * The default segment compaction rate in MB per second is 0 (unlimited).
+     */
+    public static final int SEGMENT_COMPACT_RATE_MB_DEFAULT = 0;
+    
+    /**
+     * The minimum read latency in microseconds, above which segment compaction backs off, is 0 (no backoff).
+     */
+    public static final int SEGMENT_COMPACT_BACKOFF_LATENCY_MIN = 0;
+    
+    /**
+     * The default read latency in microseconds, above which segment compaction backs off, is 0 (no backoff).
+     */
+    public static final int SEGMENT_COMPACT_BACKOFF_LATENCY_DEFAULT = 0;
+    
     /**
      * The default index segment file size in MB is 8.
      */
@@ -123,11 +169,96 @@ public class StoreParams {
      */
     public static final double HASH_LOAD_FACTOR_DEFAULT = 0.75;
     
+    /**
+     * The minimum writer concurrency is 1, which serializes all writers on the store monitor.
+     */
+    public static final int WRITER_CONCURRENCY_MIN = 1;
+    
+    /**
+     * The maximum writer concurrency is 1024.
+     */
+    public static final int WRITER_CONCURRENCY_MAX = 1024;
+    
+    /**
+     * The default writer concurrency is 1 (single writer).
+     */
+    public static final int WRITER_CONCURRENCY_DEFAULT = 1;
+    
+    /**
+     * Linear hashing splits are performed by writers, not a background splitter, by default.
+     */
+    public static final boolean SPLIT_BACKGROUND_DEFAULT = false;
+    
+    /**
+     * The minimum number of split steps per write is 0, which leaves splitting to the background splitter.
+     */
+    public static final int SPLIT_STEPS_PER_WRITE_MIN = 0;
+    
+    /**
+     * The default number of split steps per write is 1.
+     */
+    public static final int SPLIT_STEPS_PER_WRITE_DEFAULT = 1;
+    
+    /**
+     * Stores are opened for read and write by default.
+     */
+    public static final boolean READ_ONLY_DEFAULT = false;
+    
+    /**
+     * The Bloom filter of store keys is disabled by default.
+     */
+    public static final boolean BLOOM_FILTER_ENABLED_DEFAULT = false;
+    
+    /**
+     * The minimum false positive probability of the Bloom filter is 0.0001.
+     */
+    public static final double BLOOM_FILTER_FPP_MIN = 0.0001;
+    
+    /**
+     * The maximum false positive probability of the Bloom filter is 0.5.
+     */
+    public static final double BLOOM_FILTER_FPP_MAX = 0.5;
+    
+    /**
+     * The default false positive probability of the Bloom filter is 0.01.
+     */
+    public static final double BLOOM_FILTER_FPP_DEFAULT = 0.01;
+    
+    /**
+     * The minimum value cache size in MB is 0, which disables the value cache.
+     */
+    public static final int VALUE_CACHE_SIZE_MB_MIN = 0;
+    
+    /**
+     * The default value cache size in MB is 0 (no value cache).
+     */
+    public static final int VALUE_CACHE_SIZE_MB_DEFAULT = 0;
+    
+    /**
+     * The default value cache eviction policy is LRU.
+     */
+    public static final CachePolicy VALUE_CACHE_POLICY_DEFAULT = CachePolicy.LRU;
+    
+    /**
+     * The default store metrics is disabled.
+     */
+    public static final boolean METRICS_ENABLED_DEFAULT = false;
+    
     /**
      * Whether the indexes array is cached in memory.
      */
     private boolean _indexesCached = INDEXES_CACHED_DEFAULT;
     
+    /**
+     * Whether the cached indexes array is kept in direct memory outside the Java heap.
+     */
+    private boolean _indexesOffHeap = INDEXES_OFF_HEAP_DEFAULT;
+    
+    /**
+     * Whether the cached indexes array is bit-packed to the minimum address width.
+     */
+    private boolean _indexesPacked = INDEXES_PACKED_DEFAULT;
+    
     /**
      * The update batch size.
      */
@@ -148,12 +279,73 @@ public class StoreParams {
      */
     private double _segmentCompactFactor = SEGMENT_COMPACT_FACTOR_DEFAULT;
     
+    /**
+     * The number of segment compactions, each with its own target segment, running concurrently in a compaction cycle.
+     */
+    private int _segmentCompactParallelism = SEGMENT_COMPACT_PARALLELISM_DEFAULT;
+    
+    /**
+     * The maximum number of MB per second read and written by segment compaction (0 for unlimited).
+     */
+    private int _segmentCompactRateMB = SEGMENT_COMPACT_RATE_MB_DEFAULT;
+    
+    /**
+     * The average read latency in microseconds, above which segment compaction backs off (0 for no backoff).
+     */
+    private int _segmentCompactBackoffLatency = SEGMENT_COMPACT_BACKOFF_LATENCY_DEFAULT;
+    
     /**
      * The hash table load factor (between 0 and 1), above which a hash table will be rehashed through a hashing strategy
      * such as Linear Hashing or Extensible Hashing.
      */
     private double _hashLoadFactor = HASH_LOAD_FACTOR_DEFAULT;
     
+    /**
+     * The expected number of concurrent writer threads. A value greater than 1 enables lock-striped writes
+     * in stores supporting concurrent writers such as {@link krati.store.DynamicDataStore DynamicDataStore}.
+     */
+    private int _writerConcurrency = WRITER_CONCURRENCY_DEFAULT;
+    
+    /**
+     * Whether linear hashing splits are advanced by a background splitter in time-bounded batches.
+     */
+    private boolean _splitBackground = SPLIT_BACKGROUND_DEFAULT;
+    
+    /**
+     * The maximum number of linear hashing split steps performed inline by a write.
+     */
+    private int _splitStepsPerWrite = SPLIT_STEPS_PER_WRITE_DEFAULT;
+    
+    /**
+     * Whether stores are opened for read-only operations without compactor and writer segments.
+     */
+    private boolean _readOnly = READ_ONLY_DEFAULT;
+    
+    /**
+     * Whether a Bloom filter of store keys is kept in memory to short-circuit lookups of absent keys.
+     */
+    private boolean _bloomFilterEnabled = BLOOM_FILTER_ENABLED_DEFAULT;
+    
+    /**
+     * The expected false positive probability (between 0 and 1) of the Bloom filter.
+     */
+    private double _bloomFilterFpp = BLOOM_FILTER_FPP_DEFAULT;
+    
+    /**
+     * The maximum number of MB of hot keys and values cached above a store (0 for no value cache).
+     */
+    private int _valueCacheSizeMB = VALUE_CACHE_SIZE_MB_DEFAULT;
+    
+    /**
+     * The eviction policy of the value cache.
+     */
+    private CachePolicy _valueCachePolicy = VALUE_CACHE_POLICY_DEFAULT;
+    
+    /**
+     * Whether store metrics such as operation counts and latencies are collected and exported via JMX.
+     */
+    private boolean _metricsEnabled = METRICS_ENABLED_DEFAULT;
+    
     /**
      * Creates a new instance of StoreParams.
      */
@@ -162,8 +354,22 @@ public class StoreParams {
         this.setNumSyncBatches(NUM_SYNC_BATCHES_DEFAULT);
         this.setSegmentFileSizeMB(SEGMENT_FILE_SIZE_MB_DEFAULT);
         this.setSegmentCompactFactor(SEGMENT_COMPACT_FACTOR_DEFAULT);
+        this.setSegmentCompactParallelism(SEGMENT_COMPACT_PARALLELISM_DEFAULT);
+        this.setSegmentCompactRateMB(SEGMENT_COMPACT_RATE_MB_DEFAULT);
+        this.setSegmentCompactBackoffLatency(SEGMENT_COMPACT_BACKOFF_LATENCY_DEFAULT);
         this.setHashLoadFactor(HASH_LOAD_FACTOR_DEFAULT);
         this.setIndexesCached(INDEXES_CACHED_DEFAULT);
+        this.setIndexesOffHeap(INDEXES_OFF_HEAP_DEFAULT);
+        this.setIndexesPacked(INDEXES_PACKED_DEFAULT);
+        this.setWriterConcurrency(WRITER_CONCURRENCY_DEFAULT);
+        this.setSplitBackground(SPLIT_BACKGROUND_DEFAULT);
+        this.setSplitStepsPerWrite(SPLIT_STEPS_PER_WRITE_DEFAULT);
+        this.setReadOnly(READ_ONLY_DEFAULT);
+        this.setBloomFilterEnabled(BLOOM_FILTER_ENABLED_DEFAULT);
+        this.setBloomFilterFpp(BLOOM_FILTER_FPP_DEFAULT);
+        this.setValueCacheSizeMB(VALUE_CACHE_SIZE_MB_DEFAULT);
+        this.setValueCachePolicy(VALUE_CACHE_POLICY_DEFAULT);
+        this.setMetricsEnabled(METRICS_ENABLED_DEFAULT);
     }
     
     /**
@@ -229,6 +435,59 @@ public class StoreParams {
         return _segmentCompactFactor;
     }
     
+    /**
+     * Sets the segment compaction parallelism, i.e. the number of segment compactions running concurrently.
+     * Each concurrent compaction transfers data from its own source segments into its own target segment.
+     * 
+     * @param segmentCompactParallelism - the segment compaction parallelism
+     */
+    public void setSegmentCompactParallelism(int segmentCompactParallelism) {
+        this._segmentCompactParallelism = segmentCompactParallelism;
+        this._properties.setProperty(PARAM_SEGMENT_COMPACT_PARALLELISM, _segmentCompactParallelism+"");
+    }
+    
+    /**
+     * Gets the segment compaction parallelism.
+     */
+    public int getSegmentCompactParallelism() {
+        return _segmentCompactParallelism;
+    }
+    
+    /**
+     * Sets the maximum number of MB per second read and written by segment compaction.
+     * 
+     * @param segmentCompactRateMB - the segment compaction rate in MB per second, 0 for unlimited
+     */
+    public void setSegmentCompactRateMB(int segmentCompactRateMB) {
+        this._segmentCompactRateMB = segmentCompactRateMB;
+        this._properties.setProperty(PARAM_SEGMENT_COMPACT_RATE_MB, _segmentCompactRateMB+"");
+    }
+    
+    /**
+     * Gets the maximum number of MB per second read and written by segment compaction.
+     */
+    public int getSegmentCompactRateMB() {
+        return _segmentCompactRateMB;
+    }
+    
+    /**
+     * Sets the average read latency in microseconds, above which segment compaction backs off
+     * in favor of foreground reads.
+     * 
+     * @param segmentCompactBackoffLatency - the read latency in microseconds, 0 for no backoff
+     */
+    public void setSegmentCompactBackoffLatency(int segmentCompactBackoffLatency) {
+        this._segmentCompactBackoffLatency = segmentCompactBackoffLatency;
+        this._properties.setProperty(PARAM_SEGMENT_COMPACT_BACKOFF_LATENCY, _segmentCompactBackoffLatency+"");
+    }
+    
+    /**
+     * Gets the average read latency in microseconds, above which segment compaction backs off.
+     */
+    public int getSegmentCompactBackoffLatency() {
+        return _segmentCompactBackoffLatency;
+    }
+    
     /**
      * Sets the hash table load factor (between 0 and 1), above which a hash table will be
      * rehashed through a hashing strategy such as Linear Hashing or Extensible Hashing.
@@ -269,12 +528,240 @@ public class StoreParams {
         return _indexesCached;
     }
     
+    /**
+     * Sets the boolean value indicating whether the cached indexes (i.e. indexes.dat) is kept off the Java heap or not.
+     * This value takes effect only if the indexes is cached in memory.
+     */
+    public void setIndexesOffHeap(boolean b) {
+        this._indexesOffHeap = b;
+        this._properties.setProperty(PARAM_INDEXES_OFF_HEAP, _indexesOffHeap ? "true" : "false");
+    }
+    
+    /**
+     * Gets the boolean value indicating whether the cached indexes (i.e. indexes.dat) is kept off the Java heap or not.
+     */
+    public boolean getIndexesOffHeap() {
+        return _indexesOffHeap;
+    }
+    
+    /**
+     * Tests whether the cached indexes (i.e. indexes.dat) is kept off the Java heap or not.
+     */
+    public boolean isIndexesOffHeap() {
+        return _indexesOffHeap;
+    }
+    
+    /**
+     * Sets the boolean value indicating whether the cached indexes (i.e. indexes.dat) is bit-packed or not.
+     * This value takes effect only if the indexes is cached in memory and not kept off the Java heap.
+     * A bit-packed indexes.dat cannot be opened once this value is turned off.
+     */
+    public void setIndexesPacked(boolean b) {
+        this._indexesPacked = b;
+        this._properties.setProperty(PARAM_INDEXES_PACKED, _indexesPacked ? "true" : "false");
+    }
+    
+    /**
+     * Gets the boolean value indicating whether the cached indexes (i.e. indexes.dat) is bit-packed or not.
+     */
+    public boolean getIndexesPacked() {
+        return _indexesPacked;
+    }
+    
+    /**
+     * Tests whether the cached indexes (i.e. indexes.dat) is bit-packed or not.
+     */
+    public boolean isIndexesPacked() {
+        return _indexesPacked;
+    }
+    
+    /**
+     * Sets the expected number of concurrent writer threads.
+     * A value greater than 1 enables lock-striped writes.
+     */
+    public void setWriterConcurrency(int writerConcurrency) {
+        this._writerConcurrency = writerConcurrency;
+        this._properties.setProperty(PARAM_WRITER_CONCURRENCY, _writerConcurrency+"");
+    }
+    
+    /**
+     * Gets the expected number of concurrent writer threads.
+     */
+    public int getWriterConcurrency() {
+        return _writerConcurrency;
+    }
+    
+    /**
+     * Sets the boolean value indicating whether linear hashing splits are advanced by a background splitter.
+     * If enabled, writes perform split steps inline only if the splitter falls behind, i.e. the load factor
+     * exceeds 1.0.
+     */
+    public void setSplitBackground(boolean b) {
+        this._splitBackground = b;
+        this._properties.setProperty(PARAM_SPLIT_BACKGROUND, _splitBackground ? "true" : "false");
+    }
+    
+    /**
+     * Gets the boolean value indicating whether linear hashing splits are advanced by a background splitter.
+     */
+    public boolean getSplitBackground() {
+        return _splitBackground;
+    }
+    
+    /**
+     * Tests whether linear hashing splits are advanced by a background splitter.
+     */
+    public boolean isSplitBackground() {
+        return _splitBackground;
+    }
+    
+    /**
+     * Sets the maximum number of linear hashing split steps performed inline by a write.
+     * The value <code>0</code> leaves splitting to the background splitter or {@link krati.store.DynamicDataStore#rehash()}.
+     */
+    public void setSplitStepsPerWrite(int splitStepsPerWrite) {
+        this._splitStepsPerWrite = splitStepsPerWrite;
+        this._properties.setProperty(PARAM_SPLIT_STEPS_PER_WRITE, _splitStepsPerWrite+"");
+    }
+    
+    /**
+     * Gets the maximum number of linear hashing split steps performed inline by a write.
+     */
+    public int getSplitStepsPerWrite() {
+        return _splitStepsPerWrite;
+    }
+    
+    /**
+     * Sets the boolean value indicating whether stores are opened for read-only operations.
+     * A read-only store starts no segment compactor, opens no segment for appending and
+     * rejects writes with {@link UnsupportedOperationException}.
+     */
+    public void setReadOnly(boolean b) {
+        this._readOnly = b;
+        this._properties.setProperty(PARAM_READ_ONLY, _readOnly ? "true" : "false");
+    }
+    
+    /**
+     * Gets the boolean value indicating whether stores are opened for read-only operations.
+     */
+    public boolean getReadOnly() {
+        return _readOnly;
+    }
+    
+    /**
+     * Tests whether stores are opened for read-only operations.
+     */
+    public boolean isReadOnly() {
+        return _readOnly;
+    }
+    
+    /**
+     * Sets the boolean value indicating whether a Bloom filter of store keys is enabled or not.
+     */
+    public void setBloomFilterEnabled(boolean b) {
+        this._bloomFilterEnabled = b;
+        this._properties.setProperty(PARAM_BLOOM_FILTER_ENABLED, _bloomFilterEnabled ? "true" : "false");
+    }
+    
+    /**
+     * Gets the boolean value indicating whether a Bloom filter of store keys is enabled or not.
+     */
+    public boolean getBloomFilterEnabled() {
+        return _bloomFilterEnabled;
+    }
+    
+    /**
+     * Tests whether a Bloom filter of store keys is enabled or not.
+     */
+    public boolean isBloomFilterEnabled() {
+        return _bloomFilterEnabled;
+    }
+    
+    /**
+     * Sets the expected false positive probability of the Bloom filter.
+     */
+    public void setBloomFilterFpp(double fpp) {
+        this._bloomFilterFpp = fpp;
+        this._properties.setProperty(PARAM_BLOOM_FILTER_FPP, _bloomFilterFpp+"");
+    }
+    
+    /**
+     * Gets the expected false positive probability of the Bloom filter.
+     */
+    public double getBloomFilterFpp() {
+        return _bloomFilterFpp;
+    }
+    
+    /**
+     * Sets the size of the value cache measured in MB (0 for no value cache).
+     */
+    public void setValueCacheSizeMB(int valueCacheSizeMB) {
+        this._valueCacheSizeMB = valueCacheSizeMB;
+        this._properties.setProperty(PARAM_VALUE_CACHE_SIZE_MB, _valueCacheSizeMB+"");
+    }
+    
+    /**
+     * Gets the size of the value cache measured in MB.
+     */
+    public int getValueCacheSizeMB() {
+        return _valueCacheSizeMB;
+    }
+    
+    /**
+     * Sets the eviction policy of the value cache.
+     */
+    public void setValueCachePolicy(CachePolicy policy) {
+        this._valueCachePolicy = policy;
+        this._properties.setProperty(PARAM_VALUE_CACHE_POLICY, _valueCachePolicy == null ? "" : _valueCachePolicy.name());
+    }
+    
+    /**
+     * Gets the eviction policy of the value cache.
+     */
+    public CachePolicy getValueCachePolicy() {
+        return _valueCachePolicy;
+    }
+    
+    /**
+     * Sets the boolean value indicating whether store metrics are enabled or not.
+     */
+    public void setMetricsEnabled(boolean b) {
+        this._metricsEnabled = b;
+        this._properties.setProperty(PARAM_METRICS_ENABLED, _metricsEnabled ? "true" : "false");
+    }
+    
+    /**
+     * Gets the boolean value indicating whether store metrics are enabled or not.
+     */
+    public boolean getMetricsEnabled() {
+        return _metricsEnabled;
+    }
+    
+    /**
+     * Tests whether store metrics are enabled or not.
+     */
+    public boolean isMetricsEnabled() {
+        return _metricsEnabled;
+    }
+    
     /**
      * Parameter for specifying the indexes (i.e. indexes.dat) cached in memory.
      * The value is <code>true</code> or <code>false</code>.
      */
     public static final String PARAM_INDEXES_CACHED         = "krati.store.indexes.cached";
     
+    /**
+     * Parameter for specifying the cached indexes (i.e. indexes.dat) kept in direct memory off the Java heap.
+     * The value is <code>true</code> or <code>false</code>.
+     */
+    public static final String PARAM_INDEXES_OFF_HEAP       = "krati.store.indexes.offHeap";
+    
+    /**
+     * Parameter for specifying the cached indexes (i.e. indexes.dat) bit-packed to the minimum address width.
+     * The value is <code>true</code> or <code>false</code>.
+     */
+    public static final String PARAM_INDEXES_PACKED         = "krati.store.indexes.packed";
+    
     /**
      * Parameter for specifying the indexes update batch size.
      */
@@ -295,6 +782,28 @@ public class StoreParams {
      */
     public static final String PARAM_SEGMENT_COMPACT_FACTOR = "krati.store.segment.compact.factor";
     
+    /**
+     * Parameter for specifying the number of segment compactions running concurrently between 1 and 16.
+     * 
+     * <p>
+     * Every concurrent compaction allocates its own target segment, i.e. one segment file of
+     * <code>segmentFileSizeMB</code>, and a few update batches of 24 bytes per compacted element.
+     * Source segments are buffered on the heap in a pool shared by all concurrent compactions,
+     * which holds at most 2 buffers of <code>segmentFileSizeMB</code> regardless of parallelism.
+     * </p>
+     */
+    public static final String PARAM_SEGMENT_COMPACT_PARALLELISM = "krati.store.segment.compact.parallelism";
+    
+    /**
+     * Parameter for specifying the maximum segment compaction rate in MB per second (0 for unlimited).
+     */
+    public static final String PARAM_SEGMENT_COMPACT_RATE_MB = "krati.store.segment.compact.rate";
+    
+    /**
+     * Parameter for specifying the read latency in microseconds above which segment compaction backs off (0 for no backoff).
+     */
+    public static final String PARAM_SEGMENT_COMPACT_BACKOFF_LATENCY = "krati.store.segment.compact.backoff.latency";
+    
     /**
      * Parameter for specifying the store segment factory class.
      */
@@ -350,6 +859,61 @@ public class StoreParams {
      */
     public static final String PARAM_DATA_HANDLER_CLASS     = "krati.store.data.handler.class";
     
+    /**
+     * Parameter for specifying the expected number of concurrent writers of a data store.
+     */
+    public static final String PARAM_WRITER_CONCURRENCY     = "krati.store.writer.concurrency";
+    
+    /**
+     * Parameter for specifying whether linear hashing splits are advanced by a background splitter.
+     * The value is <code>true</code> or <code>false</code>.
+     */
+    public static final String PARAM_SPLIT_BACKGROUND       = "krati.store.split.background";
+    
+    /**
+     * Parameter for specifying the maximum number of linear hashing split steps performed inline by a write.
+     */
+    public static final String PARAM_SPLIT_STEPS_PER_WRITE  = "krati.store.split.stepsPerWrite";
+    
+    /**
+     * Parameter for specifying whether stores are opened for read-only operations.
+     * The value is <code>true</code> or <code>false</code>.
+     */
+    public static final String PARAM_READ_ONLY              = "krati.store.readOnly";
+    
+    /**
+     * Parameter for specifying whether a Bloom filter of store keys is enabled.
+     * The value is <code>true</code> or <code>false</code>.
+     */
+    public static final String PARAM_BLOOM_FILTER_ENABLED   = "krati.store.bloomFilter.enabled";
+    
+    /**
+     * Parameter for specifying the expected false positive probability of the Bloom filter.
+     */
+    public static final String PARAM_BLOOM_FILTER_FPP       = "krati.store.bloomFilter.fpp";
+    
+    /**
+     * Parameter for specifying the size of the value cache in MB.
+     */
+    public static final String PARAM_VALUE_CACHE_SIZE_MB    = "krati.store.cache.size";
+    
+    /**
+     * Parameter for specifying the eviction policy of the value cache.
+     * The value is <code>LRU</code>, <code>CLOCK</code> or <code>TINYLFU</code>.
+     */
+    public static final String PARAM_VALUE_CACHE_POLICY     = "krati.store.cache.policy";
+    
+    /**
+     * Parameter for specifying whether store metrics are collected and exported via JMX.
+     * The value is <code>true</code> or <code>false</code>.
+     */
+    public static final String PARAM_METRICS_ENABLED        = "krati.store.metrics.enabled";
+    
+    /**
+     * Parameter for specifying the metrics registry class of a store.
+     */
+    public static final String PARAM_METRICS_REGISTRY_CLASS = "krati.store.metrics.registry.class";
+    
     /**
      * Gets the initial level of {@link krati.store.DynamicDataStore DynamicDataStore}, {@link krati.store.DynamicDataSet DynamicDataSet}
      * and {@link krati.store.IndexedDataStore IndexedDataStore} based on the initial store capacity.
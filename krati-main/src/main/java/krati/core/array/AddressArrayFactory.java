@@ -23,6 +23,9 @@ import krati.core.StoreParams;
 import krati.core.array.basic.DynamicConstants;
 import krati.core.array.basic.DynamicLongArray;
 import krati.core.array.basic.IOTypeLongArray;
+import krati.core.array.basic.OffHeapLongArray;
+import krati.core.array.basic.PackedLongArray;
+import krati.core.array.basic.ReadOnlyLongArray;
 import krati.core.array.basic.StaticLongArray;
 
 /**
@@ -34,6 +37,10 @@ import krati.core.array.basic.StaticLongArray;
  */
 public class AddressArrayFactory {
     private boolean _indexesCached = StoreParams.INDEXES_CACHED_DEFAULT;
+    private boolean _indexesOffHeap = StoreParams.INDEXES_OFF_HEAP_DEFAULT;
+    private boolean _indexesPacked = StoreParams.INDEXES_PACKED_DEFAULT;
+    private int _segmentFileSizeMB = StoreParams.SEGMENT_FILE_SIZE_MB_DEFAULT;
+    private boolean _readOnly = StoreParams.READ_ONLY_DEFAULT;
     
     /**
      * Creates a new instance of AddressArrayFactory.
@@ -60,8 +67,22 @@ public class AddressArrayFactory {
                                                  int numSyncBatches) throws Exception {
         AddressArray addrArray;
         
+        if(_readOnly) {
+            return new ReadOnlyLongArray(Array.Type.STATIC, homeDir, _indexesCached && _indexesOffHeap, _indexesPacked);
+        }
+        
         if(_indexesCached) {
-            addrArray = new StaticLongArray(length, batchSize, numSyncBatches, homeDir);
+            if(_indexesOffHeap) {
+                addrArray = new OffHeapLongArray(
+                        Array.Type.STATIC,
+                        length, batchSize, numSyncBatches, homeDir);
+            } else if(_indexesPacked) {
+                addrArray = new PackedLongArray(
+                        Array.Type.STATIC,
+                        length, batchSize, numSyncBatches, homeDir, _segmentFileSizeMB);
+            } else {
+                addrArray = new StaticLongArray(length, batchSize, numSyncBatches, homeDir);
+            }
         } else {
             addrArray = new IOTypeLongArray(
                     Array.Type.STATIC,
@@ -107,8 +128,22 @@ public class AddressArrayFactory {
                                                   int numSyncBatches) throws Exception {
         AddressArray addrArray;
         
+        if(_readOnly) {
+            return new ReadOnlyLongArray(Array.Type.DYNAMIC, homeDir, _indexesCached && _indexesOffHeap, _indexesPacked);
+        }
+        
         if (_indexesCached) {
-            addrArray = new DynamicLongArray(batchSize, numSyncBatches, homeDir);
+            if(_indexesOffHeap) {
+                addrArray = new OffHeapLongArray(
+                        Array.Type.DYNAMIC, DynamicConstants.SUB_ARRAY_SIZE,
+                        batchSize, numSyncBatches, homeDir);
+            } else if(_indexesPacked) {
+                addrArray = new PackedLongArray(
+                        Array.Type.DYNAMIC, DynamicConstants.SUB_ARRAY_SIZE,
+                        batchSize, numSyncBatches, homeDir, _segmentFileSizeMB);
+            } else {
+                addrArray = new DynamicLongArray(batchSize, numSyncBatches, homeDir);
+            }
         } else {
             addrArray = new IOTypeLongArray(
                     Array.Type.DYNAMIC, initialLength,
@@ -144,4 +179,73 @@ public class AddressArrayFactory {
     public final boolean isIndexesCached() {
         return _indexesCached;
     }
+    
+    /**
+     * Indicates whether this AddressArrayFactory creates an {@link AddressArray} with the cached indexes
+     * kept in direct memory outside the Java heap. This value takes effect only if the indexes is cached.
+     * 
+     * @param indexesOffHeap - whether the cached indexes is kept off the Java heap.
+     */
+    public final void setIndexesOffHeap(boolean indexesOffHeap) {
+        this._indexesOffHeap = indexesOffHeap;
+    }
+    
+    /**
+     * Checks whether the cached indexes is kept off the Java heap.
+     */
+    public final boolean isIndexesOffHeap() {
+        return _indexesOffHeap;
+    }
+    
+    /**
+     * Indicates whether this AddressArrayFactory creates an {@link AddressArray} with the cached indexes
+     * bit-packed to the minimum address width. This value takes effect only if the indexes is cached
+     * and not kept off the Java heap.
+     * 
+     * @param indexesPacked - whether the cached indexes is bit-packed.
+     */
+    public final void setIndexesPacked(boolean indexesPacked) {
+        this._indexesPacked = indexesPacked;
+    }
+    
+    /**
+     * Checks whether the cached indexes is bit-packed.
+     */
+    public final boolean isIndexesPacked() {
+        return _indexesPacked;
+    }
+    
+    /**
+     * Indicates whether this AddressArrayFactory creates a {@link ReadOnlyLongArray} loaded directly from
+     * an existing <code>indexes.dat</code> without redo log. Read-only address arrays are always cached
+     * in memory and cannot be expanded.
+     * 
+     * @param readOnly - whether to create read-only address arrays.
+     */
+    public final void setReadOnly(boolean readOnly) {
+        this._readOnly = readOnly;
+    }
+    
+    /**
+     * Checks whether this AddressArrayFactory creates read-only address arrays.
+     */
+    public final boolean isReadOnly() {
+        return _readOnly;
+    }
+    
+    /**
+     * Sets the segment file size in MB, which is used for sizing segment offsets in bit-packed indexes.
+     * 
+     * @param segmentFileSizeMB - the segment file size in MB.
+     */
+    public final void setSegmentFileSizeMB(int segmentFileSizeMB) {
+        this._segmentFileSizeMB = segmentFileSizeMB;
+    }
+    
+    /**
+     * Gets the segment file size in MB.
+     */
+    public final int getSegmentFileSizeMB() {
+        return _segmentFileSizeMB;
+    }
 }
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.core.array;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import krati.core.StoreParams;
+import krati.core.segment.Segment;
+import krati.util.RateLimiter;
+
+/**
+ * CompactionScheduler paces the segment compaction of {@link SimpleDataArray}.
+ * <p>
+ * It enforces an I/O budget in bytes per second on the data read and written by compaction,
+ * backs off compaction when the moving average of sampled foreground read latency rises above
+ * a threshold, and ranks segments by reclaimable bytes per estimated I/O cost.
+ * </p>
+ * <p>
+ * Pacing is suspended while a writer is blocked waiting for compaction to free segments,
+ * since throttling compaction then stalls foreground writes instead of protecting them.
+ * </p>
+ * 
+ * @since 0.4.9
+ */
+public class CompactionScheduler implements CompactionStatsMBean {
+    /**
+     * The time in milliseconds compaction sleeps per backoff.
+     */
+    public final static long BACKOFF_MILLIS = 10;
+    
+    /**
+     * The maximum number of consecutive backoffs before compaction proceeds anyway.
+     */
+    public final static int BACKOFF_MAX = 100;
+    
+    /**
+     * Read latency samples older than 1 second are considered stale (i.e. no foreground load).
+     */
+    private final static long SAMPLE_EXPIRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private final int _rateLimitMB;
+    private final int _backoffLatencyMicros;
+    private final long _backoffLatencyNanos;
+    private final RateLimiter _rateLimiter;
+    
+    private volatile long _readLatencyNanos = 0;
+    private volatile long _readSampleTime = 0;
+    private volatile long _lastCycleTimeMillis = 0;
+    
+    private final AtomicLong _cycles = new AtomicLong(0);
+    private final AtomicLong _segmentsCompacted = new AtomicLong(0);
+    private final AtomicLong _bytesTransferred = new AtomicLong(0);
+    private final AtomicLong _throttleNanos = new AtomicLong(0);
+    private final AtomicLong _backoffCount = new AtomicLong(0);
+    private final AtomicInteger _blockedWriters = new AtomicInteger(0);
+    
+    /**
+     * Creates a CompactionScheduler with unlimited I/O and no backoff.
+     */
+    public CompactionScheduler() {
+        this(StoreParams.SEGMENT_COMPACT_RATE_MB_DEFAULT, StoreParams.SEGMENT_COMPACT_BACKOFF_LATENCY_DEFAULT);
+    }
+    
+    /**
+     * Creates a CompactionScheduler based on the specified store parameters.
+     * 
+     * @param params - the store parameters
+     */
+    public CompactionScheduler(StoreParams params) {
+        this(params.getSegmentCompactRateMB(), params.getSegmentCompactBackoffLatency());
+    }
+    
+    /**
+     * Creates a CompactionScheduler.
+     * 
+     * @param rateLimitMB          - the maximum compaction rate in MB per second, 0 for unlimited.
+     * @param backoffLatencyMicros - the read latency in microseconds above which compaction backs off, 0 for no backoff.
+     */
+    public CompactionScheduler(int rateLimitMB, int backoffLatencyMicros) {
+        this._rateLimitMB = Math.max(0, rateLimitMB);
+        this._backoffLatencyMicros = Math.max(0, backoffLatencyMicros);
+        this._backoffLatencyNanos = TimeUnit.MICROSECONDS.toNanos(_backoffLatencyMicros);
+        this._rateLimiter = new RateLimiter(((long)_rateLimitMB) << 20);
+    }
+    
+    /**
+     * Checks whether foreground read latency needs to be sampled.
+     */
+    public final boolean isLatencyTracked() {
+        return _backoffLatencyNanos > 0;
+    }
+    
+    /**
+     * Records a sampled foreground read latency.
+     * 
+     * @param nanos - the read latency in nanoseconds
+     */
+    public void recordReadLatency(long nanos) {
+        // Exponentially weighted moving average with a weight of 1/8
+        long avg = _readLatencyNanos;
+        _readLatencyNanos = avg + ((nanos - avg) >> 3);
+        _readSampleTime = System.nanoTime();
+    }
+    
+    /**
+     * Checks whether compaction should back off in favor of foreground reads.
+     */
+    protected boolean shouldBackoff() {
+        if(_backoffLatencyNanos <= 0) {
+            return false;
+        }
+        
+        return _readLatencyNanos > _backoffLatencyNanos &&
+               (System.nanoTime() - _readSampleTime) < SAMPLE_EXPIRY_NANOS;
+    }
+    
+    /**
+     * Called when a writer starts waiting for compaction to free segments.
+     * Compaction runs unthrottled until {@link #writerUnblocked()} is called.
+     */
+    public void writerBlocked() {
+        _blockedWriters.incrementAndGet();
+    }
+    
+    /**
+     * Called when a writer stops waiting for compaction to free segments.
+     */
+    public void writerUnblocked() {
+        _blockedWriters.decrementAndGet();
+    }
+    
+    /**
+     * Checks whether a writer is blocked waiting for compaction to free segments.
+     */
+    public final boolean isWriterBlocked() {
+        return _blockedWriters.get() > 0;
+    }
+    
+    /**
+     * Charges the specified number of bytes to the compaction I/O budget. This method blocks
+     * while foreground read latency is high (up to {@link #BACKOFF_MAX} backoffs) and until
+     * the I/O budget allows the specified bytes, unless a writer is blocked waiting for
+     * compaction to free segments.
+     * 
+     * @param bytes - the number of bytes to read or write
+     */
+    public void acquire(long bytes) {
+        if(bytes <= 0) return;
+        
+        try {
+            for(int i = 0; i < BACKOFF_MAX && !isWriterBlocked() && shouldBackoff(); i++) {
+                _backoffCount.incrementAndGet();
+                Thread.sleep(BACKOFF_MILLIS);
+                _throttleNanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(BACKOFF_MILLIS));
+            }
+            
+            if(!isWriterBlocked()) {
+                // Wait in slices so that a newly blocked writer stops the wait
+                long waitNanos = _rateLimiter.reserve(bytes);
+                long sliceNanos = TimeUnit.MILLISECONDS.toNanos(BACKOFF_MILLIS);
+                while(waitNanos > 0 && !isWriterBlocked()) {
+                    long nanos = Math.min(waitNanos, sliceNanos);
+                    TimeUnit.NANOSECONDS.sleep(nanos);
+                    _throttleNanos.addAndGet(nanos);
+                    waitNanos -= nanos;
+                }
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        _bytesTransferred.addAndGet(bytes);
+    }
+    
+    /**
+     * Estimates the reclaimable bytes per byte of I/O for compacting the specified segment.
+     * 
+     * @param seg         - the segment to compact
+     * @param sibFound    - whether the segment index buffer of the segment is available
+     * @param indexLength - the length of the address array to scan without segment index buffer
+     * @return the reclaim efficiency of the specified segment.
+     */
+    public double getReclaimEfficiency(Segment seg, boolean sibFound, int indexLength) {
+        long loadSize = Math.max(0, seg.getLoadSize());
+        long reclaimable = Math.max(0, seg.getInitialSize() - loadSize);
+        
+        // Live data is copied from the source to the target
+        long cost = loadSize << 1;
+        
+        // Without segment index buffer, the whole address array is scanned
+        if(!sibFound) {
+            cost += ((long)indexLength) << 3;
+        }
+        
+        // Segments not readable from buffer are loaded in full
+        if(!seg.canReadFromBuffer() && seg.getLoadFactor() > 0.1) {
+            cost += seg.getInitialSize();
+        }
+        
+        return reclaimable / (double)Math.max(1, cost);
+    }
+    
+    /**
+     * Called when a compaction cycle with eligible segments is started.
+     */
+    protected void cycleStarted() {
+        _cycles.incrementAndGet();
+    }
+    
+    /**
+     * Called when a compaction cycle is done.
+     * 
+     * @param elapsedMillis - the elapsed time of the cycle in milliseconds
+     */
+    protected void cycleDone(long elapsedMillis) {
+        _lastCycleTimeMillis = elapsedMillis;
+    }
+    
+    /**
+     * Called when a segment is compacted successfully.
+     */
+    protected void segmentCompacted() {
+        _segmentsCompacted.incrementAndGet();
+    }
+    
+    @Override
+    public long getCompactionCycles() {
+        return _cycles.get();
+    }
+    
+    @Override
+    public long getSegmentsCompacted() {
+        return _segmentsCompacted.get();
+    }
+    
+    @Override
+    public long getBytesTransferred() {
+        return _bytesTransferred.get();
+    }
+    
+    @Override
+    public long getThrottleTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(_throttleNanos.get());
+    }
+    
+    @Override
+    public long getBackoffCount() {
+        return _backoffCount.get();
+    }
+    
+    @Override
+    public long getLastCycleTimeMillis() {
+        return _lastCycleTimeMillis;
+    }
+    
+    @Override
+    public long getReadLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(_readLatencyNanos);
+    }
+    
+    @Override
+    public int getRateLimitMB() {
+        return _rateLimitMB;
+    }
+    
+    @Override
+    public int getBackoffLatencyMicros() {
+        return _backoffLatencyMicros;
+    }
+}
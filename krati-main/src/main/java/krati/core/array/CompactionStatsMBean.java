@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.core.array;
+
+/**
+ * CompactionStatsMBean exposes the statistics of segment compaction in the JMX standard MBean style.
+ * 
+ * @since 0.4.9
+ */
+public interface CompactionStatsMBean {
+    
+    /**
+     * Gets the number of compaction cycles that found segments eligible for compaction.
+     */
+    public long getCompactionCycles();
+    
+    /**
+     * Gets the number of segments compacted successfully.
+     */
+    public long getSegmentsCompacted();
+    
+    /**
+     * Gets the number of bytes read and written by compaction and charged to the I/O budget.
+     */
+    public long getBytesTransferred();
+    
+    /**
+     * Gets the total time in milliseconds compaction waited for the I/O budget.
+     */
+    public long getThrottleTimeMillis();
+    
+    /**
+     * Gets the number of times compaction backed off due to high read latency.
+     */
+    public long getBackoffCount();
+    
+    /**
+     * Gets the elapsed time in milliseconds of the last compaction cycle.
+     */
+    public long getLastCycleTimeMillis();
+    
+    /**
+     * Gets the moving average of sampled read latency in microseconds.
+     */
+    public long getReadLatencyMicros();
+    
+    /**
+     * Gets the maximum compaction rate in MB per second, 0 for unlimited.
+     */
+    public int getRateLimitMB();
+    
+    /**
+     * Gets the read latency in microseconds above which compaction backs off, 0 for no backoff.
+     */
+    public int getBackoffLatencyMicros();
+}
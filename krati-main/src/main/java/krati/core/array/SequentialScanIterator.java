@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.core.array;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import org.apache.log4j.Logger;
+
+import krati.core.segment.AbstractSegment;
+import krati.core.segment.AddressFormat;
+import krati.core.segment.Segment;
+import krati.core.segment.SegmentManager;
+import krati.util.IndexedIterator;
+
+/**
+ * SequentialScanIterator iterates over the data in a range of indexes of a {@link SimpleDataArray}
+ * in the order of segment and segment offset rather than in the order of index.
+ * 
+ * <p>
+ * Indexes are processed in batches. The addresses of a batch are grouped by segment and sorted by
+ * segment offset. Each segment is then read front to back through a large read-ahead buffer, which
+ * is filled with runs of nearby records in one read. Every record is validated against the current
+ * address of its index and re-read by index if it has been changed by writers or the compactor.
+ * The indexes of a batch without data at collection time are checked again after the data of the batch,
+ * so that data moved from a collected index into an empty index of the same batch (e.g. a bucket split)
+ * is not missed. So each index in the range is visited exactly once, in no particular order.
+ * 
+ * @since 0.4.9
+ */
+public final class SequentialScanIterator implements IndexedIterator<Entry<Integer, byte[]>> {
+    private final static Logger _log = Logger.getLogger(SequentialScanIterator.class);
+    
+    /**
+     * The default number of indexes in a batch.
+     */
+    public final static int BATCH_SIZE_DEFAULT = 1 << 20;
+    
+    /**
+     * The default size of the read-ahead buffer.
+     */
+    public final static int READ_AHEAD_SIZE_DEFAULT = 4 << 20;
+    
+    /**
+     * The largest gap between two records read into the read-ahead buffer in one run.
+     * Beyond this gap, a separate read is cheaper than reading through unused bytes.
+     */
+    private final static int READ_AHEAD_GAP = 64 << 10;
+    
+    private final SimpleDataArray _dataArray;
+    private final SegmentManager _segmentManager;
+    private final AddressFormat _addressFormat;
+    private final int _indexEnd;
+    private final int _batchSize;
+    private final ByteBuffer _readAhead;
+    
+    // The start index of the next batch
+    private int _batchIndex;
+    
+    // The index of the last returned data
+    private int _index;
+    
+    // The current batch of (offset << 32 | index) grouped by segment and sorted by offset
+    private long[] _batch;
+    private int[] _batchSegments;
+    private int[] _batchEnds;
+    private int _batchSegmentCount;
+    private int _segmentCursor;
+    private int _cursor;
+    
+    // The indexes of the current batch without data at collection time
+    private int[] _batchEmpty;
+    private int _batchEmptyCount;
+    private int _emptyCursor;
+    
+    // The segment and the range of the read-ahead buffer
+    private Segment _readAheadSegment;
+    private int _readAheadStart;
+    private int _readAheadEnd;
+    
+    private Entry<Integer, byte[]> _next;
+    
+    /**
+     * Creates a new SequentialScanIterator with the default batch size and read-ahead size.
+     * 
+     * @param dataArray  - the data array to scan
+     * @param indexStart - the start index (inclusive)
+     * @param indexEnd   - the end index (exclusive)
+     */
+    public SequentialScanIterator(SimpleDataArray dataArray, int indexStart, int indexEnd) {
+        this(dataArray, indexStart, indexEnd, BATCH_SIZE_DEFAULT, READ_AHEAD_SIZE_DEFAULT);
+    }
+    
+    /**
+     * Creates a new SequentialScanIterator.
+     * 
+     * @param dataArray     - the data array to scan
+     * @param indexStart    - the start index (inclusive)
+     * @param indexEnd      - the end index (exclusive)
+     * @param batchSize     - the number of indexes in a batch
+     * @param readAheadSize - the size of the read-ahead buffer in bytes
+     */
+    public SequentialScanIterator(SimpleDataArray dataArray, int indexStart, int indexEnd, int batchSize, int readAheadSize) {
+        if(batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batchSize: " + batchSize);
+        }
+        if(readAheadSize < 1024) {
+            throw new IllegalArgumentException("Invalid readAheadSize: " + readAheadSize);
+        }
+        
+        this._dataArray = dataArray;
+        this._segmentManager = dataArray.getSegmentManager();
+        this._addressFormat = dataArray.getAddressFormat();
+        this._indexEnd = indexEnd;
+        this._batchSize = batchSize;
+        this._readAhead = ByteBuffer.allocate(readAheadSize);
+        this.reset(indexStart);
+    }
+    
+    /**
+     * @return the index of the data last returned by {@link #next()}.
+     */
+    @Override
+    public int index() {
+        return _index;
+    }
+    
+    /**
+     * Restarts this iterator at the specified start index.
+     */
+    @Override
+    public void reset(int indexStart) {
+        _batchIndex = Math.max(0, indexStart);
+        _index = _batchIndex;
+        _batchSegmentCount = 0;
+        _segmentCursor = 0;
+        _cursor = 0;
+        _batchEmptyCount = 0;
+        _emptyCursor = 0;
+        _readAheadSegment = null;
+        _next = null;
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if(_next == null) {
+            _next = findNext();
+        }
+        return _next != null;
+    }
+    
+    @Override
+    public Entry<Integer, byte[]> next() {
+        if(hasNext()) {
+            Entry<Integer, byte[]> ret = _next;
+            _next = null;
+            _index = ret.getKey();
+            return ret;
+        }
+        
+        throw new NoSuchElementException();
+    }
+    
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+    
+    private Entry<Integer, byte[]> findNext() {
+        while(true) {
+            while(_segmentCursor < _batchSegmentCount) {
+                int end = _batchEnds[_segmentCursor];
+                int segId = _batchSegments[_segmentCursor];
+                
+                while(_cursor < end) {
+                    int pos = _cursor++;
+                    int index = (int)_batch[pos];
+                    byte[] data = read(segId, (int)(_batch[pos] >>> 32), index);
+                    if(data != null) {
+                        return new SimpleEntry<Integer, byte[]>(index, data);
+                    }
+                }
+                
+                _segmentCursor++;
+            }
+            
+            // Check indexes which may have been filled after the batch was collected
+            while(_emptyCursor < _batchEmptyCount) {
+                int index = _batchEmpty[_emptyCursor++];
+                if(_addressFormat.getOffset(_dataArray.getAddress(index)) >= Segment.dataStartPosition) {
+                    byte[] data = _dataArray.get(index);
+                    if(data != null) {
+                        return new SimpleEntry<Integer, byte[]>(index, data);
+                    }
+                }
+            }
+            
+            if(!nextBatch()) {
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Collects the next batch of indexes. The indexes with data are grouped by segment and sorted by segment offset.
+     * 
+     * @return <code>false</code> if there are no more indexes.
+     */
+    private boolean nextBatch() {
+        _batchSegmentCount = 0;
+        _segmentCursor = 0;
+        _cursor = 0;
+        _batchEmptyCount = 0;
+        _emptyCursor = 0;
+        
+        // The end index is checked against the current length of a growing array
+        int indexEnd = Math.min(_indexEnd, _dataArray.length());
+        if(_batch == null) {
+            _batch = new long[Math.min(_batchSize, Math.max(indexEnd - _batchIndex, 1))];
+            _batchEmpty = new int[_batch.length];
+        }
+        
+        // Collect addresses and count them by segment
+        int cnt = 0;
+        int[] counts = new int[_segmentManager.getSegmentCount() + 1];
+        int[] segments = new int[_batch.length];
+        while(_batchIndex < indexEnd && (cnt + _batchEmptyCount) < _batch.length) {
+            int index = _batchIndex++;
+            long address = _dataArray.getAddress(index);
+            int offset = _addressFormat.getOffset(address);
+            if(offset < Segment.dataStartPosition) {
+                _batchEmpty[_batchEmptyCount++] = index;
+                continue;
+            }
+            
+            int segId = _addressFormat.getSegment(address);
+            if(segId >= counts.length) {
+                counts = Arrays.copyOf(counts, segId + 1);
+            }
+            counts[segId]++;
+            segments[cnt] = segId;
+            _batch[cnt++] = ((long)offset << 32) | index;
+        }
+        
+        if(cnt == 0) {
+            return _batchEmptyCount > 0;
+        }
+        
+        // Group by segment
+        int[] starts = new int[counts.length];
+        int segCnt = 0;
+        for(int segId = 0, start = 0; segId < counts.length; segId++) {
+            starts[segId] = start;
+            start += counts[segId];
+            if(counts[segId] > 0) segCnt++;
+        }
+        
+        long[] grouped = new long[cnt];
+        for(int i = 0; i < cnt; i++) {
+            grouped[starts[segments[i]]++] = _batch[i];
+        }
+        System.arraycopy(grouped, 0, _batch, 0, cnt);
+        
+        // Sort each segment by offset
+        _batchSegments = new int[segCnt];
+        _batchEnds = new int[segCnt];
+        for(int segId = 0, start = 0; segId < counts.length; segId++) {
+            if(counts[segId] > 0) {
+                int end = start + counts[segId];
+                Arrays.sort(_batch, start, end);
+                _batchSegments[_batchSegmentCount] = segId;
+                _batchEnds[_batchSegmentCount] = end;
+                _batchSegmentCount++;
+                start = end;
+            }
+        }
+        
+        _readAheadSegment = null;
+        return true;
+    }
+    
+    /**
+     * Reads the data of the specified index at the specified segment offset.
+     * 
+     * @return the data, or <code>null</code> if the index has no data.
+     */
+    private byte[] read(int segId, int offset, int index) {
+        long address = _dataArray.getAddress(index);
+        
+        // The index was updated after the batch was collected
+        if(_addressFormat.getOffset(address) != offset || _addressFormat.getSegment(address) != segId) {
+            return _dataArray.get(index);
+        }
+        
+        byte[] data = null;
+        try {
+            Segment seg = _segmentManager.getSegment(segId);
+            if(seg != null) {
+                int size = _addressFormat.getDataSize(address);
+                data = seg.canReadFromBuffer() ? readDirect(seg, offset, size) : readAhead(seg, offset, size);
+            }
+        } catch(Exception e) {
+            _log.warn(e.getMessage());
+        }
+        
+        // Re-read if the address has been changed by writers or the compactor
+        return (data == null || address != _dataArray.getAddress(index)) ? _dataArray.get(index) : data;
+    }
+    
+    private byte[] readDirect(Segment seg, int offset, int size) throws Exception {
+        int len = (size == 0) ? seg.readInt(offset) : size;
+        byte[] data = new byte[len];
+        if(len > 0) {
+            seg.read(offset + 4, data);
+        }
+        return data;
+    }
+    
+    private byte[] readAhead(Segment seg, int offset, int size) throws Exception {
+        if(!isReadAhead(seg, offset, 4 + size)) {
+            fillReadAhead(seg, offset);
+            if(!isReadAhead(seg, offset, 4 + size)) {
+                return readDirect(seg, offset, size);
+            }
+        }
+        
+        int pos = offset - _readAheadStart;
+        int len = (size == 0) ? _readAhead.getInt(pos) : size;
+        if(!isReadAhead(seg, offset, 4 + len)) {
+            return readDirect(seg, offset, size);
+        }
+        
+        byte[] data = new byte[len];
+        System.arraycopy(_readAhead.array(), pos + 4, data, 0, len);
+        return data;
+    }
+    
+    private boolean isReadAhead(Segment seg, int offset, int length) {
+        return _readAheadSegment == seg && _readAheadStart <= offset && (offset + length) <= _readAheadEnd;
+    }
+    
+    /**
+     * Fills the read-ahead buffer with the run of records starting at the specified offset,
+     * which ends at the first gap larger than <code>READ_AHEAD_GAP</code> between records.
+     */
+    private void fillReadAhead(Segment seg, int offset) throws Exception {
+        _readAheadSegment = null;
+        
+        // The last byte of a segment at the maximum size is not readable
+        long limit = Math.min((long)offset + _readAhead.capacity(), seg.getInitialSize() - 1);
+        long end = offset + 4;
+        for(int i = _cursor - 1, batchEnd = _batchEnds[_segmentCursor]; i < batchEnd; i++) {
+            long recordOffset = _batch[i] >>> 32;
+            if(recordOffset - end > READ_AHEAD_GAP) {
+                break;
+            }
+            
+            int size = _addressFormat.getDataSize(_dataArray.getAddress((int)_batch[i]));
+            long recordEnd = recordOffset + 4 + ((size == 0) ? READ_AHEAD_GAP : size);
+            if(recordEnd > limit) {
+                end = limit;
+                break;
+            }
+            end = Math.max(end, recordEnd);
+        }
+        
+        _readAhead.clear();
+        _readAhead.limit((int)(Math.min(end, limit) - offset));
+        AbstractSegment.read(seg, offset, _readAhead);
+        
+        _readAheadSegment = seg;
+        _readAheadStart = offset;
+        _readAheadEnd = offset + _readAhead.position();
+    }
+}
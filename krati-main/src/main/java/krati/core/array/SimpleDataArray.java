@@ -18,7 +18,10 @@ package krati.core.array;
 
 import java.io.IOException;
 import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
 
 import krati.core.StoreParams;
 import org.apache.log4j.Logger;
@@ -29,6 +32,7 @@ import krati.PersistableListener;
 import krati.array.Array;
 import krati.array.DataArray;
 import krati.core.array.SimpleDataArrayCompactor.CompactionUpdateBatch;
+import krati.core.array.basic.RecoverableArray;
 import krati.core.array.entry.Entry;
 import krati.core.array.entry.EntryPersistAdapter;
 import krati.core.array.entry.EntryValue;
@@ -39,6 +43,7 @@ import krati.core.segment.SegmentIndexBuffer;
 import krati.core.segment.SegmentManager;
 import krati.core.segment.SegmentOverflowException;
 import krati.io.Closeable;
+import krati.metrics.StoreMetrics;
 
 /**
  * SimpleDataArray provides an array like interface to <code>get</code> and <code>set</code>
@@ -67,6 +72,13 @@ import krati.io.Closeable;
  * 06/11, 2012 - Simplified compaction update <br/>
  * 08/31, 2012 - Enabled segment index buffer <br/>
  * 09/09, 2012 - Removed throttling as compaction is efficient with SIB <br/>
+ * 10/17, 2026 - Added append lock for concurrent writers <br/>
+ * 10/17, 2026 - Added method getAll(int[]) for batch reads <br/>
+ * 10/17, 2026 - Added method getSegment(long) for in-place reads <br/>
+ * 10/17, 2026 - Added store metrics <br/>
+ * 10/17, 2026 - Added read-only mode <br/>
+ * 10/17, 2026 - Added sequential iterator in the order of segment and segment offset <br/>
+ * 10/17, 2026 - Count sampled reads per thread <br/>
  */
 public class SimpleDataArray implements DataArray, Persistable, Closeable {
     private final static Logger _log = Logger.getLogger(SimpleDataArray.class);
@@ -102,10 +114,15 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
     private volatile Segment _segment;
     
     /**
-     * The mode can only be <code>Mode.INIT</code>, <code>Mode.OPEN</code> and <code>Mode.CLOSED</code>.
+     * The mode can only be <code>Mode.INIT</code>, <code>Mode.OPEN</code>, <code>Mode.OPEN_FOR_READ</code> and <code>Mode.CLOSED</code>.
      */
     private volatile Mode _mode = Mode.INIT;
     
+    /**
+     * Whether this SimpleDataArray is opened for read-only operations, i.e. without compactor and writer segment.
+     */
+    private final boolean _readOnly;
+    
     /**
      * Current working segment index buffer.
      */
@@ -121,6 +138,11 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
      */
     private volatile PersistableListener _listener = null;
     
+    /**
+     * The store metrics, which is disabled by default.
+     */
+    private volatile StoreMetrics _metrics = StoreMetrics.DISABLED;
+    
     /**
      * The high water mark set so far.
      */
@@ -131,6 +153,31 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
      */
     volatile long _hwmGet = 0;
     
+    /**
+     * Read latency is sampled once every 16 reads.
+     */
+    private final static int READ_SAMPLE_MASK = 15;
+    
+    /**
+     * The maximum time in milliseconds a writer blocked on free segments waits for the next compaction batch.
+     */
+    private final static long COMPACTION_WAIT_MILLIS = 10;
+    
+    /**
+     * The per-thread number of reads for sampling read latency, so that reads write no shared state.
+     */
+    private final static ThreadLocal<int[]> _readCount = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+    
+    /**
+     * The lock for serializing appends from concurrent writers.
+     */
+    private final ReentrantLock _appendLock = new ReentrantLock();
+    
     /**
      * Constructs a DataArray with Segment Compact Factor default to 0.5. 
      * 
@@ -151,20 +198,69 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
     public SimpleDataArray(AddressArray addressArray,
                            SegmentManager segmentManager,
                            double segmentCompactFactor) {
+        this(addressArray, segmentManager, segmentCompactFactor, StoreParams.SEGMENT_COMPACT_PARALLELISM_DEFAULT);
+    }
+    
+    /**
+     * Constructs a DataArray based on the specified store parameters for Segment compaction.
+     * 
+     * @param addressArray           the array of addresses (i.e. pointers to Segment).
+     * @param segmentManager         the segment manager for loading, creating, freeing, maintaining segments.
+     * @param params                 the store parameters.
+     */
+    public SimpleDataArray(AddressArray addressArray,
+                           SegmentManager segmentManager,
+                           StoreParams params) {
+        this(addressArray, segmentManager, params.getSegmentCompactFactor(), params.getSegmentCompactParallelism(), params.isReadOnly());
+        this.setCompactionScheduler(new CompactionScheduler(params));
+    }
+    
+    /**
+     * Constructs a DataArray.
+     * 
+     * @param addressArray              the array of addresses (i.e. pointers to Segment).
+     * @param segmentManager            the segment manager for loading, creating, freeing, maintaining segments.
+     * @param segmentCompactFactor      the load factor below which a segment is eligible for compaction. The recommended value is 0.5.
+     * @param segmentCompactParallelism the number of segment compactions running concurrently.
+     */
+    public SimpleDataArray(AddressArray addressArray,
+                           SegmentManager segmentManager,
+                           double segmentCompactFactor,
+                           int segmentCompactParallelism) {
+        this(addressArray, segmentManager, segmentCompactFactor, segmentCompactParallelism, false);
+    }
+    
+    /**
+     * Constructs a DataArray.
+     * 
+     * @param addressArray              the array of addresses (i.e. pointers to Segment).
+     * @param segmentManager            the segment manager for loading, creating, freeing, maintaining segments.
+     * @param segmentCompactFactor      the load factor below which a segment is eligible for compaction. The recommended value is 0.5.
+     * @param segmentCompactParallelism the number of segment compactions running concurrently.
+     * @param readOnly                  whether to open for read-only operations without compactor and writer segment.
+     */
+    public SimpleDataArray(AddressArray addressArray,
+                           SegmentManager segmentManager,
+                           double segmentCompactFactor,
+                           int segmentCompactParallelism,
+                           boolean readOnly) {
         this._addressArray = addressArray;
         this._segmentManager = segmentManager;
         this._segmentCompactFactor = segmentCompactFactor;
         this._addressFormat = new AddressFormat();
+        this._readOnly = readOnly;
         
         // Add segment persist listener
         addressArray.setPersistListener(new SegmentPersistListener());
         
         // Start segment data compactor
-        _compactor = new SimpleDataArrayCompactor(this, getSegmentCompactFactor());
-        _compactor.start();
+        _compactor = new SimpleDataArrayCompactor(this, getSegmentCompactFactor(), 1000, segmentCompactParallelism);
+        if(!_readOnly) {
+            _compactor.start();
+        }
         
         this.init();
-        this._mode = Mode.OPEN;
+        this._mode = _readOnly ? Mode.OPEN_FOR_READ : Mode.OPEN;
         _log.info("mode=" + _mode);
     }
     
@@ -298,6 +394,11 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
      * Initialize this SimpleDataArray after it is instantiated. 
      */
     protected void init() {
+        if(_readOnly) {
+            _log.info("Read-only: no segment online");
+            return;
+        }
+        
         try {
             // Initialize the current working segment
             _segment = _segmentManager.nextSegment();
@@ -327,6 +428,49 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
         return _addressArray;
     }
     
+    /**
+     * Creates an iterator over all data in the order of segment and segment offset.
+     * 
+     * @see SequentialScanIterator
+     */
+    public SequentialScanIterator sequentialIterator() {
+        return new SequentialScanIterator(this, 0, length());
+    }
+    
+    /**
+     * Creates an iterator over data at the specified range of indexes in the order of segment and segment offset.
+     * 
+     * @param indexStart - the start index (inclusive)
+     * @param indexEnd   - the end index (exclusive)
+     * @see SequentialScanIterator
+     */
+    public SequentialScanIterator sequentialIterator(int indexStart, int indexEnd) {
+        return new SequentialScanIterator(this, indexStart, indexEnd);
+    }
+    
+    /**
+     * Gets the lock which concurrent writers must hold while appending data to this SimpleDataArray.
+     * The writes to this SimpleDataArray remain single-threaded. This lock only allows callers to
+     * serialize calls to the methods <code>set</code>, <code>sync</code> and <code>persist</code>
+     * and the generation of SCNs without synchronizing on their own monitors.
+     */
+    public final ReentrantLock getAppendLock() {
+        return _appendLock;
+    }
+    
+    /**
+     * Gets the Segment which holds data at the specified address.
+     * 
+     * @param address - the data address
+     * @return the Segment or <code>null</code> if no data is found at the address.
+     */
+    public final Segment getSegment(long address) {
+        int segPos = _addressFormat.getOffset(address);
+        if(segPos < Segment.dataStartPosition) return null;
+        
+        return _segmentManager.getSegment(_addressFormat.getSegment(address));
+    }
+    
     /**
      * Gets the address (long value) at the specified array index.
      * 
@@ -371,6 +515,44 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
         return _segmentCompactFactor;
     }
     
+    /**
+     * Gets the scheduler which paces Segment compaction and collects compaction stats.
+     */
+    public CompactionScheduler getCompactionScheduler() {
+        return _compactor.getScheduler();
+    }
+    
+    /**
+     * Sets the scheduler which paces Segment compaction and collects compaction stats.
+     * 
+     * @param scheduler - the compaction scheduler
+     */
+    public void setCompactionScheduler(CompactionScheduler scheduler) {
+        _compactor.setScheduler(scheduler);
+    }
+    
+    /**
+     * Gets the store metrics to which this SimpleDataArray reports.
+     */
+    public StoreMetrics getMetrics() {
+        return _metrics;
+    }
+    
+    /**
+     * Sets the store metrics to which this SimpleDataArray, its Segment manager, compactor
+     * and the redo entry manager of its address array report.
+     * 
+     * @param metrics - the store metrics
+     */
+    public void setMetrics(StoreMetrics metrics) {
+        this._metrics = (metrics == null) ? StoreMetrics.DISABLED : metrics;
+        _compactor.setMetrics(_metrics);
+        _segmentManager.setMetrics(_metrics);
+        if(_addressArray instanceof RecoverableArray) {
+            ((RecoverableArray<?>)_addressArray).getEntryManager().setMetrics(_metrics);
+        }
+    }
+    
     /**
      * Gets the Segment manager, which manages Segments and the meta data associated with Segments.
      */
@@ -481,34 +663,112 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
         rangeCheck(index);
         
         try {
-            long address = getAddress(index);
-            int segPos = _addressFormat.getOffset(address);
-            int segInd = _addressFormat.getSegment(address);
-            
-            // no data found
-            if(segPos < Segment.dataStartPosition) return null;
-            
-            // get data segment
-            Segment seg = _segmentManager.getSegment(segInd);
-            if(seg == null) return null;
-            
-            // read data length
-            int size = _addressFormat.getDataSize(address);
-            int len = (size == 0) ? seg.readInt(segPos) : size;
-            
-            // read data into byte array
-            byte[] data = new byte[len];
-            if (len > 0) {
-                seg.read(segPos + 4, data);
+            // Sample read latency for the compaction scheduler
+            CompactionScheduler scheduler = _compactor.getScheduler();
+            if(scheduler.isLatencyTracked() && (++_readCount.get()[0] & READ_SAMPLE_MASK) == 0) {
+                long startTime = System.nanoTime();
+                byte[] data = read(getAddress(index));
+                scheduler.recordReadLatency(System.nanoTime() - startTime);
+                return data;
             }
             
-            return data;
+            return read(getAddress(index));
         } catch(Exception e) {
             _log.warn(e.getMessage());
             return null;
         }
     }
     
+    /**
+     * Gets data at the specified array indexes in one batch. The addresses of all indexes are
+     * resolved first and data is then read in the order of segment and segment offset so that
+     * the underlying segments are accessed sequentially rather than randomly.
+     * 
+     * @param indexes - the array indexes
+     * @return an array of data bytes in the order of the specified <code>indexes</code>.
+     *         The element is <code>null</code> if no data is found at the corresponding index.
+     * @throws ArrayIndexOutOfBoundsException if any index is out of range.
+     */
+    public byte[][] getAll(int[] indexes) {
+        final int cnt = indexes.length;
+        final long[] addresses = new long[cnt];
+        final byte[][] results = new byte[cnt][];
+        
+        // Resolve addresses
+        Integer[] order = new Integer[cnt];
+        for(int i = 0; i < cnt; i++) {
+            rangeCheck(indexes[i]);
+            addresses[i] = getAddress(indexes[i]);
+            order[i] = i;
+        }
+        
+        // Sort by segment and segment offset
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                long addr1 = addresses[i1];
+                long addr2 = addresses[i2];
+                
+                int seg1 = _addressFormat.getSegment(addr1);
+                int seg2 = _addressFormat.getSegment(addr2);
+                if(seg1 != seg2) {
+                    return seg1 < seg2 ? -1 : 1;
+                }
+                
+                int pos1 = _addressFormat.getOffset(addr1);
+                int pos2 = _addressFormat.getOffset(addr2);
+                return pos1 < pos2 ? -1 : (pos1 == pos2 ? 0 : 1);
+            }
+        });
+        
+        for(Integer i : order) {
+            int index = indexes[i];
+            
+            try {
+                results[i] = read(addresses[i]);
+            } catch(Exception e) {
+                _log.warn(e.getMessage());
+            }
+            
+            // Re-read if the address has been changed by writers or the compactor
+            if(addresses[i] != getAddress(index)) {
+                results[i] = get(index);
+            }
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Reads data bytes from the segment at the specified address.
+     * 
+     * @param address - the data address
+     * @return the data bytes or <code>null</code> if no data is found.
+     */
+    private byte[] read(long address) throws IOException {
+        int segPos = _addressFormat.getOffset(address);
+        int segInd = _addressFormat.getSegment(address);
+        
+        // no data found
+        if(segPos < Segment.dataStartPosition) return null;
+        
+        // get data segment
+        Segment seg = _segmentManager.getSegment(segInd);
+        if(seg == null) return null;
+        
+        // read data length
+        int size = _addressFormat.getDataSize(address);
+        int len = (size == 0) ? seg.readInt(segPos) : size;
+        
+        // read data into byte array
+        byte[] data = new byte[len];
+        if (len > 0) {
+            seg.read(segPos + 4, data);
+        }
+        
+        return data;
+    }
+    
     /**
      * Gets data at a given index.
      * 
@@ -724,6 +984,10 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
      */
     @Override
     public void set(int index, byte[] data, int offset, int length, long scn) throws Exception {
+        if(_readOnly) {
+            throw new UnsupportedOperationException("Read-only");
+        }
+        
         rangeCheck(index);
         decrOriginalSegmentLoad(index);
         
@@ -754,6 +1018,7 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
                 if (length > 0) {
                     _segment.append(data, offset, length);
                 }
+                _metrics.segmentAppended(length + 4);
                 
                 // update addressArray 
                 long address = _addressFormat.composeAddress((int)pos, _segment.getSegmentId(), length);
@@ -792,10 +1057,17 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
                         } else {
                             _log.trace("nextSegment permit refused");
                             
-                            // wait until compactor is done
+                            // wait until compactor is done, letting compaction run unthrottled meanwhile
                             long startTime = System.currentTimeMillis();
-                            while(_compactor.isStarted()) {
-                                consumeCompactionBatches();
+                            CompactionScheduler scheduler = _compactor.getScheduler();
+                            scheduler.writerBlocked();
+                            try {
+                                while(_compactor.isStarted()) {
+                                    consumeCompactionBatches();
+                                    _compactor.awaitCompactionBatch(COMPACTION_WAIT_MILLIS);
+                                }
+                            } finally {
+                                scheduler.writerUnblocked();
                             }
                             long elapsedTime = System.currentTimeMillis() - startTime;
                             _log.info("nextSegment compaction wait " + elapsedTime + " ms");
@@ -865,7 +1137,7 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
     
     @Override
     public synchronized void sync() throws IOException {
-        if(isOpen()) {
+        if(isOpen() && !_readOnly) {
             syncInternal();
         }
     }
@@ -893,7 +1165,7 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
     
     @Override
     public synchronized void persist() throws IOException {
-        if(isOpen()) {
+        if(isOpen() && !_readOnly) {
             syncCompactor();
             fireBeforePersist();
             
@@ -916,6 +1188,10 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
      */
     @Override
     public synchronized void clear() {
+        if(_readOnly) {
+            throw new UnsupportedOperationException("Read-only");
+        }
+        
         if(isOpen()) {
             _compactor.clear();
             _addressArray.clear();
@@ -941,16 +1217,18 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
             // THE CALLS ORDERED. 
             _compactor.shutdown();   // shutdown compactor
             
-            /* Call syncInternal() to force update changes accumulated in
-             * the last update batch and those generated by data compaction.
-             */
-            syncInternal();          // consume compaction batches generated during shutdown
-            
-            /* Submit the current segment index buffer before closing _segmentManager
-             * so that the last writer segment index buffer can be flushed to disk
-             * when _segmentManager.close() is being invoked.
-             */
-            submitSegmentIndexBuffer();
+            if(!_readOnly) {
+                /* Call syncInternal() to force update changes accumulated in
+                 * the last update batch and those generated by data compaction.
+                 */
+                syncInternal();      // consume compaction batches generated during shutdown
+                
+                /* Submit the current segment index buffer before closing _segmentManager
+                 * so that the last writer segment index buffer can be flushed to disk
+                 * when _segmentManager.close() is being invoked.
+                 */
+                submitSegmentIndexBuffer();
+            }
             
             _compactor.clear();      // cleanup compactor internal state
             _addressArray.close();   // close address array
@@ -971,17 +1249,19 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
      */
     @Override
     public synchronized void open() throws IOException {
-        if (_mode == Mode.OPEN) {
+        if (isOpen()) {
             return;
         }
         
         try {
             _addressArray.open();
             _segmentManager.open();
-            _compactor.start();
+            if(!_readOnly) {
+                _compactor.start();
+            }
             
             init();
-            _mode = Mode.OPEN;
+            _mode = _readOnly ? Mode.OPEN_FOR_READ : Mode.OPEN;
         } catch(Exception e) {
             _mode = Mode.CLOSED;
             _log.error("Failed to open", e);
@@ -1004,7 +1284,14 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
     
     @Override
     public boolean isOpen() {
-        return _mode == Mode.OPEN;
+        return _mode == Mode.OPEN || _mode == Mode.OPEN_FOR_READ;
+    }
+    
+    /**
+     * Tests whether this SimpleDataArray is opened for read-only operations.
+     */
+    public final boolean isReadOnly() {
+        return _readOnly;
     }
     
     /**
@@ -1053,7 +1340,7 @@ public class SimpleDataArray implements DataArray, Persistable, Closeable {
      * Enables the segment index buffer (SIB).
      */
     public final void setSibEnabled(boolean b) {
-        if(_sibEnabled != b) {
+        if(_sibEnabled != b && _sib != null) {
             _sib.markAsDirty();
         }
         _sibEnabled = b;
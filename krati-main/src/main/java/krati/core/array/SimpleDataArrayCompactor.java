@@ -24,13 +24,21 @@ import java.util.Comparator;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import krati.core.StoreParams;
@@ -41,6 +49,7 @@ import krati.core.segment.MemorySegment;
 import krati.core.segment.Segment;
 import krati.core.segment.SegmentIndexBuffer;
 import krati.core.segment.SegmentManager;
+import krati.metrics.StoreMetrics;
 import krati.util.Chronos;
 import krati.util.DaemonThreadFactory;
 
@@ -57,6 +66,15 @@ import krati.util.DaemonThreadFactory;
  * The <strong>compact</strong> transfers bytes from source segments to a target segment via zero-copy.
  * It batches compaction update records and sends them to the writer for post-processing. 
  * </p>
+ * <p>
+ * With a compaction parallelism greater than 1, the <strong>inspect</strong> splits source segments
+ * into up to <code>parallelism</code> groups, and each group is compacted concurrently into its own
+ * target segment with its own stream of compaction update batches.
+ * </p>
+ * <p>
+ * The {@link CompactionScheduler} ranks eligible segments by reclaimable bytes per I/O cost and
+ * paces the data transfer according to the I/O budget and the foreground read latency.
+ * </p>
  * 
  * @author jwu
  * 
@@ -66,12 +84,37 @@ import krati.util.DaemonThreadFactory;
  * 06/21, 2011 - Added support for tolerating compaction failure <br/>
  * 02/14, 2012 - Removed the delay of compaction <br/>
  * 06/11, 2012 - Simplified compaction update manager <br/>
+ * 10/17, 2026 - Added support for parallel compaction <br/>
+ * 10/17, 2026 - Added compaction scheduler for rate limiting and backoff <br/>
+ * 10/17, 2026 - Added metrics of compaction throughput <br/>
+ * 10/17, 2026 - Shared a bounded pool of segment buffers among parallel compactions <br/>
  */
 class SimpleDataArrayCompactor implements Runnable {
     private final static Logger _log = Logger.getLogger(SimpleDataArrayCompactor.class);
     private ExecutorService _executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+    private ExecutorService _workers = null;
     private SimpleDataArray _dataArray;
     
+    /**
+     * The number of segment groups compacted concurrently in a compaction cycle.
+     */
+    private final int _parallelism;
+    
+    /**
+     * The number of transferred bytes charged to the compaction I/O budget at a time.
+     */
+    private final static int THROTTLE_CHUNK_SIZE = 1 << 16;
+    
+    /**
+     * The scheduler for pacing compaction and collecting compaction stats.
+     */
+    private volatile CompactionScheduler _scheduler = new CompactionScheduler();
+    
+    /**
+     * The store metrics to which compaction throughput is reported.
+     */
+    private volatile StoreMetrics _metrics = StoreMetrics.DISABLED;
+    
     /**
      * Whether this compactor is enabled.
      */
@@ -93,10 +136,11 @@ class SimpleDataArrayCompactor implements Runnable {
     private volatile State _state = State.DONE;
     
     /**
-     * Reclaim segments in _segSourceList and transfer their content to _segTarget.
+     * Reclaim segments in _segSourceGroups.get(i) and transfer their content to _segTargets.get(i).
      */
-    private volatile Segment _segTarget;
+    private final AtomicReferenceArray<Segment> _segTargets;
     private final ArrayList<Segment> _segSourceList;
+    private final ArrayList<List<Segment>> _segSourceGroups;
     
     /**
      * Lock for synchronizing compactor executions.
@@ -105,8 +149,10 @@ class SimpleDataArrayCompactor implements Runnable {
     
     /**
      * Manage compaction updates that will be consumed by the writer.
+     * There is one update manager per target segment sharing the same service queue.
      */
     private final CompactionUpdateManager _updateManager;
+    private final CompactionUpdateManager[] _updateManagers;
     
     /**
      * The writer signals the compactor to start a new compaction cycle. 
@@ -142,9 +188,19 @@ class SimpleDataArrayCompactor implements Runnable {
     private final Set<Segment> _ignoredSegs = Collections.synchronizedSet(new HashSet<Segment>());
     
     /**
-     * A byte buffer from transferring bytes to a target segment. 
+     * The maximum number of source segments buffered on the heap at a time regardless of parallelism.
      */
-    private ByteBuffer _buffer = null;
+    final static int MAX_BUFFERED_SEGMENTS = 2;
+    
+    /**
+     * Byte buffers of one segment size for reading source segments, shared by concurrent compactions. 
+     */
+    private final ConcurrentLinkedQueue<ByteBuffer> _bufferPool = new ConcurrentLinkedQueue<ByteBuffer>();
+    
+    /**
+     * Permits for buffering source segments, which bound the number of byte buffers in the pool.
+     */
+    private final Semaphore _bufferPermits = new Semaphore(MAX_BUFFERED_SEGMENTS);
     
     /**
      * Constructs a DataArrayCompactor with the setting below:
@@ -187,10 +243,38 @@ class SimpleDataArrayCompactor implements Runnable {
      * @param compactBatchSize   the size of compaction updates delivered by the compactor to the writer. 
      */
     public SimpleDataArrayCompactor(SimpleDataArray dataArray, double compactLoadFactor, int compactBatchSize) {
+        this(dataArray, compactLoadFactor, compactBatchSize, 1);
+    }
+    
+    /**
+     * Constructs a DataArrayCompactor with a specified compact load factor, compact batch size and parallelism.
+     * <p>
+     * A segment is eligible for compaction only if its load factor is less than
+     * the user-specified compact load factor. Up to <code>parallelism</code> groups
+     * of segments are compacted concurrently, each into its own target segment.
+     * Up to {@link #MAX_BUFFERED_SEGMENTS} source segments are buffered on the heap
+     * at a time. Other concurrent compactions read source segments directly.
+     * </p>
+     * @param dataArray          the data array to compact
+     * @param compactLoadFactor  the load factor below which a segment is eligible for compaction
+     * @param compactBatchSize   the size of compaction updates delivered by the compactor to the writer.
+     * @param parallelism        the number of segment groups compacted concurrently.
+     */
+    public SimpleDataArrayCompactor(SimpleDataArray dataArray, double compactLoadFactor, int compactBatchSize, int parallelism) {
         this._dataArray = dataArray;
         this._compactLoadFactor = compactLoadFactor;
+        this._parallelism = Math.max(1, parallelism);
         this._segSourceList = new ArrayList<Segment>();
+        this._segSourceGroups = new ArrayList<List<Segment>>(_parallelism);
+        this._segTargets = new AtomicReferenceArray<Segment>(_parallelism);
+        
+        // Update managers share the service queue consumed by the writer
         this._updateManager = new CompactionUpdateManager(compactBatchSize);
+        this._updateManagers = new CompactionUpdateManager[_parallelism];
+        this._updateManagers[0] = _updateManager;
+        for(int i = 1; i < _parallelism; i++) {
+            _updateManagers[i] = new CompactionUpdateManager(compactBatchSize, _updateManager);
+        }
     }
     
     /**
@@ -201,16 +285,42 @@ class SimpleDataArrayCompactor implements Runnable {
     }
     
     /**
-     * A comparator for ordering Segments based on the Segment load factor.
+     * Gets the number of segment groups compacted concurrently.
      */
-    private static Comparator<Segment> _segmentLoadCmp = new Comparator<Segment>() {
-        @Override
-        public int compare(Segment s1, Segment s2) {
-            double load1 = s1.getLoadSize();
-            double load2 = s2.getLoadSize();
-            return (load1 < load2) ? -1 : ((load1 == load2) ? 0 : 1);
+    public int getParallelism() {
+        return this._parallelism;
+    }
+    
+    /**
+     * Gets the scheduler for pacing compaction.
+     */
+    public CompactionScheduler getScheduler() {
+        return _scheduler;
+    }
+    
+    /**
+     * Sets the scheduler for pacing compaction.
+     */
+    public void setScheduler(CompactionScheduler scheduler) {
+        if(scheduler == null) {
+            throw new NullPointerException("scheduler");
         }
-    };
+        this._scheduler = scheduler;
+    }
+    
+    /**
+     * Gets the store metrics to which compaction throughput is reported.
+     */
+    public StoreMetrics getMetrics() {
+        return _metrics;
+    }
+    
+    /**
+     * Sets the store metrics to which compaction throughput is reported.
+     */
+    public void setMetrics(StoreMetrics metrics) {
+        this._metrics = (metrics == null) ? StoreMetrics.DISABLED : metrics;
+    }
     
     /**
      * Flushes accumulated segment index buffers to disk.
@@ -242,8 +352,8 @@ class SimpleDataArrayCompactor implements Runnable {
     /**
      * Inspects and finds the most fragmented Segments for compaction.
      * <p>
-     * The number of Segments found for compaction is not greater than 3.
-     * In other words, each compaction cycle reclaims no more than 3 Segments. 
+     * The number of Segments found for compaction is not greater than 3 per target Segment.
+     * In other words, each compaction cycle reclaims no more than 3 Segments per parallelism. 
      * </p>
      * 
      * @return <code>true</code> is at least one Segment is found to be eligible for compaction.
@@ -276,23 +386,45 @@ class SimpleDataArrayCompactor implements Runnable {
                 return false;
             }
             
-            // Sort recycleList in ascending order of load size
-            Collections.sort(recycleList, _segmentLoadCmp);
+            // Sort recycleList in descending order of reclaimable bytes per I/O cost
+            final Map<Segment, Double> efficiencies = new IdentityHashMap<Segment, Double>();
+            final boolean sibEnabled = _dataArray.isSibEnabled();
+            final int indexLength = _dataArray.length();
+            for(Segment seg : recycleList) {
+                boolean sibFound = sibEnabled && segManager.hasSegmentIndexBuffer(seg.getSegmentId());
+                efficiencies.put(seg, _scheduler.getReclaimEfficiency(seg, sibFound, indexLength));
+            }
             
-            // Compact no more than 3 segments per compaction cycle.
-            // The total of segment load factors need to be less than
-            // 0.8 to allow 20% inaccuracy (for safety).
+            Collections.sort(recycleList, new Comparator<Segment>() {
+                @Override
+                public int compare(Segment s1, Segment s2) {
+                    return Double.compare(efficiencies.get(s2), efficiencies.get(s1));
+                }
+            });
+            
+            // Compact no more than 3 segments per target segment.
+            // The total of segment load factors per target need to be
+            // less than 0.8 to allow 20% inaccuracy (for safety).
             double totalFactor = 0;
-            for(int i = 0, len = Math.min(3, recycleList.size()); i < len; i++) {
-                Segment seg = recycleList.get(i);
-                if(totalFactor < 0.8) {
-                    totalFactor += Math.max(0, seg.getLoadFactor());
-                    if(totalFactor < 0.8) {
-                        _segSourceList.add(seg);
+            List<Segment> group = null;
+            for(Segment seg : recycleList) {
+                double factor = Math.max(0, seg.getLoadFactor());
+                if(group == null || group.size() >= 3 || totalFactor + factor >= 0.8) {
+                    if(_segSourceGroups.size() >= _parallelism) {
+                        break;
                     }
-                } else {
-                    break;
+                    if(factor >= 0.8) {
+                        continue;
+                    }
+                    
+                    group = new ArrayList<Segment>(3);
+                    _segSourceGroups.add(group);
+                    totalFactor = 0;
                 }
+                
+                totalFactor += factor;
+                group.add(seg);
+                _segSourceList.add(seg);
             }
             
             try {
@@ -302,10 +434,11 @@ class SimpleDataArrayCompactor implements Runnable {
             } catch(ConcurrentModificationException e) {
                 _segPermits.set(0);
                 _segSourceList.clear();
+                _segSourceGroups.clear();
                 return false;
             }
             
-            _segPermits.set(Math.max(_segSourceList.size() - 1, 0));
+            _segPermits.set(Math.max(_segSourceList.size() - _segSourceGroups.size(), 0));
             _log.info("inspect done");
             return true;
         }
@@ -316,7 +449,7 @@ class SimpleDataArrayCompactor implements Runnable {
     }
     
     /**
-     * Compacts a number of source fragmented Segments by moving data into a new target Segment.
+     * Compacts a number of source fragmented Segments by moving data into new target Segments.
      * 
      * @return <code>true</code> if this operation finished successfully. Otherwise, <code>false</code>.
      * 
@@ -325,40 +458,41 @@ class SimpleDataArrayCompactor implements Runnable {
     private boolean compact() throws IOException {
         try {
             final boolean sibEnabled = _dataArray.isSibEnabled();
-            _segTarget = _dataArray.getSegmentManager().nextSegment();
+            final int groupCnt = _segSourceGroups.size();
             
-            for(Segment seg : _segSourceList) {
-                if(!_enabled) {
-                    try {
-                        _updateManager.endUpdate(_segTarget);
-                    } catch (Exception e) {
-                        _log.warn("compact abort", e);
-                    }
-                    _log.info("ignored Segment " + seg.getSegmentId());
-                    continue;
+            if(groupCnt == 1) {
+                _segTargets.set(0, _dataArray.getSegmentManager().nextSegment());
+                compact(_segSourceList, _segTargets.get(0), 0, sibEnabled);
+            } else {
+                List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(groupCnt);
+                for(int i = 0; i < groupCnt; i++) {
+                    final int slot = i;
+                    final List<Segment> group = _segSourceGroups.get(i);
+                    final Segment segTarget = _dataArray.getSegmentManager().nextSegment();
+                    _segTargets.set(slot, segTarget);
+                    
+                    futures.add(_workers.submit(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            compact(group, segTarget, slot, sibEnabled);
+                            return Boolean.TRUE;
+                        }
+                    }));
                 }
                 
-                try {
-                    if(compact(seg, _segTarget, sibEnabled)) {
-                        _compactedQueue.add(seg);
-                    }
-                } catch(Exception e) {
-                    if(_dataArray.isOpen()) {
-                        _ignoredSegs.add(seg);
-                        _log.error("failed to compact Segment " + seg.getSegmentId(), e);
+                // Wait for all concurrent compactions to finish
+                for(Future<Boolean> f : futures) {
+                    try {
+                        f.get();
+                    } catch(ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        throw (cause instanceof Exception) ? (Exception)cause : e;
                     }
                 }
             }
-            
-            // Mark target segment index buffer as dirty if sibEnabled is changed from true to false
-            if(sibEnabled && !_dataArray.isSibEnabled()) {
-                _dataArray.getSegmentManager().openSegmentIndexBuffer(_segTarget.getSegmentId()).markAsDirty();
-            }
-            
-            _targetQueue.add(_segTarget);
-            _log.info("bytes transferred to   " + _segTarget.getSegmentId() + ": " + (_segTarget.getAppendPosition() - Segment.dataStartPosition));
         } catch(ConcurrentModificationException e1) {
             _segSourceList.clear();
+            _segSourceGroups.clear();
             return false;
         } catch(Exception e2) {
             _log.warn(e2.getMessage(), e2);
@@ -369,24 +503,73 @@ class SimpleDataArrayCompactor implements Runnable {
         return true;
     }
     
+    /**
+     * Compacts a group of source Segments into the specified target Segment and then
+     * sends the target Segment to the writer.
+     * 
+     * @param group      - the source Segments, from which data is read.
+     * @param segTarget  - the target Segment, to which data is written.
+     * @param slot       - the slot of update manager and buffer used by this compaction.
+     * @param sibEnabled - whether segment index buffer is enabled or not
+     * @throws IOException if this operation can not be finished properly.
+     */
+    private void compact(List<Segment> group, Segment segTarget, int slot, final boolean sibEnabled) throws IOException {
+        CompactionUpdateManager updateManager = _updateManagers[slot];
+        
+        for(Segment seg : group) {
+            if(!_enabled) {
+                try {
+                    updateManager.endUpdate(segTarget);
+                } catch (Exception e) {
+                    _log.warn("compact abort", e);
+                }
+                _log.info("ignored Segment " + seg.getSegmentId());
+                continue;
+            }
+            
+            try {
+                long loadSize = seg.getLoadSize();
+                if(compact(seg, segTarget, slot, sibEnabled)) {
+                    _compactedQueue.add(seg);
+                    _scheduler.segmentCompacted();
+                    _metrics.segmentCompacted(loadSize);
+                }
+            } catch(Exception e) {
+                if(_dataArray.isOpen()) {
+                    _ignoredSegs.add(seg);
+                    _log.error("failed to compact Segment " + seg.getSegmentId(), e);
+                }
+            }
+        }
+        
+        // Mark target segment index buffer as dirty if sibEnabled is changed from true to false
+        if(sibEnabled && !_dataArray.isSibEnabled()) {
+            _dataArray.getSegmentManager().openSegmentIndexBuffer(segTarget.getSegmentId()).markAsDirty();
+        }
+        
+        _targetQueue.add(segTarget);
+        _log.info("bytes transferred to   " + segTarget.getSegmentId() + ": " + (segTarget.getAppendPosition() - Segment.dataStartPosition));
+    }
+    
     /**
      * Compacts data from the specified source Segment into the specified target Segment.
      * 
      * @param segment    - the source Segment, from which data is read.
      * @param segTarget  - the target Segment, to which data is written.
+     * @param slot       - the slot of update manager and buffer used by this compaction.
      * @param sibEnabled - whether segment index buffer is enabled or not
      * @return <code>true</code> if the source Segment is compacted successfully.
      *         Otherwise, <code>false</code>.
      * @throws IOException if this operation can not be finished properly.
      */
-    private boolean compact(Segment segment, Segment segTarget, final boolean sibEnabled) throws IOException {
+    private boolean compact(Segment segment, Segment segTarget, int slot, final boolean sibEnabled) throws IOException {
         // Optimization: use the source segment index buffer file if it is available for compaction.
         if(sibEnabled) {
             SegmentIndexBuffer sibSource =
                     _dataArray.getSegmentManager()
                     .loadSegmentIndexBuffer(segment.getSegmentId(), segment.getLastForcedTime());
             if(sibSource != null) {
-                return compact(segment, sibSource, segTarget);
+                return compact(segment, sibSource, segTarget, slot);
             }
         }
         
@@ -395,16 +578,27 @@ class SimpleDataArrayCompactor implements Runnable {
         int segTargetId = segTarget.getSegmentId();
         
         Chronos c = new Chronos();
-        if(!segment.canReadFromBuffer() && segment.getLoadFactor() > 0.1) {
-            segSource = new BufferedSegment(segment, getByteBuffer((int)segment.getInitialSize()));
+        CompactionScheduler scheduler = _scheduler;
+        ByteBuffer buffer = null;
+        if(!segment.canReadFromBuffer() && segment.getLoadFactor() > 0.1 &&
+           (buffer = getByteBuffer((int)segment.getInitialSize())) != null) {
+            try {
+                scheduler.acquire(segment.getAppendPosition());
+                segSource = new BufferedSegment(segment, buffer);
+            } catch(IOException e) {
+                releaseByteBuffer(buffer);
+                throw e;
+            }
             _log.info("buffering: " + c.tick() + " ms");
         }
         
         // Open the segment index buffer for the target segment
         SegmentIndexBuffer sibTarget = sibEnabled ? _dataArray.getSegmentManager().openSegmentIndexBuffer(segTargetId) : null;
         
+        CompactionUpdateManager updateManager = _updateManagers[slot];
         long sizeLimit = segTarget.getInitialSize();
         long bytesTransferred = 0;
+        int bytesUncharged = 0;
         boolean succ = true;
         
         try {
@@ -427,17 +621,25 @@ class SimpleDataArrayCompactor implements Runnable {
                         break;
                     }
                     
+                    // Charge transferred bytes to the I/O budget
+                    bytesUncharged += byteCnt;
+                    if(bytesUncharged >= THROTTLE_CHUNK_SIZE) {
+                        scheduler.acquire(bytesUncharged);
+                        bytesUncharged = 0;
+                    }
+                    
                     // Transfer bytes from source to target
                     segSource.transferTo(oldSegPos, byteCnt, segTarget);
                     bytesTransferred += byteCnt;
                     
                     if(sibTarget != null) sibTarget.add(index, (int)newSegPos);
-                    _updateManager.addUpdate(index, byteCnt, newAddress, oldAddress, segTarget);
+                    updateManager.addUpdate(index, byteCnt, newAddress, oldAddress, segTarget);
                 }
             }
             
             // Push whatever left into update queue
-            _updateManager.endUpdate(segTarget);
+            updateManager.endUpdate(segTarget);
+            scheduler.acquire(bytesUncharged);
             _log.info("bytes transferred from " + segSource.getSegmentId() + ": " + bytesTransferred + " time: " + c.tick() + " ms");
             
             return succ;
@@ -446,6 +648,9 @@ class SimpleDataArrayCompactor implements Runnable {
                 segSource.close(false);
                 segSource = null;
             }
+            if(buffer != null) {
+                releaseByteBuffer(buffer);
+            }
         }
     }
     
@@ -455,26 +660,38 @@ class SimpleDataArrayCompactor implements Runnable {
      * @param segment   - the source Segment, from which data is read.
      * @param sibSource - the source Segment Index Buffer, from which address indexes are read. 
      * @param segTarget - the target Segment, to which data is written.
+     * @param slot      - the slot of update manager and buffer used by this compaction.
      * @return <code>true</code> if the source Segment is compacted successfully.
      *         Otherwise, <code>false</code>.
      * @throws IOException if this operation can not be finished properly.
      */
-    private boolean compact(Segment segment, SegmentIndexBuffer sibSource, Segment segTarget) throws IOException {
+    private boolean compact(Segment segment, SegmentIndexBuffer sibSource, Segment segTarget, int slot) throws IOException {
         Segment segSource = segment; 
         int segSourceId = segSource.getSegmentId();
         int segTargetId = segTarget.getSegmentId();
         
         Chronos c = new Chronos();
-        if(!segment.canReadFromBuffer() && segment.getLoadFactor() > 0.1) {
-            segSource = new BufferedSegment(segment, getByteBuffer((int)segment.getInitialSize()));
+        CompactionScheduler scheduler = _scheduler;
+        ByteBuffer buffer = null;
+        if(!segment.canReadFromBuffer() && segment.getLoadFactor() > 0.1 &&
+           (buffer = getByteBuffer((int)segment.getInitialSize())) != null) {
+            try {
+                scheduler.acquire(segment.getAppendPosition());
+                segSource = new BufferedSegment(segment, buffer);
+            } catch(IOException e) {
+                releaseByteBuffer(buffer);
+                throw e;
+            }
             _log.info("buffering: " + c.tick() + " ms");
         }
         
         // Open the segment index buffer for the target segment
         SegmentIndexBuffer sibTarget = _dataArray.getSegmentManager().openSegmentIndexBuffer(segTargetId);
         
+        CompactionUpdateManager updateManager = _updateManagers[slot];
         long sizeLimit = segTarget.getInitialSize();
         long bytesTransferred = 0;
+        int bytesUncharged = 0;
         boolean succ = true;
         
         try {
@@ -504,17 +721,25 @@ class SimpleDataArrayCompactor implements Runnable {
                         break;
                     }
                     
+                    // Charge transferred bytes to the I/O budget
+                    bytesUncharged += byteCnt;
+                    if(bytesUncharged >= THROTTLE_CHUNK_SIZE) {
+                        scheduler.acquire(bytesUncharged);
+                        bytesUncharged = 0;
+                    }
+                    
                     // Transfer bytes from source to target
                     segSource.transferTo(oldSegPos, byteCnt, segTarget);
                     bytesTransferred += byteCnt;
                     
                     sibTarget.add(index, (int)newSegPos);
-                    _updateManager.addUpdate(index, byteCnt, newAddress, oldAddress, segTarget);
+                    updateManager.addUpdate(index, byteCnt, newAddress, oldAddress, segTarget);
                 }
             }
             
             // Push whatever left into update queue
-            _updateManager.endUpdate(segTarget);
+            updateManager.endUpdate(segTarget);
+            scheduler.acquire(bytesUncharged);
             _log.info("bytes fastscanned from " + segSource.getSegmentId() + ": " + bytesTransferred + " time: " + c.tick() + " ms");
             
             return succ;
@@ -523,6 +748,9 @@ class SimpleDataArrayCompactor implements Runnable {
                 segSource.close(false);
                 segSource = null;
             }
+            if(buffer != null) {
+                releaseByteBuffer(buffer);
+            }
         }
     }
     
@@ -535,6 +763,8 @@ class SimpleDataArrayCompactor implements Runnable {
             if(_newCycle.compareAndSet(true, false)) {
                 // One and only one compactor is at work.
                 _lock.lock();
+                long startTime = System.currentTimeMillis();
+                boolean found = false;
                 
                 try {
                     reset();
@@ -549,6 +779,8 @@ class SimpleDataArrayCompactor implements Runnable {
                     
                     // Inspect the array
                     if(!inspect()) continue;
+                    found = true;
+                    _scheduler.cycleStarted();
                     
                     // Compact the array
                     if(!compact()) continue;
@@ -557,12 +789,23 @@ class SimpleDataArrayCompactor implements Runnable {
                 } finally {
                     reset();
                     _state = State.DONE;
+                    _updateManager.signal();
+                    if(found) {
+                        long cycleTime = System.currentTimeMillis() - startTime;
+                        _scheduler.cycleDone(cycleTime);
+                        _metrics.compactionCycleDone(cycleTime * 1000000L);
+                    }
                     _log.info("cycle done");
                     _lock.unlock();
                 }
             } else {
                 try {
-                    Thread.sleep(100);
+                    // Wait for the writer to signal a new cycle
+                    synchronized(_newCycle) {
+                        if(!_newCycle.get()) {
+                            _newCycle.wait(100);
+                        }
+                    }
                 } catch (InterruptedException e) {
                     _log.warn(e.getMessage());
                 }
@@ -578,6 +821,10 @@ class SimpleDataArrayCompactor implements Runnable {
         _ignoredSegs.clear();
         _executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
         _executor.execute(this);
+        
+        if(_parallelism > 1) {
+            _workers = Executors.newFixedThreadPool(_parallelism, new DaemonThreadFactory());
+        }
     }
     
     /**
@@ -601,17 +848,31 @@ class SimpleDataArrayCompactor implements Runnable {
                 _log.warn("shutdown abort", e);
             }
             
-            if(_segTarget != null) {
+            if(_workers != null) {
                 try {
-                    _updateManager.endUpdate(_segTarget);
+                    _workers.shutdown();
+                    _workers.awaitTermination(_shutdownTimeout, TimeUnit.SECONDS);
                 } catch (Exception e) {
                     _log.warn("shutdown abort", e);
                 }
             }
+            
+            for(int i = 0; i < _parallelism; i++) {
+                Segment segTarget = _segTargets.get(i);
+                if(segTarget != null) {
+                    try {
+                        _updateManagers[i].endUpdate(segTarget);
+                    } catch (Exception e) {
+                        _log.warn("shutdown abort", e);
+                    }
+                }
+            }
         }
         
         _executor = null;
+        _workers = null;
         _state = State.DONE;
+        _updateManager.signal();
     }
     
     /**
@@ -640,10 +901,13 @@ class SimpleDataArrayCompactor implements Runnable {
      * Reset internal data structures before the next compaction cycle.
      */
     private final void reset() {
-        _segTarget = null;
         _segPermits.set(0);
         _segSourceList.clear();
-        _updateManager.clear();
+        _segSourceGroups.clear();
+        for(int i = 0; i < _parallelism; i++) {
+            _segTargets.set(i, null);
+            _updateManagers[i].clear();
+        }
     }
     
     /**
@@ -667,6 +931,21 @@ class SimpleDataArrayCompactor implements Runnable {
         return _updateManager.pollBatch();
     }
     
+    /**
+     * Waits until the next {@link CompactionUpdateBatch} is produced or the compaction cycle is done.
+     * 
+     * @param timeoutMillis - the maximum time to wait in milliseconds.
+     */
+    protected void awaitCompactionBatch(long timeoutMillis) {
+        if(!isStarted()) return;
+        
+        try {
+            _updateManager.awaitBatch(timeoutMillis);
+        } catch(InterruptedException e) {
+            _log.warn(e.getMessage());
+        }
+    }
+    
     /**
      * Recycles a {@link CompactionUpdateBatch} after it is being consumed.
      * 
@@ -678,17 +957,34 @@ class SimpleDataArrayCompactor implements Runnable {
     }
     
     /**
-     * Gets the buffer for speeding up compaction.
+     * Gets a buffer from the shared pool for speeding up compaction.
+     * The buffer must be returned by {@link #releaseByteBuffer(ByteBuffer)}.
      * 
      * @param bufferLength - the length of buffer.
+     * @return <code>null</code> if {@link #MAX_BUFFERED_SEGMENTS} buffers are in use.
      */
     protected ByteBuffer getByteBuffer(int bufferLength) {
-        if(_buffer == null) {
-            _buffer = ByteBuffer.wrap(new byte[bufferLength]);
+        if(!_bufferPermits.tryAcquire()) {
+            return null;
+        }
+        
+        ByteBuffer buffer = _bufferPool.poll();
+        if(buffer == null || buffer.capacity() < bufferLength) {
+            buffer = ByteBuffer.wrap(new byte[bufferLength]);
             _log.info("ByteBuffer allocated for buffering");
         }
         
-        return _buffer;
+        return buffer;
+    }
+    
+    /**
+     * Returns a buffer obtained from {@link #getByteBuffer(int)} to the shared pool.
+     * 
+     * @param buffer - the buffer to return.
+     */
+    protected void releaseByteBuffer(ByteBuffer buffer) {
+        _bufferPool.offer(buffer);
+        _bufferPermits.release();
     }
     
     /**
@@ -713,10 +1009,15 @@ class SimpleDataArrayCompactor implements Runnable {
     }
     
     /**
-     * Gets the target Segment to which data is transferred.
+     * Checks whether the specified Segment is a target Segment to which data is being transferred.
      */
-    final Segment getTargetSegment() {
-        return _segTarget;
+    final boolean isTargetSegment(Segment seg) {
+        for(int i = 0; i < _parallelism; i++) {
+            if(_segTargets.get(i) == seg) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
@@ -724,6 +1025,9 @@ class SimpleDataArrayCompactor implements Runnable {
      */
     final void startsCycle() {
         _newCycle.set(true);
+        synchronized(_newCycle) {
+            _newCycle.notifyAll();
+        }
     }
     
     /**
@@ -1020,6 +1324,20 @@ class SimpleDataArrayCompactor implements Runnable {
             nextBatch();
         }
         
+        /**
+         * Creates a new instance of CompactionUpdateManager which shares the service queue
+         * and the recycle queue with another CompactionUpdateManager.
+         * 
+         * @param batchSize - the size of {@link CompactionUpdateBatch}.
+         * @param shared    - the CompactionUpdateManager whose queues are shared.
+         */
+        public CompactionUpdateManager(int batchSize, CompactionUpdateManager shared) {
+            _batchSize = batchSize;
+            _serviceBatchQueue = shared._serviceBatchQueue;
+            _recycleBatchQueue = shared._recycleBatchQueue;
+            nextBatch();
+        }
+        
         /**
          * Gets the next batch to used for compaction.
          */
@@ -1047,6 +1365,30 @@ class SimpleDataArrayCompactor implements Runnable {
             return _recycleBatchQueue.isEmpty();
         }
         
+        /**
+         * Wakes up the writer waiting in {@link #awaitBatch(long)}.
+         */
+        public void signal() {
+            synchronized(_serviceBatchQueue) {
+                _serviceBatchQueue.notifyAll();
+            }
+        }
+        
+        /**
+         * Waits until a {@link CompactionUpdateBatch} is added to the service queue,
+         * {@link #signal()} is called or the specified timeout elapses.
+         * 
+         * @param timeoutMillis - the maximum time to wait in milliseconds.
+         * @throws InterruptedException if the current thread is interrupted while waiting.
+         */
+        public void awaitBatch(long timeoutMillis) throws InterruptedException {
+            synchronized(_serviceBatchQueue) {
+                if(_serviceBatchQueue.isEmpty()) {
+                    _serviceBatchQueue.wait(timeoutMillis);
+                }
+            }
+        }
+        
         /**
          * Retrieves and removes a {@link CompactionUpdateBatch} from the service queue.
          */
@@ -1087,6 +1429,7 @@ class SimpleDataArrayCompactor implements Runnable {
                 }
                 
                 _serviceBatchQueue.add(_batch);
+                signal();
                 nextBatch();
                 
                 // Add compaction update to new batch
@@ -1110,6 +1453,7 @@ class SimpleDataArrayCompactor implements Runnable {
                 }
                 
                 _serviceBatchQueue.add(_batch);
+                signal();
                 _batchServiceIdCounter = 0;
                 nextBatch();
             }
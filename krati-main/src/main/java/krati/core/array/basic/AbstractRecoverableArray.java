@@ -33,6 +33,8 @@ import krati.core.array.entry.EntryValue;
  * 
  * <p>
  * 05/09, 2011 - added abstract method getLogger <br/>
+ * 10/17, 2026 - reject bit-packed array files unless packing is supported <br/>
+ * 10/17, 2026 - force the array file after applying redo entries <br/>
  * 
  */
 abstract class AbstractRecoverableArray<V extends EntryValue> implements RecoverableArray<V> {
@@ -109,6 +111,9 @@ abstract class AbstractRecoverableArray<V extends EntryValue> implements Recover
             if (hwmScn < lwmScn) {
                 throw new IOException(_arrayFile.getAbsolutePath() + " is corrupted: lwmScn=" + lwmScn + " hwmScn=" + hwmScn);
             }
+            if (_arrayFile.getPacking() != 0 && !isPackingSupported()) {
+                throw new IOException(_arrayFile.getAbsolutePath() + " is bit-packed: packing=" + Long.toHexString(_arrayFile.getPacking()));
+            }
 
             // Initialize entry manager and process entry files on disk if any.
             _entryManager.init(lwmScn, hwmScn);
@@ -154,6 +159,14 @@ abstract class AbstractRecoverableArray<V extends EntryValue> implements Recover
         // Subclasses need to initialize ArrayFile
     }
     
+    /**
+     * Checks whether this array can load a bit-packed array file.
+     * Subclasses supporting {@link AddressPacking} need to override this method.
+     */
+    protected boolean isPackingSupported() {
+        return false;
+    }
+    
     /**
      * Subclasses need to handle the loading of data in the array file.
      * 
@@ -230,6 +243,7 @@ abstract class AbstractRecoverableArray<V extends EntryValue> implements Recover
     public void updateArrayFile(List<Entry<V>> entryList) throws IOException {
         if(_arrayFile != null) {
             _arrayFile.update(entryList);
+            _arrayFile.force();
         }
     }
 }
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.core.array.basic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import krati.core.segment.AddressFormat;
+
+/**
+ * AddressPacking defines how an address composed by {@link AddressFormat} is bit-packed
+ * into the minimum number of bits. The offset, segment and data size fields of an address
+ * are each narrowed to a width large enough for the values seen so far, so that any address
+ * accepted by {@link #fits(long)} is encoded and decoded without loss.
+ * 
+ * <pre>
+ * Packed code:
+ * +---------------------------------------------------+
+ * | data size (sizeBits) | segment (segmentBits) | offset (offsetBits) |
+ * +---------------------------------------------------+
+ * 
+ * Descriptor:
+ * +---------------------------------------------------+
+ * | marker (8) | sizeBits (8) | segmentBits (8) | offsetBits (8) | length (32) |
+ * +---------------------------------------------------+
+ * </pre>
+ * 
+ * @since 0.4.9
+ */
+public final class AddressPacking {
+    private final static long DESCRIPTOR_MARKER = 0x50L;
+    private final AddressFormat _format;
+    private final int _offsetBits;
+    private final int _segmentBits;
+    private final int _sizeBits;
+    private final int _width;
+    private final long _mask;
+    
+    /**
+     * Creates a new AddressPacking.
+     * 
+     * @param format      - the address format
+     * @param offsetBits  - the number of bits for the segment offset
+     * @param segmentBits - the number of bits for the segment id
+     * @param sizeBits    - the number of bits for the data size
+     */
+    public AddressPacking(AddressFormat format, int offsetBits, int segmentBits, int sizeBits) {
+        if(offsetBits < 0 || offsetBits > format.countOffsetBits()) {
+            throw new IllegalArgumentException("Invalid offsetBits: " + offsetBits);
+        }
+        if(segmentBits < 0 || segmentBits > format.countSegmentBits()) {
+            throw new IllegalArgumentException("Invalid segmentBits: " + segmentBits);
+        }
+        if(sizeBits < 0 || sizeBits > format.countDataSizeBits()) {
+            throw new IllegalArgumentException("Invalid sizeBits: " + sizeBits);
+        }
+        
+        this._format = format;
+        this._offsetBits = offsetBits;
+        this._segmentBits = segmentBits;
+        this._sizeBits = sizeBits;
+        this._width = offsetBits + segmentBits + sizeBits;
+        this._mask = mask(_width);
+    }
+    
+    /**
+     * Creates a new AddressPacking from the specified packing descriptor.
+     * 
+     * @param format     - the address format
+     * @param descriptor - the packing descriptor
+     * @throws IllegalArgumentException if the descriptor is not valid.
+     */
+    public static AddressPacking fromDescriptor(AddressFormat format, long descriptor) {
+        if((descriptor >>> 56) != DESCRIPTOR_MARKER) {
+            throw new IllegalArgumentException("Invalid packing descriptor: " + Long.toHexString(descriptor));
+        }
+        
+        int offsetBits  = (int)((descriptor >>> 32) & 0xFF);
+        int segmentBits = (int)((descriptor >>> 40) & 0xFF);
+        int sizeBits    = (int)((descriptor >>> 48) & 0xFF);
+        return new AddressPacking(format, offsetBits, segmentBits, sizeBits);
+    }
+    
+    /**
+     * Gets the array length saved in the specified packing descriptor.
+     */
+    public static int getLength(long descriptor) {
+        return (int)descriptor;
+    }
+    
+    /**
+     * Creates a packing descriptor for an array of the specified length.
+     * 
+     * @param length - the array length
+     * @return the packing descriptor which is never <code>0</code>.
+     */
+    public long toDescriptor(int length) {
+        return (DESCRIPTOR_MARKER << 56) |
+               ((long)_sizeBits << 48) |
+               ((long)_segmentBits << 40) |
+               ((long)_offsetBits << 32) |
+               (length & 0xFFFFFFFFL);
+    }
+    
+    public final int getOffsetBits() {
+        return _offsetBits;
+    }
+    
+    public final int getSegmentBits() {
+        return _segmentBits;
+    }
+    
+    public final int getSizeBits() {
+        return _sizeBits;
+    }
+    
+    /**
+     * Gets the number of bits per packed address.
+     */
+    public final int getWidth() {
+        return _width;
+    }
+    
+    /**
+     * Gets the bit mask of packed codes.
+     */
+    public final long getMask() {
+        return _mask;
+    }
+    
+    /**
+     * Gets the number of 64-bit words needed for packing the specified number of addresses.
+     */
+    public final long countWords(int length) {
+        return (((long)length * _width) + 63) >>> 6;
+    }
+    
+    /**
+     * Checks whether the specified address can be packed without loss.
+     */
+    public boolean fits(long address) {
+        return offsetOf(address) <= mask(_offsetBits) &&
+               segmentOf(address) <= mask(_segmentBits) &&
+               sizeOf(address) <= mask(_sizeBits);
+    }
+    
+    /**
+     * Creates a wider AddressPacking which can pack the specified address as well as
+     * all the addresses accepted by this AddressPacking. The segment and data size fields
+     * are widened in steps of 4 bits and the offset field is widened to at least
+     * <code>offsetBitsHint</code> bits so that repacking happens rarely.
+     * 
+     * @param address        - the address to fit
+     * @param offsetBitsHint - the expected number of bits for segment offsets
+     * @return a wider AddressPacking or this AddressPacking if the address already fits.
+     */
+    public AddressPacking widen(long address, int offsetBitsHint) {
+        if(fits(address)) {
+            return this;
+        }
+        
+        int offsetBits = Math.max(_offsetBits, bits(offsetOf(address)));
+        if(offsetBits > _offsetBits) {
+            offsetBits = Math.max(offsetBits, offsetBitsHint);
+        }
+        
+        int segmentBits = Math.max(_segmentBits, round(bits(segmentOf(address))));
+        int sizeBits = Math.max(_sizeBits, round(bits(sizeOf(address))));
+        
+        return new AddressPacking(_format,
+                Math.min(offsetBits, _format.countOffsetBits()),
+                Math.min(segmentBits, _format.countSegmentBits()),
+                Math.min(sizeBits, _format.countDataSizeBits()));
+    }
+    
+    /**
+     * Encodes the specified address into a packed code.
+     */
+    public final long encode(long address) {
+        return offsetOf(address) |
+               (segmentOf(address) << _offsetBits) |
+               (sizeOf(address) << (_offsetBits + _segmentBits));
+    }
+    
+    /**
+     * Decodes the specified packed code into an address.
+     */
+    public final long decode(long code) {
+        long offset = code & mask(_offsetBits);
+        long segment = (code >>> _offsetBits) & mask(_segmentBits);
+        long size = (_sizeBits == 0) ? 0 : (code >>> (_offsetBits + _segmentBits)) & mask(_sizeBits);
+        return offset |
+               (segment << _format.countOffsetBits()) |
+               (size << _format.getDataSizeShift());
+    }
+    
+    /**
+     * Reads the packed code at the specified index from the packed words.
+     * 
+     * @param words - the packed words
+     * @param index - the index of packed code
+     */
+    public final long read(long[] words, int index) {
+        if(_width == 0) return 0;
+        
+        long bit = (long)index * _width;
+        int word = (int)(bit >>> 6);
+        int shift = (int)(bit & 63);
+        
+        long code = words[word] >>> shift;
+        if(shift + _width > 64) {
+            code |= words[word + 1] << (64 - shift);
+        }
+        return code & _mask;
+    }
+    
+    /**
+     * Writes the packed code at the specified index into the packed words.
+     * 
+     * @param words - the packed words
+     * @param index - the index of packed code
+     * @param code  - the packed code
+     */
+    public final void write(long[] words, int index, long code) {
+        if(_width == 0) return;
+        
+        long bit = (long)index * _width;
+        int word = (int)(bit >>> 6);
+        int shift = (int)(bit & 63);
+        
+        words[word] = (words[word] & ~(_mask << shift)) | (code << shift);
+        if(shift + _width > 64) {
+            int hiBits = shift + _width - 64;
+            words[word + 1] = (words[word + 1] & ~mask(hiBits)) | (code >>> (64 - shift));
+        }
+    }
+    
+    /**
+     * Reads the packed code at the specified index from the packed words.
+     * The words are read with volatile semantics.
+     * 
+     * @param words - the packed words
+     * @param index - the index of packed code
+     * @return the packed code
+     */
+    public final long read(AtomicLongArray words, int index) {
+        if(_width == 0) return 0;
+        
+        long bit = (long)index * _width;
+        int word = (int)(bit >>> 6);
+        int shift = (int)(bit & 63);
+        
+        long code = words.get(word) >>> shift;
+        if(shift + _width > 64) {
+            code |= words.get(word + 1) << (64 - shift);
+        }
+        return code & _mask;
+    }
+    
+    /**
+     * Writes the packed code at the specified index into the packed words.
+     * The words are written with volatile semantics. Concurrent writers are not supported.
+     * 
+     * @param words - the packed words
+     * @param index - the index of packed code
+     * @param code  - the packed code
+     */
+    public final void write(AtomicLongArray words, int index, long code) {
+        if(_width == 0) return;
+        
+        long bit = (long)index * _width;
+        int word = (int)(bit >>> 6);
+        int shift = (int)(bit & 63);
+        
+        words.set(word, (words.get(word) & ~(_mask << shift)) | (code << shift));
+        if(shift + _width > 64) {
+            int hiBits = shift + _width - 64;
+            words.set(word + 1, (words.get(word + 1) & ~mask(hiBits)) | (code >>> (64 - shift)));
+        }
+    }
+    
+    private long offsetOf(long address) {
+        return address & mask(_format.countOffsetBits());
+    }
+    
+    private long segmentOf(long address) {
+        return (address >>> _format.countOffsetBits()) & mask(_format.countSegmentBits());
+    }
+    
+    private long sizeOf(long address) {
+        return address >>> _format.getDataSizeShift();
+    }
+    
+    private static long mask(int bits) {
+        return (bits >= 64) ? -1L : ((1L << bits) - 1);
+    }
+    
+    private static int bits(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+    
+    private static int round(int bits) {
+        return (bits + 3) & ~3;
+    }
+    
+    @Override
+    public String toString() {
+        return "offsetBits=" + _offsetBits + " segmentBits=" + _segmentBits + " sizeBits=" + _sizeBits;
+    }
+}
@@ -20,13 +20,14 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.Callable;
 
 import org.apache.log4j.Logger;
 
 import krati.Persistable;
 import krati.core.array.entry.Entry;
 import krati.core.array.entry.EntryFactory;
+import krati.core.array.entry.EntryLog;
 import krati.core.array.entry.EntryPersistListener;
 import krati.core.array.entry.EntryPool;
 import krati.core.array.entry.EntryUtility;
@@ -34,6 +35,8 @@ import krati.core.array.entry.EntryValue;
 import krati.core.array.entry.PreFillEntryInt;
 import krati.core.array.entry.PreFillEntryLong;
 import krati.core.array.entry.PreFillEntryShort;
+import krati.metrics.StoreMetrics;
+import krati.util.RecoveryService;
 
 /**
  * ArrayEntryManager
@@ -43,14 +46,18 @@ import krati.core.array.entry.PreFillEntryShort;
  * <p>
  * 02/06, 2012 - Handle BufferUnderflowException or other Exceptions when loading entry files. <br/>
  * 06/11, 2012 - Ensure the order of creating compaction redo before update redo to prevent data loss. <br/> 
+ * 10/17, 2026 - Added metrics of redo entry flush and apply times <br/>
+ * 10/17, 2026 - Added group-commit redo log replacing per-entry redo files <br/>
+ * 10/17, 2026 - Apply entries on the shared EntryApplyService with backpressure <br/>
+ * 10/17, 2026 - Read legacy entry files in parallel upon recovery <br/>
  */
 public class ArrayEntryManager<V extends EntryValue> implements Persistable {
   private static final Logger _log = Logger.getLogger(ArrayEntryManager.class);
   
   /**
-   * The redo entry Id generator.
+   * The name of the redo log file.
    */
-  private final AtomicLong _idGen = new AtomicLong(0);
+  public static final String ENTRY_LOG_NAME = "redo.log";
   
   private final int _maxEntries;
   private final int _maxEntrySize;
@@ -63,17 +70,24 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
   private Entry<V>             _entryCompaction; // current redo entry for compaction use
   private final EntryPool<V>   _entryPool;
   private final EntryApply<V>  _entryApply;
+  private final EntryLog       _entryLog;
   private EntryPersistListener _persistListener;
+  private volatile StoreMetrics _metrics = StoreMetrics.DISABLED;
   
   public ArrayEntryManager(RecoverableArray<V> array, int maxEntries, int maxEntrySize) {
     this._array = array;
     this._maxEntries = maxEntries;
     this._maxEntrySize = maxEntrySize;
     this._entryPool = new EntryPool<V>(array.getEntryFactory(), maxEntrySize);
-    this._entryApply = new EntryApply<V>(this);
+    this._entryApply = new EntryApply<V>(this, EntryApplyService.getInstance(), maxEntries << 1);
     this._entry = _entryPool.next();
     this._entryCompaction = _entryPool.next();
     
+    // Let the redo log grow in preallocated steps up to twice the entries accumulated between two apply cycles
+    long preallocateSize = EntryLog.HEADER_LENGTH + 2L * (maxEntries + 1) *
+        (EntryLog.RECORD_HEAD_LENGTH + 20L * maxEntrySize + EntryLog.RECORD_TAIL_LENGTH);
+    this._entryLog = new EntryLog(new File(array.getDirectory(), ENTRY_LOG_NAME), preallocateSize);
+    
     _log.info("arrayLength=" + array.length() + " maxEntries=" + maxEntries + " maxEntrySize=" + maxEntrySize);
   }
   
@@ -93,6 +107,10 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
     return _array.getEntryFactory();
   }
   
+  public EntryLog getEntryLog() {
+    return _entryLog;
+  }
+  
   public boolean getAutoApplyEntries() {
     return _autoApplyEntries;
   }
@@ -208,9 +226,12 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
     _hwmScn = 0;
     _entry.clear();
     _entryCompaction.clear();
+    _entryApply.clear();
     _entryPool.clear();
     
     try {
+        _entryLog.reset();
+        _entryLog.close();
         deleteEntryFiles();
     } catch(IOException e) {
         _log.warn(e.getMessage());
@@ -256,6 +277,9 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
      * Run in non-blocking mode  *
      * ************************* */
     switchEntry(false);
+    
+    // Group commit all records appended since the last force
+    _entryLog.force();
   }
   
   public void setPersistListener(EntryPersistListener listener) {
@@ -266,22 +290,23 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
     return _persistListener;
   }
   
-  /**
-   * @return the name of entry log file.
-   */
-  protected final String getEntryLogName(Entry<V> entry) {
-    return getEntryLogPrefix() + "_" + _idGen.getAndIncrement() + "_" + entry.getMinScn() + "_" + entry.getMaxScn() + getEntryLogSuffix();
+  public void setMetrics(StoreMetrics metrics) {
+    this._metrics = (metrics == null) ? StoreMetrics.DISABLED : metrics;
+  }
+  
+  public StoreMetrics getMetrics() {
+    return _metrics;
   }
   
   /**
-   * @return the prefix of entry log file.
+   * @return the prefix of legacy entry log files.
    */
   protected final String getEntryLogPrefix() {
     return "entry";
   }
   
   /**
-   * @return the suffix of entry log file.
+   * @return the suffix of legacy entry log files.
    */
   protected final String getEntryLogSuffix() {
     return ".idx";
@@ -301,9 +326,8 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
      * will ensure that compaction redo does NOT overwrite update redo.
      */
     if (!_entryCompaction.isEmpty()) {
-      // Create entry log and persist in-memory data
-      File file = new File(getDirectory(), getEntryLogName(_entryCompaction));
-      _entryCompaction.save(file);
+      // Append to redo log and persist in-memory data
+      saveEntry(_entryCompaction);
       _entryPool.addToServiceQueue(_entryCompaction);
       _entryCompaction = _entryPool.next();
     }
@@ -313,9 +337,8 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
         _persistListener.beforePersist(_entry);
       }
       
-      // Create entry log and persist in-memory data
-      File file = new File(getDirectory(), getEntryLogName(_entry));
-      _entry.save(file);
+      // Append to redo log and persist in-memory data
+      saveEntry(_entry);
       
       if(_persistListener != null) {
         _persistListener.afterPersist(_entry);
@@ -335,11 +358,25 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
     }
   }
   
+  /**
+   * Appends the specified entry to the redo log. The appended record is forced to disk
+   * by the next group commit, i.e. before the entry is applied or upon persist and sync.
+   */
+  private void saveEntry(Entry<V> entry) throws IOException {
+    StoreMetrics metrics = _metrics;
+    long startNano = metrics.start();
+    
+    _entryLog.append(entry);
+    
+    if (metrics.isEnabled()) {
+      metrics.redoFlushed(System.nanoTime() - startNano);
+    }
+  }
+  
   private synchronized void switchEntryCompaction(boolean blocking) throws IOException {
     if (!_entryCompaction.isEmpty()) {
-      // Create entry log and persist in-memory data
-      File file = new File(getDirectory(), getEntryLogName(_entryCompaction));
-      _entryCompaction.save(file);
+      // Append to redo log and persist in-memory data
+      saveEntry(_entryCompaction);
       _entryPool.addToServiceQueue(_entryCompaction);
       _entryCompaction = _entryPool.next();
     }
@@ -357,9 +394,13 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
    * @throws IOException
    */
   protected synchronized void applyEntries(boolean blocking) throws IOException {
+    // Group commit: one force for all entries accumulated since the last apply
+    _entryLog.force();
+    
     if (blocking) { /* Blocking Mode */
-      synchronized(_entryApply) {
-        List<Entry<V>> entryList = new ArrayList<Entry<V>>();
+      synchronized(_entryApply.getApplyLock()) {
+        // Entries pending in the background go first to ensure apply order
+        List<Entry<V>> entryList = _entryApply.drain();
         while(_entryPool.getServiceQueueSize() > 0) {
           Entry<V> entry = _entryPool.pollFromService();
           if(entry != null) entryList.add(entry);
@@ -368,43 +409,102 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
         applyEntries(entryList);
       }
     } else {        /* Non-Blocking Mode */
-      synchronized(_entryApply) {
-        for(int i = 0; i < _maxEntries; i++) {
-          Entry<V> entry = _entryPool.pollFromService();
-          if(entry != null) _entryApply.add(entry);
-        }
+      List<Entry<V>> entryList = new ArrayList<Entry<V>>(_maxEntries);
+      for(int i = 0; i < _maxEntries; i++) {
+        Entry<V> entry = _entryPool.pollFromService();
+        if(entry != null) entryList.add(entry);
       }
       
-      // Start a separate thread to update the underlying array file 
-      new Thread(_entryApply).start();
+      // Hand over to the shared apply service, blocking if too many entries are pending
+      _entryApply.submit(entryList);
     }
   }
   
+  /**
+   * EntryApply keeps the queue of entries pending to be applied by {@link EntryApplyService}.
+   * Entries queued while an apply is in progress are merged into the next apply.
+   */
   static class EntryApply<V extends EntryValue> implements Runnable {
-    private final List<Entry<V>> _entryList;
+    private final Object _applyLock = new Object();
     private final ArrayEntryManager<V> _entryManager;
+    private final EntryApplyService _service;
+    private final int _maxPending;
+    private List<Entry<V>> _entryList;
+    private boolean _scheduled = false;
     
-    public EntryApply(ArrayEntryManager<V> entryManager) {
+    public EntryApply(ArrayEntryManager<V> entryManager, EntryApplyService service, int maxPending) {
       _entryManager = entryManager;
+      _service = service;
+      _maxPending = Math.max(1, maxPending);
       _entryList = new ArrayList<Entry<V>>();
     }
     
-    public final void add(Entry<V> entry) {
-      _entryList.add(entry);
+    final Object getApplyLock() {
+      return _applyLock;
     }
     
-    @Override
-    public final synchronized void run() {
+    /**
+     * Queues the specified entries and schedules this EntryApply if it is not scheduled yet.
+     * The caller is blocked while the number of pending entries reaches the limit.
+     */
+    final synchronized void submit(List<Entry<V>> entries) throws IOException {
       try {
-        _entryManager.applyEntries(_entryList);
-      } catch(Exception e) {
-        _log.error(e.getMessage());
+        while(_scheduled && _entryList.size() >= _maxPending) {
+          wait();
+        }
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for entries to be applied");
+      }
+      
+      _entryList.addAll(entries);
+      if(!_scheduled && _entryList.size() > 0) {
+        _scheduled = true;
+        _service.execute(this);
+      }
+    }
+    
+    /**
+     * Removes and returns all pending entries.
+     */
+    final synchronized List<Entry<V>> drain() {
+      List<Entry<V>> list = _entryList;
+      _entryList = new ArrayList<Entry<V>>();
+      notifyAll();
+      return list;
+    }
+    
+    final synchronized void clear() {
+      _entryList.clear();
+      notifyAll();
+    }
+    
+    @Override
+    public final void run() {
+      while(true) {
+        synchronized(_applyLock) {
+          List<Entry<V>> list;
+          synchronized(this) {
+            if(_entryList.isEmpty()) {
+              _scheduled = false;
+              notifyAll();
+              return;
+            }
+            list = drain();
+          }
+          
+          try {
+            _entryManager.applyEntries(list);
+          } catch(Exception e) {
+            _log.error(e.getMessage(), e);
+          }
+        }
       }
     }
   }
   
   /**
-   * Load entry log files from disk into _entryList.
+   * Load legacy entry log files from disk into _entryList.
    * 
    * @throws IOException
    */
@@ -416,20 +516,40 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
     List<Entry<V>> entryList = new ArrayList<Entry<V>>();
     if(files == null) return entryList;
     
-    for (File file : files) {
+    List<Callable<Entry<V>>> tasks = new ArrayList<Callable<Entry<V>>>();
+    for (final File file : files) {
       String fileName = file.getName();
       if (fileName.startsWith(prefix) && fileName.endsWith(suffix)) {
-        try {
-          Entry<V> entry = _entryPool.next();
-          entry.load(file);
-          entryList.add(entry);
-        } catch(Exception e) {
-          String filePath = file.getAbsolutePath();
-          _log.warn(filePath + " corrupted: length=" + file.length(), e);
-          if(file.delete()) {
-            _log.warn(filePath + " deleted");
+        final Entry<V> entry = _entryPool.next();
+        tasks.add(new Callable<Entry<V>>() {
+          @Override
+          public Entry<V> call() {
+            try {
+              entry.load(file);
+              return entry;
+            } catch(Exception e) {
+              String filePath = file.getAbsolutePath();
+              _log.warn(filePath + " corrupted: length=" + file.length(), e);
+              if(file.delete()) {
+                _log.warn(filePath + " deleted");
+              }
+              return null;
+            }
+          }
+        });
+      }
+    }
+    
+    // Read and validate entry files in parallel
+    if(tasks.size() > 0) {
+      try {
+        for(Entry<V> entry : RecoveryService.getInstance().invokeAll("load entry files " + getDirectory().getPath(), tasks)) {
+          if(entry != null) {
+            entryList.add(entry);
           }
         }
+      } catch(IOException e) {
+        _log.warn(e.getMessage(), e);
       }
     }
     
@@ -437,7 +557,7 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
   }
   
   /**
-   * Delete entry log files on disk.
+   * Delete legacy entry log files on disk.
    * 
    * @throws IOException
    */
@@ -531,11 +651,19 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
   }
   
   protected void applyEntries(List<Entry<V>> entries) throws IOException {
-    // Update underlying array file
+    StoreMetrics metrics = _metrics;
+    long startNano = metrics.start();
+    
+    // Update underlying array file, which is forced before redo log records are released
     _array.updateArrayFile(entries);
     
-    // Clean up entry files
+    if (metrics.isEnabled()) {
+      metrics.redoApplied(System.nanoTime() - startNano);
+    }
+    
+    // Clean up legacy entry files and release applied redo log records
     deleteEntryFiles(entries);
+    _entryLog.applied(entries.size());
     
     // Recycle all applied entries
     for(Entry<V> entry : entries) {
@@ -546,8 +674,12 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
   }
   
   protected void init(long arrayFileLwmScn, long arrayFileHwmScn) throws IOException {
-    // Load entries from logs on disk 
+    // Load entries from legacy entry files on disk and sort them in ascending order of IDs
     List<Entry<V>> entryList = loadEntryFiles();
+    EntryUtility.sortEntriesById(entryList);
+    
+    // Load entries from the redo log, which are always newer than legacy entry files
+    entryList.addAll(_entryLog.load(_entryPool));
     
     // Sanitize loaded entries
     if (arrayFileLwmScn == arrayFileHwmScn) {
@@ -568,20 +700,20 @@ public class ArrayEntryManager<V extends EntryValue> implements Persistable {
       }
     }
     
-    // Start recovery based on loaded entries.
+    // Start recovery based on loaded entries in the order of being logged.
     if (entryList.size() > 0) {
-      // Sort entries in ascending order of IDs to ensure apply order
-      EntryUtility.sortEntriesById(entryList);
-      
       // Log redo entries to be applied in recovery
       for(Entry<V> e : entryList) {
-          _log.info("recovery: apply " + e.getFile().getAbsolutePath());
+          File file = (e.getFile() == null) ? _entryLog.getFile() : e.getFile();
+          _log.info("recovery: apply " + file.getAbsolutePath() + " minScn=" + e.getMinScn() + " maxScn=" + e.getMaxScn());
       }
       
       applyEntries(entryList);
     }
     
-    // Delete whatever entry files on disk.
+    // Start a new redo log epoch and delete whatever entry files on disk.
+    _entryLog.reset();
+    _entryLog.force();
     deleteEntryFiles();
   }
 }
@@ -49,6 +49,7 @@ import krati.util.Chronos;
  * |HWM Scn            | long |
  * |Array Length       | int  |
  * |Data Element Size  | int  |
+ * |Packing            | long |
  * |--------------------------|
  * |Array body starts at 1024 |
  * |                          |
@@ -61,6 +62,9 @@ import krati.util.Chronos;
  * 05/09, 2011 - added support for java.io.Closeable <br/>
  * 06/24, 2011 - added setWaterMarks(lwmScn, hwmScn) <br/>
  * 02/01, 2013 - optimize setArrayLength using remap <br/>
+ * 10/17, 2026 - skip overwritten positions when applying merged entries <br/>
+ * 10/17, 2026 - added packing descriptor to the array header <br/>
+ * 10/17, 2026 - added writeLongs for sequential bulk writes <br/>
  */
 public class ArrayFile implements Closeable {
   public static final long STORAGE_VERSION  = 0;
@@ -71,6 +75,7 @@ public class ArrayFile implements Closeable {
   static final int HWM_SCN_POSITION      = 16;
   static final int ARRAY_LENGTH_POSITION = 24;
   static final int ELEMENT_SIZE_POSITION = 28;
+  static final int PACKING_POSITION      = 32;
   static final long DATA_START_POSITION  = ARRAY_HEADER_LENGTH;
   
   static final Logger _log = Logger.getLogger(ArrayFile.class);
@@ -85,6 +90,7 @@ public class ArrayFile implements Closeable {
   private long _arrayHwmScn;
   private int  _arrayLength;  // array length (element count)
   private int  _elementSize;  // array element size in bytes
+  private long _packing;      // packing descriptor, 0 if elements are not bit-packed
   
   /**
    * Creates a new ArrayFile based on a given length and element size.
@@ -171,6 +177,7 @@ public class ArrayFile implements Closeable {
     _writer.writeLong(HWM_SCN_POSITION, _arrayHwmScn);
     _writer.writeInt(ARRAY_LENGTH_POSITION, _arrayLength);
     _writer.writeInt(ELEMENT_SIZE_POSITION, _elementSize);
+    _writer.writeLong(PACKING_POSITION, _packing);
     _writer.flush();
   }
   
@@ -184,6 +191,7 @@ public class ArrayFile implements Closeable {
     _arrayHwmScn = headerBuffer.getLong(HWM_SCN_POSITION);
     _arrayLength = headerBuffer.getInt(ARRAY_LENGTH_POSITION);
     _elementSize = headerBuffer.getInt(ELEMENT_SIZE_POSITION);
+    _packing     = headerBuffer.getLong(PACKING_POSITION);
     
     raf.close();
   }
@@ -208,6 +216,10 @@ public class ArrayFile implements Closeable {
     buf.append(_arrayLength);
     buf.append(" elementSize=");
     buf.append(_elementSize);
+    if(_packing != 0) {
+      buf.append(" packing=");
+      buf.append(Long.toHexString(_packing));
+    }
     
     return buf.toString();
   }
@@ -277,6 +289,14 @@ public class ArrayFile implements Closeable {
     return _elementSize;
   }
   
+  /**
+   * Gets the packing descriptor of this ArrayFile. The returned value is <code>0</code>
+   * if array elements are stored as they are without bit-packing.
+   */
+  public final long getPacking() {
+    return _packing;
+  }
+  
   /**
    * Gets the {@link BasicIO} of this ArrayFile.
    */
@@ -368,6 +388,29 @@ public class ArrayFile implements Closeable {
     }
   }
   
+  /**
+   * Loads this ArrayFile into a direct memory-based long array.
+   * 
+   * @throws IOException
+   */
+  public void load(DirectLongArray longArray) throws IOException {
+    if (!_file.exists() || _file.length() == 0) {
+      return;
+    }
+    
+    Chronos c = new Chronos();
+    RandomAccessFile raf = new RandomAccessFile(_file, "r");
+    
+    try {
+      // Read directly into direct memory in bulk
+      longArray.load(raf.getChannel(), DATA_START_POSITION, _arrayLength);
+      
+      _log.info(_file.getName() + " loaded in " + c.getElapsedTime());
+    } finally {
+      raf.close();
+    }
+  }
+  
   /**
    * Loads this ArrayFile into a memory-based short array.
    * 
@@ -520,6 +563,25 @@ public class ArrayFile implements Closeable {
     _writer.writeLong(getPosition(index), value);
   }
   
+  /**
+   * Writes long values sequentially starting at a specified index in the array.
+   * 
+   * This method does not update hwmScn and lwmScn in the array file.
+   * 
+   * @param index   the first index in the array.
+   * @param values  long values
+   * @param length  the number of values to write
+   * @throws IOException
+   */
+  public synchronized void writeLongs(int index, long[] values, int length) throws IOException {
+      _writer.flush();
+      _writer.position(getPosition(index));
+      for(int i = 0; i < length; i++) {
+          _writer.writeLong(values[i]);
+      }
+      _writer.flush();
+  }
+  
   /**
    * Writes a short value at a specified index in the array.
    * 
@@ -538,6 +600,7 @@ public class ArrayFile implements Closeable {
    * 
    * The method will flatten entry data and sort it by position.
    * So the array file can be updated sequentially to reduce disk seeking time.
+   * Of multiple values sorted at the same position, only the last one is written.
    * 
    * This method updates hwmScn and lwmScn in the array file.
    * 
@@ -563,8 +626,12 @@ public class ArrayFile implements Closeable {
     _writer.writeLong(HWM_SCN_POSITION, maxScn); 
     _writer.flush();
     
-    // Write values
-    for (T v : values) {
+    // Write values, skipping those overwritten by a later value at the same position
+    for (int i = 0, last = values.length - 1; i <= last; i++) {
+      T v = values[i];
+      if (i < last && values[i + 1].pos == v.pos) {
+        continue;
+      }
       v.updateArrayFile(_writer, getPosition(v.pos));
     }
     _writer.flush();
@@ -606,6 +673,18 @@ public class ArrayFile implements Closeable {
     _elementSize = value;
   }
   
+  /**
+   * Sets the packing descriptor of this ArrayFile.
+   * 
+   * @param packing - the packing descriptor, <code>0</code> if array elements are not bit-packed.
+   * @throws IOException if the changes to the underlying file cannot be flushed.
+   */
+  public synchronized void setPacking(long packing) throws IOException {
+    _writer.writeLong(PACKING_POSITION, packing);
+    _writer.flush();
+    _packing = packing;
+  }
+  
   /**
    * Sets the water marks of this ArrayFile.
    * 
@@ -687,6 +766,37 @@ public class ArrayFile implements Closeable {
       flush();
   }
   
+  /**
+   * Resets this ArrayFile with the specified direct long array.
+   * 
+   * @param longArray - the direct long array.
+   * @throws IOException
+   */
+  public synchronized void reset(DirectLongArray longArray) throws IOException {
+      _writer.flush();
+      _writer.position(DATA_START_POSITION);
+      for(int i = 0, cnt = Math.min(longArray.length(), _arrayLength); i < cnt; i++) {
+          _writer.writeLong(longArray.get(i));
+      }
+      _writer.flush();
+  }
+  
+  /**
+   * Resets this ArrayFile with the specified direct long array and the max SCN (System Change Number).
+   * 
+   * @param longArray - the direct long array.
+   * @param maxScn    - the system change number for the low and high water marks.
+   * @throws IOException
+   */
+  public synchronized void reset(DirectLongArray longArray, long maxScn) throws IOException {
+      reset(longArray);
+      
+      _log.info("update hwmScn and lwmScn:" + maxScn);
+      writeHwmScn(maxScn);
+      writeLwmScn(maxScn);
+      flush();
+  }
+  
   /**
    * Resets this ArrayFile with the specified short array.
    * 
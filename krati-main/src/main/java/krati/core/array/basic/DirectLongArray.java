@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.core.array.basic;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+import krati.array.Array;
+import krati.array.DynamicArray;
+import krati.array.LongArray;
+
+/**
+ * DirectLongArray is the off-heap counterpart of {@link MemoryLongArray}. Its sub-arrays
+ * are allocated as direct ByteBuffers outside the Java heap so that large arrays do not
+ * add to the heap size and the GC roots. The sub-arrays are big-endian like array files
+ * so that they can be loaded from a file channel in bulk. DirectLongArray is not thread safe.
+ * 
+ * @since 0.4.9
+ */
+public class DirectLongArray implements LongArray, DynamicArray {
+    protected LongBuffer[] _subArrays;
+    protected ByteBuffer[] _buffers;
+    protected final int _subArrayBits;
+    protected final int _subArraySize;
+    protected final int _subArrayMask;
+    protected final boolean _autoExpand;
+    
+    public DirectLongArray() {
+        this(DynamicConstants.SUB_ARRAY_BITS, true);
+    }
+    
+    public DirectLongArray(int subArrayBits) {
+        this(subArrayBits, true);
+    }
+    
+    public DirectLongArray(int subArrayBits, boolean autoExpand) {
+        this._subArrayBits = subArrayBits;           // e.g. 16
+        this._subArraySize = 1 << subArrayBits;      // e.g. 65536
+        this._subArrayMask = this._subArraySize - 1; // e.g. 65535
+        this._buffers = new ByteBuffer[] { allocate() };
+        this._subArrays = new LongBuffer[] { _buffers[0].asLongBuffer() };
+        this._autoExpand = autoExpand;
+    }
+    
+    /**
+     * Allocates a zero-filled sub-array in direct memory.
+     */
+    protected ByteBuffer allocate() {
+        return ByteBuffer.allocateDirect(_subArraySize << 3);
+    }
+    
+    /**
+     * Loads the specified number of elements from a file channel in bulk, expanding this array as needed.
+     * 
+     * @param channel  - the file channel to read from
+     * @param position - the file position of the first element
+     * @param length   - the number of elements to load
+     * @throws IOException if the elements cannot be read.
+     */
+    public void load(FileChannel channel, long position, int length) throws IOException {
+        if (length <= 0) return;
+        expandCapacity(length - 1);
+        
+        for (int i = 0; length > 0; i++) {
+            int len = Math.min(_subArraySize, length);
+            ByteBuffer bb = _buffers[i].duplicate();
+            bb.clear();
+            bb.limit(len << 3);
+            while (bb.hasRemaining()) {
+                int n = channel.read(bb, position);
+                if (n < 0) {
+                    throw new EOFException();
+                }
+                position += n;
+            }
+            length -= len;
+        }
+    }
+    
+    @Override
+    public void clear() {
+        for (LongBuffer subArray : _subArrays) {
+            for (int i = 0; i < _subArraySize; i++) {
+                subArray.put(i, 0L);
+            }
+        }
+    }
+    
+    /**
+     * @return the current length of this Array
+     */
+    @Override
+    public int length() {
+        long len = _subArrays.length * (long)_subArraySize;
+        return (len < Integer.MAX_VALUE) ? (int)len : Integer.MAX_VALUE;
+    }
+    
+    /**
+     * @return a boolean indicating an index is in the current range of this Array.
+     */
+    @Override
+    public boolean hasIndex(int index) {
+        return (index < 0) ? false : (index >> _subArrayBits) < _subArrays.length;
+    }
+    
+    @Override
+    public long get(int index) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        int subInd = index >> _subArrayBits;
+        int offset = index & _subArrayMask;
+        
+        return _subArrays[subInd].get(offset);
+    }
+    
+    public void set(int index, long value) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        int subInd = index >> _subArrayBits;
+        int offset = index & _subArrayMask;
+        
+        // Expand array capacity automatically
+        if (subInd >= _subArrays.length && _autoExpand) {
+            expandCapacity(index);
+        }
+        
+        _subArrays[subInd].put(offset, value);
+    }
+    
+    @Override
+    public void set(int index, long value, long scn) {
+        set(index, value);
+    }
+    
+    @Override
+    public void expandCapacity(int index) {
+        if (index < 0) return;
+        
+        int numSubArrays = (index >> _subArrayBits) + 1;
+        if (numSubArrays <= _subArrays.length) {
+            return; // No need to expand this array
+        }
+        
+        ByteBuffer[] tmpBuffers = new ByteBuffer[numSubArrays];
+        LongBuffer[] tmpArrays = new LongBuffer[numSubArrays];
+        
+        int i = 0;
+        for (; i < _subArrays.length; i++) {
+            tmpBuffers[i] = _buffers[i];
+            tmpArrays[i] = _subArrays[i];
+        }
+        
+        for (; i < numSubArrays; i++) {
+            tmpBuffers[i] = allocate();
+            tmpArrays[i] = tmpBuffers[i].asLongBuffer();
+        }
+        
+        _buffers = tmpBuffers;
+        _subArrays = tmpArrays;
+        
+        if(getArrayExpandListener() != null) {
+            getArrayExpandListener().arrayExpanded(this);
+        }
+    }
+    
+    /**
+     * Copies this DirectLongArray into a new long array on the heap.
+     */
+    @Override
+    public long[] getInternalArray() {
+        int size = length();
+        long[] result = new long[size];
+        for (int i = 0; i < _subArrays.length; i++) {
+            int len = Math.min(_subArraySize, size);
+            LongBuffer subArray = _subArrays[i].duplicate();
+            subArray.clear();
+            subArray.get(result, i * _subArraySize, len);
+            size -= _subArraySize;
+        }
+        
+        return result;
+    }
+    
+    private ArrayExpandListener _expandListener;
+    
+    protected void setArrayExpandListener(ArrayExpandListener listener) {
+        this._expandListener = listener;
+    }
+    
+    protected ArrayExpandListener getArrayExpandListener() {
+        return _expandListener;
+    }
+    
+    @Override
+    public final Array.Type getType() {
+        return Array.Type.DYNAMIC;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.core.array.basic;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.log4j.Logger;
+
+import krati.util.DaemonThreadFactory;
+
+/**
+ * EntryApplyService is a bounded pool of daemon threads shared by all {@link ArrayEntryManager}s
+ * in a JVM for applying redo entries to array files in the background. Each array keeps its own
+ * queue of pending entries and is scheduled onto the pool at most once at a time, so entries of
+ * the same array are always applied in order.
+ * 
+ * <p>
+ * The pool size can be specified via the system property <code>krati.entry.apply.threads</code>.
+ * It defaults to the number of available processors up to 4.
+ * 
+ * @since 0.4.9
+ */
+public final class EntryApplyService {
+    private final static Logger _log = Logger.getLogger(EntryApplyService.class);
+    
+    /**
+     * The system property for specifying the number of apply threads.
+     */
+    public static final String PARAM_APPLY_THREADS = "krati.entry.apply.threads";
+    
+    /**
+     * The default maximum number of apply threads.
+     */
+    public static final int APPLY_THREADS_MAX_DEFAULT = 4;
+    
+    private static volatile EntryApplyService _instance = null;
+    
+    private final int _poolSize;
+    private final ExecutorService _executor;
+    
+    private EntryApplyService(int poolSize) {
+        this._poolSize = poolSize;
+        this._executor = Executors.newFixedThreadPool(poolSize, new DaemonThreadFactory());
+        _log.info("poolSize=" + poolSize);
+    }
+    
+    /**
+     * @return the shared instance of EntryApplyService.
+     */
+    public static EntryApplyService getInstance() {
+        if(_instance == null) {
+            synchronized(EntryApplyService.class) {
+                if(_instance == null) {
+                    _instance = new EntryApplyService(getDefaultPoolSize());
+                }
+            }
+        }
+        return _instance;
+    }
+    
+    static int getDefaultPoolSize() {
+        int poolSize = Math.min(APPLY_THREADS_MAX_DEFAULT, Runtime.getRuntime().availableProcessors());
+        String value = System.getProperty(PARAM_APPLY_THREADS);
+        if(value != null) {
+            try {
+                poolSize = Integer.parseInt(value.trim());
+            } catch(NumberFormatException e) {
+                _log.warn("Invalid " + PARAM_APPLY_THREADS + ": " + value);
+            }
+        }
+        return Math.max(1, poolSize);
+    }
+    
+    /**
+     * @return the number of apply threads.
+     */
+    public int getPoolSize() {
+        return _poolSize;
+    }
+    
+    /**
+     * Schedules the specified apply task onto the shared pool.
+     */
+    void execute(Runnable task) {
+        _executor.execute(task);
+    }
+}
@@ -275,6 +275,9 @@ public class IOTypeLongArray extends AbstractRecoverableArray<EntryValueLong> im
                 if(maxScn > 0) {
                     _arrayFile.setWaterMarks(maxScn, maxScn);
                 }
+                
+                // Force updates before the entries are released from the redo log
+                _arrayFile.force();
             } else {
                 // IOTypeLongArray instantiation goes here.
                 _arrayFile.update(entryList);
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.core.array.basic;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+import krati.Mode;
+import krati.array.Array;
+import krati.array.DynamicArray;
+import krati.core.array.AddressArray;
+import krati.core.array.entry.EntryLongFactory;
+import krati.core.array.entry.EntryPersistListener;
+import krati.core.array.entry.EntryValueLong;
+
+/**
+ * OffHeapLongArray is a persistent {@link AddressArray} which caches the indexes in direct memory
+ * outside the Java heap. Like {@link DynamicLongArray} and {@link StaticLongArray}, updates are
+ * applied to the cached indexes immediately and flushed to <code>indexes.dat</code> via redo entries.
+ * 
+ * @since 0.4.9
+ */
+public class OffHeapLongArray extends AbstractRecoverableArray<EntryValueLong> implements AddressArray, DynamicArray {
+    private final static int _subArrayBits = DynamicConstants.SUB_ARRAY_BITS;
+    private final static int _subArraySize = DynamicConstants.SUB_ARRAY_SIZE;
+    private final static Logger _log = Logger.getLogger(OffHeapLongArray.class);
+    private final Array.Type _type;
+    private DirectLongArray _internalArray;
+    private float _expandRate = 0;
+    
+    /**
+     * The mode can only be <code>Mode.INIT</code>, <code>Mode.OPEN</code> and <code>Mode.CLOSED</code>.
+     */
+    private volatile Mode _mode = Mode.INIT;
+    
+    /**
+     * Creates a persistent long array with the indexes cached in direct memory.
+     * 
+     * @param type           - the array type, {@link Array.Type#STATIC} or {@link Array.Type#DYNAMIC}.
+     * @param length         - the (initial) length of this array.
+     * @param batchSize      - the number of updates per update batch.
+     * @param numSyncBatches - the number of update batches required for updating the underlying array file.
+     * @param directory      - the home directory of this array.
+     * @throws Exception if this array cannot be created.
+     */
+    public OffHeapLongArray(Array.Type type, int length, int batchSize, int numSyncBatches, File directory) throws Exception {
+        super(length, 8 /* elementSize */, batchSize, numSyncBatches, directory, new EntryLongFactory());
+        this._type = (type != null) ? type : Array.Type.DYNAMIC;
+        this._mode = Mode.OPEN;
+    }
+    
+    @Override
+    protected Logger getLogger() {
+        return _log;
+    }
+    
+    @Override
+    protected void loadArrayFileData() throws IOException {
+        long maxScn = _arrayFile.getLwmScn();
+        
+        try {
+            // Invoked by the super constructor before _type is initialized
+            _internalArray = new DirectLongArray(_subArrayBits);
+            _arrayFile.load(_internalArray);
+        } catch(Exception e) {
+            throw (e instanceof IOException) ? (IOException)e : new IOException("Failed to load array file", e);
+        }
+        
+        _entryManager.setWaterMarks(maxScn, maxScn);
+    }
+    
+    /**
+     * Sync-up the high water mark to a given value.
+     * 
+     * @param endOfPeriod
+     */
+    @Override
+    public void saveHWMark(long endOfPeriod) {
+        if (getHWMark() < endOfPeriod) {
+            try {
+                set(0, get(0), endOfPeriod);
+            } catch(Exception e) {
+                _log.error("Failed to saveHWMark " + endOfPeriod, e);
+            }
+        } else if(0 < endOfPeriod && endOfPeriod < getLWMark()) {
+            try {
+                _entryManager.sync();
+            } catch(Exception e) {
+                _log.error("Failed to saveHWMark" + endOfPeriod, e);
+            }
+            _entryManager.setWaterMarks(endOfPeriod, endOfPeriod);
+        }
+    }
+    
+    @Override
+    public void clear() {
+        if (_internalArray != null) {
+            _internalArray.clear();
+        }
+        
+        // Clear the entry manager
+        _entryManager.clear();
+        
+        // Clear the underlying array file
+        try {
+            _arrayFile.reset(_internalArray, _entryManager.getLWMark());
+        } catch(IOException e) {
+            _log.error(e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public long get(int index) {
+        if(index >= _length) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return _internalArray.get(index);
+    }
+    
+    @Override
+    public void set(int index, long value, long scn) throws Exception {
+        if(index < 0) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        if(_type == Array.Type.DYNAMIC) {
+            expandCapacity(index);
+        } else if(_type == Array.Type.STATIC && index >= _length) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        _internalArray.set(index, value);
+        _entryManager.addToPreFillEntryLong(index, value, scn);
+    }
+    
+    @Override
+    public void setCompactionAddress(int index, long address, long scn) throws Exception {
+        if(index < 0) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        if(_type == Array.Type.DYNAMIC) {
+            expandCapacity(index);
+        } else if(_type == Array.Type.STATIC && index >= _length) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        _internalArray.set(index, address);
+        _entryManager.addToPreFillEntryLongCompaction(index, address, scn);
+    }
+    
+    /**
+     * Copies the indexes from direct memory into a new long array on the heap.
+     */
+    @Override
+    public long[] getInternalArray() {
+        long[] result = _internalArray.getInternalArray();
+        if(result.length > _length) {
+            long[] copy = new long[_length];
+            System.arraycopy(result, 0, copy, 0, _length);
+            result = copy;
+        }
+        return result;
+    }
+    
+    @Override
+    public EntryPersistListener getPersistListener() {
+      return getEntryManager().getPersistListener();
+    }
+    
+    @Override
+    public void setPersistListener(EntryPersistListener persistListener) {
+        getEntryManager().setPersistListener(persistListener);
+    }
+    
+    @Override
+    public float getExpandRate() {
+        return _expandRate;
+    }
+    
+    @Override
+    public void setExpandRate(float rate) {
+        if(rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("invalid value: " + rate);
+        }
+        this._expandRate = rate;
+    }
+    
+    @Override
+    public void expandCapacity(int index) throws Exception {
+        if(index < _length) return;
+        
+        // No expansion on static array
+        if(_type == Array.Type.STATIC) {
+            throw new UnsupportedOperationException("Array is of type " + _type);
+        }
+        
+        // Choose the larger capacity between linear growth and exponential growth
+        long capacity = ((index >> _subArrayBits) + 1L) * _subArraySize;
+        long expandTo = ((_length + (long)(_length * getExpandRate())) >> _subArrayBits) * _subArraySize;
+        if(capacity < expandTo) {
+            capacity = expandTo;
+        }
+        
+        // Cap length to Integer.MAX_VALUE 
+        int newLength = (capacity < Integer.MAX_VALUE) ? (int)capacity : Integer.MAX_VALUE;
+        
+        // Expand internal array in direct memory 
+        if(_internalArray.length() < newLength) {
+            _internalArray.expandCapacity(newLength - 1);
+        }
+        
+        // Expand array file on disk
+        _arrayFile.setArrayLength(newLength, null /* do not rename */);
+        
+        // Reset _length
+        _length = newLength;
+        
+        // Add to logging
+        _log.info("Expanded: _length=" + _length);
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if(_mode == Mode.CLOSED) {
+            return;
+        }
+        
+        try {
+            sync();
+            _entryManager.clear();
+            _arrayFile.close();
+        } catch(Exception e) {
+            throw (e instanceof IOException) ? (IOException)e : new IOException(e);
+        } finally {
+            // Leave direct memory to garbage collection since unsynchronized readers
+            // may still hold sub-array views of the internal array
+            _internalArray = null;
+            _arrayFile = null;
+            _length = 0;
+            
+            _mode = Mode.CLOSED;
+        }
+    }
+    
+    @Override
+    public synchronized void open() throws IOException {
+        if(_mode == Mode.OPEN) {
+            return;
+        }
+        
+        File file = new File(_directory, "indexes.dat");
+        _arrayFile = openArrayFile(file, _length /* initial length */, 8);
+        _length = _arrayFile.getArrayLength();
+        
+        this.init();
+        this._mode = Mode.OPEN;
+        
+        getLogger().info("length:" + _length +
+                        " batchSize:" + _entryManager.getMaxEntrySize() +
+                        " numSyncBatches:" + _entryManager.getMaxEntries() + 
+                        " directory:" + _directory.getAbsolutePath() +
+                        " arrayFile:" + _arrayFile.getName());
+    }
+    
+    @Override
+    public boolean isOpen() {
+        return _mode == Mode.OPEN;
+    }
+    
+    @Override
+    public final Array.Type getType() {
+        return _type;
+    }
+}
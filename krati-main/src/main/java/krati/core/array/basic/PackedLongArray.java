@@ -0,0 +1,601 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.core.array.basic;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.log4j.Logger;
+
+import krati.Mode;
+import krati.array.Array;
+import krati.array.DynamicArray;
+import krati.core.array.AddressArray;
+import krati.core.array.entry.Entry;
+import krati.core.array.entry.EntryLongFactory;
+import krati.core.array.entry.EntryPersistListener;
+import krati.core.array.entry.EntryUtility;
+import krati.core.array.entry.EntryValueLong;
+import krati.core.segment.AddressFormat;
+import krati.io.BasicIO;
+
+/**
+ * PackedLongArray is a persistent {@link AddressArray} which caches the indexes bit-packed on the heap.
+ * Every address is stored in the minimum number of bits required by the segment offsets, segment ids and
+ * data sizes seen so far (see {@link AddressPacking}). The array is repacked to a wider bit width when an
+ * address does not fit, e.g. upon the creation of a segment with a larger segment id.
+ * 
+ * <p>
+ * The underlying <code>indexes.dat</code> keeps the same bit-packed words and records the packing in its
+ * header. Redo entries still carry full addresses and are packed when applied to <code>indexes.dat</code>.
+ * An existing <code>indexes.dat</code> which is not bit-packed is converted when the array is loaded.
+ * 
+ * @since 0.4.9
+ */
+public class PackedLongArray extends AbstractRecoverableArray<EntryValueLong> implements AddressArray, DynamicArray {
+    private final static int _subArrayBits = DynamicConstants.SUB_ARRAY_BITS;
+    private final static int _subArraySize = DynamicConstants.SUB_ARRAY_SIZE;
+    private final static int _subArrayMask = _subArraySize - 1;
+    private final static AddressFormat _addressFormat = new AddressFormat();
+    private final static Logger _log = Logger.getLogger(PackedLongArray.class);
+    private final Array.Type _type;
+    private final int _offsetBitsHint;
+    private float _expandRate = 0;
+    
+    /**
+     * The packed words, which are replaced as a whole upon repacking and expansion.
+     */
+    private volatile PackedWords _words;
+    
+    /**
+     * The sequence number for detecting reads concurrent with writes. It is odd while a write is in progress.
+     * The packed words are read and written with volatile semantics, so a reader which sees the same even
+     * sequence number before and after reading an address has not seen any part of a concurrent write.
+     */
+    private volatile int _seq;
+    
+    /**
+     * Whether the array file is newly created. It is set by the super constructor.
+     */
+    private boolean _newArrayFile;
+    
+    /**
+     * The mode can only be <code>Mode.INIT</code>, <code>Mode.OPEN</code> and <code>Mode.CLOSED</code>.
+     */
+    private volatile Mode _mode = Mode.INIT;
+    
+    /**
+     * Creates a persistent long array with the indexes bit-packed in memory.
+     * 
+     * @param type           - the array type, {@link Array.Type#STATIC} or {@link Array.Type#DYNAMIC}.
+     * @param length         - the (initial) length of this array.
+     * @param batchSize      - the number of updates per update batch.
+     * @param numSyncBatches - the number of update batches required for updating the underlying array file.
+     * @param directory      - the home directory of this array.
+     * @throws Exception if this array cannot be created.
+     */
+    public PackedLongArray(Array.Type type, int length, int batchSize, int numSyncBatches, File directory) throws Exception {
+        this(type, length, batchSize, numSyncBatches, directory, 0);
+    }
+    
+    /**
+     * Creates a persistent long array with the indexes bit-packed in memory.
+     * 
+     * @param type              - the array type, {@link Array.Type#STATIC} or {@link Array.Type#DYNAMIC}.
+     * @param length            - the (initial) length of this array.
+     * @param batchSize         - the number of updates per update batch.
+     * @param numSyncBatches    - the number of update batches required for updating the underlying array file.
+     * @param directory         - the home directory of this array.
+     * @param segmentFileSizeMB - the segment file size in MB for sizing the offset bits upon repacking, or <code>0</code> if unknown.
+     * @throws Exception if this array cannot be created.
+     */
+    public PackedLongArray(Array.Type type, int length, int batchSize, int numSyncBatches, File directory, int segmentFileSizeMB) throws Exception {
+        super(length, 8 /* elementSize */, batchSize, numSyncBatches, directory, new EntryLongFactory());
+        this._type = (type != null) ? type : Array.Type.DYNAMIC;
+        this._offsetBitsHint = (segmentFileSizeMB > 0) ? (64 - Long.numberOfLeadingZeros(((long)segmentFileSizeMB << 20) - 1)) : 0;
+        this._mode = Mode.OPEN;
+    }
+    
+    @Override
+    protected Logger getLogger() {
+        return _log;
+    }
+    
+    @Override
+    protected boolean isPackingSupported() {
+        return true;
+    }
+    
+    @Override
+    protected void initArrayFile() throws IOException {
+        // Invoked by the super constructor before field initializers
+        _newArrayFile = true;
+    }
+    
+    @Override
+    protected void loadArrayFileData() throws IOException {
+        long maxScn = _arrayFile.getLwmScn();
+        long descriptor = _arrayFile.getPacking();
+        
+        try {
+            if(descriptor != 0) {
+                AddressPacking packing = AddressPacking.fromDescriptor(_addressFormat, descriptor);
+                int length = AddressPacking.getLength(descriptor);
+                _words = loadWords(packing, length);
+                _length = length;
+            } else if(_newArrayFile) {
+                int length = _arrayFile.getArrayLength();
+                AddressPacking packing = new AddressPacking(_addressFormat, 0, 0, 0);
+                _arrayFile.setPacking(packing.toDescriptor(length));
+                _arrayFile.setArrayLength((int)packing.countWords(length), null);
+                _words = new PackedWords(packing, length);
+                _length = length;
+            } else {
+                int length = _arrayFile.getArrayLength();
+                _words = convertWords(length);
+                _length = length;
+                writeArrayFile(_words, length);
+                _log.info("Converted " + _arrayFile.getName() + ": " + _words.packing);
+            }
+        } catch(IllegalArgumentException e) {
+            throw new IOException("Failed to load array file", e);
+        } finally {
+            _newArrayFile = false;
+        }
+        
+        _entryManager.setWaterMarks(maxScn, maxScn);
+    }
+    
+    /**
+     * Loads the packed words from the bit-packed array file.
+     */
+    private PackedWords loadWords(AddressPacking packing, int length) throws IOException {
+        PackedWords words = new PackedWords(packing, length);
+        BasicIO io = _arrayFile.getBasicIO();
+        
+        int wordIndex = 0;
+        for(AtomicLongArray chunk : words.chunks) {
+            for(int i = 0, cnt = chunk.length(); i < cnt; i++) {
+                chunk.set(i, io.readLong(_arrayFile.getPosition(wordIndex++)));
+            }
+        }
+        
+        return words;
+    }
+    
+    /**
+     * Converts the addresses from the array file which is not bit-packed.
+     */
+    private PackedWords convertWords(int length) throws IOException {
+        BasicIO io = _arrayFile.getBasicIO();
+        
+        AddressPacking packing = new AddressPacking(_addressFormat, 0, 0, 0);
+        for(int i = 0; i < length; i++) {
+            packing = packing.widen(io.readLong(_arrayFile.getPosition(i)), 0);
+        }
+        
+        PackedWords words = new PackedWords(packing, length);
+        for(int i = 0; i < length; i++) {
+            words.set(i, io.readLong(_arrayFile.getPosition(i)));
+        }
+        
+        return words;
+    }
+    
+    /**
+     * Replaces the underlying array file with the specified packed words.
+     * The new array file is written aside and renamed to <code>indexes.dat</code>.
+     */
+    private void writeArrayFile(PackedWords words, int length) throws IOException {
+        File file = new File(_directory, "indexes.dat");
+        File packingFile = new File(_directory, "indexes.dat.packing");
+        if(packingFile.exists() && !packingFile.delete()) {
+            throw new IOException("Failed to delete " + packingFile.getAbsolutePath());
+        }
+        
+        int wordCount = (int)words.packing.countWords(length);
+        ArrayFile arrayFile = new ArrayFile(packingFile, wordCount, 8);
+        BasicIO io = arrayFile.getBasicIO();
+        
+        int wordIndex = 0;
+        for(AtomicLongArray chunk : words.chunks) {
+            for(int i = 0, cnt = chunk.length(); i < cnt; i++) {
+                io.writeLong(arrayFile.getPosition(wordIndex++), chunk.get(i));
+            }
+        }
+        
+        arrayFile.setPacking(words.packing.toDescriptor(length));
+        arrayFile.setWaterMarks(_arrayFile.getLwmScn(), _arrayFile.getHwmScn());
+        arrayFile.force();
+        arrayFile.close();
+        
+        _arrayFile.close();
+        if(!packingFile.renameTo(file)) {
+            throw new IOException("Failed to rename " + packingFile.getAbsolutePath() + " to " + file.getAbsolutePath());
+        }
+        _arrayFile = new ArrayFile(file, wordCount, 8);
+    }
+    
+    /**
+     * Applies redo entries to the underlying array file and forces it to the storage device.
+     * Addresses are packed using the packing recorded in the array file.
+     */
+    @Override
+    public void updateArrayFile(List<Entry<EntryValueLong>> entryList) throws IOException {
+        ArrayFile arrayFile = _arrayFile;
+        if(arrayFile == null) {
+            return;
+        }
+        
+        synchronized(arrayFile) {
+            long descriptor = arrayFile.getPacking();
+            if(descriptor == 0) {
+                super.updateArrayFile(entryList);
+                return;
+            }
+            
+            EntryValueLong[] values = EntryUtility.sortEntriesToValues(entryList);
+            if(values == null || values.length == 0) return;
+            
+            long maxScn = arrayFile.getHwmScn();
+            for(Entry<?> e : entryList) {
+                maxScn = Math.max(e.getMaxScn(), maxScn);
+            }
+            
+            AddressPacking packing = AddressPacking.fromDescriptor(_addressFormat, descriptor);
+            arrayFile.setWaterMarks(arrayFile.getLwmScn(), maxScn);
+            
+            BasicIO io = arrayFile.getBasicIO();
+            int width = packing.getWidth();
+            long mask = packing.getMask();
+            
+            for(int i = 0, last = values.length - 1; i <= last; i++) {
+                EntryValueLong v = values[i];
+                if(i < last && values[i + 1].pos == v.pos) {
+                    continue;
+                }
+                if(!packing.fits(v.val)) {
+                    throw new IOException("Failed to pack " + v.val + " at " + v.pos + ": " + packing);
+                }
+                if(width == 0) {
+                    continue;
+                }
+                
+                long code = packing.encode(v.val);
+                long bit = (long)v.pos * width;
+                int word = (int)(bit >>> 6);
+                int shift = (int)(bit & 63);
+                
+                long pos = arrayFile.getPosition(word);
+                io.writeLong(pos, (io.readLong(pos) & ~(mask << shift)) | (code << shift));
+                if(shift + width > 64) {
+                    long hiMask = (1L << (shift + width - 64)) - 1;
+                    pos = arrayFile.getPosition(word + 1);
+                    io.writeLong(pos, (io.readLong(pos) & ~hiMask) | (code >>> (64 - shift)));
+                }
+            }
+            arrayFile.flush();
+            
+            arrayFile.setWaterMarks(maxScn, maxScn);
+            arrayFile.force();
+        }
+    }
+    
+    /**
+     * Sync-up the high water mark to a given value.
+     * 
+     * @param endOfPeriod
+     */
+    @Override
+    public void saveHWMark(long endOfPeriod) {
+        if (getHWMark() < endOfPeriod) {
+            try {
+                set(0, get(0), endOfPeriod);
+            } catch(Exception e) {
+                _log.error("Failed to saveHWMark " + endOfPeriod, e);
+            }
+        } else if(0 < endOfPeriod && endOfPeriod < getLWMark()) {
+            try {
+                _entryManager.sync();
+            } catch(Exception e) {
+                _log.error("Failed to saveHWMark" + endOfPeriod, e);
+            }
+            _entryManager.setWaterMarks(endOfPeriod, endOfPeriod);
+        }
+    }
+    
+    @Override
+    public synchronized void clear() {
+        if (_words != null) {
+            _words = new PackedWords(_words.packing, _length);
+        }
+        
+        // Clear the entry manager
+        _entryManager.clear();
+        
+        // Clear the underlying array file
+        try {
+            _arrayFile.resetAll(0, _entryManager.getLWMark());
+        } catch(IOException e) {
+            _log.error(e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public long get(int index) {
+        if(index >= _length) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        while(true) {
+            int seq = _seq;
+            if((seq & 1) == 0) {
+                long address = _words.get(index);
+                if(seq == _seq) {
+                    return address;
+                }
+            }
+        }
+    }
+    
+    @Override
+    public synchronized void set(int index, long value, long scn) throws Exception {
+        if(index < 0) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        if(_type == Array.Type.DYNAMIC) {
+            expandCapacity(index);
+        } else if(_type == Array.Type.STATIC && index >= _length) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        write(index, value);
+        _entryManager.addToPreFillEntryLong(index, value, scn);
+    }
+    
+    @Override
+    public synchronized void setCompactionAddress(int index, long address, long scn) throws Exception {
+        if(index < 0) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        if(_type == Array.Type.DYNAMIC) {
+            expandCapacity(index);
+        } else if(_type == Array.Type.STATIC && index >= _length) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        write(index, address);
+        _entryManager.addToPreFillEntryLongCompaction(index, address, scn);
+    }
+    
+    /**
+     * Writes the specified address into the packed words, repacking the array if the address does not fit.
+     */
+    private void write(int index, long address) throws IOException {
+        AddressPacking packing = _words.packing;
+        if(!packing.fits(address)) {
+            repack(packing.widen(address, _offsetBitsHint));
+        }
+        
+        _seq++;
+        _words.set(index, address);
+        _seq++;
+    }
+    
+    /**
+     * Repacks this array and the underlying array file using the specified packing.
+     */
+    private void repack(AddressPacking packing) throws IOException {
+        // Apply all the redo entries packed in the current packing
+        _entryManager.sync();
+        
+        PackedWords words = _words;
+        PackedWords newWords = new PackedWords(packing, _length);
+        for(int i = 0; i < _length; i++) {
+            newWords.set(i, words.get(i));
+        }
+        
+        writeArrayFile(newWords, _length);
+        _words = newWords;
+        
+        _log.info("Repacked: " + packing + " bitsPerElement=" + packing.getWidth());
+    }
+    
+    /**
+     * Copies the indexes into a new long array.
+     */
+    @Override
+    public long[] getInternalArray() {
+        long[] result = new long[_length];
+        for(int i = 0; i < result.length; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+    
+    /**
+     * Gets the current packing of this array.
+     */
+    public AddressPacking getPacking() {
+        return _words.packing;
+    }
+    
+    /**
+     * Gets the number of bits per array element.
+     */
+    public int getBitsPerElement() {
+        return _words.packing.getWidth();
+    }
+    
+    @Override
+    public EntryPersistListener getPersistListener() {
+      return getEntryManager().getPersistListener();
+    }
+    
+    @Override
+    public void setPersistListener(EntryPersistListener persistListener) {
+        getEntryManager().setPersistListener(persistListener);
+    }
+    
+    @Override
+    public float getExpandRate() {
+        return _expandRate;
+    }
+    
+    @Override
+    public void setExpandRate(float rate) {
+        if(rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("invalid value: " + rate);
+        }
+        this._expandRate = rate;
+    }
+    
+    @Override
+    public synchronized void expandCapacity(int index) throws Exception {
+        if(index < _length) return;
+        
+        // No expansion on static array
+        if(_type == Array.Type.STATIC) {
+            throw new UnsupportedOperationException("Array is of type " + _type);
+        }
+        
+        // Choose the larger capacity between linear growth and exponential growth
+        long capacity = ((index >> _subArrayBits) + 1L) * _subArraySize;
+        long expandTo = ((_length + (long)(_length * getExpandRate())) >> _subArrayBits) * _subArraySize;
+        if(capacity < expandTo) {
+            capacity = expandTo;
+        }
+        
+        // Cap length to Integer.MAX_VALUE 
+        int newLength = (capacity < Integer.MAX_VALUE) ? (int)capacity : Integer.MAX_VALUE;
+        
+        // Expand packed words in memory
+        PackedWords newWords = _words.expand(newLength);
+        
+        // Expand array file on disk
+        AddressPacking packing = newWords.packing;
+        _arrayFile.setArrayLength((int)packing.countWords(newLength), null /* do not rename */);
+        _arrayFile.setPacking(packing.toDescriptor(newLength));
+        
+        // Reset _words and _length
+        _words = newWords;
+        _length = newLength;
+        
+        // Add to logging
+        _log.info("Expanded: _length=" + _length);
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if(_mode == Mode.CLOSED) {
+            return;
+        }
+        
+        try {
+            sync();
+            _entryManager.clear();
+            _arrayFile.close();
+        } catch(Exception e) {
+            throw (e instanceof IOException) ? (IOException)e : new IOException(e);
+        } finally {
+            _words = null;
+            _arrayFile = null;
+            _length = 0;
+            
+            _mode = Mode.CLOSED;
+        }
+    }
+    
+    @Override
+    public synchronized void open() throws IOException {
+        if(_mode == Mode.OPEN) {
+            return;
+        }
+        
+        File file = new File(_directory, "indexes.dat");
+        _arrayFile = openArrayFile(file, _length /* initial length */, 8);
+        _length = _arrayFile.getArrayLength();
+        
+        this.init();
+        this._mode = Mode.OPEN;
+        
+        getLogger().info("length:" + _length +
+                        " batchSize:" + _entryManager.getMaxEntrySize() +
+                        " numSyncBatches:" + _entryManager.getMaxEntries() + 
+                        " directory:" + _directory.getAbsolutePath() +
+                        " arrayFile:" + _arrayFile.getName());
+    }
+    
+    @Override
+    public boolean isOpen() {
+        return _mode == Mode.OPEN;
+    }
+    
+    @Override
+    public final Array.Type getType() {
+        return _type;
+    }
+    
+    /**
+     * PackedWords holds bit-packed addresses in sub-arrays of words. Every full sub-array
+     * packs {@link DynamicConstants#SUB_ARRAY_SIZE} addresses so that the words of all
+     * sub-arrays are contiguous in the bit-packed array file.
+     */
+    private static final class PackedWords {
+        final AddressPacking packing;
+        final AtomicLongArray[] chunks;
+        
+        PackedWords(AddressPacking packing, int length) {
+            this(packing, new AtomicLongArray[(length + _subArrayMask) >>> _subArrayBits], length);
+        }
+        
+        private PackedWords(AddressPacking packing, AtomicLongArray[] chunks, int length) {
+            this.packing = packing;
+            this.chunks = chunks;
+            for(int i = 0; i < chunks.length; i++) {
+                int wordCount = (int)packing.countWords(Math.min(_subArraySize, length - (i << _subArrayBits)));
+                if(chunks[i] == null) {
+                    chunks[i] = new AtomicLongArray(wordCount);
+                } else if(chunks[i].length() < wordCount) {
+                    AtomicLongArray chunk = new AtomicLongArray(wordCount);
+                    for(int j = 0, cnt = chunks[i].length(); j < cnt; j++) {
+                        chunk.set(j, chunks[i].get(j));
+                    }
+                    chunks[i] = chunk;
+                }
+            }
+        }
+        
+        PackedWords expand(int length) {
+            int chunkCount = (length + _subArrayMask) >>> _subArrayBits;
+            return new PackedWords(packing, Arrays.copyOf(chunks, chunkCount), length);
+        }
+        
+        long get(int index) {
+            return packing.decode(packing.read(chunks[index >>> _subArrayBits], index & _subArrayMask));
+        }
+        
+        void set(int index, long address) {
+            packing.write(chunks[index >>> _subArrayBits], index & _subArrayMask, packing.encode(address));
+        }
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.core.array.basic;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.log4j.Logger;
+
+import krati.Mode;
+import krati.array.Array;
+import krati.array.DynamicArray;
+import krati.core.array.AddressArray;
+import krati.core.array.entry.EntryLog;
+import krati.core.array.entry.EntryPersistListener;
+import krati.core.segment.AddressFormat;
+import krati.util.Chronos;
+
+/**
+ * ReadOnlyLongArray is an {@link AddressArray} loaded directly from <code>indexes.dat</code> for serving
+ * read-only stores. It keeps no redo log and never opens <code>indexes.dat</code> for write, so that it
+ * can be opened from a home directory which is not writable. Opening fails if redo entries may not
+ * have been applied to <code>indexes.dat</code>, e.g. after the writer was not closed cleanly, since
+ * stale indexes may point into segments which have been compacted and reused since.
+ * 
+ * <p>
+ * The indexes are always cached in memory. They are kept in direct memory if <code>indexesOffHeap</code>
+ * is set, and a bit-packed <code>indexes.dat</code> is kept bit-packed on the heap. Otherwise, the indexes
+ * are bit-packed on load if <code>indexesPacked</code> is set. All updates are rejected with
+ * {@link UnsupportedOperationException}.
+ * 
+ * @since 0.4.9
+ */
+public class ReadOnlyLongArray implements AddressArray, DynamicArray {
+    private final static Logger _log = Logger.getLogger(ReadOnlyLongArray.class);
+    private final static AddressFormat _addressFormat = new AddressFormat();
+    private final static int READ_BUFFER_SIZE = 1 << 20;
+    private final Array.Type _type;
+    private final File _file;
+    private final File _directory;
+    private final boolean _offHeap;
+    private final boolean _packed;
+    private int _length;
+    private long _lwmScn;
+    private long _hwmScn;
+    
+    private long[] _array;                 // addresses on the heap
+    private DirectLongArray _directArray;  // addresses in direct memory
+    private long[] _words;                 // bit-packed addresses on the heap
+    private AddressPacking _packing;
+    
+    /**
+     * The mode can only be <code>Mode.INIT</code>, <code>Mode.OPEN_FOR_READ</code> and <code>Mode.CLOSED</code>.
+     */
+    private volatile Mode _mode = Mode.INIT;
+    
+    /**
+     * Creates a read-only long array from <code>indexes.dat</code> under the specified directory.
+     * 
+     * @param type      - the array type, {@link Array.Type#STATIC} or {@link Array.Type#DYNAMIC}.
+     * @param directory - the home directory of this array.
+     * @param offHeap   - whether to keep the indexes in direct memory outside the Java heap.
+     * @throws IOException if <code>indexes.dat</code> is not found or cannot be loaded.
+     */
+    public ReadOnlyLongArray(Array.Type type, File directory, boolean offHeap) throws IOException {
+        this(type, directory, offHeap, false);
+    }
+    
+    /**
+     * Creates a read-only long array from <code>indexes.dat</code> under the specified directory.
+     * 
+     * @param type      - the array type, {@link Array.Type#STATIC} or {@link Array.Type#DYNAMIC}.
+     * @param directory - the home directory of this array.
+     * @param offHeap   - whether to keep the indexes in direct memory outside the Java heap.
+     * @param packed    - whether to bit-pack the indexes on the heap if <code>offHeap</code> is not set.
+     * @throws IOException if <code>indexes.dat</code> is not found or cannot be loaded.
+     */
+    public ReadOnlyLongArray(Array.Type type, File directory, boolean offHeap, boolean packed) throws IOException {
+        this._type = (type != null) ? type : Array.Type.DYNAMIC;
+        this._directory = directory;
+        this._file = new File(directory, "indexes.dat");
+        this._offHeap = offHeap;
+        this._packed = packed;
+        this.open();
+    }
+    
+    /**
+     * Loads the header and the addresses from <code>indexes.dat</code>.
+     */
+    private void load() throws IOException {
+        if(!_file.exists()) {
+            throw new FileNotFoundException("Read-only array not found: " + _file.getAbsolutePath());
+        }
+        
+        checkRedoEntries();
+        
+        Chronos c = new Chronos();
+        RandomAccessFile raf = new RandomAccessFile(_file, "r");
+        
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(ArrayFile.ARRAY_HEADER_LENGTH);
+            readFully(channel, header, 0);
+            
+            long version = header.getLong(ArrayFile.VERSION_POSITION);
+            long lwmScn = header.getLong(ArrayFile.LWM_SCN_POSITION);
+            long hwmScn = header.getLong(ArrayFile.HWM_SCN_POSITION);
+            int arrayLength = header.getInt(ArrayFile.ARRAY_LENGTH_POSITION);
+            int elementSize = header.getInt(ArrayFile.ELEMENT_SIZE_POSITION);
+            long descriptor = header.getLong(ArrayFile.PACKING_POSITION);
+            
+            if(version != ArrayFile.STORAGE_VERSION || elementSize != 8 || arrayLength < 0 || hwmScn < lwmScn) {
+                throw new IOException("Invalid header in " + _file.getAbsolutePath() +
+                        ": version=" + version + " lwmScn=" + lwmScn + " hwmScn=" + hwmScn +
+                        " arrayLength=" + arrayLength + " elementSize=" + elementSize);
+            }
+            
+            if(lwmScn != hwmScn) {
+                throw new IOException(_file.getAbsolutePath() + " has an incomplete update: lwmScn=" + lwmScn +
+                        " hwmScn=" + hwmScn + ". Open the store once in writable mode to recover it.");
+            }
+            
+            if(descriptor != 0) {
+                try {
+                    _packing = AddressPacking.fromDescriptor(_addressFormat, descriptor);
+                } catch(IllegalArgumentException e) {
+                    throw new IOException("Failed to load array file", e);
+                }
+                _length = AddressPacking.getLength(descriptor);
+                _words = new long[arrayLength];
+                readLongs(channel, _words, arrayLength);
+            } else if(_offHeap) {
+                _length = arrayLength;
+                _directArray = new DirectLongArray(DynamicConstants.SUB_ARRAY_BITS);
+                _directArray.load(channel, ArrayFile.DATA_START_POSITION, arrayLength);
+            } else if(_packed) {
+                _length = arrayLength;
+                packLongs(channel, arrayLength);
+            } else {
+                _length = arrayLength;
+                _array = new long[arrayLength];
+                readLongs(channel, _array, arrayLength);
+            }
+            
+            _lwmScn = lwmScn;
+            _hwmScn = hwmScn;
+        } finally {
+            raf.close();
+        }
+        
+        _log.info(_file.getName() + " loaded in " + c.getElapsedTime() + ": length=" + _length + " hwmScn=" + _hwmScn);
+    }
+    
+    /**
+     * Fails if the home directory holds redo entries which may not have been applied to <code>indexes.dat</code>.
+     */
+    private void checkRedoEntries() throws IOException {
+        File[] files = _directory.listFiles();
+        if(files != null) {
+            for(File file : files) {
+                String fileName = file.getName();
+                if(fileName.startsWith("entry") && fileName.endsWith(".idx")) {
+                    throw new IOException(_directory.getAbsolutePath() + " has unapplied entry file " + fileName +
+                            ". Open the store once in writable mode to recover it.");
+                }
+            }
+        }
+        
+        File logFile = new File(_directory, ArrayEntryManager.ENTRY_LOG_NAME);
+        if(EntryLog.hasRecords(logFile)) {
+            throw new IOException(logFile.getAbsolutePath() + " has unapplied redo entries" +
+                    ". Open the store once in writable mode to recover it.");
+        }
+    }
+    
+    /**
+     * Bit-packs the addresses from <code>indexes.dat</code> which is not bit-packed.
+     * The addresses are read twice, first for the packing and then for the packed words.
+     */
+    private void packLongs(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(READ_BUFFER_SIZE, Math.max(8L, (long)length << 3)));
+        
+        AddressPacking packing = new AddressPacking(_addressFormat, 0, 0, 0);
+        long position = ArrayFile.DATA_START_POSITION;
+        for(int offset = 0; offset < length; ) {
+            int cnt = Math.min(buffer.capacity() >> 3, length - offset);
+            buffer.clear();
+            buffer.limit(cnt << 3);
+            readFully(channel, buffer, position);
+            for(int i = 0; i < cnt; i++) {
+                packing = packing.widen(buffer.getLong(i << 3), 0);
+            }
+            position += cnt << 3;
+            offset += cnt;
+        }
+        
+        long[] words = new long[(int)packing.countWords(length)];
+        position = ArrayFile.DATA_START_POSITION;
+        for(int offset = 0; offset < length; ) {
+            int cnt = Math.min(buffer.capacity() >> 3, length - offset);
+            buffer.clear();
+            buffer.limit(cnt << 3);
+            readFully(channel, buffer, position);
+            for(int i = 0; i < cnt; i++) {
+                packing.write(words, offset + i, packing.encode(buffer.getLong(i << 3)));
+            }
+            position += cnt << 3;
+            offset += cnt;
+        }
+        
+        _packing = packing;
+        _words = words;
+    }
+    
+    private static void readLongs(FileChannel channel, long[] dst, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(READ_BUFFER_SIZE, Math.max(8L, (long)length << 3)));
+        long position = ArrayFile.DATA_START_POSITION;
+        
+        for(int offset = 0; offset < length; ) {
+            int cnt = Math.min(buffer.capacity() >> 3, length - offset);
+            buffer.clear();
+            buffer.limit(cnt << 3);
+            readFully(channel, buffer, position);
+            buffer.flip();
+            buffer.asLongBuffer().get(dst, offset, cnt);
+            position += cnt << 3;
+            offset += cnt;
+        }
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if(n < 0) {
+                throw new EOFException();
+            }
+            position += n;
+        }
+    }
+    
+    @Override
+    public long get(int index) {
+        if(index >= _length) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        
+        if(_packing != null) {
+            return _packing.decode(_packing.read(_words, index));
+        }
+        return (_array != null) ? _array[index] : _directArray.get(index);
+    }
+    
+    @Override
+    public void set(int index, long value, long scn) throws Exception {
+        throw new UnsupportedOperationException("Read-only");
+    }
+    
+    @Override
+    public void setCompactionAddress(int index, long address, long scn) throws Exception {
+        throw new UnsupportedOperationException("Read-only");
+    }
+    
+    /**
+     * Copies the indexes into a new long array on the heap.
+     */
+    @Override
+    public long[] getInternalArray() {
+        if(_array != null) {
+            return _array;
+        }
+        
+        long[] result = new long[_length];
+        for(int i = 0; i < _length; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+    
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Read-only");
+    }
+    
+    @Override
+    public int length() {
+        return _length;
+    }
+    
+    @Override
+    public boolean hasIndex(int index) {
+        return (0 <= index && index < _length);
+    }
+    
+    @Override
+    public final Array.Type getType() {
+        return _type;
+    }
+    
+    /**
+     * Does nothing since this array cannot be expanded. Updates beyond its length are rejected by {@link #set(int, long, long)}.
+     */
+    @Override
+    public void expandCapacity(int index) throws Exception {
+        // Do nothing
+    }
+    
+    @Override
+    public float getExpandRate() {
+        return 0;
+    }
+    
+    @Override
+    public void setExpandRate(float rate) {
+        // Do nothing
+    }
+    
+    @Override
+    public EntryPersistListener getPersistListener() {
+        return null;
+    }
+    
+    @Override
+    public void setPersistListener(EntryPersistListener persistListener) {
+        // No entries are ever persisted
+    }
+    
+    @Override
+    public void sync() throws IOException {
+        // Do nothing
+    }
+    
+    @Override
+    public void persist() throws IOException {
+        // Do nothing
+    }
+    
+    @Override
+    public long getLWMark() {
+        return _lwmScn;
+    }
+    
+    @Override
+    public long getHWMark() {
+        return _hwmScn;
+    }
+    
+    @Override
+    public void saveHWMark(long endOfPeriod) throws Exception {
+        // Do nothing
+    }
+    
+    @Override
+    public synchronized void open() throws IOException {
+        if(_mode == Mode.OPEN_FOR_READ) {
+            return;
+        }
+        
+        load();
+        _mode = Mode.OPEN_FOR_READ;
+    }
+    
+    /**
+     * Closes this array. The memory of the indexes is left to garbage collection
+     * since unsynchronized readers may still be reading the indexes.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if(_mode == Mode.CLOSED) {
+            return;
+        }
+        
+        _mode = Mode.CLOSED;
+        _array = null;
+        _directArray = null;
+        _words = null;
+        _packing = null;
+        _length = 0;
+    }
+    
+    @Override
+    public boolean isOpen() {
+        return _mode == Mode.OPEN_FOR_READ;
+    }
+}
@@ -44,8 +44,15 @@ public interface RecoverableArray<V extends EntryValue> extends Array, Persistab
      */
     public EntryFactory<V> getEntryFactory();
     
+    /**
+     * Gets the manager of redo log entries.
+     */
+    public ArrayEntryManager<V> getEntryManager();
+    
     /**
      * Updates the underlying array file with the specified list of redo log entries.
+     * The updates are forced to the storage device before this method returns so that
+     * the applied redo log entries can be released.
      * 
      * @param entryList - the list of redo log entries.
      * @throws IOException if any redo log entry in the list can not be applied.
@@ -108,6 +108,7 @@ public abstract class AbstractEntry<T extends EntryValue> implements Entry<T> {
     public void clear() {
         _minScn = 0;
         _maxScn = 0;
+        _entryFile = null;
     }
 
     @Override
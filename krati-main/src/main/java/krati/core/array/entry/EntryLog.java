@@ -0,0 +1,776 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.core.array.entry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.Logger;
+
+import krati.io.Closeable;
+import krati.io.DataReader;
+import krati.io.DataWriter;
+import krati.util.Chronos;
+
+/**
+ * EntryLog is a single append-only, preallocated redo log for the entries of a recoverable array.
+ * 
+ * <p>
+ * The log file starts at {@link #INITIAL_PREALLOCATE_SIZE} bytes and is extended by doubling as records
+ * are appended until it reaches the preallocate size, so that small arrays with few writes do not pay
+ * the full preallocate size on disk.
+ * 
+ * <p>
+ * Every entry is appended as a checksummed record. Appends are only written to the file channel;
+ * they become durable when {@link #force()} is called, so that multiple writer batches accumulated
+ * since the last call are coalesced into one <code>force</code> (group commit). Once all appended
+ * records have been applied to the underlying array file, the log is reset to its header and a new
+ * epoch is started. Records left over from a previous epoch are never replayed.
+ * 
+ * <p>
+ * Under sustained writes the applied records never catch up with the appended records. Once the log
+ * has grown past its preallocated size and the applied prefix is no smaller than the rest of the log,
+ * the records not yet applied are copied into a new log file of the next epoch, which then atomically
+ * replaces the current log file. The size of the log is therefore bounded by the preallocated size and
+ * the number of records waiting to be applied.
+ * 
+ * <pre>
+ * Header: magic(8) version(4) epoch(8) padding(12)
+ * Record: length(4) epoch(8) id(8) minScn(8) maxScn(8) count(4) body(length) crc32(8)
+ * </pre>
+ * 
+ * @since 0.4.9
+ */
+public class EntryLog implements Closeable {
+    private static final Logger _log = Logger.getLogger(EntryLog.class);
+    
+    /**
+     * The magic number of redo log files.
+     */
+    public static final long MAGIC = 0x4B52415449524C47L;
+    
+    /**
+     * The storage version of redo log files.
+     */
+    public static final int VERSION = 1;
+    
+    /**
+     * The length of the redo log header.
+     */
+    public static final int HEADER_LENGTH = 32;
+    
+    /**
+     * The length of the fixed record head preceding the record body.
+     */
+    public static final int RECORD_HEAD_LENGTH = 40;
+    
+    /**
+     * The length of the record tail (i.e. checksum) following the record body.
+     */
+    public static final int RECORD_TAIL_LENGTH = 8;
+    
+    /**
+     * The maximum number of bytes preallocated for a redo log file.
+     */
+    public static final long MAX_PREALLOCATE_SIZE = 64L << 20;
+    
+    /**
+     * The number of bytes initially allocated for a new redo log file.
+     */
+    public static final long INITIAL_PREALLOCATE_SIZE = 64L << 10;
+    
+    private final File _file;
+    private final long _preallocateSize;
+    private final CRC32 _crc = new CRC32();
+    private ByteBuffer _buffer = ByteBuffer.allocate(1 << 16);
+    
+    private RandomAccessFile _raf;
+    private FileChannel _channel;
+    private long _epoch = 0;
+    private long _position = HEADER_LENGTH;
+    private long _allocatedSize = 0;
+    private long _nextId = 0;
+    private long _appendCount = 0;
+    private long _applyCount = 0;
+    private long _forceCount = 0;
+    private long _truncateCount = 0;
+    private boolean _unforced = false;
+    private long _appliedPosition = HEADER_LENGTH;
+    private final ArrayDeque<Long> _recordEnds = new ArrayDeque<Long>();
+    
+    /**
+     * Creates a new redo log.
+     * 
+     * @param file            - the redo log file.
+     * @param preallocateSize - the number of bytes up to which the log file is preallocated as it grows.
+     */
+    public EntryLog(File file, long preallocateSize) {
+        this._file = file;
+        this._preallocateSize = Math.max(HEADER_LENGTH, Math.min(preallocateSize, MAX_PREALLOCATE_SIZE));
+    }
+    
+    /**
+     * @return the redo log file.
+     */
+    public File getFile() {
+        return _file;
+    }
+    
+    /**
+     * @return the current epoch of this redo log.
+     */
+    public synchronized long getEpoch() {
+        return _epoch;
+    }
+    
+    /**
+     * @return the file position where the next record is appended.
+     */
+    public synchronized long getPosition() {
+        return _position;
+    }
+    
+    /**
+     * @return the number of records appended since the last reset.
+     */
+    public synchronized long getAppendCount() {
+        return _appendCount;
+    }
+    
+    /**
+     * @return the number of times the redo log was forced to disk since it was opened.
+     */
+    public synchronized long getForceCount() {
+        return _forceCount;
+    }
+    
+    /**
+     * @return the number of times the applied prefix of the redo log was truncated since it was created.
+     */
+    public synchronized long getTruncateCount() {
+        return _truncateCount;
+    }
+    
+    @Override
+    public synchronized boolean isOpen() {
+        return _channel != null;
+    }
+    
+    @Override
+    public synchronized void open() throws IOException {
+        if(_channel != null) {
+            return;
+        }
+        
+        // Discard a new log file left over from an interrupted truncation
+        File truncateFile = getTruncateFile();
+        if(truncateFile.exists() && !truncateFile.delete()) {
+            _log.warn("Failed to delete " + truncateFile.getAbsolutePath());
+        }
+        
+        boolean isNew = !_file.exists() || _file.length() < HEADER_LENGTH;
+        _raf = new RandomAccessFile(_file, "rw");
+        _channel = _raf.getChannel();
+        
+        if(!isNew) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            readFully(header, 0);
+            header.flip();
+            
+            long magic = header.getLong();
+            int version = header.getInt();
+            if(magic == MAGIC && version == VERSION) {
+                _epoch = header.getLong();
+            } else {
+                _log.warn(_file.getAbsolutePath() + " has an invalid header: magic=" + magic + " version=" + version);
+                isNew = true;
+            }
+        }
+        
+        if(isNew) {
+            long initialSize = Math.min(_preallocateSize, INITIAL_PREALLOCATE_SIZE);
+            if(_raf.length() < initialSize) {
+                _raf.setLength(initialSize);
+            }
+            _epoch = 0;
+            writeHeader(_epoch + 1);
+            _channel.force(true);
+        }
+        
+        _allocatedSize = _raf.length();
+        _position = HEADER_LENGTH;
+        _nextId = 0;
+        _appendCount = 0;
+        _applyCount = 0;
+        _unforced = false;
+        _appliedPosition = HEADER_LENGTH;
+        _recordEnds.clear();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if(_channel == null) {
+            return;
+        }
+        
+        try {
+            force();
+            _channel.close();
+            _raf.close();
+        } finally {
+            _channel = null;
+            _raf = null;
+        }
+    }
+    
+    /**
+     * Appends the specified entry as a checksummed record. The record is not durable
+     * until the next call to {@link #force()}.
+     * 
+     * @param entry - the redo entry to append.
+     * @throws IOException if the record cannot be appended.
+     */
+    public synchronized void append(Entry<?> entry) throws IOException {
+        if(_channel == null) {
+            open();
+        }
+        
+        AbstractEntry<?> e = toAbstractEntry(entry);
+        BufferDataWriter out = new BufferDataWriter(RECORD_HEAD_LENGTH + e.size() * 32 + RECORD_TAIL_LENGTH);
+        out.writeInt(0); // placeholder for body length
+        out.writeLong(_epoch);
+        out.writeLong(_nextId);
+        out.writeLong(e.getMinScn());
+        out.writeLong(e.getMaxScn());
+        out.writeInt(e.size());
+        e.saveDataSection(out);
+        
+        ByteBuffer buffer = out.buffer();
+        int bodyLength = buffer.position() - RECORD_HEAD_LENGTH;
+        buffer.putInt(0, bodyLength);
+        
+        _crc.reset();
+        _crc.update(buffer.array(), 4, buffer.position() - 4);
+        out.writeLong(_crc.getValue());
+        
+        buffer = out.buffer();
+        buffer.flip();
+        ensureAllocated(_position + buffer.limit());
+        writeFully(buffer, _position);
+        
+        _position += buffer.limit();
+        _nextId++;
+        _appendCount++;
+        _unforced = true;
+        _recordEnds.add(_position);
+    }
+    
+    /**
+     * Forces all records appended since the last call to the storage device.
+     * 
+     * @return <code>true</code> if a force was issued, or <code>false</code> if there was nothing to force.
+     * @throws IOException
+     */
+    public synchronized boolean force() throws IOException {
+        if(_channel == null || !_unforced) {
+            return false;
+        }
+        
+        _channel.force(false);
+        _unforced = false;
+        _forceCount++;
+        return true;
+    }
+    
+    /**
+     * Marks the specified number of records as applied to the underlying array file.
+     * The array file must have been forced to the storage device. The log is reset once
+     * every appended record has been applied, or truncated once the applied prefix is
+     * worth being released.
+     * 
+     * @param count - the number of applied records.
+     * @throws IOException
+     */
+    public synchronized void applied(int count) throws IOException {
+        _applyCount += count;
+        for(int i = 0; i < count && !_recordEnds.isEmpty(); i++) {
+            _appliedPosition = _recordEnds.poll();
+        }
+        
+        if(_channel == null) {
+            return;
+        }
+        
+        if(_applyCount >= _appendCount) {
+            reset();
+        } else if(_position > _preallocateSize && (_appliedPosition - HEADER_LENGTH) >= (_position - _appliedPosition)) {
+            truncate();
+        }
+    }
+    
+    /**
+     * Resets this redo log to an empty log of the next epoch.
+     * 
+     * @throws IOException
+     */
+    public synchronized void reset() throws IOException {
+        if(_channel == null) {
+            return;
+        }
+        
+        writeHeader(_epoch + 1);
+        _unforced = true;
+        
+        _position = HEADER_LENGTH;
+        _nextId = 0;
+        _appendCount = 0;
+        _applyCount = 0;
+        _appliedPosition = HEADER_LENGTH;
+        _recordEnds.clear();
+    }
+    
+    /**
+     * Releases the applied prefix of this redo log. The records not yet applied are copied
+     * into a new log file of the next epoch, which is forced and then renamed to the redo
+     * log file. A crash before the rename leaves the current log file intact.
+     * 
+     * @throws IOException
+     */
+    private void truncate() throws IOException {
+        Chronos c = new Chronos();
+        long offset = _appliedPosition - HEADER_LENGTH;
+        int length = (int)(_position - _appliedPosition);
+        long epoch = _epoch + 1;
+        
+        ByteBuffer records = ensureBuffer(length);
+        readFully(records, _appliedPosition);
+        
+        // Stamp the records with the next epoch and new IDs starting from 0
+        long id = 0;
+        for(int pos = 0; pos < length; id++) {
+            int recordLength = RECORD_HEAD_LENGTH + records.getInt(pos) + RECORD_TAIL_LENGTH;
+            records.putLong(pos + 4, epoch);
+            records.putLong(pos + 12, id);
+            
+            _crc.reset();
+            _crc.update(records.array(), pos + 4, recordLength - RECORD_TAIL_LENGTH - 4);
+            records.putLong(pos + recordLength - RECORD_TAIL_LENGTH, _crc.getValue());
+            pos += recordLength;
+        }
+        
+        File truncateFile = getTruncateFile();
+        RandomAccessFile raf = new RandomAccessFile(truncateFile, "rw");
+        try {
+            raf.setLength(Math.max(Math.min(_allocatedSize, _preallocateSize), HEADER_LENGTH + length));
+            
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.putLong(MAGIC);
+            header.putInt(VERSION);
+            header.putLong(epoch);
+            header.clear();
+            
+            FileChannel channel = raf.getChannel();
+            for(long position = 0; header.hasRemaining(); ) {
+                position += channel.write(header, position);
+            }
+            records.clear();
+            records.limit(length);
+            for(long position = HEADER_LENGTH; records.hasRemaining(); ) {
+                position += channel.write(records, position);
+            }
+            channel.force(true);
+        } finally {
+            raf.close();
+        }
+        
+        _channel.close();
+        _raf.close();
+        _channel = null;
+        _raf = null;
+        
+        if(!truncateFile.renameTo(_file)) {
+            throw new IOException("Failed to rename " + truncateFile.getAbsolutePath() + " to " + _file.getAbsolutePath());
+        }
+        
+        _raf = new RandomAccessFile(_file, "rw");
+        _channel = _raf.getChannel();
+        _allocatedSize = _raf.length();
+        _epoch = epoch;
+        _position = HEADER_LENGTH + length;
+        _nextId = id;
+        _appendCount -= _applyCount;
+        _applyCount = 0;
+        _appliedPosition = HEADER_LENGTH;
+        _unforced = false;
+        _truncateCount++;
+        
+        ArrayDeque<Long> recordEnds = new ArrayDeque<Long>(_recordEnds.size());
+        for(Long end : _recordEnds) {
+            recordEnds.add(end - offset);
+        }
+        _recordEnds.clear();
+        _recordEnds.addAll(recordEnds);
+        
+        if(_log.isInfoEnabled()) {
+            _log.info("truncated " + offset + " bytes: epoch=" + _epoch + " records=" + id + " file=" + _file.getName() + " in " + c.getElapsedTime());
+        }
+    }
+    
+    /**
+     * Checks whether the specified redo log file holds records of its current epoch, i.e. records
+     * which may not have been applied to the array file yet. The file is opened for read only.
+     * 
+     * @param file - the redo log file.
+     * @return <code>true</code> if the first record of the current epoch is valid.
+     * @throws IOException if the redo log file cannot be read.
+     */
+    public static boolean hasRecords(File file) throws IOException {
+        if(!file.exists() || file.length() < HEADER_LENGTH + RECORD_HEAD_LENGTH + RECORD_TAIL_LENGTH) {
+            return false;
+        }
+        
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long fileLength = raf.length();
+            if(raf.readLong() != MAGIC || raf.readInt() != VERSION) {
+                return false;
+            }
+            long headerEpoch = raf.readLong();
+            
+            raf.seek(HEADER_LENGTH);
+            int bodyLength = raf.readInt();
+            long epoch = raf.readLong();
+            long id = raf.readLong();
+            if(epoch != headerEpoch || id != 0 || bodyLength < 0 ||
+               HEADER_LENGTH + RECORD_HEAD_LENGTH + bodyLength + RECORD_TAIL_LENGTH > fileLength) {
+                return false;
+            }
+            
+            byte[] record = new byte[RECORD_HEAD_LENGTH + bodyLength + RECORD_TAIL_LENGTH];
+            raf.seek(HEADER_LENGTH);
+            raf.readFully(record);
+            
+            CRC32 crc = new CRC32();
+            crc.update(record, 4, record.length - RECORD_TAIL_LENGTH - 4);
+            return crc.getValue() == ByteBuffer.wrap(record).getLong(record.length - RECORD_TAIL_LENGTH);
+        } finally {
+            raf.close();
+        }
+    }
+    
+    private File getTruncateFile() {
+        return new File(_file.getPath() + ".new");
+    }
+    
+    /**
+     * Loads all valid records of the current epoch. Loading stops at the first record
+     * which is truncated, belongs to a previous epoch or fails the checksum. The next
+     * append starts right after the last valid record.
+     * 
+     * @param pool - the pool for obtaining entries.
+     * @return a list of entries in the order in which they were appended.
+     * @throws IOException
+     */
+    public synchronized <T extends EntryValue> List<Entry<T>> load(EntryPool<T> pool) throws IOException {
+        if(_channel == null) {
+            open();
+        }
+        
+        Chronos c = new Chronos();
+        List<Entry<T>> entryList = new ArrayList<Entry<T>>();
+        long fileLength = _channel.size();
+        long position = HEADER_LENGTH;
+        ByteBuffer head = ByteBuffer.allocate(RECORD_HEAD_LENGTH);
+        _recordEnds.clear();
+        
+        while(position + RECORD_HEAD_LENGTH + RECORD_TAIL_LENGTH <= fileLength) {
+            head.clear();
+            readFully(head, position);
+            head.flip();
+            
+            int bodyLength = head.getInt();
+            long epoch = head.getLong();
+            long id = head.getLong();
+            long minScn = head.getLong();
+            long maxScn = head.getLong();
+            int count = head.getInt();
+            
+            if(epoch != _epoch || id != entryList.size() || bodyLength < 0 || count < 0 ||
+               position + RECORD_HEAD_LENGTH + bodyLength + RECORD_TAIL_LENGTH > fileLength) {
+                break;
+            }
+            
+            int recordLength = RECORD_HEAD_LENGTH + bodyLength + RECORD_TAIL_LENGTH;
+            ByteBuffer record = ensureBuffer(recordLength);
+            readFully(record, position);
+            
+            _crc.reset();
+            _crc.update(record.array(), 4, recordLength - RECORD_TAIL_LENGTH - 4);
+            if(_crc.getValue() != record.getLong(recordLength - RECORD_TAIL_LENGTH)) {
+                _log.warn(_file.getAbsolutePath() + " checksum mismatch at position " + position);
+                break;
+            }
+            
+            Entry<T> entry = pool.next();
+            AbstractEntry<T> e = toAbstractEntry(entry);
+            record.position(RECORD_HEAD_LENGTH);
+            record.limit(RECORD_HEAD_LENGTH + bodyLength);
+            
+            try {
+                e.loadDataSection(new BufferDataReader(record.slice()), count);
+            } catch(Exception ex) {
+                _log.warn(_file.getAbsolutePath() + " corrupted record at position " + position, ex);
+                pool.addToRecycleQueue(entry);
+                break;
+            }
+            
+            e._minScn = minScn;
+            e._maxScn = maxScn;
+            entryList.add(entry);
+            position += recordLength;
+            _recordEnds.add(position);
+        }
+        
+        _position = position;
+        _nextId = entryList.size();
+        _appendCount = entryList.size();
+        _applyCount = 0;
+        _appliedPosition = HEADER_LENGTH;
+        
+        if(_log.isInfoEnabled()) {
+            _log.info("loaded " + entryList.size() + " entries: epoch=" + _epoch + " file=" + _file.getName() + " in " + c.getElapsedTime());
+        }
+        
+        return entryList;
+    }
+    
+    private void writeHeader(long epoch) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putLong(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(epoch);
+        header.clear();
+        writeFully(header, 0);
+        _epoch = epoch;
+    }
+    
+    /**
+     * Extends the log file to hold the specified number of bytes. The file is doubled
+     * in size until it reaches the preallocate size and then grows with the records.
+     */
+    private void ensureAllocated(long length) throws IOException {
+        if(length <= _allocatedSize) {
+            return;
+        }
+        
+        // Past the preallocate size appends simply extend the file
+        if(_allocatedSize < _preallocateSize) {
+            long size = Math.max(length, Math.min(_allocatedSize << 1, _preallocateSize));
+            _raf.setLength(size);
+            _allocatedSize = size;
+        } else {
+            _allocatedSize = length;
+        }
+    }
+    
+    private ByteBuffer ensureBuffer(int length) {
+        if(_buffer.capacity() < length) {
+            _buffer = ByteBuffer.allocate(Math.max(length, _buffer.capacity() << 1));
+        }
+        _buffer.clear();
+        _buffer.limit(length);
+        return _buffer;
+    }
+    
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()) {
+            int n = _channel.read(buffer, position);
+            if(n < 0) {
+                throw new IOException("Unexpected end of " + _file.getAbsolutePath());
+            }
+            position += n;
+        }
+    }
+    
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()) {
+            position += _channel.write(buffer, position);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T extends EntryValue> AbstractEntry<T> toAbstractEntry(Entry<T> entry) throws IOException {
+        if(entry instanceof AbstractEntry) {
+            return (AbstractEntry<T>)entry;
+        }
+        throw new IOException("Unsupported entry type: " + entry.getClass().getName());
+    }
+    
+    /**
+     * A growable heap buffer based {@link DataWriter} for serializing record bodies.
+     */
+    static class BufferDataWriter implements DataWriter {
+        private ByteBuffer _buf;
+        
+        BufferDataWriter(int initialCapacity) {
+            _buf = ByteBuffer.allocate(Math.max(initialCapacity, 64));
+        }
+        
+        ByteBuffer buffer() {
+            return _buf;
+        }
+        
+        private void ensureRemaining(int n) {
+            if(_buf.remaining() < n) {
+                ByteBuffer b = ByteBuffer.allocate(Math.max(_buf.capacity() << 1, _buf.position() + n));
+                _buf.flip();
+                b.put(_buf);
+                _buf = b;
+            }
+        }
+        
+        @Override
+        public File getFile() {
+            return null;
+        }
+        
+        @Override
+        public void open() {}
+        
+        @Override
+        public void close() {}
+        
+        @Override
+        public void flush() {}
+        
+        @Override
+        public void force() {}
+        
+        @Override
+        public void writeInt(int value) {
+            ensureRemaining(4);
+            _buf.putInt(value);
+        }
+        
+        @Override
+        public void writeLong(long value) {
+            ensureRemaining(8);
+            _buf.putLong(value);
+        }
+        
+        @Override
+        public void writeShort(short value) {
+            ensureRemaining(2);
+            _buf.putShort(value);
+        }
+        
+        @Override
+        public void writeInt(long position, int value) {
+            _buf.putInt((int)position, value);
+        }
+        
+        @Override
+        public void writeLong(long position, long value) {
+            _buf.putLong((int)position, value);
+        }
+        
+        @Override
+        public void writeShort(long position, short value) {
+            _buf.putShort((int)position, value);
+        }
+        
+        @Override
+        public long position() {
+            return _buf.position();
+        }
+        
+        @Override
+        public void position(long newPosition) {
+            ensureRemaining((int)newPosition - _buf.position());
+            _buf.position((int)newPosition);
+        }
+    }
+    
+    /**
+     * A heap buffer based {@link DataReader} for deserializing record bodies.
+     */
+    static class BufferDataReader implements DataReader {
+        private final ByteBuffer _buf;
+        
+        BufferDataReader(ByteBuffer buf) {
+            _buf = buf;
+        }
+        
+        @Override
+        public File getFile() {
+            return null;
+        }
+        
+        @Override
+        public void open() {}
+        
+        @Override
+        public void close() {}
+        
+        @Override
+        public int readInt() {
+            return _buf.getInt();
+        }
+        
+        @Override
+        public long readLong() {
+            return _buf.getLong();
+        }
+        
+        @Override
+        public short readShort() {
+            return _buf.getShort();
+        }
+        
+        @Override
+        public int readInt(long position) {
+            return _buf.getInt((int)position);
+        }
+        
+        @Override
+        public long readLong(long position) {
+            return _buf.getLong((int)position);
+        }
+        
+        @Override
+        public short readShort(long position) {
+            return _buf.getShort((int)position);
+        }
+        
+        @Override
+        public long position() {
+            return _buf.position();
+        }
+        
+        @Override
+        public void position(long newPosition) {
+            _buf.position((int)newPosition);
+        }
+    }
+}
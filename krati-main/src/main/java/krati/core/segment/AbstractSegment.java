@@ -19,7 +19,9 @@ package krati.core.segment;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.Arrays;
 import java.util.Date;
 
 /**
@@ -46,6 +48,16 @@ public abstract class AbstractSegment implements Segment {
     private volatile int _incrLoadSize = 0;
     private volatile int _decrLoadSize = 0;
     
+    /**
+     * The largest transfer buffer kept for reuse by a thread.
+     */
+    private final static int TRANSFER_BUFFER_SIZE_MAX = 1 << 20;
+    
+    /**
+     * The per-thread buffer for copying data between segments.
+     */
+    private final static ThreadLocal<byte[]> _transferBuffer = new ThreadLocal<byte[]>();
+    
     protected AbstractSegment(int segmentId, File segmentFile, int initialSizeMB, Segment.Mode mode) throws IOException {
         this._segId = segmentId;
         this._segFile = segmentFile;
@@ -213,6 +225,98 @@ public abstract class AbstractSegment implements Segment {
         return (_segMode == Segment.Mode.READ_ONLY);
     }
 
+    /**
+     * Reads bytes from the specified position into a ByteBuffer. The number of bytes read
+     * is equal to the remaining bytes of the destination ByteBuffer, whose position is
+     * advanced accordingly. This implementation reads through {@link #read(int, byte[], int, int)}.
+     * 
+     * @param pos - the segment position
+     * @param dst - the destination ByteBuffer
+     * @throws IOException
+     */
+    public void read(int pos, ByteBuffer dst) throws IOException {
+        int length = dst.remaining();
+        if (dst.hasArray()) {
+            read(pos, dst.array(), dst.arrayOffset() + dst.position(), length);
+            dst.position(dst.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            read(pos, bytes);
+            dst.put(bytes);
+        }
+    }
+    
+    /**
+     * Tests whether the bytes starting from the specified position are equal to a byte array.
+     * This implementation reads the bytes through {@link #read(int, byte[])}.
+     * 
+     * @param pos   - the segment position
+     * @param bytes - the byte array to compare
+     * @return <code>true</code> if the next <code>bytes.length</code> bytes starting from
+     *         the specified position are equal to the specified byte array.
+     * @throws IOException
+     */
+    public boolean contentEquals(int pos, byte[] bytes) throws IOException {
+        byte[] buffer = new byte[bytes.length];
+        read(pos, buffer);
+        return Arrays.equals(buffer, bytes);
+    }
+    
+    /**
+     * Reads bytes from the specified position of a segment into a ByteBuffer.
+     * 
+     * @param segment - the segment
+     * @param pos     - the segment position
+     * @param dst     - the destination ByteBuffer
+     * @throws IOException
+     * @see #read(int, ByteBuffer)
+     */
+    public static void read(Segment segment, int pos, ByteBuffer dst) throws IOException {
+        if (segment instanceof AbstractSegment) {
+            ((AbstractSegment) segment).read(pos, dst);
+        } else {
+            byte[] bytes = new byte[dst.remaining()];
+            segment.read(pos, bytes);
+            dst.put(bytes);
+        }
+    }
+    
+    /**
+     * Tests whether the bytes starting from the specified position of a segment are equal to a byte array.
+     * 
+     * @param segment - the segment
+     * @param pos     - the segment position
+     * @param bytes   - the byte array to compare
+     * @throws IOException
+     * @see #contentEquals(int, byte[])
+     */
+    public static boolean contentEquals(Segment segment, int pos, byte[] bytes) throws IOException {
+        if (segment instanceof AbstractSegment) {
+            return ((AbstractSegment) segment).contentEquals(pos, bytes);
+        }
+        
+        byte[] buffer = new byte[bytes.length];
+        segment.read(pos, buffer);
+        return Arrays.equals(buffer, bytes);
+    }
+    
+    /**
+     * Gets a buffer of at least the specified length for copying data to another segment.
+     * The buffer is reused by the calling thread unless it is larger than 1 MB.
+     * 
+     * @param length - the number of bytes to copy
+     */
+    protected static byte[] transferBuffer(int length) {
+        byte[] buffer = _transferBuffer.get();
+        if (buffer == null || buffer.length < length) {
+            buffer = new byte[Math.max(length, 4096)];
+            if (length <= TRANSFER_BUFFER_SIZE_MAX) {
+                _transferBuffer.set(buffer);
+            }
+        }
+        return buffer;
+    }
+
     protected int getRafSizeInMB() throws IOException {
         return (int) (_raf.length() / 1024L / 1024L);
     }
@@ -16,12 +16,15 @@
 
 package krati.core.segment;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.BufferOverflowException;
 import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 
@@ -30,9 +33,44 @@ import org.apache.log4j.Logger;
  * 
  * @author jwu
  * 
+ * <p>
+ * 10/17, 2026 - Read through a per-thread direct buffer without allocation <br/>
+ * 10/17, 2026 - Identify the owner of a read buffer by segment generation <br/>
  */
 public class ChannelSegment extends AbstractSegment {
     private final static Logger _log = Logger.getLogger(ChannelSegment.class);
+    
+    /**
+     * The size of the per-thread read buffer. Reading the length of data
+     * from a read-only segment also reads the data following it.
+     */
+    private final static int READ_BUFFER_SIZE = 4096;
+    
+    /**
+     * The per-thread read buffer shared by all channel segments.
+     */
+    private final static ThreadLocal<ReadBuffer> _readBuffer = new ThreadLocal<ReadBuffer>() {
+        @Override
+        protected ReadBuffer initialValue() {
+            return new ReadBuffer();
+        }
+    };
+    
+    /**
+     * The generation of no channel segment, which owns no read buffer.
+     */
+    private final static long NO_GENERATION = 0;
+    
+    /**
+     * The last generation assigned to a channel segment.
+     */
+    private final static AtomicLong _lastGeneration = new AtomicLong(NO_GENERATION);
+    
+    /**
+     * The unique generation of this segment, which identifies the owner of a read buffer
+     * without a read buffer keeping a closed segment reachable.
+     */
+    private final long _generation = _lastGeneration.incrementAndGet();
 
     public ChannelSegment(int segmentId, File segmentFile, int initialSizeMB, Segment.Mode mode) throws IOException {
         super(segmentId, segmentFile, initialSizeMB, mode);
@@ -206,44 +244,118 @@ public class ChannelSegment extends AbstractSegment {
 
     @Override
     public int readInt(int pos) throws IOException {
-        ByteBuffer bb = ByteBuffer.wrap(new byte[4]);
-        _channel.read(bb, pos);
-        return bb.getInt(0);
+        return readBuffer(pos, 4).getInt();
     }
 
     @Override
     public long readLong(int pos) throws IOException {
-        ByteBuffer bb = ByteBuffer.wrap(new byte[8]);
-        _channel.read(bb, pos);
-        return bb.getLong(0);
+        return readBuffer(pos, 8).getLong();
     }
 
     @Override
     public short readShort(int pos) throws IOException {
-        ByteBuffer bb = ByteBuffer.wrap(new byte[2]);
-        _channel.read(bb, pos);
-        return bb.getShort(0);
+        return readBuffer(pos, 2).getShort();
     }
 
     @Override
     public void read(int pos, byte[] dst) throws IOException {
-        ByteBuffer bb = ByteBuffer.wrap(dst);
-        _channel.read(bb, pos);
+        read(pos, dst, 0, dst.length);
     }
 
     @Override
     public void read(int pos, byte[] dst, int offset, int length) throws IOException {
-        ByteBuffer bb = ByteBuffer.wrap(dst, offset, length);
-        _channel.read(bb, pos);
+        if (length <= READ_BUFFER_SIZE) {
+            readBuffer(pos, length).get(dst, offset, length);
+        } else {
+            readFully(ByteBuffer.wrap(dst, offset, length), pos);
+        }
+    }
+
+    @Override
+    public void read(int pos, ByteBuffer dst) throws IOException {
+        int length = dst.remaining();
+        if (length <= READ_BUFFER_SIZE) {
+            ByteBuffer bb = readBuffer(pos, length);
+            bb.limit(bb.position() + length);
+            dst.put(bb);
+        } else {
+            readFully(dst, pos);
+        }
+    }
+
+    @Override
+    public boolean contentEquals(int pos, byte[] bytes) throws IOException {
+        if (bytes.length <= READ_BUFFER_SIZE) {
+            ByteBuffer bb = readBuffer(pos, bytes.length);
+            for (int i = 0, p = bb.position(); i < bytes.length; i++) {
+                if (bytes[i] != bb.get(p + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        byte[] dst = new byte[bytes.length];
+        read(pos, dst);
+        return Arrays.equals(bytes, dst);
+    }
+
+    /**
+     * Reads the specified number of bytes at the specified position into the read buffer of the calling thread.
+     * The bytes of a read-only segment never change. So the buffer is filled up and kept for subsequent reads.
+     * 
+     * @param pos    - the position in this segment
+     * @param length - the number of bytes to read, which must not exceed <code>READ_BUFFER_SIZE</code>
+     * @return the read buffer positioned at <code>pos</code>.
+     * @throws IOException
+     */
+    private ByteBuffer readBuffer(int pos, int length) throws IOException {
+        ReadBuffer rb = _readBuffer.get();
+        ByteBuffer bb = rb.buffer;
+        
+        // The generation is not assigned yet while the segment is being initialized
+        if (rb.owner == NO_GENERATION || rb.owner != _generation || pos < rb.start || rb.end < (pos + length)) {
+            boolean readOnly = isReadOnly();
+            rb.owner = NO_GENERATION;
+            
+            // Data appended to a writable segment after pos is not visible yet
+            bb.clear();
+            bb.limit(readOnly ? (int) Math.min(READ_BUFFER_SIZE, Math.max(_initSizeBytes - pos, length)) : length);
+            readFully(bb, pos);
+            if (bb.position() < length) {
+                throw new EOFException("Segment " + getSegmentId() + " read overflow: position=" + pos + " length=" + length);
+            }
+            
+            rb.start = pos;
+            rb.end = pos + bb.position();
+            rb.owner = readOnly ? _generation : NO_GENERATION;
+        }
+        
+        bb.limit(rb.end - rb.start);
+        bb.position(pos - rb.start);
+        return bb;
+    }
+
+    /**
+     * Reads bytes at the specified position until the specified buffer is full or the end of file is reached.
+     */
+    private void readFully(ByteBuffer dst, long pos) throws IOException {
+        while (dst.hasRemaining()) {
+            int cnt = _channel.read(dst, pos);
+            if (cnt < 0) {
+                break;
+            }
+            pos += cnt;
+        }
     }
 
     @Override
     public int transferTo(int pos, int length, Segment targetSegment) throws IOException {
         if ((pos + length) <= _initSizeBytes) {
-            byte[] dst = new byte[length];
-            this.read(pos, dst);
+            byte[] dst = transferBuffer(length);
+            this.read(pos, dst, 0, length);
 
-            targetSegment.append(dst);
+            targetSegment.append(dst, 0, length);
             return length;
         }
 
@@ -315,4 +427,15 @@ public class ChannelSegment extends AbstractSegment {
     public boolean canAppendToBuffer() {
         return false;
     }
+    
+    /**
+     * ReadBuffer holds the bytes last read by a thread from a read-only segment,
+     * whose generation is kept as the owner.
+     */
+    private final static class ReadBuffer {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        long owner = NO_GENERATION;
+        int start;
+        int end;
+    }
 }
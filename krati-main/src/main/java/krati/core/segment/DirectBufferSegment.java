@@ -29,6 +29,9 @@ import org.apache.log4j.Logger;
  * 
  * @author jwu
  * @since 08/20, 2012
+ * 
+ * <p>
+ * 10/17, 2026 - Read through bulk copies from buffer duplicates <br/>
  */
 public class DirectBufferSegment extends MemorySegment {
     /**
@@ -60,27 +63,49 @@ public class DirectBufferSegment extends MemorySegment {
         return ByteBuffer.allocateDirect(bufferLength);
     }
     
+    /**
+     * Creates a view of the bytes from <code>pos</code> to <code>pos + length</code> in this segment.
+     * The position of the underlying buffer is the append position and must not be changed by readers.
+     */
+    private ByteBuffer view(int pos, int length) {
+        ByteBuffer bb = _buffer.duplicate();
+        bb.limit(pos + length);
+        bb.position(pos);
+        return bb;
+    }
+    
     @Override
     public void read(int pos, byte[] dst) throws IOException {
-        for (int i = 0; i < dst.length; i++) {
-            dst[i] = _buffer.get(pos + i);
-        }
+        view(pos, dst.length).get(dst);
     }
     
     @Override
     public void read(int pos, byte[] dst, int offset, int length) {
-        for (int i = 0; i < length; i++) {
-            dst[offset + i] = _buffer.get(pos + i);
+        view(pos, length).get(dst, offset, length);
+    }
+    
+    @Override
+    public void read(int pos, ByteBuffer dst) {
+        dst.put(view(pos, dst.remaining()));
+    }
+    
+    @Override
+    public boolean contentEquals(int pos, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != _buffer.get(pos + i)) {
+                return false;
+            }
         }
+        return true;
     }
     
     @Override
     public int transferTo(int pos, int length, Segment targetSegment) throws IOException {
         if ((pos + length) <= _initSizeBytes) {
-            byte[] dst = new byte[length];
-            this.read(pos, dst);
+            byte[] dst = transferBuffer(length);
+            this.read(pos, dst, 0, length);
 
-            targetSegment.append(dst);
+            targetSegment.append(dst, 0, length);
             return length;
         }
         
@@ -90,9 +115,10 @@ public class DirectBufferSegment extends MemorySegment {
     @Override
     public int transferTo(int pos, int length, WritableByteChannel targetChannel) throws IOException {
         if ((pos + length) <= _buffer.position()) {
-            byte[] dst = new byte[length];
-            this.read(pos, dst);
-            targetChannel.write(ByteBuffer.wrap(dst));
+            ByteBuffer bb = view(pos, length);
+            while (bb.hasRemaining()) {
+                targetChannel.write(bb);
+            }
             return length;
         }
         
@@ -106,9 +132,10 @@ public class DirectBufferSegment extends MemorySegment {
             int offset = (int) _channel.position();
             int length = _buffer.position() - offset;
             if (length > 0) {
-                byte[] dst = new byte[length];
-                read(offset, dst);
-                _channel.write(ByteBuffer.wrap(dst));
+                ByteBuffer bb = view(offset, length);
+                while (bb.hasRemaining()) {
+                    _channel.write(bb);
+                }
             }
             
             long currentTime = System.currentTimeMillis();
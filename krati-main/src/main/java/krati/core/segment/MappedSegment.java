@@ -20,6 +20,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
@@ -208,6 +209,24 @@ public class MappedSegment extends AbstractSegment {
         }
     }
 
+    @Override
+    public void read(int pos, ByteBuffer dst) {
+        ByteBuffer bb = _mmapBuffer.duplicate();
+        bb.limit(pos + dst.remaining());
+        bb.position(pos);
+        dst.put(bb);
+    }
+
+    @Override
+    public boolean contentEquals(int pos, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != _mmapBuffer.get(pos + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public int transferTo(int pos, int length, Segment targetSegment) throws IOException {
         if ((pos + length) <= _initSizeBytes) {
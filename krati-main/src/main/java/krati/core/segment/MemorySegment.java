@@ -213,6 +213,22 @@ public class MemorySegment extends AbstractSegment {
         System.arraycopy(_buffer.array(), pos, dst, offset, length);
     }
 
+    @Override
+    public void read(int pos, ByteBuffer dst) throws IOException {
+        dst.put(_buffer.array(), pos, dst.remaining());
+    }
+
+    @Override
+    public boolean contentEquals(int pos, byte[] bytes) throws IOException {
+        byte[] array = _buffer.array();
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != array[pos + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public int transferTo(int pos, int length, Segment targetSegment) throws IOException {
         if ((pos + length) <= _buffer.position()) {
@@ -27,9 +27,12 @@ import java.util.HashMap;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
 
 import krati.Mode;
 import krati.io.Closeable;
+import krati.metrics.StoreMetrics;
+import krati.util.RecoveryService;
 
 import org.apache.log4j.Logger;
 
@@ -58,6 +61,9 @@ import org.apache.log4j.Logger;
  * 05/24, 2010 - Always try to open the manager upon call to SegmentManager.getInstance(...) <br/>
  * 02/14, 2012 - Remove the last segment file after being freed <br/>
  * 09/04, 2012 - Validate lastForcedTime upon loading segment index buffer <br/>
+ * 10/17, 2026 - Added metrics of segment loads <br/>
+ * 10/17, 2026 - Load live segments in parallel upon startup <br/>
+ * 10/17, 2026 - Added read-only mode for loading segments without write access <br/>
  */
 public final class SegmentManager implements Closeable {
     private final static Logger _log = Logger.getLogger(SegmentManager.class);
@@ -93,6 +99,11 @@ public final class SegmentManager implements Closeable {
      */
     private final int _recycleLimit;
     
+    /**
+     * Whether segments are loaded for read only, i.e. without the creation of any segment or meta file.
+     */
+    private volatile boolean _readOnly = false;
+    
     /**
      * The meta data for all the managed segments.
      */
@@ -108,6 +119,11 @@ public final class SegmentManager implements Closeable {
      */
     private final SegmentIndexBufferManager _sibManager = new SegmentIndexBufferManager();
     
+    /**
+     * The store metrics, which is disabled by default.
+     */
+    private volatile StoreMetrics _metrics = StoreMetrics.DISABLED;
+    
     /**
      * Creates an instance of SegmentManager.
      * 
@@ -116,13 +132,14 @@ public final class SegmentManager implements Closeable {
      * @param segmentFileSizeMB - the segment file size in MB
      * @throws IOException
      */
-    private SegmentManager(String segmentHomePath, SegmentFactory segmentFactory, int segmentFileSizeMB) throws IOException {
-        _log.info("init segHomePath=" + segmentHomePath + " segFileSizeMB=" + segmentFileSizeMB);
+    private SegmentManager(String segmentHomePath, SegmentFactory segmentFactory, int segmentFileSizeMB, boolean readOnly) throws IOException {
+        _log.info("init segHomePath=" + segmentHomePath + " segFileSizeMB=" + segmentFileSizeMB + " readOnly=" + readOnly);
 
         this._segFactory = segmentFactory;
         this._segHomePath = segmentHomePath;
         this._segFileSizeMB = segmentFileSizeMB;
         this._recycleLimit = computeRecycleLimit(segmentFileSizeMB);
+        this._readOnly = readOnly;
         this.open();
     }
     
@@ -158,6 +175,20 @@ public final class SegmentManager implements Closeable {
         return _segFactory;
     }
     
+    /**
+     * Gets the store metrics to which segment loads are reported.
+     */
+    public final StoreMetrics getMetrics() {
+        return _metrics;
+    }
+    
+    /**
+     * Sets the store metrics to which segment loads are reported.
+     */
+    public final void setMetrics(StoreMetrics metrics) {
+        this._metrics = (metrics == null) ? StoreMetrics.DISABLED : metrics;
+    }
+    
     /**
      * Gets the segment at the specified <code>index</code>.
      * 
@@ -240,6 +271,10 @@ public final class SegmentManager implements Closeable {
      * Opens the next segment available for read and write.
      */
     public synchronized Segment nextSegment() throws IOException {
+        if(_readOnly) {
+            throw new IOException("Read-only " + _segHomePath);
+        }
+        
         Segment seg = nextSegment(false);
         
         // Remove the writer segment index buffer file.
@@ -343,6 +378,13 @@ public final class SegmentManager implements Closeable {
         return _sibManager.submit(sib);
     }
     
+    /**
+     * Checks whether the segment index buffer file for the specified <code>segId</code> exists.
+     */
+    public boolean hasSegmentIndexBuffer(int segId) {
+        return getSegmentIndexBufferFile(segId).exists();
+    }
+    
     /**
      * Gets the segment index buffer file for the specified <code>segId</code>.
      */
@@ -379,6 +421,7 @@ public final class SegmentManager implements Closeable {
 
                 _segList.set(seg.getSegmentId(), seg);
                 _log.info("reinit Segment " + seg.getSegmentId());
+                _metrics.segmentLoaded();
                 return seg;
             }
 
@@ -397,6 +440,7 @@ public final class SegmentManager implements Closeable {
         else
             _segList.add(seg);
 
+        _metrics.segmentLoaded();
         return seg;
     }
     
@@ -406,7 +450,7 @@ public final class SegmentManager implements Closeable {
      * @throws IOException
      */
     private void initMeta() throws IOException {
-        _segMeta = new SegmentMeta(new File(_segHomePath, ".meta"));
+        _segMeta = new SegmentMeta(new File(_segHomePath, ".meta"), _readOnly);
     }
     
     /**
@@ -420,32 +464,51 @@ public final class SegmentManager implements Closeable {
         if (segFiles.length == 0) {
             return;
         }
-
+        
+        final Segment[] segs = new Segment[segFiles.length];
+        List<Callable<Segment>> tasks = new ArrayList<Callable<Segment>>();
+        
         try {
             for (int i = 0; i < segFiles.length; i++) {
-                File segFile = segFiles[i];
-                int segId = Integer.parseInt(segFile.getName().substring(0, segFile.getName().indexOf('.')));
+                final File segFile = segFiles[i];
+                final int segId = Integer.parseInt(segFile.getName().substring(0, segFile.getName().indexOf('.')));
                 if (segId != i) {
                     throw new IOException("Segment file " + i + ".seg missing");
                 }
 
                 if (getMeta().hasSegmentInService(segId)) {
                     // Always load a live segment as READ_ONLY
-                    Segment s = getSegmentFactory().createSegment(segId, segFile, _segFileSizeMB, Segment.Mode.READ_ONLY);
-                    s.incrLoadSize(getMeta().getSegmentLoadSize(segId));
-                    _segList.add(s);
-                    loaded++;
-                } else {
-                    // Segment is not live and is free for reuse
-                    _segList.add(null);
+                    tasks.add(new Callable<Segment>() {
+                        @Override
+                        public Segment call() throws Exception {
+                            Segment s = getSegmentFactory().createSegment(segId, segFile, _segFileSizeMB, Segment.Mode.READ_ONLY);
+                            s.incrLoadSize(getMeta().getSegmentLoadSize(segId));
+                            segs[segId] = s;
+                            return s;
+                        }
+                    });
                 }
             }
+            
+            // Load live segments in parallel
+            RecoveryService.getInstance().invokeAll("load segments " + _segHomePath, tasks);
         } catch (IOException e) {
             _log.error(e.getMessage());
             
+            // Close whatever segments loaded
+            _segList.addAll(Arrays.asList(segs));
             clearInternal(false /* DO NOT CLEAR META */);
             throw e;
         }
+        
+        // Segments not live are free for reuse
+        for (Segment s : segs) {
+            _segList.add(s);
+            if (s != null) {
+                _metrics.segmentLoaded();
+                loaded++;
+            }
+        }
 
         _log.info("loaded: " + loaded + "/" + segFiles.length);
     }
@@ -556,7 +619,23 @@ public final class SegmentManager implements Closeable {
      * @return the instance of SegmentManager
      * @throws IOException
      */
-    public synchronized static SegmentManager getInstance(String segmentHomePath, SegmentFactory segmentFactory, int segmentFileSizeMB) throws IOException {
+    public static SegmentManager getInstance(String segmentHomePath, SegmentFactory segmentFactory, int segmentFileSizeMB) throws IOException {
+        return getInstance(segmentHomePath, segmentFactory, segmentFileSizeMB, false);
+    }
+    
+    /**
+     * Gets the instance of SegmentManager for the specified <code>segmentHomePath</code>.
+     * A read-only SegmentManager loads the existing segments and the segment meta file
+     * for read only, and never creates any file under <code>segmentHomePath</code>.
+     * 
+     * @param segmentHomePath   - the file path to segment home
+     * @param segmentFactory    - the segment factory
+     * @param segmentFileSizeMB - the segment file size in MB
+     * @param readOnly          - whether to load segments for read only
+     * @return the instance of SegmentManager
+     * @throws IOException if the SegmentManager cannot be opened, or is already opened in a different mode.
+     */
+    public synchronized static SegmentManager getInstance(String segmentHomePath, SegmentFactory segmentFactory, int segmentFileSizeMB, boolean readOnly) throws IOException {
         if (segmentFileSizeMB < Segment.minSegmentFileSizeMB) {
             throw new IllegalArgumentException("Invalid argument segmentFileSizeMB " + segmentFileSizeMB + ", smaller than " + Segment.minSegmentFileSizeMB);
         }
@@ -567,6 +646,9 @@ public final class SegmentManager implements Closeable {
 
         File segDir = new File(segmentHomePath);
         if (!segDir.exists()) {
+            if (readOnly) {
+                throw new IOException("Read-only directory " + segmentHomePath + " not found");
+            }
             if (!segDir.mkdirs()) {
                 throw new IOException("Failed to create directory " + segmentHomePath);
             }
@@ -579,8 +661,12 @@ public final class SegmentManager implements Closeable {
         String key = segDir.getCanonicalPath();
         SegmentManager mgr = _segManagerMap.get(key);
         if (mgr == null) {
-            mgr = new SegmentManager(key, segmentFactory, segmentFileSizeMB);
+            mgr = new SegmentManager(key, segmentFactory, segmentFileSizeMB, readOnly);
             _segManagerMap.put(key, mgr);
+        } else if (!mgr.isOpen()) {
+            mgr._readOnly = readOnly;
+        } else if (mgr._readOnly != readOnly) {
+            throw new IOException("SegmentManager " + key + " already opened with readOnly=" + mgr._readOnly);
         }
 
         mgr.open();
@@ -637,4 +723,11 @@ public final class SegmentManager implements Closeable {
     public boolean isOpen() {
         return _mode == Mode.OPEN;
     }
+    
+    /**
+     * Tests whether this SegmentManager loads segments for read only.
+     */
+    public boolean isReadOnly() {
+        return _readOnly;
+    }
 }
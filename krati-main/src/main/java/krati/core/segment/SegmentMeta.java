@@ -18,6 +18,7 @@ package krati.core.segment;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.MappedByteBuffer;
@@ -45,6 +46,8 @@ import org.apache.log4j.Logger;
  * @author jwu
  * 02/05, 2010
  * 
+ * <p>
+ * 10/17, 2026 - Added read-only mode for loading an existing .meta file without write access <br/>
  */
 public final class SegmentMeta implements Closeable {
     private final static Logger _log = Logger.getLogger(SegmentMeta.class);
@@ -59,6 +62,7 @@ public final class SegmentMeta implements Closeable {
     private final int _initialSegmentCount = 100;
 
     private final File _metaFile;
+    private final boolean _readOnly;
     private RandomAccessFile _raf;
     private MappedByteBuffer _mmapBuffer;
 
@@ -69,7 +73,19 @@ public final class SegmentMeta implements Closeable {
     private int _totalSegmentCount = 0;
 
     public SegmentMeta(File file) throws IOException {
+        this(file, false);
+    }
+    
+    /**
+     * Creates a SegmentMeta from the specified .meta file.
+     * 
+     * @param file     - the .meta file
+     * @param readOnly - whether to load an existing .meta file for read only
+     * @throws IOException if the .meta file cannot be created or loaded.
+     */
+    public SegmentMeta(File file, boolean readOnly) throws IOException {
         this._metaFile = file;
+        this._readOnly = readOnly;
         this.init();
     }
 
@@ -79,12 +95,17 @@ public final class SegmentMeta implements Closeable {
 
     private void createBuffer() throws IOException {
         long bufferLength = _raf.length();
-        _mmapBuffer = _raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bufferLength);
+        FileChannel.MapMode mapMode = _readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        _mmapBuffer = _raf.getChannel().map(mapMode, 0, bufferLength);
     }
 
     private void init() throws IOException {
         boolean newFile = false;
 
+        if (_readOnly && !_metaFile.exists()) {
+            throw new FileNotFoundException("Read-only " + _metaFile.getAbsolutePath() + " not found");
+        }
+
         if (!_metaFile.exists()) {
             if (!_metaFile.createNewFile()) {
                 String msg = "Failed to create " + _metaFile.getAbsolutePath();
@@ -96,7 +117,7 @@ public final class SegmentMeta implements Closeable {
             newFile = true;
         }
 
-        _raf = new RandomAccessFile(_metaFile, "rw");
+        _raf = new RandomAccessFile(_metaFile, _readOnly ? "r" : "rw");
         if (newFile) {
             _raf.setLength(getInitialSizeBytes());
             _workingGeneration = 0;
@@ -172,6 +193,10 @@ public final class SegmentMeta implements Closeable {
     }
 
     public synchronized void ensureCapacity(int segmentCount) throws IOException {
+        if (_readOnly) {
+            throw new IOException("Read-only " + _metaFile.getAbsolutePath());
+        }
+        
         long oldLength = _raf.length();
         long newLength = _segmentDataStart + (segmentCount * _bytesPerSegment);
         if (oldLength < newLength) {
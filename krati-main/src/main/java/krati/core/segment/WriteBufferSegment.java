@@ -22,6 +22,7 @@ import java.io.RandomAccessFile;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -252,6 +253,32 @@ public class WriteBufferSegment extends AbstractSegment {
         }
     }
 
+    @Override
+    public void read(int pos, ByteBuffer dst) throws IOException {
+        if (isReadOnly()) {
+            _channel.read(dst, pos);
+        } else {
+            dst.put(_buffer.array(), pos, dst.remaining());
+        }
+    }
+
+    @Override
+    public boolean contentEquals(int pos, byte[] bytes) throws IOException {
+        if (isReadOnly()) {
+            byte[] dst = new byte[bytes.length];
+            read(pos, dst);
+            return Arrays.equals(bytes, dst);
+        } else {
+            byte[] array = _buffer.array();
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] != array[pos + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     @Override
     public int transferTo(int pos, int length, Segment targetSegment) throws IOException {
         if (isReadOnly()) {
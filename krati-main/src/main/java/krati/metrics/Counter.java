@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter is a thread-safe monotonic counter.
+ * 
+ * @since 0.4.9
+ */
+public final class Counter {
+    private final AtomicLong _count = new AtomicLong(0);
+    
+    /**
+     * Increments this Counter by one.
+     */
+    public void inc() {
+        _count.incrementAndGet();
+    }
+    
+    /**
+     * Increments this Counter by the specified <code>delta</code>.
+     */
+    public void add(long delta) {
+        _count.addAndGet(delta);
+    }
+    
+    /**
+     * Gets the current count.
+     */
+    public long get() {
+        return _count.get();
+    }
+    
+    /**
+     * Resets this Counter to zero.
+     */
+    public void reset() {
+        _count.set(0);
+    }
+}
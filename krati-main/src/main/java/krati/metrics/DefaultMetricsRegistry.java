@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * DefaultMetricsRegistry keeps metrics in memory.
+ * 
+ * @since 0.4.9
+ */
+public class DefaultMetricsRegistry implements MetricsRegistry {
+    private final ConcurrentMap<String, Counter> _counters = new ConcurrentHashMap<String, Counter>();
+    private final ConcurrentMap<String, Gauge> _gauges = new ConcurrentHashMap<String, Gauge>();
+    private final ConcurrentMap<String, Histogram> _histograms = new ConcurrentHashMap<String, Histogram>();
+    
+    @Override
+    public Counter counter(String name) {
+        Counter c = _counters.get(name);
+        if(c == null) {
+            Counter existing = _counters.putIfAbsent(name, c = new Counter());
+            if(existing != null) c = existing;
+        }
+        return c;
+    }
+    
+    @Override
+    public Gauge gauge(String name) {
+        Gauge g = _gauges.get(name);
+        if(g == null) {
+            Gauge existing = _gauges.putIfAbsent(name, g = new Gauge());
+            if(existing != null) g = existing;
+        }
+        return g;
+    }
+    
+    @Override
+    public Histogram histogram(String name) {
+        Histogram h = _histograms.get(name);
+        if(h == null) {
+            Histogram existing = _histograms.putIfAbsent(name, h = new Histogram());
+            if(existing != null) h = existing;
+        }
+        return h;
+    }
+    
+    @Override
+    public Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(new TreeMap<String, Counter>(_counters));
+    }
+    
+    @Override
+    public Map<String, Gauge> getGauges() {
+        return Collections.unmodifiableMap(new TreeMap<String, Gauge>(_gauges));
+    }
+    
+    @Override
+    public Map<String, Histogram> getHistograms() {
+        return Collections.unmodifiableMap(new TreeMap<String, Histogram>(_histograms));
+    }
+}
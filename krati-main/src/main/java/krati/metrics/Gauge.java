@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.metrics;
+
+/**
+ * Gauge holds the latest value of a measurement such as the level of linear hashing.
+ * 
+ * @since 0.4.9
+ */
+public final class Gauge {
+    private volatile long _value = 0;
+    
+    /**
+     * Sets the current value.
+     */
+    public void set(long value) {
+        _value = value;
+    }
+    
+    /**
+     * Gets the current value.
+     */
+    public long get() {
+        return _value;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram is a lock-free histogram of non-negative values such as latencies in nanoseconds.
+ * Values are counted in log-linear buckets: each power of two is split into 8 linear sub-buckets,
+ * which bounds the relative error of percentiles to 12.5% using a fixed footprint of 4KB.
+ * 
+ * @since 0.4.9
+ */
+public final class Histogram {
+    private final static int SUB_BUCKET_BITS = 3;
+    private final static int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private final static int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+    
+    private final AtomicLongArray _buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong _count = new AtomicLong(0);
+    private final AtomicLong _sum = new AtomicLong(0);
+    private final AtomicLong _max = new AtomicLong(0);
+    
+    /**
+     * Records the specified <code>value</code>. Negative values are recorded as zero.
+     */
+    public void record(long value) {
+        if(value < 0) value = 0;
+        
+        _buckets.incrementAndGet(indexOf(value));
+        _count.incrementAndGet();
+        _sum.addAndGet(value);
+        
+        long max;
+        while(value > (max = _max.get())) {
+            if(_max.compareAndSet(max, value)) break;
+        }
+    }
+    
+    static int indexOf(long value) {
+        if(value < SUB_BUCKET_COUNT) {
+            return (int)value;
+        }
+        
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return ((exp - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + sub;
+    }
+    
+    static long upperBoundOf(int index) {
+        if(index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        
+        int exp = (index >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        long sub = index & (SUB_BUCKET_COUNT - 1);
+        long lower = (SUB_BUCKET_COUNT + sub) << (exp - SUB_BUCKET_BITS);
+        return lower + (1L << (exp - SUB_BUCKET_BITS)) - 1;
+    }
+    
+    /**
+     * Gets the number of recorded values.
+     */
+    public long getCount() {
+        return _count.get();
+    }
+    
+    /**
+     * Gets the sum of recorded values.
+     */
+    public long getSum() {
+        return _sum.get();
+    }
+    
+    /**
+     * Gets the maximum recorded value.
+     */
+    public long getMax() {
+        return _max.get();
+    }
+    
+    /**
+     * Gets the mean of recorded values.
+     */
+    public double getMean() {
+        long count = _count.get();
+        return count == 0 ? 0 : (double)_sum.get() / count;
+    }
+    
+    /**
+     * Gets the value at the specified <code>percentile</code>.
+     * 
+     * @param percentile - the percentile between 0 and 100
+     * @return the upper bound of the bucket holding the percentile, which is never above the maximum value.
+     */
+    public long getPercentile(double percentile) {
+        long count = _count.get();
+        if(count == 0) {
+            return 0;
+        }
+        
+        long rank = (long)Math.ceil(Math.min(100, Math.max(0, percentile)) / 100.0 * count);
+        rank = Math.max(1, rank);
+        
+        long seen = 0;
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            seen += _buckets.get(i);
+            if(seen >= rank) {
+                return Math.min(upperBoundOf(i), _max.get());
+            }
+        }
+        
+        return _max.get();
+    }
+    
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            _buckets.set(i, 0);
+        }
+        _count.set(0);
+        _sum.set(0);
+        _max.set(0);
+    }
+}
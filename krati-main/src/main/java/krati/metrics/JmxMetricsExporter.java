@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.apache.log4j.Logger;
+
+/**
+ * JmxMetricsExporter exposes the metrics of a {@link MetricsRegistry} as read-only attributes of a dynamic MBean.
+ * Each histogram is exposed as the attributes <code>name.count</code>, <code>name.mean</code>, <code>name.p50</code>,
+ * <code>name.p99</code>, <code>name.p999</code> and <code>name.max</code>.
+ * 
+ * @since 0.4.9
+ */
+public class JmxMetricsExporter implements DynamicMBean {
+    private final static Logger _logger = Logger.getLogger(JmxMetricsExporter.class);
+    private final MetricsRegistry _registry;
+    private final ObjectName _objectName;
+    private volatile boolean _registered = false;
+    
+    /**
+     * Creates a new JmxMetricsExporter.
+     * 
+     * @param registry   - the metrics registry to export
+     * @param objectName - the object name of the MBean
+     */
+    public JmxMetricsExporter(MetricsRegistry registry, ObjectName objectName) {
+        this._registry = registry;
+        this._objectName = objectName;
+    }
+    
+    /**
+     * Gets the object name of the MBean.
+     */
+    public final ObjectName getObjectName() {
+        return _objectName;
+    }
+    
+    /**
+     * Registers the MBean with the platform MBean server, replacing any MBean under the same name.
+     */
+    public synchronized void register() {
+        if(_registered) return;
+        
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if(server.isRegistered(_objectName)) {
+                server.unregisterMBean(_objectName);
+            }
+            server.registerMBean(this, _objectName);
+            _registered = true;
+        } catch(Exception e) {
+            _logger.warn("Failed to register " + _objectName, e);
+        }
+    }
+    
+    /**
+     * Unregisters the MBean from the platform MBean server.
+     */
+    public synchronized void unregister() {
+        if(!_registered) return;
+        
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if(server.isRegistered(_objectName)) {
+                server.unregisterMBean(_objectName);
+            }
+        } catch(Exception e) {
+            _logger.warn("Failed to unregister " + _objectName, e);
+        } finally {
+            _registered = false;
+        }
+    }
+    
+    /**
+     * @return <code>true</code> if the MBean is registered.
+     */
+    public boolean isRegistered() {
+        return _registered;
+    }
+    
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException, MBeanException, ReflectionException {
+        Counter c = _registry.getCounters().get(attribute);
+        if(c != null) {
+            return c.get();
+        }
+        
+        Gauge g = _registry.getGauges().get(attribute);
+        if(g != null) {
+            return g.get();
+        }
+        
+        int dot = attribute.lastIndexOf('.');
+        if(dot > 0) {
+            Histogram h = _registry.getHistograms().get(attribute.substring(0, dot));
+            if(h != null) {
+                String stat = attribute.substring(dot + 1);
+                if("count".equals(stat)) return h.getCount();
+                if("mean".equals(stat)) return h.getMean();
+                if("p50".equals(stat)) return h.getPercentile(50);
+                if("p99".equals(stat)) return h.getPercentile(99);
+                if("p999".equals(stat)) return h.getPercentile(99.9);
+                if("max".equals(stat)) return h.getMax();
+            }
+        }
+        
+        throw new AttributeNotFoundException(attribute);
+    }
+    
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for(String name : attributes) {
+            try {
+                list.add(new Attribute(name, getAttribute(name)));
+            } catch(Exception e) {
+                _logger.debug("Failed to get attribute " + name);
+            }
+        }
+        return list;
+    }
+    
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+    
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+    
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+    
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attrs = new ArrayList<MBeanAttributeInfo>();
+        
+        for(String name : _registry.getCounters().keySet()) {
+            attrs.add(new MBeanAttributeInfo(name, "long", "counter", true, false, false));
+        }
+        
+        for(String name : _registry.getGauges().keySet()) {
+            attrs.add(new MBeanAttributeInfo(name, "long", "gauge", true, false, false));
+        }
+        
+        for(Map.Entry<String, Histogram> e : _registry.getHistograms().entrySet()) {
+            String name = e.getKey();
+            attrs.add(new MBeanAttributeInfo(name + ".count", "long", "histogram count", true, false, false));
+            attrs.add(new MBeanAttributeInfo(name + ".mean", "double", "histogram mean", true, false, false));
+            attrs.add(new MBeanAttributeInfo(name + ".p50", "long", "histogram 50th percentile", true, false, false));
+            attrs.add(new MBeanAttributeInfo(name + ".p99", "long", "histogram 99th percentile", true, false, false));
+            attrs.add(new MBeanAttributeInfo(name + ".p999", "long", "histogram 99.9th percentile", true, false, false));
+            attrs.add(new MBeanAttributeInfo(name + ".max", "long", "histogram max", true, false, false));
+        }
+        
+        return new MBeanInfo(getClass().getName(), "Krati store metrics",
+                             attrs.toArray(new MBeanAttributeInfo[attrs.size()]), null, null, null);
+    }
+}
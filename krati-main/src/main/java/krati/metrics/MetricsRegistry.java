@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.metrics;
+
+import java.util.Map;
+
+/**
+ * MetricsRegistry defines a named collection of metrics. A metric is created upon first use
+ * and shared by all subsequent users of the same name.
+ * 
+ * @since 0.4.9
+ */
+public interface MetricsRegistry {
+    
+    /**
+     * Gets or creates the {@link Counter} of the specified <code>name</code>.
+     */
+    public Counter counter(String name);
+    
+    /**
+     * Gets or creates the {@link Gauge} of the specified <code>name</code>.
+     */
+    public Gauge gauge(String name);
+    
+    /**
+     * Gets or creates the {@link Histogram} of the specified <code>name</code>.
+     */
+    public Histogram histogram(String name);
+    
+    /**
+     * Gets all the counters by name.
+     */
+    public Map<String, Counter> getCounters();
+    
+    /**
+     * Gets all the gauges by name.
+     */
+    public Map<String, Gauge> getGauges();
+    
+    /**
+     * Gets all the histograms by name.
+     */
+    public Map<String, Histogram> getHistograms();
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.metrics;
+
+import java.io.File;
+
+import javax.management.ObjectName;
+
+import krati.core.StoreConfig;
+
+import org.apache.log4j.Logger;
+
+/**
+ * StoreMetrics is the facade through which a store and its underlying data array, segment manager,
+ * compactor and redo entry manager report metrics to a {@link MetricsRegistry}.
+ * 
+ * <p>
+ * The shared {@link #DISABLED} instance is used when metrics are not enabled. All its reporting methods
+ * return after a single field check and {@link #start()} does not read the clock.
+ * </p>
+ * 
+ * @since 0.4.9
+ */
+public class StoreMetrics {
+    private final static Logger _logger = Logger.getLogger(StoreMetrics.class);
+    
+    /**
+     * The no-op StoreMetrics.
+     */
+    public final static StoreMetrics DISABLED = new StoreMetrics();
+    
+    /**
+     * Store operations.
+     */
+    public static enum Op {
+        GET, PUT, DELETE, GET_ALL, PUT_ALL;
+        
+        final String metricName() {
+            return name().toLowerCase().replace('_', '.');
+        }
+    }
+    
+    public final static String SEGMENT_BYTES_APPENDED = "segment.bytesAppended";
+    public final static String SEGMENT_LOADS = "segment.loads";
+    public final static String COMPACTION_SEGMENTS = "compaction.segments";
+    public final static String COMPACTION_BYTES = "compaction.bytes";
+    public final static String COMPACTION_CYCLE_TIME = "compaction.cycle.nanos";
+    public final static String REDO_FLUSH_TIME = "redo.flush.nanos";
+    public final static String REDO_APPLY_TIME = "redo.apply.nanos";
+    public final static String SPLIT_STEPS = "split.steps";
+    public final static String SPLIT_LEVEL = "split.level";
+    public final static String SPLIT_INDEX = "split.index";
+    
+    private final boolean _enabled;
+    private final MetricsRegistry _registry;
+    private final JmxMetricsExporter _exporter;
+    
+    private final Counter[] _opCounts;
+    private final Histogram[] _opLatencies;
+    private final Counter _bytesAppended;
+    private final Counter _segmentLoads;
+    private final Counter _compactionSegments;
+    private final Counter _compactionBytes;
+    private final Histogram _compactionCycleTime;
+    private final Histogram _redoFlushTime;
+    private final Histogram _redoApplyTime;
+    private final Counter _splitSteps;
+    private final Gauge _splitLevel;
+    private final Gauge _splitIndex;
+    
+    private StoreMetrics() {
+        this._enabled = false;
+        this._registry = null;
+        this._exporter = null;
+        this._opCounts = null;
+        this._opLatencies = null;
+        this._bytesAppended = null;
+        this._segmentLoads = null;
+        this._compactionSegments = null;
+        this._compactionBytes = null;
+        this._compactionCycleTime = null;
+        this._redoFlushTime = null;
+        this._redoApplyTime = null;
+        this._splitSteps = null;
+        this._splitLevel = null;
+        this._splitIndex = null;
+    }
+    
+    /**
+     * Creates a new StoreMetrics.
+     * 
+     * @param registry   - the metrics registry
+     * @param objectName - the JMX object name to export metrics under, or <code>null</code> for no JMX export
+     */
+    public StoreMetrics(MetricsRegistry registry, ObjectName objectName) {
+        if(registry == null) {
+            throw new IllegalArgumentException("Invalid registry: " + registry);
+        }
+        
+        this._enabled = true;
+        this._registry = registry;
+        this._exporter = objectName == null ? null : new JmxMetricsExporter(registry, objectName);
+        
+        Op[] ops = Op.values();
+        this._opCounts = new Counter[ops.length];
+        this._opLatencies = new Histogram[ops.length];
+        for(Op op : ops) {
+            _opCounts[op.ordinal()] = registry.counter(op.metricName() + ".count");
+            _opLatencies[op.ordinal()] = registry.histogram(op.metricName() + ".nanos");
+        }
+        
+        this._bytesAppended = registry.counter(SEGMENT_BYTES_APPENDED);
+        this._segmentLoads = registry.counter(SEGMENT_LOADS);
+        this._compactionSegments = registry.counter(COMPACTION_SEGMENTS);
+        this._compactionBytes = registry.counter(COMPACTION_BYTES);
+        this._compactionCycleTime = registry.histogram(COMPACTION_CYCLE_TIME);
+        this._redoFlushTime = registry.histogram(REDO_FLUSH_TIME);
+        this._redoApplyTime = registry.histogram(REDO_APPLY_TIME);
+        this._splitSteps = registry.counter(SPLIT_STEPS);
+        this._splitLevel = registry.gauge(SPLIT_LEVEL);
+        this._splitIndex = registry.gauge(SPLIT_INDEX);
+    }
+    
+    /**
+     * Creates the StoreMetrics of a store according to the specified configuration.
+     * 
+     * @param config - the store configuration
+     * @return {@link #DISABLED} if metrics are not enabled in the specified <code>config</code>.
+     */
+    public static StoreMetrics newInstance(StoreConfig config) {
+        if(!config.isMetricsEnabled()) {
+            return DISABLED;
+        }
+        
+        MetricsRegistry registry = config.getMetricsRegistry();
+        if(registry == null) {
+            registry = new DefaultMetricsRegistry();
+        }
+        
+        return new StoreMetrics(registry, getObjectName(config.getHomeDir()));
+    }
+    
+    /**
+     * Gets the JMX object name of the store in the specified home directory.
+     * 
+     * @return <code>krati:type=DataStore,name="homeDir"</code> or <code>null</code> if the name is invalid.
+     */
+    public static ObjectName getObjectName(File homeDir) {
+        try {
+            return new ObjectName("krati:type=DataStore,name=" + ObjectName.quote(homeDir.getAbsolutePath()));
+        } catch(Exception e) {
+            _logger.warn("Invalid JMX object name for " + homeDir.getAbsolutePath(), e);
+            return null;
+        }
+    }
+    
+    /**
+     * @return <code>true</code> if metrics are collected.
+     */
+    public final boolean isEnabled() {
+        return _enabled;
+    }
+    
+    /**
+     * Gets the metrics registry, which is <code>null</code> if metrics are disabled.
+     */
+    public final MetricsRegistry getRegistry() {
+        return _registry;
+    }
+    
+    /**
+     * Gets the JMX exporter, which is <code>null</code> if metrics are disabled or not exported.
+     */
+    public final JmxMetricsExporter getExporter() {
+        return _exporter;
+    }
+    
+    /**
+     * Exports metrics via JMX when the store is opened.
+     */
+    public void open() {
+        if(_exporter != null) {
+            _exporter.register();
+        }
+    }
+    
+    /**
+     * Stops exporting metrics via JMX when the store is closed.
+     */
+    public void close() {
+        if(_exporter != null) {
+            _exporter.unregister();
+        }
+    }
+    
+    /**
+     * @return the current time in nanoseconds to be passed to {@link #done(Op, long)}, or 0 if metrics are disabled.
+     */
+    public final long start() {
+        return _enabled ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * Reports the completion of a store operation.
+     * 
+     * @param op        - the store operation
+     * @param startNano - the value returned by {@link #start()} before the operation
+     */
+    public final void done(Op op, long startNano) {
+        if(_enabled) {
+            int i = op.ordinal();
+            _opCounts[i].inc();
+            _opLatencies[i].record(System.nanoTime() - startNano);
+        }
+    }
+    
+    /**
+     * Reports the number of bytes appended to the current segment.
+     */
+    public final void segmentAppended(int numBytes) {
+        if(_enabled) {
+            _bytesAppended.add(numBytes);
+        }
+    }
+    
+    /**
+     * Reports a segment loaded from or created in the segment manager.
+     */
+    public final void segmentLoaded() {
+        if(_enabled) {
+            _segmentLoads.inc();
+        }
+    }
+    
+    /**
+     * Reports a segment compacted with the specified number of live bytes.
+     */
+    public final void segmentCompacted(long numBytes) {
+        if(_enabled) {
+            _compactionSegments.inc();
+            _compactionBytes.add(numBytes);
+        }
+    }
+    
+    /**
+     * Reports the completion of a compaction cycle.
+     */
+    public final void compactionCycleDone(long nanos) {
+        if(_enabled) {
+            _compactionCycleTime.record(nanos);
+        }
+    }
+    
+    /**
+     * Reports the time taken to flush a redo entry to disk.
+     */
+    public final void redoFlushed(long nanos) {
+        if(_enabled) {
+            _redoFlushTime.record(nanos);
+        }
+    }
+    
+    /**
+     * Reports the time taken to apply redo entries to the underlying array file.
+     */
+    public final void redoApplied(long nanos) {
+        if(_enabled) {
+            _redoApplyTime.record(nanos);
+        }
+    }
+    
+    /**
+     * Reports the progress of linear hashing after a split step.
+     * 
+     * @param level - the current level
+     * @param split - the index of the next bucket to split
+     */
+    public final void splitDone(int level, int split) {
+        if(_enabled) {
+            _splitSteps.inc();
+            _splitLevel.set(level);
+            _splitIndex.set(split);
+        }
+    }
+}
@@ -19,6 +19,10 @@ package krati.store;
 import java.io.File;
 import java.io.IOException;
 import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
 
 import krati.Persistable;
 import krati.PersistableListener;
@@ -29,6 +33,8 @@ import krati.core.array.AddressArray;
 import krati.core.array.SimpleDataArray;
 import krati.core.segment.SegmentFactory;
 import krati.core.segment.SegmentManager;
+import krati.util.IndexedIterator;
+import krati.util.Range;
 
 /**
  * AbstractDataArray
@@ -38,6 +44,9 @@ import krati.core.segment.SegmentManager;
  * 
  * <p>
  * 06/25, 2011 - Added support for StoreConfig <br/>
+ * 10/17, 2026 - Added sequential iterator <br/>
+ * 10/17, 2026 - Added partition iterators and parallel scan <br/>
+ * 10/17, 2026 - Added read-only mode <br/>
  */
 public abstract class AbstractDataArray implements DataArray, Persistable {
     protected final SimpleDataArray _dataArray;
@@ -67,10 +76,11 @@ public abstract class AbstractDataArray implements DataArray, Persistable {
         SegmentManager segmentManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
         // Create data array
-        _dataArray = new SimpleDataArray(_addrArray, segmentManager, _config.getSegmentCompactFactor());
+        _dataArray = new SimpleDataArray(_addrArray, segmentManager, _config);
     }
     
     /**
@@ -118,10 +128,11 @@ public abstract class AbstractDataArray implements DataArray, Persistable {
         SegmentManager segmentManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
         // Create data array
-        _dataArray = new SimpleDataArray(_addrArray, segmentManager, _config.getSegmentCompactFactor());
+        _dataArray = new SimpleDataArray(_addrArray, segmentManager, _config);
     }
     
     protected abstract AddressArray createAddressArray(File homeDir,
@@ -248,6 +259,57 @@ public abstract class AbstractDataArray implements DataArray, Persistable {
         return _addrArray.getType();
     }
     
+    /**
+     * Creates an iterator over the data in this array in the order of segment and segment offset
+     * rather than in the order of index. The underlying segments are read sequentially with large
+     * read-ahead buffers, which makes full scans much faster on channel-based segments.
+     * 
+     * @return an iterator over (index, data) entries.
+     */
+    public IndexedIterator<Entry<Integer, byte[]>> sequentialIterator() {
+        return _dataArray.sequentialIterator();
+    }
+    
+    /**
+     * Creates an iterator over the entries at the specified range of indexes in the order of segment and segment offset.
+     * 
+     * @param indexStart - the start index (inclusive)
+     * @param indexEnd   - the end index (exclusive)
+     * @return an iterator over entries.
+     */
+    public IndexedIterator<Entry<Integer, byte[]>> sequentialIterator(int indexStart, int indexEnd) {
+        return _dataArray.sequentialIterator(indexStart, indexEnd);
+    }
+    
+    /**
+     * Splits the indexes of this array into the specified number of ranges, each of which is scanned by its own
+     * sequential iterator. The iterators are independent of each other and can be consumed by different threads.
+     * 
+     * @param numPartitions - the number of partitions
+     * @return a list of partition iterators.
+     */
+    public List<IndexedIterator<Entry<Integer, byte[]>>> partitionIterators(int numPartitions) {
+        List<IndexedIterator<Entry<Integer, byte[]>>> list = new ArrayList<IndexedIterator<Entry<Integer, byte[]>>>(numPartitions);
+        for(Range range : ParallelScan.partition(_dataArray.length(), numPartitions)) {
+            list.add(sequentialIterator(range.getStart(), range.getEnd()));
+        }
+        return list;
+    }
+    
+    /**
+     * Scans all entries in this array in parallel. The entries of each partition are passed to
+     * the specified handler from a task running on the specified executor. Indexes without data are skipped.
+     * 
+     * @param handler       - the thread-safe handler of entries
+     * @param executor      - the executor for running partition scans
+     * @param numPartitions - the number of partitions, usually a small multiple of the executor threads
+     * @return the number of entries handled.
+     * @throws Exception if the handler fails on any entry. The scan is then stopped.
+     */
+    public long forEachParallel(ScanHandler<? super Entry<Integer, byte[]>> handler, ExecutorService executor, int numPartitions) throws Exception {
+        return ParallelScan.forEach(partitionIterators(numPartitions), handler, executor);
+    }
+    
     /**
      * Gets the persistable event listener.
      */
@@ -263,4 +325,11 @@ public abstract class AbstractDataArray implements DataArray, Persistable {
     public final void setPersistableListener(PersistableListener listener) {
         _dataArray.setPersistableListener(listener);
     }
+    
+    /**
+     * @return <code>true</code> if this array is opened in read-only mode. Otherwise, <code>false</code>.
+     */
+    public final boolean isReadOnly() {
+        return _dataArray.isReadOnly();
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.store;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BatchDataStore defines a {@link DataStore} which can read and write multiple keys in one batch.
+ * 
+ * @param <K> Store key
+ * @param <V> Store value
+ * 
+ * @since 0.4.9
+ */
+public interface BatchDataStore<K, V> extends DataStore<K, V> {
+    
+    /**
+     * Gets the values to which the specified <code>keys</code> are mapped in this store.
+     * 
+     * @param keys - store keys
+     * @return a list of values in the order of the specified <code>keys</code>.
+     *         The value is <code>null</code> if the corresponding key is <code>null</code> or unknown to this store.
+     */
+    public List<V> getAll(List<K> keys);
+    
+    /**
+     * Creates the mappings from keys to values in the specified <code>map</code> in this store.
+     * A mapping to a <code>null</code> value is equivalent to {@link #delete(Object) delete(K)}.
+     * All mappings are written under one lock acquisition and assigned consecutive SCNs.
+     * 
+     * @param map - the mappings from store keys to store values
+     * @return <code>true</code> if the operation is completed successfully.
+     * @throws Exception if the operation cannot be completed.
+     */
+    public boolean putAll(Map<K, V> map) throws Exception;
+}
@@ -18,10 +18,6 @@ package krati.store;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 
@@ -34,7 +30,8 @@ import krati.core.array.SimpleDataArray;
 import krati.core.segment.Segment;
 import krati.core.segment.SegmentManager;
 import krati.io.Closeable;
-import krati.util.DaemonThreadFactory;
+import krati.metrics.StoreMetrics;
+import krati.util.FreeIndexBitmap;
 
 /**
  * BytesDB.
@@ -45,6 +42,10 @@ import krati.util.DaemonThreadFactory;
  * 05/31, 2011 - Added support for Closeable <br/>
  * 06/28, 2011 - Added constructor using StoreConfig <br/>
  * 08/21, 2012 - Grow capacity by approximately 20% upon auto expansion <br/>
+ * 10/17, 2026 - Added method getAll(int[]) for batch reads <br/>
+ * 10/17, 2026 - Added store metrics <br/>
+ * 10/17, 2026 - Replaced background next index lookup with a lock-free free index bitmap <br/>
+ * 10/17, 2026 - Added read-only mode <br/>
  */
 public final class BytesDB implements Persistable, Closeable {
     final static Logger _logger = Logger.getLogger(BytesDB.class);
@@ -59,12 +60,15 @@ public final class BytesDB implements Persistable, Closeable {
      */
     private volatile Mode _mode = Mode.INIT;
     
-    // Lookup next index for add methods
-    private volatile int _nextIndexCount = 0;
-    private final int _nextIndexQueueCapacity = 10000;
-    private final NextIndexLookup _nextIndexLookup = new NextIndexLookup();
-    private final LinkedBlockingQueue<Integer> _nextIndexQueue = new LinkedBlockingQueue<Integer>(_nextIndexQueueCapacity);
-    private ExecutorService _nextIndexExecutor = null;
+    /**
+     * The free indexes for add methods.
+     */
+    private final FreeIndexBitmap _freeIndexes = new FreeIndexBitmap(0);
+    
+    /**
+     * Expand the address array if free indexes fall below this ratio of its capacity.
+     */
+    private final static double FREE_INDEX_EXPAND_THRESHOLD = 0.1;
     
     /**
      * Creates a new BytesDB.
@@ -91,19 +95,15 @@ public final class BytesDB implements Persistable, Closeable {
         SegmentManager segManager = SegmentManager.getInstance(
                 segmentHomePath,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
         // Create simple data array
-        _dataArray = new SimpleDataArray(_addrArray, segManager, _config.getSegmentCompactFactor());
+        _dataArray = new SimpleDataArray(_addrArray, segManager, _config);
         _dataArray.setSibEnabled(true);  // Always enable segment index buffering for BytesDB.
         
-        // Scan to count nextIndex
-        this.initNextIndexCount();
-        
-        // Start to lookup nextIndex
-        this._nextIndexLookup.setEnabled(true);
-        this._nextIndexExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
-        this._nextIndexExecutor.execute(_nextIndexLookup);
+        // Scan to find free indexes
+        this.initFreeIndexes();
         
         // Grow 20% upon auto expansion
         this.setExpandRate(0.2f);
@@ -118,6 +118,10 @@ public final class BytesDB implements Persistable, Closeable {
                                             int numSyncBatches,
                                             boolean indexesCached) throws Exception {
         AddressArrayFactory factory = new AddressArrayFactory(indexesCached);
+        factory.setReadOnly(_config.isReadOnly());
+        factory.setIndexesOffHeap(_config.isIndexesOffHeap());
+        factory.setIndexesPacked(_config.isIndexesPacked());
+        factory.setSegmentFileSizeMB(_config.getSegmentFileSizeMB());
         AddressArray addrArray = factory.createDynamicAddressArray(getHomeDir(), batchSize, numSyncBatches);
         addrArray.expandCapacity(length - 1);
         return addrArray;
@@ -127,6 +131,14 @@ public final class BytesDB implements Persistable, Closeable {
         return _config.getHomeDir();
     }
     
+    public final StoreMetrics getMetrics() {
+        return _dataArray.getMetrics();
+    }
+    
+    public final void setMetrics(StoreMetrics metrics) {
+        _dataArray.setMetrics(metrics);
+    }
+    
     public final float getExpandRate() {
         return _addrArray.getExpandRate();
     }
@@ -155,6 +167,10 @@ public final class BytesDB implements Persistable, Closeable {
         return _dataArray.get(index);
     }
     
+    public byte[][] getAll(int[] indexes) {
+        return _dataArray.getAll(indexes);
+    }
+    
     public int get(int index, byte[] data) {
         return _dataArray.get(index, data);
     }
@@ -165,25 +181,25 @@ public final class BytesDB implements Persistable, Closeable {
     
     public synchronized void set(int index, byte[] data, long scn) throws Exception {
         _dataArray.set(index, data, scn);
-        if(data == null) _nextIndexCount++;
+        updateFreeIndex(index);
     }
     
     public synchronized void set(int index, byte[] data, int offset, int length, long scn) throws Exception {
         _dataArray.set(index, data, offset, length, scn);
-        if(data == null) _nextIndexCount++;
+        updateFreeIndex(index);
     }
     
     public synchronized int add(byte[] data, long scn) throws Exception {
-        int index = _nextIndexQueue.take();
+        int index = nextIndex();
         _dataArray.set(index, data, scn);
-        _nextIndexCount--;
+        updateFreeIndex(index);
         return index;
     }
     
     public synchronized int add(byte[] data, int offset, int length, long scn) throws Exception {
-        int index = _nextIndexQueue.take();
+        int index = nextIndex();
         _dataArray.set(index, data, offset, length, scn);
-        _nextIndexCount--;
+        updateFreeIndex(index);
         return index;
     }
     
@@ -212,105 +228,81 @@ public final class BytesDB implements Persistable, Closeable {
         return _dataArray.getLWMark();
     }
     
-    class NextIndexLookup implements Runnable {
-        volatile boolean _enabled = true;
-        
-        @Override
-        public void run() {
-            int index = 0;
-            int lastPut = -1;
-            
-            while(_enabled) {
-                if(index < _addrArray.length()) {
-                    try {
-                        long addr = _addrArray.get(index);
-                        if (addr < Segment.dataStartPosition) {
-                            _nextIndexQueue.put(index);
-                            lastPut = index;
-                        }
-                    } catch (Exception e) {
-                        _logger.warn("Failed to add to _nextIndexQueue", e);
-                    }
-                    index++;
-                } else {
-                    /* Expand address array only if the total count of nextIndexes
-                     * is less than 10% of address array capacity.
-                     */
-                    int threshold = (int)(_addrArray.length() * 0.1);
-                    if(_nextIndexCount < threshold) {
-                        try {
-                            _addrArray.expandCapacity(_addrArray.length());
-                            
-                            // Try to fill up the remaining capacity
-                            int cnt = _nextIndexQueue.remainingCapacity();
-                            for(int i = 0; i < cnt; i++) {
-                                if(index < _addrArray.length()) {
-                                    long addr = _addrArray.get(index);
-                                    if(addr < Segment.dataStartPosition) {
-                                        try {
-                                            _nextIndexQueue.put(index);
-                                            lastPut = index;
-                                        } catch (InterruptedException e) {
-                                            _logger.warn("Failed to add to _nextIndexQueue", e);
-                                        }
-                                    }
-                                    index++;
-                                }
-                            }
-                        } catch (Exception e) {
-                            _logger.error("failed to expand _addrArray", e);
-                        }
-                    }
-                    
-                    // Start scan from index 0 to find the next possible index  
-                    int nextPossible = 0;
-                    while(!_nextIndexQueue.isEmpty()) {
-                        if(nextPossible < _addrArray.length()) {
-                            long addr = _addrArray.get(nextPossible);
-                            if(addr < Segment.dataStartPosition) {
-                                // Sleep 100 nanoseconds.
-                                try {
-                                    Thread.sleep(0, 100);
-                                } catch (InterruptedException e) {}
-                            } else {
-                                nextPossible++;
-                            }
-                        }
-                    }
-                    
-                    /* If nextPossible is equal to lastPut, this means lastPut was just dequeued
-                     * by the add methods and it cannot be enqueued into the _nextIndexQueue again.
-                     * Need to look for a new nextIndex by incrementing nextPossible.
-                     */
-                    if(nextPossible == lastPut) {
-                        nextPossible++;
-                    }
-                    index = nextPossible;
-                }
-            } /* End of while {} */
+    /**
+     * @return the number of free indexes available to add methods without expanding capacity.
+     */
+    public final int getFreeIndexCount() {
+        return _freeIndexes.freeCount();
+    }
+    
+    /**
+     * Allocates the next free index for add methods. The address array is expanded
+     * only if the count of free indexes is less than 10% of its capacity.
+     * 
+     * <p>
+     * Allocation stays serialized on the BytesDB monitor together with the write that uses
+     * the index. The underlying data array is single-writer, and {@link FreeIndexBitmap#grow(int)}
+     * must not run concurrently with allocation. Only the lookup of a free index is lock-free,
+     * so add methods no longer wait for a background thread to find free indexes.
+     */
+    private int nextIndex() throws Exception {
+        int length = _addrArray.length();
+        if(_freeIndexes.freeCount() < (int)(length * FREE_INDEX_EXPAND_THRESHOLD)) {
+            _addrArray.expandCapacity(length);
+            syncFreeIndexes();
         }
         
-        public void setEnabled(boolean b) {
-            this._enabled = b;
+        int index = _freeIndexes.allocate();
+        if(index < 0) {
+            throw new IllegalStateException("No free index: capacity=" + _addrArray.length());
         }
+        return index;
+    }
+    
+    /**
+     * Updates the free state of the specified index after it is set.
+     */
+    private void updateFreeIndex(int index) {
+        syncFreeIndexes();
         
-        public boolean isEnabled() {
-            return _enabled;
+        if(_addrArray.get(index) < Segment.dataStartPosition) {
+            _freeIndexes.release(index);
+        } else {
+            _freeIndexes.acquire(index);
+        }
+    }
+    
+    /**
+     * Grows free indexes to cover the indexes added by the expansion of the address array.
+     */
+    private void syncFreeIndexes() {
+        int index = _freeIndexes.length();
+        int length = _addrArray.length();
+        if(index < length) {
+            _freeIndexes.grow(length);
+            for(; index < length; index++) {
+                if(_addrArray.get(index) < Segment.dataStartPosition) {
+                    _freeIndexes.release(index);
+                }
+            }
         }
     }
     
-    private void initNextIndexCount() {
+    private void initFreeIndexes() {
+        _freeIndexes.clear();
+        
         int index = 0;
         int length = _addrArray.length();
+        _freeIndexes.grow(length);
         while(index < length) {
             long addr = _addrArray.get(index);
             if(addr < Segment.dataStartPosition) {
-                _nextIndexCount++;
+                _freeIndexes.release(index);
             }
             index++;
         }
         
-        _logger.info("load " + (length - _nextIndexCount) + "/" + length);
+        _logger.info("load " + (length - _freeIndexes.freeCount()) + "/" + length);
     }
     
     /**
@@ -320,6 +312,7 @@ public final class BytesDB implements Persistable, Closeable {
     public synchronized void clear() {
         if(isOpen()) {
             _dataArray.clear();
+            initFreeIndexes();
         }
     }
     
@@ -333,21 +326,12 @@ public final class BytesDB implements Persistable, Closeable {
             // Close dataArray
             _dataArray.sync();
             _dataArray.close();
-            
-            // Shutdown nextIndex lookup executor
-            if(_nextIndexExecutor != null && !_nextIndexExecutor.isShutdown()) {
-                _nextIndexLookup.setEnabled(false);
-                _nextIndexExecutor.awaitTermination(5000, TimeUnit.MILLISECONDS);
-                _nextIndexExecutor.shutdown();
-            }
         } catch(Exception e) {
             throw (e instanceof IOException) ?
                   (IOException)e : new IOException("Failed to close", e);
         } finally {
             _mode = Mode.CLOSED;
-            _nextIndexCount = 0;
-            _nextIndexQueue.clear();
-            _nextIndexLookup.setEnabled(false);
+            _freeIndexes.clear();
             
             _logger.info("mode=" + _mode);
         }
@@ -362,32 +346,19 @@ public final class BytesDB implements Persistable, Closeable {
         try {
             _dataArray.open();
             
-            // Scan to count nextIndex
-            initNextIndexCount();
-            
-            // Start nextIndex lookup executor
-            _nextIndexLookup.setEnabled(true);
-            _nextIndexExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
-            _nextIndexExecutor.execute(_nextIndexLookup);
+            // Scan to find free indexes
+            initFreeIndexes();
             
             _mode = Mode.OPEN;
         } catch(Exception e) {
             _mode = Mode.CLOSED;
-            
-            _nextIndexCount = 0;
-            _nextIndexQueue.clear();
-            _nextIndexLookup.setEnabled(false);
+            _freeIndexes.clear();
             
             // Close dataArray if open
             if (_dataArray.isOpen()) {
                 _dataArray.close();
             }
             
-            // Shutdown nextIndex lookup executor
-            if(_nextIndexExecutor != null && !_nextIndexExecutor.isShutdown()) {
-                _nextIndexExecutor.shutdown();
-            }
-            
             throw (e instanceof IOException) ?
                   (IOException)e : new IOException("Failed to close", e);
         } finally {
@@ -399,4 +370,11 @@ public final class BytesDB implements Persistable, Closeable {
     public final boolean isOpen() {
         return _mode == Mode.OPEN;
     }
+    
+    /**
+     * @return <code>true</code> if this BytesDB is opened in read-only mode. Otherwise, <code>false</code>.
+     */
+    public final boolean isReadOnly() {
+        return _dataArray.isReadOnly();
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import krati.core.array.SequentialScanIterator;
+import krati.util.IndexedIterator;
+
+/**
+ * DataSetSequentialIterator iterates over the values of a data set in the order of segment and segment offset.
+ * 
+ * @since 0.4.9
+ * @see SequentialScanIterator
+ */
+final class DataSetSequentialIterator implements IndexedIterator<byte[]> {
+    private final ArrayList<byte[]> _bucket;
+    private final DataSetHandler _dataHandler;
+    private final SequentialScanIterator _scanIter;
+    
+    DataSetSequentialIterator(SequentialScanIterator scanIter, DataSetHandler dataHandler) {
+        this._scanIter = scanIter;
+        this._dataHandler = dataHandler;
+        this._bucket = new ArrayList<byte[]>(20);
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if(_bucket.size() == 0) {
+            findNext();
+        }
+        return _bucket.size() > 0;
+    }
+    
+    @Override
+    public byte[] next() {
+        int size = _bucket.size();
+        if (size == 0) {
+            findNext();
+            size = _bucket.size();
+        }
+        
+        if(size > 0) {
+            return _bucket.remove(--size);
+        }
+        
+        throw new NoSuchElementException();
+    }
+    
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+    
+    private void findNext() {
+        while(_scanIter.hasNext()) {
+            byte[] data = _scanIter.next().getValue();
+            List<byte[]> values = _dataHandler.extractValues(data);
+            if(values != null && values.size() > 0) {
+                _bucket.addAll(values);
+                break;
+            }
+        }
+    }
+    
+    @Override
+    public int index() {
+        return _scanIter.index();
+    }
+    
+    @Override
+    public void reset(int indexStart) {
+        _scanIter.reset(indexStart);
+        _bucket.clear();
+    }
+}
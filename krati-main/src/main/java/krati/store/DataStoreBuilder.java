@@ -0,0 +1,606 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package krati.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import krati.array.Array;
+import krati.core.StoreConfig;
+import krati.core.StoreParams;
+import krati.core.array.basic.ArrayFile;
+import krati.core.array.basic.DynamicConstants;
+import krati.core.segment.AddressFormat;
+import krati.core.segment.Segment;
+import krati.core.segment.SegmentIndexBuffer;
+import krati.core.segment.SegmentManager;
+import krati.core.segment.SegmentOverflowException;
+import krati.util.Chronos;
+import krati.util.DaemonThreadFactory;
+import krati.util.HashFunction;
+import krati.util.LinearHashing;
+
+/**
+ * DataStoreBuilder builds the home directory of a {@link StaticDataStore} or {@link DynamicDataStore} offline,
+ * without going through the write path of a live store.
+ * 
+ * <p>
+ * Key-value pairs are buffered in runs. Each run is hashed, sorted by array index and spilled to a temporary
+ * file by a pool of threads while the next run is being filled. Upon {@link #build()}, all runs are merged so
+ * that each array index is appended to segments exactly once and in array order, together with the segment
+ * index buffers. The file <code>indexes.dat</code> is then written sequentially. A key added more than once
+ * is mapped to the value added last.
+ * 
+ * <p>
+ * The resulting home directory is opened by the store of the specified type using the same config. It can
+ * be built next to a live store directory and moved in place of it. A DataStoreBuilder is not thread-safe.
+ * 
+ * <pre>
+ *    DataStoreBuilder builder = new DataStoreBuilder(config, Array.Type.DYNAMIC, expectedKeyCount);
+ *    while(...) {
+ *        builder.add(key, value);
+ *    }
+ *    builder.build();
+ *    
+ *    DataStore&lt;byte[], byte[]&gt; store = new DynamicDataStore(config);
+ * </pre>
+ * 
+ * @since 0.4.9
+ */
+public class DataStoreBuilder {
+    private final static Logger _log = Logger.getLogger(DataStoreBuilder.class);
+    
+    /**
+     * The default maximum number of key and value bytes buffered in one run.
+     */
+    public final static int RUN_SIZE_MB_DEFAULT = 64;
+    
+    /**
+     * The number of addresses written to <code>indexes.dat</code> at a time.
+     */
+    private final static int INDEXES_CHUNK_SIZE = 1 << 16;
+    
+    private final StoreConfig _config;
+    private final Array.Type _type;
+    private final int _capacity;
+    private final HashFunction<byte[]> _hashFunction;
+    private final DataStoreHandler _dataHandler;
+    private final HashedDataStoreHandler _hashedHandler;
+    private final File _runDir;
+    private final int _numThreads;
+    private final long _runSizeBytes;
+    private final ExecutorService _executor;
+    private final List<Future<File>> _runs = new ArrayList<Future<File>>();
+    private List<byte[]> _keys = new ArrayList<byte[]>();
+    private List<byte[]> _values = new ArrayList<byte[]>();
+    private long _bytes = 0;
+    private long _count = 0;
+    private boolean _built = false;
+    
+    /**
+     * Creates a DataStoreBuilder which uses up to as many threads as available processors for
+     * hashing and sorting runs of {@link #RUN_SIZE_MB_DEFAULT} MB.
+     * 
+     * @param config           - the config of the store to build
+     * @param type             - the type of the store to build, i.e. {@link Array.Type#STATIC} for {@link StaticDataStore}
+     *                           or {@link Array.Type#DYNAMIC} for {@link DynamicDataStore}
+     * @param expectedKeyCount - the expected number of keys, which determines the capacity of a {@link DynamicDataStore}
+     * @throws IOException if the store already exists.
+     */
+    public DataStoreBuilder(StoreConfig config, Array.Type type, int expectedKeyCount) throws IOException {
+        this(config, type, expectedKeyCount, Runtime.getRuntime().availableProcessors(), RUN_SIZE_MB_DEFAULT);
+    }
+    
+    /**
+     * Creates a DataStoreBuilder.
+     * 
+     * @param config           - the config of the store to build
+     * @param type             - the type of the store to build, i.e. {@link Array.Type#STATIC} for {@link StaticDataStore}
+     *                           or {@link Array.Type#DYNAMIC} for {@link DynamicDataStore}
+     * @param expectedKeyCount - the expected number of keys, which determines the capacity of a {@link DynamicDataStore}
+     * @param numThreads       - the number of threads for hashing, sorting and spilling runs
+     * @param runSizeMB        - the maximum number of key and value bytes (in MB) buffered in one run
+     * @throws IOException if the store already exists.
+     */
+    public DataStoreBuilder(StoreConfig config, Array.Type type, int expectedKeyCount, int numThreads, int runSizeMB) throws IOException {
+        config.validate();
+        if(expectedKeyCount < 0) {
+            throw new IllegalArgumentException("Invalid expectedKeyCount: " + expectedKeyCount);
+        }
+        if(numThreads < 1) {
+            throw new IllegalArgumentException("Invalid numThreads: " + numThreads);
+        }
+        if(runSizeMB < 1) {
+            throw new IllegalArgumentException("Invalid runSizeMB: " + runSizeMB);
+        }
+        
+        File homeDir = config.getHomeDir();
+        if(new File(homeDir, "indexes.dat").exists()) {
+            throw new IOException("Store already exists: " + homeDir.getAbsolutePath());
+        }
+        
+        this._config = config;
+        this._type = type;
+        this._capacity = (type == Array.Type.STATIC) ? config.getInitialCapacity() :
+            getDynamicCapacity(config.getInitialCapacity(), config.getHashLoadFactor(), expectedKeyCount);
+        this._hashFunction = config.getHashFunction();
+        this._dataHandler = (config.getDataHandler() == null) ?
+                new DefaultDataStoreHandler() : (DataStoreHandler)config.getDataHandler();
+        this._hashedHandler = (_dataHandler instanceof HashedDataStoreHandler) ?
+                (HashedDataStoreHandler)_dataHandler : null;
+        this._numThreads = numThreads;
+        this._runSizeBytes = ((long)runSizeMB) << 20;
+        this._executor = Executors.newFixedThreadPool(numThreads, new DaemonThreadFactory());
+        
+        this._runDir = new File(homeDir, "runs");
+        if(!_runDir.exists() && !_runDir.mkdirs()) {
+            throw new IOException("Failed to create directory " + _runDir.getAbsolutePath());
+        }
+        
+        _log.info("type=" + type + " capacity=" + _capacity + " numThreads=" + numThreads + " runSizeMB=" + runSizeMB);
+    }
+    
+    /**
+     * Gets the capacity of a {@link DynamicDataStore}, i.e. the capacity of the lowest level of linear hashing
+     * at which the expected number of keys do not exceed the load threshold.
+     */
+    static int getDynamicCapacity(int initialCapacity, double loadFactor, int expectedKeyCount) {
+        int unitCapacity = DynamicConstants.SUB_ARRAY_SIZE;
+        LinearHashing h = new LinearHashing(unitCapacity);
+        h.reinit(Integer.MAX_VALUE);
+        int maxLevel = h.getLevel();
+        
+        int level = Math.min(StoreParams.getDynamicStoreInitialLevel(initialCapacity), maxLevel);
+        while(level < maxLevel && ((long)unitCapacity << level) * loadFactor < expectedKeyCount) {
+            level++;
+        }
+        
+        return unitCapacity << level;
+    }
+    
+    /**
+     * @return the config of the store to build.
+     */
+    public final StoreConfig getConfig() {
+        return _config;
+    }
+    
+    /**
+     * @return the type of the store to build.
+     */
+    public final Array.Type getType() {
+        return _type;
+    }
+    
+    /**
+     * @return the capacity of the store to build.
+     */
+    public final int capacity() {
+        return _capacity;
+    }
+    
+    /**
+     * @return the number of key-value pairs added to this builder.
+     */
+    public final long count() {
+        return _count;
+    }
+    
+    /**
+     * Adds the specified key-value pair. The pair is ignored if the key or the value is <code>null</code>.
+     * 
+     * @param key   - the key
+     * @param value - the value
+     * @throws IOException if a previous run cannot be spilled.
+     */
+    public void add(byte[] key, byte[] value) throws IOException {
+        if(_built) {
+            throw new IllegalStateException("Store already built");
+        }
+        if(key == null || value == null) {
+            return;
+        }
+        
+        _keys.add(key);
+        _values.add(value);
+        _bytes += key.length + value.length;
+        _count++;
+        
+        if(_bytes >= _runSizeBytes) {
+            spill();
+        }
+    }
+    
+    /**
+     * Builds the store from all the added key-value pairs.
+     * 
+     * @throws IOException if the store cannot be built.
+     */
+    public void build() throws IOException {
+        if(_built) {
+            throw new IllegalStateException("Store already built");
+        }
+        _built = true;
+        
+        Chronos c = new Chronos();
+        try {
+            if(_keys.size() > 0) {
+                spill();
+            }
+            
+            List<File> files = new ArrayList<File>(_runs.size());
+            for(Future<File> f : _runs) {
+                files.add(await(f));
+            }
+            _log.info("sorted " + _count + " entries in " + files.size() + " runs");
+            
+            merge(files);
+            _config.save();
+        } finally {
+            _executor.shutdownNow();
+            
+            File[] files = _runDir.listFiles();
+            if(files != null) {
+                for(File f : files) {
+                    f.delete();
+                }
+            }
+            _runDir.delete();
+        }
+        
+        _log.info("built " + _config.getHomeDir().getAbsolutePath() + " in " + c.getTotalTime() + " ms");
+    }
+    
+    /**
+     * Submits the current run for hashing, sorting and spilling, and waits until
+     * no more than <code>numThreads</code> runs are in progress.
+     */
+    private void spill() throws IOException {
+        final List<byte[]> keys = _keys;
+        final List<byte[]> values = _values;
+        final File file = new File(_runDir, "run_" + _runs.size() + ".dat");
+        
+        _keys = new ArrayList<byte[]>(keys.size());
+        _values = new ArrayList<byte[]>(values.size());
+        _bytes = 0;
+        
+        _runs.add(_executor.submit(new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                return writeRun(keys, values, file);
+            }
+        }));
+        
+        if(_runs.size() > _numThreads) {
+            await(_runs.get(_runs.size() - _numThreads - 1));
+        }
+    }
+    
+    private File await(Future<File> future) throws IOException {
+        try {
+            return future.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch(ExecutionException e) {
+            Throwable t = e.getCause();
+            throw (t instanceof IOException) ? (IOException)t : new IOException(t);
+        }
+    }
+    
+    /**
+     * Maps the specified key hash code to an array index in the same way as the store of the specified type.
+     * A {@link DynamicDataStore} at a full level of linear hashing maps keys as a {@link StaticDataStore}.
+     */
+    private int getIndex(long hashCode) {
+        int index = (int)(hashCode % _capacity);
+        return (index < 0) ? -index : index;
+    }
+    
+    /**
+     * Writes a run of key-value pairs sorted by array index. Pairs mapped to the same
+     * index remain in the order in which they are added. The hash code of every key is
+     * written along with the key so that it is not computed again upon merge.
+     */
+    private File writeRun(List<byte[]> keys, List<byte[]> values, File file) throws IOException {
+        final int cnt = keys.size();
+        long[] hashCodes = new long[cnt];
+        long[] sorted = new long[cnt];
+        for(int i = 0; i < cnt; i++) {
+            hashCodes[i] = _hashFunction.hash(keys.get(i));
+            sorted[i] = (((long)getIndex(hashCodes[i])) << 32) | i;
+        }
+        Arrays.sort(sorted);
+        
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            for(int i = 0; i < cnt; i++) {
+                byte[] key = keys.get((int)sorted[i]);
+                byte[] value = values.get((int)sorted[i]);
+                
+                out.writeInt((int)(sorted[i] >>> 32));
+                out.writeLong(hashCodes[(int)sorted[i]]);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(value.length);
+                out.write(value);
+            }
+        } finally {
+            out.close();
+        }
+        
+        return file;
+    }
+    
+    /**
+     * Merges the specified runs into segments and <code>indexes.dat</code>.
+     */
+    private void merge(List<File> files) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>(Math.max(1, files.size()), new Comparator<RunReader>() {
+            @Override
+            public int compare(RunReader r1, RunReader r2) {
+                int c = (r1._index < r2._index) ? -1 : ((r1._index == r2._index) ? 0 : 1);
+                return (c != 0) ? c : (r1._runId - r2._runId);
+            }
+        });
+        
+        File homeDir = _config.getHomeDir();
+        SegmentAppender appender = new SegmentAppender(
+                homeDir.getCanonicalPath() + File.separator + "segs",
+                _config.getSegmentFileSizeMB());
+        ArrayFile arrayFile = new ArrayFile(new File(homeDir, "indexes.dat"), _capacity, 8);
+        
+        try {
+            for(int i = 0; i < files.size(); i++) {
+                RunReader r = new RunReader(i, files.get(i));
+                if(r.next()) {
+                    queue.add(r);
+                }
+            }
+            
+            long[] chunk = new long[INDEXES_CHUNK_SIZE];
+            int chunkStart = 0;
+            boolean chunkDirty = false;
+            
+            while(!queue.isEmpty()) {
+                RunReader r = queue.poll();
+                int index = r._index;
+                byte[] data = assemble(r, null);
+                if(r.next()) {
+                    queue.add(r);
+                }
+                
+                // Assemble all key-value pairs mapped to the same index
+                while(!queue.isEmpty() && queue.peek()._index == index) {
+                    r = queue.poll();
+                    data = assemble(r, data);
+                    if(r.next()) {
+                        queue.add(r);
+                    }
+                }
+                
+                if(index >= chunkStart + INDEXES_CHUNK_SIZE) {
+                    if(chunkDirty) {
+                        arrayFile.writeLongs(chunkStart, chunk, INDEXES_CHUNK_SIZE);
+                        Arrays.fill(chunk, 0);
+                    }
+                    chunkStart = index - (index % INDEXES_CHUNK_SIZE);
+                }
+                
+                chunk[index - chunkStart] = appender.append(index, data);
+                chunkDirty = true;
+            }
+            
+            // Force segments before indexes.dat so that no index points to data not on disk
+            appender.close();
+            
+            if(chunkDirty) {
+                arrayFile.writeLongs(chunkStart, chunk, Math.min(INDEXES_CHUNK_SIZE, _capacity - chunkStart));
+            }
+            arrayFile.setWaterMarks(_count, _count);
+            arrayFile.force();
+        } finally {
+            for(RunReader r : queue) {
+                r.close();
+            }
+            appender.close();
+            arrayFile.close();
+        }
+    }
+    
+    /**
+     * Assembles the current key-value pair of the specified run reader with the specified data.
+     * A {@link HashedDataStoreHandler} caches the hash code computed by the store hash function.
+     */
+    private byte[] assemble(RunReader r, byte[] data) {
+        if(_hashedHandler == null) {
+            return (data == null) ?
+                    _dataHandler.assemble(r._key, r._value) :
+                    _dataHandler.assemble(r._key, r._value, data);
+        } else {
+            return (data == null) ?
+                    _hashedHandler.assemble(r._key, r._hashCode, r._value) :
+                    _hashedHandler.assemble(r._key, r._hashCode, r._value, data);
+        }
+    }
+    
+    /**
+     * RunReader reads key-value pairs sequentially from a run file.
+     */
+    private static final class RunReader {
+        final int _runId;
+        final DataInputStream _in;
+        int _index;
+        long _hashCode;
+        byte[] _key;
+        byte[] _value;
+        
+        RunReader(int runId, File file) throws IOException {
+            this._runId = runId;
+            this._in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        }
+        
+        boolean next() throws IOException {
+            try {
+                _index = _in.readInt();
+            } catch(EOFException e) {
+                close();
+                return false;
+            }
+            
+            _hashCode = _in.readLong();
+            _key = new byte[_in.readInt()];
+            _in.readFully(_key);
+            _value = new byte[_in.readInt()];
+            _in.readFully(_value);
+            return true;
+        }
+        
+        void close() throws IOException {
+            _in.close();
+        }
+    }
+    
+    /**
+     * SegmentAppender appends data to segments in the same format as {@link krati.core.array.SimpleDataArray}
+     * and fills the segment index buffer of each segment.
+     */
+    private final class SegmentAppender {
+        private final AddressFormat _addressFormat = new AddressFormat();
+        private final SegmentManager _segManager;
+        private Segment _segment;
+        private SegmentIndexBuffer _sib;
+        
+        SegmentAppender(String segmentHome, int segmentFileSizeMB) throws IOException {
+            _segManager = SegmentManager.getInstance(segmentHome, _config.getSegmentFactory(), segmentFileSizeMB);
+            _segment = _segManager.nextSegment();
+            _sib = _segManager.openSegmentIndexBuffer(_segment.getSegmentId());
+        }
+        
+        long append(int index, byte[] data) throws IOException {
+            while(true) {
+                long pos = _segment.getAppendPosition();
+                
+                try {
+                    if((pos >> _addressFormat.getSegmentShift()) > 0) {
+                        throw new SegmentOverflowException(_segment);
+                    }
+                    
+                    _segment.appendInt(data.length);
+                    _segment.append(data);
+                    _sib.add(index, (int)pos);
+                    
+                    return _addressFormat.composeAddress((int)pos, _segment.getSegmentId(), data.length);
+                } catch(SegmentOverflowException e) {
+                    _segment.setAppendPosition(pos);
+                    if(pos == Segment.dataStartPosition) {
+                        throw new IOException("Data at index " + index + " exceeds segment size");
+                    }
+                    
+                    submitSegmentIndexBuffer();
+                    _segment = _segManager.nextSegment();
+                    _sib = _segManager.openSegmentIndexBuffer(_segment.getSegmentId());
+                }
+            }
+        }
+        
+        private void submitSegmentIndexBuffer() throws IOException {
+            _segment.force();
+            _sib.setSegmentId(_segment.getSegmentId());
+            _sib.setSegmentLastForcedTime(_segment.getLastForcedTime());
+            _segManager.submit(_sib);
+        }
+        
+        /**
+         * Forces the current segment and closes all segments.
+         */
+        void close() throws IOException {
+            if(_segManager.isOpen()) {
+                submitSegmentIndexBuffer();
+                _segManager.updateMeta();
+                _segManager.close();
+            }
+        }
+    }
+    
+    /**
+     * Builds a store from a text file of tab-separated keys and values, one pair per line.
+     * 
+     * <pre>
+     *    java krati.store.DataStoreBuilder static|dynamic homeDir initialCapacity inputFile
+     * </pre>
+     */
+    public static void main(String[] args) throws Exception {
+        if(args.length != 4) {
+            System.err.println("Usage: DataStoreBuilder static|dynamic homeDir initialCapacity inputFile");
+            System.exit(1);
+        }
+        
+        Array.Type type = Array.Type.valueOf(args[0].toUpperCase());
+        StoreConfig config = new StoreConfig(new File(args[1]), Integer.parseInt(args[2]));
+        
+        // Count keys
+        int expectedKeyCount = 0;
+        BufferedReader reader = new BufferedReader(new FileReader(args[3]));
+        try {
+            while(reader.readLine() != null) {
+                expectedKeyCount++;
+            }
+        } finally {
+            reader.close();
+        }
+        
+        DataStoreBuilder builder = new DataStoreBuilder(config, type, expectedKeyCount);
+        reader = new BufferedReader(new FileReader(args[3]));
+        try {
+            String line;
+            while((line = reader.readLine()) != null) {
+                int i = line.indexOf('\t');
+                if(i > 0) {
+                    builder.add(line.substring(0, i).getBytes("UTF-8"), line.substring(i + 1).getBytes("UTF-8"));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        
+        builder.build();
+    }
+}
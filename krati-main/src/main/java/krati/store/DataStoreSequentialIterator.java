@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Map.Entry;
+
+import krati.core.array.SequentialScanIterator;
+import krati.util.IndexedIterator;
+
+/**
+ * DataStoreSequentialIterator iterates over the entries of a data store in the order of segment and segment offset.
+ * 
+ * @since 0.4.9
+ * @see SequentialScanIterator
+ */
+final class DataStoreSequentialIterator implements IndexedIterator<Entry<byte[], byte[]>> {
+    private final ArrayList<Entry<byte[], byte[]>> _bucket;
+    private final DataStoreHandler _dataHandler;
+    private final SequentialScanIterator _scanIter;
+    
+    DataStoreSequentialIterator(SequentialScanIterator scanIter, DataStoreHandler dataHandler) {
+        this._scanIter = scanIter;
+        this._dataHandler = dataHandler;
+        this._bucket = new ArrayList<Entry<byte[], byte[]>>(20);
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if(_bucket.size() == 0) {
+            findNext();
+        }
+        return _bucket.size() > 0;
+    }
+    
+    @Override
+    public Entry<byte[], byte[]> next() {
+        int size = _bucket.size();
+        if (size == 0) {
+            findNext();
+            size = _bucket.size();
+        }
+        
+        if(size > 0) {
+            return _bucket.remove(--size);
+        }
+        
+        throw new NoSuchElementException();
+    }
+    
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+    
+    private void findNext() {
+        while(_scanIter.hasNext()) {
+            byte[] data = _scanIter.next().getValue();
+            List<Entry<byte[], byte[]>> entries = _dataHandler.extractEntries(data);
+            if(entries != null && entries.size() > 0) {
+                _bucket.addAll(entries);
+                break;
+            }
+        }
+    }
+    
+    @Override
+    public int index() {
+        return _scanIter.index();
+    }
+    
+    @Override
+    public void reset(int indexStart) {
+        _scanIter.reset(indexStart);
+        _bucket.clear();
+    }
+}
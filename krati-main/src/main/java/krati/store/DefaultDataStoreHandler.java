@@ -16,6 +16,7 @@
 
 package krati.store;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -25,6 +26,8 @@ import java.util.AbstractMap.SimpleEntry;
 
 import org.apache.log4j.Logger;
 
+import krati.core.segment.AbstractSegment;
+import krati.core.segment.Segment;
 import krati.store.DataStoreHandler;
 import krati.util.Bytes;
 
@@ -34,7 +37,7 @@ import krati.util.Bytes;
  * @author jwu
  *
  */
-public final class DefaultDataStoreHandler implements DataStoreHandler {
+public final class DefaultDataStoreHandler implements InPlaceDataStoreHandler {
     private final static Logger _log = Logger.getLogger(DefaultDataStoreHandler.class);
     
     @Override
@@ -157,6 +160,44 @@ public final class DefaultDataStoreHandler implements DataStoreHandler {
         return null;
     }
     
+    @Override
+    public final int extractByKey(byte[] key, Segment segment, int pos, int length, ByteBuffer dst) throws IOException {
+        if(length < 4) return -1;
+        int end = pos + length;
+        
+        int cnt = segment.readInt(pos);
+        pos += 4;
+        
+        while(cnt > 0 && pos < end) {
+            // Process key
+            int len = segment.readInt(pos);
+            pos += 4;
+            
+            boolean found = (len == key.length) && AbstractSegment.contentEquals(segment, pos, key);
+            pos += len;
+            
+            // Process value
+            len = segment.readInt(pos);
+            pos += 4;
+            
+            if(found) {
+                if(len <= dst.remaining()) {
+                    int limit = dst.limit();
+                    dst.limit(dst.position() + len);
+                    AbstractSegment.read(segment, pos, dst);
+                    dst.limit(limit);
+                }
+                return len;
+            }
+            pos += len;
+            
+            cnt--;
+        }
+        
+        // no data is found for the key
+        return -1;
+    }
+    
     @Override
     public final int removeByKey(byte[] key, byte[] data) {
         int offset1 = 0;
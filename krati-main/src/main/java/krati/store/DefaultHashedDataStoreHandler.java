@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.AbstractMap.SimpleEntry;
+
+import org.apache.log4j.Logger;
+
+import krati.core.segment.AbstractSegment;
+import krati.core.segment.Segment;
+import krati.util.Bytes;
+import krati.util.HashFunction;
+import krati.util.XxHash64;
+
+/**
+ * DefaultHashedDataStoreHandler assembles data in the format below, where the hash code
+ * of every key is cached right after the key length.
+ * 
+ * <pre>
+ *   count { keyLength hashCode key valueLength value }
+ * </pre>
+ * 
+ * <p>
+ * The hash function is only used to compute hash codes for the methods inherited from
+ * {@link DataStoreHandler} which do not take a hash code. A store always passes the hash
+ * codes computed by its own hash function.
+ * </p>
+ * 
+ * @since 0.4.9
+ */
+public final class DefaultHashedDataStoreHandler implements HashedDataStoreHandler {
+    private final static Logger _log = Logger.getLogger(DefaultHashedDataStoreHandler.class);
+    private final static int RECORD_OVERHEAD = 4 + 8 + 4;
+    private final HashFunction<byte[]> _hashFunction;
+    
+    /**
+     * Creates a DefaultHashedDataStoreHandler using {@link XxHash64}.
+     */
+    public DefaultHashedDataStoreHandler() {
+        this(new XxHash64());
+    }
+    
+    /**
+     * Creates a DefaultHashedDataStoreHandler using the specified hash function.
+     * 
+     * @param hashFunction - the hash function for keys assembled without a hash code
+     */
+    public DefaultHashedDataStoreHandler(HashFunction<byte[]> hashFunction) {
+        this._hashFunction = hashFunction;
+    }
+    
+    /**
+     * @return the hash function for keys assembled without a hash code.
+     */
+    public final HashFunction<byte[]> getHashFunction() {
+        return _hashFunction;
+    }
+    
+    @Override
+    public final byte[] assemble(byte[] key, byte[] value) {
+        return assemble(key, _hashFunction.hash(key), value);
+    }
+    
+    @Override
+    public final byte[] assemble(byte[] key, byte[] value, byte[] data) {
+        return assemble(key, _hashFunction.hash(key), value, data);
+    }
+    
+    @Override
+    public final byte[] assemble(byte[] key, long hashCode, byte[] value) {
+        if(value == null) return null;
+        
+        byte[] result = new byte[4 + RECORD_OVERHEAD + key.length + value.length];
+        ByteBuffer bb = ByteBuffer.wrap(result);
+        
+        // count
+        bb.putInt(1);
+        
+        // add record
+        putRecord(bb, key, hashCode, value);
+        
+        return result;
+    }
+    
+    @Override
+    public final byte[] assemble(byte[] key, long hashCode, byte[] value, byte[] data) {
+        if(data == null || data.length == 0) {
+            return assemble(key, hashCode, value);
+        }
+        
+        // Remove old data
+        int newLength = removeByKey(key, data);
+        if(newLength == 0) return assemble(key, hashCode, value);
+        if(value == null) return Arrays.copyOf(data, newLength);
+        
+        byte[] result = new byte[newLength + RECORD_OVERHEAD + key.length + value.length];
+        System.arraycopy(data, 0, result, 0, newLength);
+        
+        ByteBuffer bb = ByteBuffer.wrap(result);
+        
+        // update count
+        bb.putInt(0, bb.getInt(0) + 1);
+        
+        // add record
+        bb.position(newLength);
+        putRecord(bb, key, hashCode, value);
+        
+        return result;
+    }
+    
+    @Override
+    public final int countCollisions(byte[] key, byte[] data) {
+        if(data == null || data.length == 0) {
+            return 0;
+        }
+        
+        try {
+            int cnt = ByteBuffer.wrap(data).getInt(0);
+            return find(key, 0, false, data) < 0 ? -cnt : cnt;
+        } catch (Exception e) {
+            _log.error("Failed to countCollisions", e);
+            return 0;
+        }
+    }
+    
+    @Override
+    public final byte[] extractByKey(byte[] key, byte[] data) {
+        return extractByKey(key, 0, false, data);
+    }
+    
+    @Override
+    public final byte[] extractByKey(byte[] key, long hashCode, byte[] data) {
+        return extractByKey(key, hashCode, true, data);
+    }
+    
+    private byte[] extractByKey(byte[] key, long hashCode, boolean hashed, byte[] data) {
+        if(data == null || data.length == 0) return null;
+        
+        int offset = find(key, hashCode, hashed, data);
+        if(offset < 0) return null;
+        
+        ByteBuffer bb = ByteBuffer.wrap(data);
+        
+        // pass key data
+        bb.position(offset + 4 + 8 + key.length);
+        
+        // Process value
+        byte[] result = new byte[bb.getInt()];
+        bb.get(result);
+        
+        return result;
+    }
+    
+    @Override
+    public final int extractByKey(byte[] key, Segment segment, int pos, int length, ByteBuffer dst) throws IOException {
+        return extractByKey(key, 0, false, segment, pos, length, dst);
+    }
+    
+    @Override
+    public final int extractByKey(byte[] key, long hashCode, Segment segment, int pos, int length, ByteBuffer dst) throws IOException {
+        return extractByKey(key, hashCode, true, segment, pos, length, dst);
+    }
+    
+    private int extractByKey(byte[] key, long hashCode, boolean hashed, Segment segment, int pos, int length, ByteBuffer dst) throws IOException {
+        if(length < 4) return -1;
+        int end = pos + length;
+        
+        int cnt = segment.readInt(pos);
+        pos += 4;
+        
+        while(cnt > 0 && pos < end) {
+            // Process key
+            int len = segment.readInt(pos);
+            boolean found = (len == key.length) &&
+                            (!hashed || segment.readLong(pos + 4) == hashCode) &&
+                            AbstractSegment.contentEquals(segment, pos + 4 + 8, key);
+            pos += 4 + 8 + len;
+            
+            // Process value
+            len = segment.readInt(pos);
+            pos += 4;
+            
+            if(found) {
+                if(len <= dst.remaining()) {
+                    int limit = dst.limit();
+                    dst.limit(dst.position() + len);
+                    AbstractSegment.read(segment, pos, dst);
+                    dst.limit(limit);
+                }
+                return len;
+            }
+            pos += len;
+            
+            cnt--;
+        }
+        
+        // no data is found for the key
+        return -1;
+    }
+    
+    @Override
+    public final int removeByKey(byte[] key, byte[] data) {
+        return removeByKey(key, 0, false, data);
+    }
+    
+    @Override
+    public final int removeByKey(byte[] key, long hashCode, byte[] data) {
+        return removeByKey(key, hashCode, true, data);
+    }
+    
+    private int removeByKey(byte[] key, long hashCode, boolean hashed, byte[] data) {
+        int offset1 = find(key, hashCode, hashed, data);
+        
+        // no data is removed
+        if(offset1 < 0) return data.length;
+        
+        ByteBuffer bb = ByteBuffer.wrap(data);
+        int offset2 = next(bb, offset1);
+        int newLength = data.length - (offset2 - offset1);
+        
+        // entire data is removed
+        if(newLength <= 4) return 0;
+        
+        // update data count
+        bb.putInt(0, bb.getInt(0) - 1);
+        
+        // Shift data to the left
+        System.arraycopy(data, offset2, data, offset1, data.length - offset2);
+        
+        return newLength;
+    }
+    
+    @Override
+    public final byte[][] split(byte[] data, int index, long capacity) {
+        ByteBuffer bb = ByteBuffer.wrap(data);
+        int cnt = bb.getInt(0);
+        
+        // Mark the records staying at the index
+        boolean[] stays = new boolean[cnt];
+        int stayCnt = 0, stayLen = 4;
+        for(int i = 0, offset = 4; i < cnt; i++) {
+            int next = next(bb, offset);
+            int newIndex = (int)(bb.getLong(offset + 4) % capacity);
+            if(newIndex < 0) newIndex = -newIndex;
+            
+            if(newIndex == index) {
+                stays[i] = true;
+                stayLen += next - offset;
+                stayCnt++;
+            }
+            offset = next;
+        }
+        
+        if(stayCnt == cnt) {
+            return new byte[][] { data, null };
+        }
+        
+        byte[] stayData = (stayCnt == 0) ? null : new byte[stayLen];
+        byte[] moveData = new byte[data.length - stayLen + 4];
+        ByteBuffer stayBuffer = (stayData == null) ? null : ByteBuffer.wrap(stayData);
+        ByteBuffer moveBuffer = ByteBuffer.wrap(moveData);
+        
+        if(stayBuffer != null) {
+            stayBuffer.putInt(stayCnt);
+        }
+        moveBuffer.putInt(cnt - stayCnt);
+        
+        // Copy records without decoding keys and values
+        for(int i = 0, offset = 4; i < cnt; i++) {
+            int next = next(bb, offset);
+            if(stays[i]) {
+                stayBuffer.put(data, offset, next - offset);
+            } else {
+                moveBuffer.put(data, offset, next - offset);
+            }
+            offset = next;
+        }
+        
+        return new byte[][] { stayData, moveData };
+    }
+    
+    @Override
+    public final List<byte[]> extractKeys(byte[] data) {
+        try {
+            ByteBuffer bb = ByteBuffer.wrap(data);
+            int cnt = bb.getInt();
+            final List<byte[]> result = new ArrayList<byte[]>(cnt);
+            
+            while(cnt > 0) {
+                // Process key
+                int len = bb.getInt();
+                bb.position(bb.position() + 8);
+                byte[] key = new byte[len];
+                bb.get(key);
+                
+                // Add to result
+                result.add(key);
+                
+                // Process value
+                len = bb.getInt();
+                bb.position(bb.position() + len);
+                
+                cnt--;
+            }
+            
+            return result;
+        } catch(Exception e) {
+            _log.error("Failed to extractKeys", e);
+            return null;
+        }
+    }
+    
+    @Override
+    public final List<byte[]> extractValues(byte[] data) {
+        try {
+            ByteBuffer bb = ByteBuffer.wrap(data);
+            int cnt = bb.getInt();
+            final List<byte[]> result = new ArrayList<byte[]>(cnt);
+            
+            while(cnt > 0) {
+                // Process key
+                int len = bb.getInt();
+                bb.position(bb.position() + 8 + len);
+                
+                // Process value
+                len = bb.getInt();
+                byte[] value = new byte[len];
+                bb.get(value);
+                
+                // Add to result
+                result.add(value);
+                
+                cnt--;
+            }
+            
+            return result;
+        } catch (Exception e) {
+            _log.error("Failed to extractValues", e);
+            return null;
+        }
+    }
+    
+    @Override
+    public final List<Entry<byte[], byte[]>> extractEntries(byte[] data) {
+        try {
+            ByteBuffer bb = ByteBuffer.wrap(data);
+            int cnt = bb.getInt();
+            final List<Entry<byte[], byte[]>> result = new ArrayList<Entry<byte[], byte[]>>(cnt);
+            
+            while(cnt > 0) {
+                // Process key
+                int len = bb.getInt();
+                bb.position(bb.position() + 8);
+                byte[] key = new byte[len];
+                bb.get(key);
+                
+                // Process value
+                len = bb.getInt();
+                byte[] val = new byte[len];
+                bb.get(val);
+                
+                // Add to result
+                result.add(new SimpleEntry<byte[], byte[]>(key, val));
+                
+                cnt--;
+            }
+            
+            return result;
+        } catch(Exception e) {
+            _log.error("Failed to extractEntries", e);
+            return null;
+        }
+    }
+    
+    @Override
+    public final byte[] assembleEntries(List<Entry<byte[], byte[]>> entries) {
+        byte[] b;
+        int cnt = 0;
+        int len = Bytes.NUM_BYTES_IN_INT;
+        
+        for(Entry<byte[], byte[]> e : entries) {
+            b = e.getKey();
+            if(b != null) {
+                len += RECORD_OVERHEAD;
+                len += b.length;
+                
+                b = e.getValue();
+                len += b == null ? 0 : b.length;
+                
+                cnt++;
+            }
+        }
+        
+        byte[] data = new byte[len];
+        ByteBuffer bb = ByteBuffer.wrap(data);
+        
+        bb.putInt(cnt);
+        for(Entry<byte[], byte[]> e : entries) {
+            b = e.getKey();
+            if(b != null) {
+                byte[] value = e.getValue();
+                putRecord(bb, b, _hashFunction.hash(b), value == null ? new byte[0] : value);
+            }
+        }
+        
+        return data;
+    }
+    
+    /**
+     * Finds the offset of the record of the specified <code>key</code>. Hash codes
+     * are compared before key bytes if <code>hashed</code> is <code>true</code>.
+     * 
+     * @return the record offset, or <code>-1</code> if the key is not found.
+     */
+    private static int find(byte[] key, long hashCode, boolean hashed, byte[] data) {
+        ByteBuffer bb = ByteBuffer.wrap(data);
+        int cnt = bb.getInt(0);
+        int offset = 4;
+        
+        while(cnt > 0) {
+            int len = bb.getInt(offset);
+            if((!hashed || bb.getLong(offset + 4) == hashCode) &&
+               Bytes.equals(key, data, offset + 4 + 8, len)) {
+                return offset;
+            }
+            offset = next(bb, offset);
+            cnt--;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * @return the offset of the record following the record at the specified <code>offset</code>.
+     */
+    private static int next(ByteBuffer bb, int offset) {
+        int pos = offset + 4 + 8 + bb.getInt(offset);
+        return pos + 4 + bb.getInt(pos);
+    }
+    
+    private static void putRecord(ByteBuffer bb, byte[] key, long hashCode, byte[] value) {
+        bb.putInt(key.length);
+        bb.putLong(hashCode);
+        bb.put(key);
+        bb.putInt(value.length);
+        bb.put(value);
+    }
+}
@@ -142,6 +142,7 @@ public final class DynamicDataArray extends AbstractDataArray implements Dynamic
                                               int numSyncBatches,
                                               boolean indexesCached) throws Exception {
         AddressArrayFactory factory = new AddressArrayFactory(indexesCached);
+        factory.setReadOnly(_config.isReadOnly());
         AddressArray addrArray = factory.createDynamicAddressArray(homeDir, batchSize, numSyncBatches);
         addrArray.expandCapacity(length - 1);
         
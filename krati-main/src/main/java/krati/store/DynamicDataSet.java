@@ -18,7 +18,10 @@ package krati.store;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
@@ -39,6 +42,7 @@ import krati.util.FnvHashFunction;
 import krati.util.HashFunction;
 import krati.util.IndexedIterator;
 import krati.util.LinearHashing;
+import krati.util.Range;
 
 /**
  * DynamicDataSet is implemented using Linear Hashing. Its capacity grows as needed.
@@ -58,6 +62,8 @@ import krati.util.LinearHashing;
  * 06/12, 2012 - Code refactoring on the split method <br/>
  * 08/24, 2012 - Disable full rehashing on open/close <br/>
  * 09/05, 2012 - Expand capacity on first-time creation <br/>
+ * 10/17, 2026 - Added partition iterators and parallel scan <br/>
+ * 10/17, 2026 - Added read-only mode <br/>
  */
 public class DynamicDataSet implements DataSet<byte[]> {
     private final static Logger _log = Logger.getLogger(DynamicDataSet.class);
@@ -76,6 +82,11 @@ public class DynamicDataSet implements DataSet<byte[]> {
     private volatile int _loadCount;
     private volatile int _loadCountThreshold;
     
+    /**
+     * The number of partition scans in progress. Buckets are not split while any partition scan is in progress.
+     */
+    private final AtomicInteger _scans = new AtomicInteger(0);
+    
     /**
      * System change number is not volatile for it is used by synchronized write only.
      */
@@ -132,11 +143,12 @@ public class DynamicDataSet implements DataSet<byte[]> {
         SegmentManager segmentManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
         // Create underlying simple data array
         this._scn = addrArray.getHWMark();
-        this._dataArray = new SimpleDataArray(addrArray, segmentManager, _config.getSegmentCompactFactor());
+        this._dataArray = new SimpleDataArray(addrArray, segmentManager, _config);
         this._hashFunction = _config.getHashFunction();
         this._loadThreshold = _config.getHashLoadFactor();
         this._loadCount = scan();
@@ -425,11 +437,12 @@ public class DynamicDataSet implements DataSet<byte[]> {
         SegmentManager segmentManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
         // Create underlying simple data array
         this._scn = addrArray.getHWMark();
-        this._dataArray = new SimpleDataArray(addrArray, segmentManager, _config.getSegmentCompactFactor());
+        this._dataArray = new SimpleDataArray(addrArray, segmentManager, _config);
         this._hashFunction = hashFunction;
         this._loadThreshold = hashLoadFactor;
         this._loadCount = scan();
@@ -463,6 +476,10 @@ public class DynamicDataSet implements DataSet<byte[]> {
                                               int numSyncBatches,
                                               boolean indexesCached) throws Exception {
         AddressArrayFactory factory = new AddressArrayFactory(indexesCached);
+        factory.setReadOnly(_config.isReadOnly());
+        factory.setIndexesOffHeap(_config.isIndexesOffHeap());
+        factory.setIndexesPacked(_config.isIndexesPacked());
+        factory.setSegmentFileSizeMB(_config.getSegmentFileSizeMB());
         AddressArray addrArray = factory.createDynamicAddressArray(homeDir, batchSize, numSyncBatches);
         return addrArray;
     }
@@ -549,6 +566,7 @@ public class DynamicDataSet implements DataSet<byte[]> {
     
     @Override
     public synchronized boolean add(byte[] value) throws Exception {
+        ensureWritable();
         if(value == null) return false;
         
         if(canSplit()) {
@@ -561,6 +579,7 @@ public class DynamicDataSet implements DataSet<byte[]> {
     
     @Override
     public synchronized boolean delete(byte[] value) throws Exception {
+        ensureWritable();
         if(value == null) return false;
         
         if(canSplit()) {
@@ -573,6 +592,7 @@ public class DynamicDataSet implements DataSet<byte[]> {
     
     @Override
     public synchronized void clear() throws IOException {
+        ensureWritable();
         if(_dataArray.isOpen()) {
             _dataArray.clear();
             _loadCount = 0;
@@ -707,6 +727,12 @@ public class DynamicDataSet implements DataSet<byte[]> {
             _levelCapacity = getUnitCapacity() * (1 << _level);
             _loadCountThreshold = (int)(getCapacity() * _loadThreshold);
             
+            // A read-only data set cannot re-populate the last unit
+            if(_dataArray.isReadOnly()) {
+                initReadOnlySplit();
+                return;
+            }
+            
             // Need to re-populate the last unit. Do not perform full rehashing!
             while(canSplitOnCapacity()) {
                 split();
@@ -714,7 +740,31 @@ public class DynamicDataSet implements DataSet<byte[]> {
         }
     }
     
+    /**
+     * Locates the split of a read-only data set from the data in the last unit. An index below the split
+     * must be looked up at the next level only if its upper index holds data, i.e. the last upper index
+     * holding data determines the split. Any other index, split or not, still holds all its values.
+     */
+    private void initReadOnlySplit() {
+        for(int i = getCapacity() - 1, lower = _levelCapacity + _split; i >= lower; i--) {
+            if(_dataArray.hasData(i)) {
+                _split = i - _levelCapacity + 1;
+                break;
+            }
+        }
+        
+        if(_split == _levelCapacity) {
+            _split = 0;
+            _level++;
+            _levelCapacity <<= 1;
+        }
+    }
+    
     protected boolean canSplit() {
+        if(_scans.get() > 0) {
+            return false;
+        }
+        
         if(0 < _split || _loadCountThreshold < _loadCount) {
             // The splitTo must NOT overflow Integer.MAX_VALUE
             int splitTo = _levelCapacity + _split;
@@ -730,6 +780,10 @@ public class DynamicDataSet implements DataSet<byte[]> {
      * Perform split on the current capacity.
      */
     protected boolean canSplitOnCapacity() {
+        if(_scans.get() > 0) {
+            return false;
+        }
+        
         if(0 < _split) {
             // The splitTo must NOT overflow the current capacity
             int splitTo = _levelCapacity + _split;
@@ -806,6 +860,7 @@ public class DynamicDataSet implements DataSet<byte[]> {
     }
     
     public synchronized void rehash() throws Exception {
+        ensureWritable();
         if(isOpen()) {
             while(canSplit()) {
                 split();
@@ -851,6 +906,22 @@ public class DynamicDataSet implements DataSet<byte[]> {
         return _dataArray.isOpen();
     }
     
+    /**
+     * @return <code>true</code> if this data set is opened in read-only mode.
+     */
+    public final boolean isReadOnly() {
+        return _dataArray.isReadOnly();
+    }
+    
+    /**
+     * @throws UnsupportedOperationException if this data set is opened in read-only mode.
+     */
+    private void ensureWritable() {
+        if(_dataArray.isReadOnly()) {
+            throw new UnsupportedOperationException("Read-only data set");
+        }
+    }
+    
     @Override
     public synchronized void open() throws IOException {
         if(!_dataArray.isOpen()) {
@@ -876,7 +947,7 @@ public class DynamicDataSet implements DataSet<byte[]> {
     public synchronized void close() throws IOException {
         if(_dataArray.isOpen()) {
             try {
-                while(canSplitOnCapacity()) {
+                while(!_dataArray.isReadOnly() && canSplitOnCapacity()) {
                     split();
                 }
                 _dataArray.sync();
@@ -894,6 +965,91 @@ public class DynamicDataSet implements DataSet<byte[]> {
         return new DataSetIterator(_dataArray, _dataHandler);
     }
     
+    /**
+     * Creates an iterator over the values in this set in the order of segment and segment offset
+     * rather than in the order of index.
+     * 
+     * @return an iterator over values.
+     * @throws StoreClosedException if this set is not open.
+     */
+    public IndexedIterator<byte[]> sequentialIterator() {
+        return sequentialIterator(0, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Creates an iterator over the values at the specified range of indexes in the order of segment and segment offset.
+     * 
+     * @param indexStart - the start index (inclusive)
+     * @param indexEnd   - the end index (exclusive)
+     * @return an iterator over values.
+     * @throws StoreClosedException if this set is not open.
+     */
+    public IndexedIterator<byte[]> sequentialIterator(int indexStart, int indexEnd) {
+        if(isOpen()) {
+            return new DataSetSequentialIterator(_dataArray.sequentialIterator(indexStart, indexEnd), _dataHandler);
+        }
+        
+        throw new StoreClosedException();
+    }
+    
+    /**
+     * Splits the indexes of this set into the specified number of ranges, each of which is scanned by its own
+     * sequential iterator. The iterators are independent of each other and can be consumed by different threads.
+     * 
+     * <p>
+     * Buckets are not split until every partition iterator is exhausted or closed, so that no value moves from
+     * a partition not yet scanned into one already scanned. The partition iterators implement {@link java.io.Closeable},
+     * and an iterator abandoned before being exhausted must be closed for splits to resume.
+     * 
+     * @param numPartitions - the number of partitions
+     * @return a list of partition iterators.
+     * @throws StoreClosedException if this set is not open.
+     */
+    public List<IndexedIterator<byte[]>> partitionIterators(int numPartitions) {
+        if(!isOpen()) {
+            throw new StoreClosedException();
+        }
+        
+        // Stop splitting and wait for the split step in progress
+        _scans.incrementAndGet();
+        synchronized(this) {
+            // Split steps are performed while holding the monitor of this set
+        }
+        
+        try {
+            List<Range> ranges = ParallelScan.partition(_dataArray.length(), numPartitions);
+            List<IndexedIterator<byte[]>> list = new ArrayList<IndexedIterator<byte[]>>(ranges.size());
+            for(Range range : ranges) {
+                list.add(sequentialIterator(range.getStart(), range.getEnd()));
+            }
+            
+            return ParallelScan.guard(list, new Runnable() {
+                @Override
+                public void run() {
+                    _scans.decrementAndGet();
+                }
+            });
+        } catch(RuntimeException e) {
+            _scans.decrementAndGet();
+            throw e;
+        }
+    }
+    
+    /**
+     * Scans all values in this set in parallel. The values of each partition are passed to
+     * the specified handler from a task running on the specified executor. Buckets are not split
+     * until the scan is done, see {@link #partitionIterators(int)}.
+     * 
+     * @param handler       - the thread-safe handler of values
+     * @param executor      - the executor for running partition scans
+     * @param numPartitions - the number of partitions, usually a small multiple of the executor threads
+     * @return the number of values handled.
+     * @throws Exception if the handler fails on any value. The scan is then stopped.
+     */
+    public long forEachParallel(ScanHandler<? super byte[]> handler, ExecutorService executor, int numPartitions) throws Exception {
+        return ParallelScan.forEach(partitionIterators(numPartitions), handler, executor);
+    }
+    
     /**
      * Gets the persistable event listener.
      */
@@ -18,9 +18,17 @@ package krati.store;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.log4j.Logger;
 
@@ -33,14 +41,21 @@ import krati.core.array.AddressArray;
 import krati.core.array.AddressArrayFactory;
 import krati.core.array.SimpleDataArray;
 import krati.core.array.basic.DynamicConstants;
+import krati.core.segment.AddressFormat;
+import krati.core.segment.Segment;
 import krati.core.segment.SegmentFactory;
 import krati.core.segment.SegmentManager;
+import krati.metrics.StoreMetrics;
 import krati.store.DataStore;
 import krati.store.DataStoreHandler;
+import krati.util.BloomFilter;
+import krati.util.DaemonThreadFactory;
 import krati.util.FnvHashFunction;
 import krati.util.HashFunction;
 import krati.util.IndexedIterator;
 import krati.util.LinearHashing;
+import krati.util.Range;
+import krati.util.StripedLock;
 
 /**
  * DynamicDataStore is implemented using Linear Hashing. Its capacity grows as needed.
@@ -51,6 +66,9 @@ import krati.util.LinearHashing;
  *            +------------------ key-value pair 1 ---------------------+------------------- key-value pair 2 -------------------+
  * </pre>
  * 
+ * A {@link HashedDataStoreHandler} also caches the hash code of every key next to the key so that
+ * lookups compare hash codes before key bytes and splits never hash keys again.
+ * 
  * @author jwu
  * 
  * <p>
@@ -59,8 +77,20 @@ import krati.util.LinearHashing;
  * 06/25, 2011 - Added constructor using StoreConfig <br/>
  * 08/24, 2012 - Disable full rehashing on open/close <br/>
  * 09/05, 2012 - Expand capacity on first-time creation <br/>
+ * 10/17, 2026 - Added lock-striped concurrent writers <br/>
+ * 10/17, 2026 - Added batch methods getAll and putAll <br/>
+ * 10/17, 2026 - Added zero-copy method get(byte[], ByteBuffer) <br/>
+ * 10/17, 2026 - Added optional Bloom filter to short-circuit lookups of absent keys <br/>
+ * 10/17, 2026 - Added store metrics <br/>
+ * 10/17, 2026 - Added background splitter and per-write cap on split steps <br/>
+ * 10/17, 2026 - Added presizing and bulk load <br/>
+ * 10/17, 2026 - Added read-only mode <br/>
+ * 10/17, 2026 - Added sequential iterator <br/>
+ * 10/17, 2026 - Added partition iterators and parallel scan <br/>
+ * 10/17, 2026 - Pass key hash codes to HashedDataStoreHandler for lookups and splits <br/>
+ * 10/17, 2026 - Presize again before each bulk load run <br/>
  */
-public class DynamicDataStore implements DataStore<byte[], byte[]> {
+public class DynamicDataStore implements BatchDataStore<byte[], byte[]> {
     private final static Logger _log = Logger.getLogger(DynamicDataStore.class);
     
     private final File _homeDir;
@@ -68,20 +98,90 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
     private final SimpleDataArray _dataArray;
     private final DataStoreHandler _dataHandler;
     private final HashFunction<byte[]> _hashFunction;
+    
+    /**
+     * The data handler caching key hash codes, which is <code>null</code>
+     * if the data handler of this store does not cache hash codes.
+     */
+    private final HashedDataStoreHandler _hashedHandler;
     private final double _loadThreshold;
     private final int _unitCapacity;
     private final int _maxLevel;
     private volatile int _split;
     private volatile int _level;
     private volatile int _levelCapacity;
-    private volatile int _loadCount;
     private volatile int _loadCountThreshold;
+    private final AtomicInteger _loadCount = new AtomicInteger(0);
     
     /**
-     * System change number is not volatile for it is used by synchronized write only.
+     * System change number is not volatile for it is used by synchronized write only
+     * or under the append lock of the underlying data array by concurrent writers.
      */
     private long _scn;
     
+    /**
+     * The lock stripes over the hash index range, which is <code>null</code>
+     * if writers are serialized on this store (i.e. writer concurrency is 1).
+     */
+    private final StripedLock _writeLocks;
+    
+    /**
+     * The lock for serializing split steps from concurrent writers.
+     */
+    private final ReentrantLock _splitLock = new ReentrantLock();
+    
+    /**
+     * The split sequence, which is odd while <code>_split</code> and <code>_levelCapacity</code>
+     * are being advanced to the next level.
+     */
+    private volatile int _splitSeq = 0;
+    
+    /**
+     * The number of partition scans in progress. Buckets are not split while any partition scan is in progress.
+     */
+    private final AtomicInteger _scans = new AtomicInteger(0);
+    
+    /**
+     * The maximum number of split steps performed inline by a write.
+     */
+    private final int _splitStepsPerWrite;
+    
+    /**
+     * The background splitter, which is <code>null</code> if splits are performed by writers only.
+     */
+    private volatile Splitter _splitter = null;
+    
+    /**
+     * The time budget of a batch of split steps performed by the background splitter or {@link #rehash()}.
+     */
+    private final static long SPLIT_BATCH_NANOS = 1000000L;
+    
+    /**
+     * The time for which the background splitter waits when there is nothing to split.
+     */
+    private final static long SPLIT_IDLE_NANOS = 100000000L;
+    
+    /**
+     * The maximum number of key and value bytes buffered in one run of {@link #bulkLoad(Iterator, int)}.
+     */
+    private final static long BULK_LOAD_RUN_BYTES = 64L << 20;
+    
+    /**
+     * The Bloom filter of store keys, which is <code>null</code> if it is not enabled.
+     * It is persisted to the file <code>bloom.dat</code> alongside <code>indexes.dat</code>.
+     */
+    private volatile BloomFilter _bloomFilter = null;
+    
+    /**
+     * The name of the file to which the Bloom filter of store keys is persisted.
+     */
+    public final static String BLOOM_FILTER_FILE_NAME = "bloom.dat";
+    
+    /**
+     * The store metrics, which is {@link StoreMetrics#DISABLED} unless metrics are enabled in the store config.
+     */
+    private final StoreMetrics _metrics;
+    
     /**
      * Creates a dynamic DataStore with growing capacity as needed.
      * 
@@ -99,9 +199,14 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
         // Create data store handler
         _dataHandler = (config.getDataHandler() == null) ?
                 new DefaultDataStoreHandler() : (DataStoreHandler)config.getDataHandler();
+        _hashedHandler = (_dataHandler instanceof HashedDataStoreHandler) ?
+                (HashedDataStoreHandler)_dataHandler : null;
         
         // Check if the address array file can be found on disk
         boolean found = isAddressArrayFound(_config.getHomeDir());
+        if(!found && _config.isReadOnly()) {
+            throw new IOException("Read-only store not found: " + _homeDir.getCanonicalPath());
+        }
         
         // Create dynamic address array
         AddressArray addrArray = createAddressArray(
@@ -133,16 +238,33 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
         SegmentManager segmentManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
         // Create underlying simple data array
         this._scn = addrArray.getHWMark();
-        this._dataArray = new SimpleDataArray(addrArray, segmentManager, _config.getSegmentCompactFactor());
+        this._dataArray = new SimpleDataArray(addrArray, segmentManager, _config);
+        this._metrics = StoreMetrics.newInstance(_config);
+        this._dataArray.setMetrics(_metrics);
         this._hashFunction = _config.getHashFunction();
         this._loadThreshold = _config.getHashLoadFactor();
-        this._loadCount = scan();
+        this._loadCount.set(scan());
         this.initLinearHashing();
         
+        // Create lock stripes for concurrent writers
+        int writerConcurrency = _config.getWriterConcurrency();
+        this._writeLocks = (writerConcurrency > 1) ? new StripedLock(writerConcurrency << 2) : null;
+        this._splitStepsPerWrite = _config.getSplitStepsPerWrite();
+        
+        // Load or rebuild the Bloom filter of store keys
+        this.initBloomFilter();
+        
+        // Export store metrics
+        this._metrics.open();
+        
+        // Start the background splitter if enabled
+        this.startSplitter();
+        
         _log.info(getStatus());
     }
     
@@ -402,6 +524,7 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
         
         // Create data store handler
         _dataHandler = new DefaultDataStoreHandler();
+        _hashedHandler = null;
         
         // Check if the address array file can be found on disk
         boolean found = isAddressArrayFound(_config.getHomeDir());
@@ -425,15 +548,23 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
         SegmentManager segmentManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
         // Create underlying simple data array
         this._scn = addrArray.getHWMark();
-        this._dataArray = new SimpleDataArray(addrArray, segmentManager, _config.getSegmentCompactFactor());
+        this._dataArray = new SimpleDataArray(addrArray, segmentManager, _config);
+        this._metrics = StoreMetrics.newInstance(_config);
+        this._dataArray.setMetrics(_metrics);
         this._hashFunction = hashFunction;
         this._loadThreshold = hashLoadFactor;
-        this._loadCount = scan();
+        this._loadCount.set(scan());
         this.initLinearHashing();
+        this._writeLocks = null;
+        this._splitStepsPerWrite = _config.getSplitStepsPerWrite();
+        this.initBloomFilter();
+        this._metrics.open();
+        this.startSplitter();
         
         _log.info(getStatus());
     }
@@ -463,6 +594,10 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
                                               int numSyncBatches,
                                               boolean indexesCached) throws Exception {
         AddressArrayFactory factory = new AddressArrayFactory(indexesCached);
+        factory.setReadOnly(_config.isReadOnly());
+        factory.setIndexesOffHeap(_config.isIndexesOffHeap());
+        factory.setIndexesPacked(_config.isIndexesPacked());
+        factory.setSegmentFileSizeMB(_config.getSegmentFileSizeMB());
         AddressArray addrArray = factory.createDynamicAddressArray(homeDir, batchSize, numSyncBatches);
         return addrArray;
     }
@@ -488,8 +623,20 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
     
     @Override
     public byte[] get(byte[] key) {
+        long startNano = _metrics.start();
+        try {
+            return getValue(key);
+        } finally {
+            _metrics.done(StoreMetrics.Op.GET, startNano);
+        }
+    }
+    
+    private byte[] getValue(byte[] key) {
         byte[] existingData;
         long hashCode = hash(key);
+        if(!mightContain(hashCode)) {
+            return null;
+        }
         
         /**
          * Need SPIN to retrieve data from the underlying array
@@ -509,47 +656,611 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
             else index = indexNew;
         } while(true);
         
-        return existingData == null ? null : _dataHandler.extractByKey(key, existingData);
+        return existingData == null ? null : extractByKey(key, hashCode, existingData);
+    }
+    
+    /**
+     * Gets the value to which the specified <code>key</code> is mapped in this store without allocating
+     * intermediate byte arrays. The data at the mapped array index is scanned in place inside its
+     * segment and only the matching value is copied into the destination ByteBuffer.
+     * 
+     * @param key - store key
+     * @param dst - the destination ByteBuffer
+     * @return the length of the value, or <code>-1</code> if the <code>key</code> is unknown to this store.
+     *         The value is copied into <code>dst</code> only if <code>dst</code> has enough remaining space.
+     */
+    public int get(byte[] key, ByteBuffer dst) {
+        long startNano = _metrics.start();
+        try {
+            return getValue(key, dst);
+        } finally {
+            _metrics.done(StoreMetrics.Op.GET, startNano);
+        }
+    }
+    
+    private int getValue(byte[] key, ByteBuffer dst) {
+        if(key == null) return -1;
+        
+        if(!(_dataHandler instanceof InPlaceDataStoreHandler)) {
+            byte[] value = getValue(key);
+            if(value == null) return -1;
+            if(value.length <= dst.remaining()) {
+                dst.put(value);
+            }
+            return value.length;
+        }
+        
+        long hashCode = hash(key);
+        if(!mightContain(hashCode)) {
+            return -1;
+        }
+        
+        int index = getIndex(hashCode);
+        int position = dst.position();
+        
+        /**
+         * Need SPIN to retrieve data from the underlying array
+         * because the index might have changed with the _split
+         * and the address might have changed with writes or compaction.
+         */
+        do {
+            int len = -1;
+            long address = _dataArray.getAddress(index);
+            try {
+                len = getInPlace(address, key, hashCode, dst);
+            } catch(Exception e) {
+                _log.warn(e.getMessage());
+            }
+            
+            // Check that key is still mapped to the known index and address
+            int indexNew = getIndex(hashCode);
+            if(index == indexNew && address == _dataArray.getAddress(index)) {
+                return len;
+            }
+            
+            index = indexNew;
+            dst.position(position);
+        } while(true);
+    }
+    
+    /**
+     * Reads the value of the specified <code>key</code> in place from the data at the specified address.
+     */
+    private int getInPlace(long address, byte[] key, long hashCode, ByteBuffer dst) throws IOException {
+        Segment seg = _dataArray.getSegment(address);
+        if(seg == null) return -1;
+        
+        AddressFormat addrFormat = _dataArray.getAddressFormat();
+        int segPos = addrFormat.getOffset(address);
+        int size = addrFormat.getDataSize(address);
+        int len = (size == 0) ? seg.readInt(segPos) : size;
+        
+        return (_hashedHandler == null) ?
+                ((InPlaceDataStoreHandler)_dataHandler).extractByKey(key, seg, segPos + 4, len, dst) :
+                _hashedHandler.extractByKey(key, hashCode, seg, segPos + 4, len, dst);
     }
     
-    public synchronized boolean put(byte[] key, byte[] value) throws Exception {
+    public boolean put(byte[] key, byte[] value) throws Exception {
+        ensureWritable();
         if(value == null) {
             return delete(key);
         }
         
-        if(canSplit()) {
-            split();
+        long startNano = _metrics.start();
+        try {
+            return putValue(key, value);
+        } finally {
+            _metrics.done(StoreMetrics.Op.PUT, startNano);
+        }
+    }
+    
+    private boolean putValue(byte[] key, byte[] value) throws Exception {        
+        if(_writeLocks != null) {
+            return writeConcurrent(key, value);
         }
         
-        int index = getIndex(key);
-        return putInternal(index, key, value);
+        synchronized(this) {
+            splitOnWrite();
+            
+            long hashCode = hash(key);
+            int index = getIndex(hashCode);
+            return putInternal(index, key, hashCode, value);
+        }
     }
     
     @Override
-    public synchronized boolean delete(byte[] key) throws Exception {
-        if(canSplit()) {
-            split();
+    public boolean delete(byte[] key) throws Exception {
+        ensureWritable();
+        long startNano = _metrics.start();
+        try {
+            return deleteKey(key);
+        } finally {
+            _metrics.done(StoreMetrics.Op.DELETE, startNano);
+        }
+    }
+    
+    private boolean deleteKey(byte[] key) throws Exception {
+        if(_writeLocks != null) {
+            return writeConcurrent(key, null);
+        }
+        
+        synchronized(this) {
+            splitOnWrite();
+            
+            long hashCode = hash(key);
+            int index = getIndex(hashCode);
+            return deleteInternal(index, key, hashCode);
+        }
+    }
+    
+    @Override
+    public List<byte[]> getAll(List<byte[]> keys) {
+        long startNano = _metrics.start();
+        try {
+            return getAllValues(keys);
+        } finally {
+            _metrics.done(StoreMetrics.Op.GET_ALL, startNano);
+        }
+    }
+    
+    private List<byte[]> getAllValues(List<byte[]> keys) {
+        final int cnt = keys.size();
+        long[] hashCodes = new long[cnt];
+        int[] indexes = new int[cnt];
+        int[] positions = new int[cnt];
+        
+        // Map non-null keys to array indexes
+        int num = 0;
+        for(int i = 0; i < cnt; i++) {
+            byte[] key = keys.get(i);
+            if(key != null) {
+                hashCodes[num] = hash(key);
+                if(!mightContain(hashCodes[num])) {
+                    continue;
+                }
+                indexes[num] = getIndex(hashCodes[num]);
+                positions[num] = i;
+                num++;
+            }
+        }
+        
+        if(num < cnt) {
+            int[] temp = new int[num];
+            System.arraycopy(indexes, 0, temp, 0, num);
+            indexes = temp;
+        }
+        
+        // Read data sorted by segment and offset
+        byte[][] dataArray = _dataArray.getAll(indexes);
+        
+        List<byte[]> values = new ArrayList<byte[]>(cnt);
+        for(int i = 0; i < cnt; i++) {
+            values.add(null);
+        }
+        
+        for(int j = 0; j < num; j++) {
+            byte[] key = keys.get(positions[j]);
+            
+            // Check that key is still mapped to the known index
+            if(indexes[j] == getIndex(hashCodes[j])) {
+                byte[] data = dataArray[j];
+                values.set(positions[j], data == null ? null : extractByKey(key, hashCodes[j], data));
+            } else {
+                values.set(positions[j], getValue(key));
+            }
+        }
+        
+        return values;
+    }
+    
+    @Override
+    public boolean putAll(Map<byte[], byte[]> map) throws Exception {
+        ensureWritable();
+        long startNano = _metrics.start();
+        try {
+            if(_writeLocks == null) {
+                synchronized(this) {
+                    putAllInternal(map);
+                }
+                return true;
+            }
+            
+            lockWriters();
+            try {
+                ReentrantLock lock = _dataArray.getAppendLock();
+                lock.lock();
+                try {
+                    putAllInternal(map);
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                unlockWriters();
+            }
+            
+            return true;
+        } finally {
+            _metrics.done(StoreMetrics.Op.PUT_ALL, startNano);
+        }
+    }
+    
+    private void putAllInternal(Map<byte[], byte[]> map) throws Exception {
+        for(Entry<byte[], byte[]> e : map.entrySet()) {
+            byte[] key = e.getKey();
+            if(key == null) continue;
+            
+            splitOnWrite();
+            
+            long hashCode = hash(key);
+            int index = getIndex(hashCode);
+            byte[] value = e.getValue();
+            if(value == null) {
+                deleteInternal(index, key, hashCode);
+            } else {
+                putInternal(index, key, hashCode, value);
+            }
+        }
+    }
+    
+    /**
+     * Presizes this store for the specified number of keys. The capacity is expanded to the lowest level
+     * of linear hashing at which <code>expectedKeyCount</code> keys do not exceed the load threshold,
+     * so that loading these keys does not split buckets. An empty store moves to that level directly.
+     * A non-empty store is rehashed.
+     * 
+     * @param expectedKeyCount - the expected number of keys
+     * @throws Exception if this store cannot be presized.
+     */
+    public synchronized void presize(int expectedKeyCount) throws Exception {
+        if(!isOpen()) {
+            throw new StoreClosedException();
+        }
+        ensureWritable();
+        if(expectedKeyCount < 0) {
+            throw new IllegalArgumentException("Invalid expectedKeyCount: " + expectedKeyCount);
+        }
+        
+        int level = 0;
+        while(level < _maxLevel && ((long)_unitCapacity << level) * _loadThreshold < expectedKeyCount) {
+            level++;
+        }
+        
+        lockWriters();
+        try {
+            if(level <= _level) {
+                return;
+            }
+            
+            if(_loadCount.get() == 0) {
+                // All buckets are empty and there is nothing to move
+                expandCapacity((_unitCapacity << level) - 1);
+                
+                _splitSeq++;
+                _split = 0;
+                _level = level;
+                _levelCapacity = _unitCapacity << level;
+                _loadCountThreshold = (int)(capacity() * _loadThreshold);
+                _splitSeq++;
+                
+                if(_bloomFilter != null) {
+                    _bloomFilter = new BloomFilter(Math.max(capacity(), expectedKeyCount), _config.getBloomFilterFpp());
+                }
+            } else {
+                while(_level < level && _scans.get() == 0) {
+                    split();
+                }
+            }
+            
+            _log.info("presized " + getStatus());
+        } finally {
+            unlockWriters();
+        }
+    }
+    
+    /**
+     * Loads the specified entries into this store in bulk. This store is presized for <code>expectedKeyCount</code>
+     * keys first. Entries are then buffered in runs of up to 64 MB, sorted by array index and written index by index,
+     * so that each index is appended to segments only once per run and in the array order. Before each run, this store
+     * is presized again for the keys already loaded plus the keys of the run, so that linear hashing reaches the level
+     * the actual load needs even if <code>expectedKeyCount</code> is underestimated. Entries with a <code>null</code>
+     * key or value are skipped. This store is synced once after all entries are loaded.
+     * 
+     * @param entries          - the entries to load
+     * @param expectedKeyCount - the expected number of keys
+     * @return the number of entries loaded.
+     * @throws Exception if the entries cannot be loaded.
+     */
+    public int bulkLoad(Iterator<? extends Entry<byte[], byte[]>> entries, int expectedKeyCount) throws Exception {
+        presize(expectedKeyCount);
+        
+        long loadCount = _loadCount.get();
+        int count = 0;
+        long runBytes = 0;
+        List<Entry<byte[], byte[]>> run = new ArrayList<Entry<byte[], byte[]>>();
+        
+        while(entries.hasNext()) {
+            Entry<byte[], byte[]> e = entries.next();
+            if(e == null || e.getKey() == null || e.getValue() == null) {
+                continue;
+            }
+            
+            run.add(e);
+            runBytes += e.getKey().length + e.getValue().length;
+            if(runBytes >= BULK_LOAD_RUN_BYTES) {
+                count += loadRun(run, loadCount + count);
+                run.clear();
+                runBytes = 0;
+            }
+        }
+        
+        count += loadRun(run, loadCount + count);
+        sync();
+        
+        _log.info("bulk loaded " + count + " entries: " + getStatus());
+        return count;
+    }
+    
+    /**
+     * Writes a run of bulk load entries while excluding other writers. This store is presized
+     * for the specified number of loaded keys plus the keys of the run.
+     */
+    private int loadRun(List<Entry<byte[], byte[]>> run, long loadedKeyCount) throws Exception {
+        if(run.size() == 0) {
+            return 0;
+        }
+        
+        presize((int)Math.min(Integer.MAX_VALUE, loadedKeyCount + run.size()));
+        
+        if(_writeLocks == null) {
+            synchronized(this) {
+                return loadRunInternal(run);
+            }
+        }
+        
+        lockWriters();
+        try {
+            ReentrantLock lock = _dataArray.getAppendLock();
+            lock.lock();
+            try {
+                return loadRunInternal(run);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            unlockWriters();
+        }
+    }
+    
+    private int loadRunInternal(List<Entry<byte[], byte[]>> run) throws Exception {
+        if(!isOpen()) {
+            throw new StoreClosedException();
+        }
+        
+        // Sort entries by array index, keeping the run order of entries mapped to the same index
+        final int cnt = run.size();
+        long[] hashCodes = new long[cnt];
+        long[] sorted = new long[cnt];
+        for(int i = 0; i < cnt; i++) {
+            hashCodes[i] = hash(run.get(i).getKey());
+            sorted[i] = (((long)getIndex(hashCodes[i])) << 32) | i;
+        }
+        Arrays.sort(sorted);
+        
+        BloomFilter filter = _bloomFilter;
+        int i = 0;
+        while(i < cnt) {
+            int index = (int)(sorted[i] >>> 32);
+            byte[] data = _dataArray.get(index);
+            boolean empty = (data == null || data.length == 0);
+            if(empty) {
+                data = null;
+            }
+            
+            // Assemble all entries mapped to the index
+            do {
+                int j = (int)sorted[i];
+                Entry<byte[], byte[]> e = run.get(j);
+                if(filter != null) {
+                    filter.add(hashCodes[j]);
+                }
+                data = assemble(e.getKey(), hashCodes[j], e.getValue(), data);
+                i++;
+            } while(i < cnt && (int)(sorted[i] >>> 32) == index);
+            
+            setData(index, data);
+            if(empty) {
+                _loadCount.incrementAndGet();
+            }
+        }
+        
+        return cnt;
+    }
+    
+    /**
+     * Writes the specified <code>key</code> and <code>value</code> while holding only the lock stripe
+     * of the index to which the key is mapped. Writers to different stripes proceed in parallel and
+     * only the final append to the underlying data array is serialized.
+     * 
+     * @param key   - the key
+     * @param value - the value. If <code>null</code>, the key is removed.
+     * @throws Exception if the write cannot be completed.
+     */
+    private boolean writeConcurrent(byte[] key, byte[] value) throws Exception {
+        // Advance linear hashing if no other writer or the splitter is splitting
+        if(canSplit() && _splitLock.tryLock()) {
+            try {
+                splitOnWrite();
+            } finally {
+                _splitLock.unlock();
+            }
+        }
+        
+        long hashCode = hash(key);
+        
+        while(true) {
+            int index = getWriteIndex(hashCode);
+            ReentrantLock lock = _writeLocks.getLock(index);
+            
+            lock.lock();
+            try {
+                // Check that key is still mapped to the locked index
+                if(index == getWriteIndex(hashCode)) {
+                    return (value == null) ? deleteInternal(index, key, hashCode) : putInternal(index, key, hashCode, value);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Maps the specified <code>hashCode</code> to an array index based on a consistent view
+     * of <code>_split</code> and <code>_levelCapacity</code> under concurrent splits.
+     */
+    private int getWriteIndex(long hashCode) {
+        while(true) {
+            int seq = _splitSeq;
+            if((seq & 1) == 0) {
+                int index = getIndex(hashCode);
+                if(seq == _splitSeq) {
+                    return index;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sets data at the specified array index using the next SCN. Concurrent writers are
+     * serialized on the append lock of the underlying data array so that SCNs are always
+     * generated in the same order as data is appended.
+     * 
+     * @param index  - the array index
+     * @param data   - the data to set. If <code>null</code>, the data at the index is removed.
+     * @param offset - the offset of data
+     * @param length - the length of data
+     * @throws Exception if the data cannot be set.
+     */
+    protected void setData(int index, byte[] data, int offset, int length) throws Exception {
+        if(_writeLocks == null) {
+            _dataArray.set(index, data, offset, length, nextScn());
+            return;
+        }
+        
+        ReentrantLock lock = _dataArray.getAppendLock();
+        lock.lock();
+        try {
+            _dataArray.set(index, data, offset, length, nextScn());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Sets data at the specified array index using the next SCN.
+     * 
+     * @param index - the array index
+     * @param data  - the data to set. If <code>null</code>, the data at the index is removed.
+     * @throws Exception if the data cannot be set.
+     */
+    protected final void setData(int index, byte[] data) throws Exception {
+        if(data == null) {
+            setData(index, null, 0, 0);
+        } else {
+            setData(index, data, 0, data.length);
+        }
+    }
+    
+    /**
+     * Expands the capacity of the underlying address array to accommodate the specified index.
+     */
+    private void expandCapacity(int index) throws Exception {
+        if(_writeLocks == null) {
+            _dataArray.getAddressArray().expandCapacity(index);
+            return;
         }
         
-        int index = getIndex(key);
-        return deleteInternal(index, key);
+        ReentrantLock lock = _dataArray.getAppendLock();
+        lock.lock();
+        try {
+            _dataArray.getAddressArray().expandCapacity(index);
+        } finally {
+            lock.unlock();
+        }
     }
     
     @Override
     public synchronized void sync() throws IOException {
-        _dataArray.sync();
+        if(_writeLocks == null) {
+            _dataArray.sync();
+            saveBloomFilter();
+            return;
+        }
+        
+        ReentrantLock lock = _dataArray.getAppendLock();
+        lock.lock();
+        try {
+            _dataArray.sync();
+            saveBloomFilter();
+        } finally {
+            lock.unlock();
+        }
     }
     
     @Override
     public synchronized void persist() throws IOException {
-        _dataArray.persist();
+        if(_writeLocks == null) {
+            _dataArray.persist();
+            saveBloomFilter();
+            return;
+        }
+        
+        ReentrantLock lock = _dataArray.getAppendLock();
+        lock.lock();
+        try {
+            _dataArray.persist();
+            saveBloomFilter();
+        } finally {
+            lock.unlock();
+        }
     }
     
     @Override
     public synchronized void clear() throws IOException {
-        if(_dataArray.isOpen()) {
-            _dataArray.clear();
-            _loadCount = 0;
+        ensureWritable();
+        lockWriters();
+        try {
+            if(_dataArray.isOpen()) {
+                _dataArray.clear();
+                _loadCount.set(0);
+                
+                BloomFilter filter = _bloomFilter;
+                if(filter != null) {
+                    filter.clear();
+                    saveBloomFilter();
+                }
+            }
+        } finally {
+            unlockWriters();
+        }
+    }
+    
+    /**
+     * Blocks out all concurrent writers and the splitter.
+     */
+    private void lockWriters() {
+        if(_writeLocks != null) {
+            _splitLock.lock();
+            _writeLocks.lockAll();
+        }
+    }
+    
+    /**
+     * Releases the locks acquired by {@link #lockWriters()}.
+     */
+    private void unlockWriters() {
+        if(_writeLocks != null) {
+            _writeLocks.unlockAll();
+            _splitLock.unlock();
         }
     }
     
@@ -582,48 +1293,76 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
         return index;
     }
     
-    protected boolean putInternal(int index, byte[] key, byte[] value) throws Exception {
+    protected boolean putInternal(int index, byte[] key, long hashCode, byte[] value) throws Exception {
+        // Add the key to the Bloom filter before it becomes visible to readers
+        BloomFilter filter = _bloomFilter;
+        if(filter != null) {
+            filter.add(hashCode);
+        }
+        
         byte[] existingData = _dataArray.get(index);
         if(existingData == null || existingData.length == 0) {
-            _dataArray.set(index, _dataHandler.assemble(key, value), nextScn());
-            _loadCount++;
+            setData(index, assemble(key, hashCode, value, null));
+            _loadCount.incrementAndGet();
         } else {
             try {
-                _dataArray.set(index, _dataHandler.assemble(key, value, existingData), nextScn());
+                setData(index, assemble(key, hashCode, value, existingData));
             } catch (Exception e) {
                 _log.warn("Value reset at index="+ index + " key=\"" + new String(key) + "\"");
-                _dataArray.set(index, _dataHandler.assemble(key, value), nextScn());
+                setData(index, assemble(key, hashCode, value, null));
             }
         }
         
         return true;
     }
     
-    protected boolean deleteInternal(int index, byte[] key) throws Exception {
+    protected boolean deleteInternal(int index, byte[] key, long hashCode) throws Exception {
         try {
             byte[] existingData = _dataArray.get(index);
             if(existingData != null) {
-               int newLength = _dataHandler.removeByKey(key, existingData);
+               int newLength = (_hashedHandler == null) ?
+                       _dataHandler.removeByKey(key, existingData) :
+                       _hashedHandler.removeByKey(key, hashCode, existingData);
                if(newLength == 0) {
                    // entire data is removed
-                   _dataArray.set(index, null, nextScn());
-                   _loadCount--;
+                   setData(index, null);
+                   _loadCount.decrementAndGet();
                    return true;
                } else if(newLength < existingData.length) {
                    // partial data is removed
-                   _dataArray.set(index, existingData, 0, newLength, nextScn());
+                   setData(index, existingData, 0, newLength);
                    return true;
                }
             }
         } catch (Exception e) {
             _log.warn("Failed to delete key=\""+ new String(key) + "\" : " + e.getMessage());
-            _dataArray.set(index, null, nextScn());
+            setData(index, null);
         }
         
         // no data is removed
         return false;
     }
     
+    /**
+     * Assembles the specified <code>key</code> and <code>value</code> into the specified <code>data</code>,
+     * which is <code>null</code> if the index of the key has no data.
+     */
+    private byte[] assemble(byte[] key, long hashCode, byte[] value, byte[] data) {
+        if(_hashedHandler == null) {
+            return (data == null) ? _dataHandler.assemble(key, value) : _dataHandler.assemble(key, value, data);
+        }
+        
+        return (data == null) ?
+                _hashedHandler.assemble(key, hashCode, value) :
+                _hashedHandler.assemble(key, hashCode, value, data);
+    }
+    
+    private byte[] extractByKey(byte[] key, long hashCode, byte[] data) {
+        return (_hashedHandler == null) ?
+                _dataHandler.extractByKey(key, data) :
+                _hashedHandler.extractByKey(key, hashCode, data);
+    }
+    
     public final int getLevel() {
         return _level;
     }
@@ -645,11 +1384,19 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
     }
     
     public final int getLoadCount() {
-        return _loadCount;
+        return _loadCount.get();
     }
     
     public final double getLoadFactor() {
-        return _loadCount / (double)capacity();
+        return _loadCount.get() / (double)capacity();
+    }
+    
+    /**
+     * Gets the number of lock stripes used by concurrent writers,
+     * or <code>0</code> if writers are serialized on this store.
+     */
+    public final int getWriteLockStripes() {
+        return _writeLocks == null ? 0 : _writeLocks.getStripeCount();
     }
     
     public final double getLoadThreshold() {
@@ -677,15 +1424,48 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
             _levelCapacity = getUnitCapacity() * (1 << _level);
             _loadCountThreshold = (int)(capacity() * _loadThreshold);
             
+            // A read-only store cannot re-populate the last unit
+            if(_dataArray.isReadOnly()) {
+                initReadOnlySplit();
+                return;
+            }
+            
             // Need to re-populate the last unit. Do not perform full rehashing!
+            if(_split == 0 && capacity() > _levelCapacity) {
+                split();
+            }
             while(canSplitOnCapacity()) {
                 split();
             }
         }
     }
     
+    /**
+     * Locates the split of a read-only store from the data in the last unit. An index below the split
+     * must be looked up at the next level only if its upper index holds data, i.e. the last upper index
+     * holding data determines the split. Any other index, split or not, still holds all its keys.
+     */
+    private void initReadOnlySplit() {
+        for(int i = capacity() - 1, lower = _levelCapacity + _split; i >= lower; i--) {
+            if(_dataArray.hasData(i)) {
+                _split = i - _levelCapacity + 1;
+                break;
+            }
+        }
+        
+        if(_split == _levelCapacity) {
+            _split = 0;
+            _level++;
+            _levelCapacity <<= 1;
+        }
+    }
+    
     protected boolean canSplit() {
-        if(0 < _split || _loadCountThreshold < _loadCount) {
+        if(_scans.get() > 0) {
+            return false;
+        }
+        
+        if(0 < _split || _loadCountThreshold < _loadCount.get()) {
             // The splitTo must NOT overflow Integer.MAX_VALUE
             int splitTo = _levelCapacity + _split;
             if (Integer.MAX_VALUE > splitTo && splitTo >= _levelCapacity) {
@@ -700,6 +1480,10 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
      * Perform split on the current capacity.
      */
     protected boolean canSplitOnCapacity() {
+        if(_scans.get() > 0) {
+            return false;
+        }
+        
         if(0 < _split) {
             // The splitTo must NOT overflow the current capacity
             int splitTo = _levelCapacity + _split;
@@ -712,14 +1496,57 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
     }
     
     protected void split() throws Exception {
+        if(_writeLocks == null) {
+            splitInternal();
+            return;
+        }
+        
+        /* Concurrent writers: hold the lock stripes of the index being split
+         * and the index receiving the moved entries.
+         */
+        _splitLock.lock();
+        try {
+            int split = _split;
+            ReentrantLock lock1 = _writeLocks.getLock(split);
+            ReentrantLock lock2 = _writeLocks.getLock(split + _levelCapacity);
+            
+            lock1.lock();
+            lock2.lock();
+            try {
+                splitInternal();
+            } finally {
+                lock2.unlock();
+                lock1.unlock();
+            }
+        } finally {
+            _splitLock.unlock();
+        }
+    }
+    
+    private void splitInternal() throws Exception {
+        final int split = _split;
+        
         // Ensure address capacity
-        _dataArray.getAddressArray().expandCapacity(_split + _levelCapacity);
+        expandCapacity(split + _levelCapacity);
         
-        // Read data from the _split index
-        byte[] data = _dataArray.get(_split);
+        // Read data from the split index
+        byte[] data = _dataArray.get(split);
+        boolean moved = false;
+        byte[] oldData = null;
         
         // Process read data
-        if (data != null && data.length > 0) {
+        if (data != null && data.length > 0 && _hashedHandler != null) {
+            // Split by cached hash codes without hashing keys again
+            byte[][] splitData = _hashedHandler.split(data, split, ((long)_levelCapacity) << 1);
+            if(splitData[1] != null) {
+                int toIndex = split + _levelCapacity;
+                expandCapacity(toIndex);
+                setData(toIndex, splitData[1]);
+                
+                oldData = splitData[0];
+                moved = true;
+            }
+        } else if (data != null && data.length > 0) {
             List<Entry<byte[], byte[]>> entries = _dataHandler.extractEntries(data);
             List<Entry<byte[], byte[]>> oldList = new ArrayList<Entry<byte[], byte[]>>();
             List<Entry<byte[], byte[]>> newList = new ArrayList<Entry<byte[], byte[]>>();
@@ -733,7 +1560,7 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
                 int newIndex = (int)(hash(key) % newCapacity);
                 if (newIndex < 0) newIndex = -newIndex;
                 
-                if (newIndex == _split) {
+                if (newIndex == split) {
                     oldList.add(e);
                 } else {
                     newList.add(e);
@@ -743,23 +1570,32 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
             
             if(entries.size() != oldList.size()) {
                 byte[] newData = _dataHandler.assembleEntries(newList);
-                _dataArray.getAddressArray().expandCapacity(toIndex);
-                _dataArray.set(toIndex, newData, nextScn());
+                expandCapacity(toIndex);
+                setData(toIndex, newData);
                 
-                byte[] oldData = null;
                 if(oldList.size() > 0) {
                     oldData = _dataHandler.assembleEntries(oldList);
                 }
-                _dataArray.set(_split, oldData, nextScn());
-                
-                if(oldData != null) {
-                    _loadCount++;
-                }
+                moved = true;
             }
         }
         
+        /* Advance the split before removing moved entries from the split index.
+         * A reader, which spins until the index of a key is stable, then finds
+         * moved entries either at the split index or at the new index.
+         */
         _split++;
         
+        if(moved) {
+            setData(split, oldData);
+            
+            if(oldData != null) {
+                _loadCount.incrementAndGet();
+            }
+        }
+        
+        _metrics.splitDone(_level, _split);
+        
         if(_split % _unitCapacity == 0) {
             _log.info("split-unit " + getStatus());
         }
@@ -768,10 +1604,12 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
             int nextLevel = _level + 1;
             int nextLevelCapacity = getUnitCapacity() * (1 << nextLevel);
             if (nextLevelCapacity > _levelCapacity) {
+                _splitSeq++;
                 _split = 0;
                 _level = nextLevel;
                 _levelCapacity = nextLevelCapacity;
                 _loadCountThreshold = (int)(capacity() * _loadThreshold);
+                _splitSeq++;
             } else {
                 /* NOT FEASIBLE!
                  * This because canSplit() and split() are paired together
@@ -782,6 +1620,76 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
         }
     }
     
+    /**
+     * Tests whether the key of the specified <code>hashCode</code> might be present in this store.
+     * 
+     * @return <code>false</code> if the key is definitely absent according to the Bloom filter.
+     */
+    private boolean mightContain(long hashCode) {
+        BloomFilter filter = _bloomFilter;
+        return filter == null || filter.mightContain(hashCode);
+    }
+    
+    /**
+     * Loads the Bloom filter of store keys persisted at the current high water mark,
+     * or rebuilds it from all the keys in this store otherwise.
+     */
+    private void initBloomFilter() throws IOException {
+        File file = new File(_homeDir, BLOOM_FILTER_FILE_NAME);
+        if(!_config.isBloomFilterEnabled()) {
+            // Remove the file to which updates have not been applied
+            _bloomFilter = null;
+            if(file.exists() && !_dataArray.isReadOnly()) {
+                file.delete();
+            }
+            return;
+        }
+        
+        long hwMark = _dataArray.getHWMark();
+        BloomFilter filter = BloomFilter.load(file, hwMark);
+        if(filter != null && !filter.isSaturated()) {
+            _bloomFilter = filter;
+            _log.info("bloom filter loaded: " + file.getName() + " hwMark=" + hwMark);
+            return;
+        }
+        
+        long start = System.currentTimeMillis();
+        long expectedInsertions = Math.max(capacity(), 2L * _loadCount.get());
+        filter = new BloomFilter(expectedInsertions, _config.getBloomFilterFpp());
+        
+        DataStoreKeyIterator iter = new DataStoreKeyIterator(_dataArray, _dataHandler);
+        while(iter.hasNext()) {
+            byte[] key = iter.next();
+            if(key != null) {
+                filter.add(hash(key));
+            }
+        }
+        
+        _bloomFilter = filter;
+        _log.info("bloom filter rebuilt: keys=" + filter.getInsertions() + " bits=" + filter.getNumBits() +
+                  " hashes=" + filter.getNumHashes() + " time=" + (System.currentTimeMillis() - start) + " ms");
+    }
+    
+    /**
+     * Saves the Bloom filter of store keys at the current high water mark.
+     * The caller must exclude concurrent appends to the underlying data array.
+     */
+    private void saveBloomFilter() throws IOException {
+        BloomFilter filter = _bloomFilter;
+        if(filter != null && !_dataArray.isReadOnly()) {
+            filter.save(new File(_homeDir, BLOOM_FILTER_FILE_NAME), _dataArray.getHWMark());
+        }
+    }
+    
+    /**
+     * Gets the Bloom filter of store keys.
+     * 
+     * @return the Bloom filter, or <code>null</code> if it is not enabled.
+     */
+    public final BloomFilter getBloomFilter() {
+        return _bloomFilter;
+    }
+    
     private int scan() {
         int cnt = 0;
         for(int i = 0, len = _dataArray.length(); i < len; i++) {
@@ -790,17 +1698,109 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
         return cnt;
     }
     
-    public synchronized void rehash() throws Exception {
+    /**
+     * Advances linear hashing until no more split is needed. Split steps are performed in time-bounded
+     * batches so that writers can proceed in between.
+     */
+    public void rehash() throws Exception {
+        ensureWritable();
         if(isOpen()) {
-            while(canSplit()) {
-                split();
+            while(splitBatch() > 0) {
+                // Writers can proceed in between batches
             }
-            _dataArray.sync();
+            sync();
         } else {
             throw new StoreClosedException();
         }
     }
     
+    /**
+     * Performs up to the configured number of split steps inline by a write. If the background splitter
+     * is enabled, splits are left to the splitter unless it falls behind (i.e. the load factor exceeds 1.0).
+     */
+    private void splitOnWrite() throws Exception {
+        Splitter splitter = _splitter;
+        if(splitter != null) {
+            if(!canSplit()) {
+                return;
+            }
+            
+            splitter.wakeup();
+            if(_loadCount.get() < capacity()) {
+                return;
+            }
+        }
+        
+        for(int i = 0; i < _splitStepsPerWrite && canSplit(); i++) {
+            split();
+        }
+    }
+    
+    /**
+     * Performs split steps until no more split is needed or the time budget of a batch runs out.
+     * 
+     * @return the number of split steps performed.
+     */
+    private int splitBatch() throws Exception {
+        if(_writeLocks == null) {
+            synchronized(this) {
+                return splitSteps();
+            }
+        }
+        
+        _splitLock.lock();
+        try {
+            return splitSteps();
+        } finally {
+            _splitLock.unlock();
+        }
+    }
+    
+    private int splitSteps() throws Exception {
+        int steps = 0;
+        long deadline = System.nanoTime() + SPLIT_BATCH_NANOS;
+        
+        while(isOpen() && canSplit()) {
+            split();
+            steps++;
+            
+            if(System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        
+        return steps;
+    }
+    
+    /**
+     * Starts the background splitter if it is enabled in the store config.
+     */
+    private void startSplitter() {
+        if(_config.isSplitBackground() && _splitter == null && !_dataArray.isReadOnly()) {
+            Splitter splitter = new Splitter();
+            _splitter = splitter;
+            splitter.start();
+        }
+    }
+    
+    /**
+     * Stops the background splitter without waiting, as the splitter checks whether this store is open.
+     */
+    private void stopSplitter() {
+        Splitter splitter = _splitter;
+        if(splitter != null) {
+            _splitter = null;
+            splitter.stop();
+        }
+    }
+    
+    /**
+     * Checks whether linear hashing splits are advanced by a background splitter.
+     */
+    public final boolean isSplitBackground() {
+        return _splitter != null;
+    }
+    
     /**
      * @return the status of this data store.
      */
@@ -811,7 +1811,7 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
         buf.append(" level=").append(_level);
         buf.append(" split=").append(_split);
         buf.append(" capacity=").append(capacity());
-        buf.append(" loadCount=").append(_loadCount);
+        buf.append(" loadCount=").append(_loadCount.get());
         buf.append(" loadFactor=").append(getLoadFactor());
         
         return buf.toString();
@@ -849,18 +1849,151 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
         throw new StoreClosedException();
     }
     
+    /**
+     * Creates an iterator over the entries in this store in the order of segment and segment offset
+     * rather than in the order of index. The underlying segments are read sequentially with large
+     * read-ahead buffers, which makes full scans such as exports much faster on channel-based segments.
+     * 
+     * @return an iterator over store entries.
+     * @throws StoreClosedException if this store is not open.
+     */
+    public IndexedIterator<Entry<byte[], byte[]>> sequentialIterator() {
+        if(isOpen()) {
+            return new DataStoreSequentialIterator(_dataArray.sequentialIterator(), _dataHandler);
+        }
+        
+        throw new StoreClosedException();
+    }
+    
+    /**
+     * Creates an iterator over the entries at the specified range of indexes in the order of segment and segment offset.
+     * 
+     * @param indexStart - the start index (inclusive)
+     * @param indexEnd   - the end index (exclusive)
+     * @return an iterator over entries.
+     * @throws StoreClosedException if this store is not open.
+     */
+    public IndexedIterator<Entry<byte[], byte[]>> sequentialIterator(int indexStart, int indexEnd) {
+        if(isOpen()) {
+            return new DataStoreSequentialIterator(_dataArray.sequentialIterator(indexStart, indexEnd), _dataHandler);
+        }
+        
+        throw new StoreClosedException();
+    }
+    
+    /**
+     * Splits the indexes of this store into the specified number of ranges, each of which is scanned by its own
+     * sequential iterator. The iterators are independent of each other and can be consumed by different threads.
+     * 
+     * <p>
+     * Buckets are not split until every partition iterator is exhausted or closed, so that no entry moves from
+     * a partition not yet scanned into one already scanned. Writes proceed meanwhile and the load factor may
+     * grow beyond the load threshold. The partition iterators implement {@link java.io.Closeable}, and an
+     * iterator abandoned before being exhausted must be closed for splits to resume.
+     * 
+     * @param numPartitions - the number of partitions
+     * @return a list of partition iterators.
+     * @throws StoreClosedException if this store is not open.
+     */
+    public List<IndexedIterator<Entry<byte[], byte[]>>> partitionIterators(int numPartitions) {
+        if(!isOpen()) {
+            throw new StoreClosedException();
+        }
+        
+        pauseSplits();
+        try {
+            List<Range> ranges = ParallelScan.partition(capacity(), numPartitions);
+            List<IndexedIterator<Entry<byte[], byte[]>>> list = new ArrayList<IndexedIterator<Entry<byte[], byte[]>>>(ranges.size());
+            for(Range range : ranges) {
+                list.add(sequentialIterator(range.getStart(), range.getEnd()));
+            }
+            
+            return ParallelScan.guard(list, new Runnable() {
+                @Override
+                public void run() {
+                    resumeSplits();
+                }
+            });
+        } catch(RuntimeException e) {
+            resumeSplits();
+            throw e;
+        }
+    }
+    
+    /**
+     * Stops splitting buckets and waits for the split step in progress, if any.
+     */
+    private void pauseSplits() {
+        _scans.incrementAndGet();
+        
+        if(_writeLocks == null) {
+            synchronized(this) {
+                // Split steps are performed while holding the monitor of this store
+            }
+        } else {
+            _splitLock.lock();
+            _splitLock.unlock();
+        }
+    }
+    
+    /**
+     * Resumes splitting buckets once no partition scan is in progress.
+     */
+    private void resumeSplits() {
+        if(_scans.decrementAndGet() == 0) {
+            Splitter splitter = _splitter;
+            if(splitter != null) {
+                splitter.wakeup();
+            }
+        }
+    }
+    
+    /**
+     * Scans all entries in this store in parallel. The entries of each partition are passed to
+     * the specified handler from a task running on the specified executor. Buckets are not split
+     * until the scan is done, see {@link #partitionIterators(int)}.
+     * 
+     * @param handler       - the thread-safe handler of entries
+     * @param executor      - the executor for running partition scans
+     * @param numPartitions - the number of partitions, usually a small multiple of the executor threads
+     * @return the number of entries handled.
+     * @throws Exception if the handler fails on any entry. The scan is then stopped.
+     */
+    public long forEachParallel(ScanHandler<? super Entry<byte[], byte[]>> handler, ExecutorService executor, int numPartitions) throws Exception {
+        return ParallelScan.forEach(partitionIterators(numPartitions), handler, executor);
+    }
+    
     @Override
     public boolean isOpen() {
         return _dataArray.isOpen();
     }
     
+    /**
+     * @return <code>true</code> if this store is opened in read-only mode.
+     */
+    public final boolean isReadOnly() {
+        return _dataArray.isReadOnly();
+    }
+    
+    /**
+     * @throws UnsupportedOperationException if this store is opened in read-only mode.
+     */
+    private void ensureWritable() {
+        if(_dataArray.isReadOnly()) {
+            throw new UnsupportedOperationException("Read-only store");
+        }
+    }
+    
     @Override
     public synchronized void open() throws IOException {
         if(!_dataArray.isOpen()) {
             try {
                 _dataArray.open();
-                _loadCount = scan();
+                _loadCount.set(scan());
                 initLinearHashing();
+                initBloomFilter();
+                _metrics.open();
+                startSplitter();
             } catch (Exception e) {
                 try {
                     _dataArray.close();
@@ -877,21 +2010,41 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
     
     @Override
     public synchronized void close() throws IOException {
-        if(_dataArray.isOpen()) {
-            try {
-                while(canSplitOnCapacity()) {
-                    split();
+        stopSplitter();
+        lockWriters();
+        try {
+            if(_dataArray.isOpen()) {
+                try {
+                    while(!_dataArray.isReadOnly() && canSplitOnCapacity()) {
+                        split();
+                    }
+                    _dataArray.sync();
+                } catch(Exception e) {
+                    _log.warn("linear hashing aborted", e);
                 }
-                _dataArray.sync();
-            } catch(Exception e) {
-                _log.warn("linear hashing aborted", e);
+                
+                try {
+                    saveBloomFilter();
+                } catch(Exception e) {
+                    _log.warn("Failed to save bloom filter", e);
+                }
+                
+                _dataArray.close();
+                _metrics.close();
+                _log.info(getStatus());
             }
-            
-            _dataArray.close();
-            _log.info(getStatus());
+        } finally {
+            unlockWriters();
         }
     }
     
+    /**
+     * Gets the store metrics, which is {@link StoreMetrics#DISABLED} unless metrics are enabled in the store config.
+     */
+    public final StoreMetrics getMetrics() {
+        return _metrics;
+    }
+    
     /**
      * Gets the persistable event listener.
      */
@@ -907,4 +2060,57 @@ public class DynamicDataStore implements DataStore<byte[], byte[]> {
     public final void setPersistableListener(PersistableListener listener) {
         _dataArray.setPersistableListener(listener);
     }
+    
+    /**
+     * Splitter advances linear hashing in the background. Split steps are performed in batches
+     * bounded by {@link DynamicDataStore#SPLIT_BATCH_NANOS} and separated by pauses of the same
+     * length, so a writer waits for at most one batch.
+     */
+    private final class Splitter implements Runnable {
+        private final Thread _thread;
+        private volatile boolean _running = true;
+        private volatile boolean _idle = false;
+        
+        Splitter() {
+            _thread = new DaemonThreadFactory().newThread(this);
+            _thread.setName("splitter-" + _homeDir.getName());
+        }
+        
+        void start() {
+            _thread.start();
+        }
+        
+        void stop() {
+            _running = false;
+            LockSupport.unpark(_thread);
+        }
+        
+        void wakeup() {
+            if(_idle) {
+                LockSupport.unpark(_thread);
+            }
+        }
+        
+        @Override
+        public void run() {
+            while(_running) {
+                try {
+                    if(splitBatch() > 0) {
+                        LockSupport.parkNanos(SPLIT_BATCH_NANOS);
+                    } else {
+                        _idle = true;
+                        if(_running && !canSplit()) {
+                            LockSupport.parkNanos(SPLIT_IDLE_NANOS);
+                        }
+                        _idle = false;
+                    }
+                } catch(Exception e) {
+                    _log.warn("split aborted", e);
+                    LockSupport.parkNanos(SPLIT_IDLE_NANOS);
+                }
+            }
+            
+            _log.info("splitter stopped");
+        }
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import krati.core.segment.Segment;
+
+/**
+ * HashedDataStoreHandler defines a {@link DataStoreHandler} which caches the 64-bit hash code
+ * of every key next to the key in the assembled data. A store passes the hash code it has already
+ * computed for a key so that records of other keys are skipped by comparing hash codes before key
+ * bytes, and linear hashing splits move records without hashing their keys again.
+ * 
+ * <p>
+ * The methods inherited from {@link DataStoreHandler} compare key bytes only and therefore do not
+ * depend on the hash function a store uses.
+ * </p>
+ * 
+ * @since 0.4.9
+ */
+public interface HashedDataStoreHandler extends InPlaceDataStoreHandler {
+    
+    /**
+     * Assembles the specified <code>key</code> and <code>value</code> into a byte array.
+     * 
+     * @param key      - the key
+     * @param hashCode - the hash code of the key
+     * @param value    - the value
+     * @return the resulting byte array
+     */
+    public byte[] assemble(byte[] key, long hashCode, byte[] value);
+    
+    /**
+     * Assembles the specified <code>key</code> and <code>value</code> into a byte array
+     * which is then combined with the specified <code>data</code> into the resulting byte array.
+     * 
+     * @param key      - the key
+     * @param hashCode - the hash code of the key
+     * @param value    - the value
+     * @param data     - the assembled data
+     * @return the resulting byte array
+     */
+    public byte[] assemble(byte[] key, long hashCode, byte[] value, byte[] data);
+    
+    /**
+     * Extracts the value mapped to the specified <code>key</code>.
+     * 
+     * @param key      - the key
+     * @param hashCode - the hash code of the key
+     * @param data     - the assembled data
+     * @return the value
+     */
+    public byte[] extractByKey(byte[] key, long hashCode, byte[] data);
+    
+    /**
+     * Extracts the value mapped to the specified <code>key</code> from the assembled data
+     * stored in the specified <code>segment</code> without copying the assembled data.
+     * 
+     * @param key      - the key
+     * @param hashCode - the hash code of the key
+     * @param segment  - the segment
+     * @param pos      - the segment position where the assembled data starts
+     * @param length   - the length of the assembled data
+     * @param dst      - the destination ByteBuffer
+     * @return the length of the value, or <code>-1</code> if the <code>key</code> is not found.
+     * @throws IOException if the segment cannot be read.
+     * @see InPlaceDataStoreHandler#extractByKey(byte[], Segment, int, int, ByteBuffer)
+     */
+    public int extractByKey(byte[] key, long hashCode, Segment segment, int pos, int length, ByteBuffer dst) throws IOException;
+    
+    /**
+     * Removes the specified <code>key</code> and its value from the specified <code>data</code>.
+     * 
+     * @param key      - the key
+     * @param hashCode - the hash code of the key
+     * @param data     - the assembled data
+     * @return the number of bytes left in the <code>data</code> after removing the <code>key</code> and its value.
+     */
+    public int removeByKey(byte[] key, long hashCode, byte[] data);
+    
+    /**
+     * Splits the specified <code>data</code> by the cached hash codes of its keys. A key stays
+     * if the absolute value of <code>hashCode % capacity</code> equals the specified <code>index</code>.
+     * 
+     * @param data     - the assembled data
+     * @param index    - the index of the assembled data
+     * @param capacity - the capacity after the split
+     * @return a two-element array of the assembled data of keys staying and of keys moving out.
+     *         An element is <code>null</code> if there are no such keys.
+     */
+    public byte[][] split(byte[] data, int index, long capacity);
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import krati.core.segment.Segment;
+
+/**
+ * InPlaceDataStoreHandler defines a {@link DataStoreHandler} which can extract the value
+ * of a key by scanning the assembled data in place inside a {@link Segment}.
+ * 
+ * @since 0.4.9
+ */
+public interface InPlaceDataStoreHandler extends DataStoreHandler {
+    
+    /**
+     * Extracts the value mapped to the specified <code>key</code> from the assembled data
+     * stored in the specified <code>segment</code> without copying the assembled data.
+     * The value is copied into the destination ByteBuffer only if the ByteBuffer has enough
+     * remaining space. Otherwise, the destination ByteBuffer is left unchanged.
+     * 
+     * @param key     - the key
+     * @param segment - the segment
+     * @param pos     - the segment position where the assembled data starts
+     * @param length  - the length of the assembled data
+     * @param dst     - the destination ByteBuffer
+     * @return the length of the value, or <code>-1</code> if the <code>key</code> is not found.
+     * @throws IOException if the segment cannot be read.
+     */
+    public int extractByKey(byte[] key, Segment segment, int pos, int length, ByteBuffer dst) throws IOException;
+}
@@ -16,10 +16,15 @@
 
 package krati.store;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.log4j.Logger;
 
@@ -28,6 +33,7 @@ import krati.core.StoreConfig;
 import krati.core.StoreParams;
 import krati.core.segment.MemorySegmentFactory;
 import krati.core.segment.SegmentFactory;
+import krati.metrics.StoreMetrics;
 import krati.store.DataStore;
 import krati.store.index.HashIndex;
 import krati.store.index.Index;
@@ -44,8 +50,13 @@ import krati.util.Numbers;
  * 06/04, 2011 - Added method getHomeDir() <br/>
  * 08/21, 2011 - Added constructors using initialCapacity <br/>
  * 12/05, 2011 - Constructor API cleanup <br/>
+ * 10/17, 2026 - Added batch methods getAll and putAll <br/>
+ * 10/17, 2026 - Pass Bloom filter settings to the underlying hash index <br/>
+ * 10/17, 2026 - Added store metrics <br/>
+ * 10/17, 2026 - Added partition iterators and parallel scan <br/>
+ * 10/17, 2026 - Added read-only mode <br/>
  */
-public class IndexedDataStore implements DataStore<byte[], byte[]> {
+public class IndexedDataStore implements BatchDataStore<byte[], byte[]> {
     private final static Logger _logger = Logger.getLogger(IndexedDataStore.class);
     private final BytesDB _bytesDB;
     private final Index _index;
@@ -53,6 +64,11 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
     private final File _indexHome;
     private final File _storeHome;
     
+    /**
+     * The store metrics, which is {@link StoreMetrics#DISABLED} unless metrics are enabled in the store config.
+     */
+    private final StoreMetrics _metrics;
+    
     /**
      * System change number is not volatile for it is used by synchronized write only.
      */
@@ -93,9 +109,14 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
         storeConfig.setSegmentFileSizeMB(config.getSegmentFileSizeMB());
         storeConfig.setSegmentFactory(config.getSegmentFactory());
         storeConfig.setSegmentCompactFactor(config.getSegmentCompactFactor());
+        storeConfig.setReadOnly(config.isReadOnly());
         _bytesDB = new BytesDB(storeConfig);
         _scn = _bytesDB.getHWMark();
         
+        // Report store operations and BytesDB metrics
+        _metrics = StoreMetrics.newInstance(config);
+        _bytesDB.setMetrics(_metrics);
+        
         // Create hash index
         _indexHome = new File(_homeDir, "index");
         int indexInitialCapacity =
@@ -121,8 +142,13 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
         indexConfig.setHashLoadFactor(config.getHashLoadFactor());
         indexConfig.setHashFunction(config.getHashFunction());
         indexConfig.setDataHandler(config.getDataHandler());
+        indexConfig.setBloomFilterEnabled(config.isBloomFilterEnabled());
+        indexConfig.setBloomFilterFpp(config.getBloomFilterFpp());
+        indexConfig.setMetricsEnabled(config.isMetricsEnabled());
+        indexConfig.setReadOnly(config.isReadOnly());
         _index = new HashIndex(indexConfig);
         initIndexPersistableListener();
+        _metrics.open();
         
         _logger.info("opened indexHome=" + _indexHome.getAbsolutePath() + " storeHome=" + _storeHome.getAbsolutePath());
     }
@@ -167,6 +193,7 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
         storeConfig.setSegmentFactory(storeSegmentFactory);
         _bytesDB = new BytesDB(storeConfig);
         _scn = _bytesDB.getHWMark();
+        _metrics = StoreMetrics.DISABLED;
         
         // Create index
         _indexHome = new File(homeDir, "index");
@@ -227,6 +254,7 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
         storeConfig.setSegmentFactory(storeSegmentFactory);
         _bytesDB = new BytesDB(storeConfig);
         _scn = _bytesDB.getHWMark();
+        _metrics = StoreMetrics.DISABLED;
         
         // Create index
         _indexHome = new File(homeDir, "index");
@@ -342,6 +370,15 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
     
     @Override
     public byte[] get(byte[] key) {
+        long startNano = _metrics.start();
+        try {
+            return getValue(key);
+        } finally {
+            _metrics.done(StoreMetrics.Op.GET, startNano);
+        }
+    }
+    
+    private byte[] getValue(byte[] key) {
         if(key == null) return null;
         
         byte[] metaBytes = _index.lookup(key);
@@ -353,9 +390,96 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
         return _bytesDB.get(meta.getDataAddr());
     }
     
+    @Override
+    public List<byte[]> getAll(List<byte[]> keys) {
+        long startNano = _metrics.start();
+        try {
+            return getAllValues(keys);
+        } finally {
+            _metrics.done(StoreMetrics.Op.GET_ALL, startNano);
+        }
+    }
+    
+    private List<byte[]> getAllValues(List<byte[]> keys) {
+        final int cnt = keys.size();
+        int[] addrs = new int[cnt];
+        int[] positions = new int[cnt];
+        
+        // Lookup data addresses of known keys
+        int num = 0;
+        for(int i = 0; i < cnt; i++) {
+            byte[] key = keys.get(i);
+            if(key == null) continue;
+            
+            byte[] metaBytes = _index.lookup(key);
+            if(metaBytes == null) continue;
+            
+            IndexMeta meta = IndexMeta.parse(metaBytes);
+            if(meta == null) continue;
+            
+            addrs[num] = meta.getDataAddr();
+            positions[num] = i;
+            num++;
+        }
+        
+        if(num < cnt) {
+            int[] temp = new int[num];
+            System.arraycopy(addrs, 0, temp, 0, num);
+            addrs = temp;
+        }
+        
+        // Read data sorted by segment and offset
+        byte[][] dataArray = _bytesDB.getAll(addrs);
+        
+        List<byte[]> values = new ArrayList<byte[]>(cnt);
+        for(int i = 0; i < cnt; i++) {
+            values.add(null);
+        }
+        
+        for(int j = 0; j < num; j++) {
+            values.set(positions[j], dataArray[j]);
+        }
+        
+        return values;
+    }
+    
+    @Override
+    public synchronized boolean putAll(Map<byte[], byte[]> map) throws Exception {
+        ensureWritable();
+        long startNano = _metrics.start();
+        try {
+            for(Entry<byte[], byte[]> e : map.entrySet()) {
+                byte[] key = e.getKey();
+                if(key != null) {
+                    byte[] value = e.getValue();
+                    if(value == null) {
+                        deleteKey(key);
+                    } else {
+                        putValue(key, value);
+                    }
+                }
+            }
+            
+            return true;
+        } finally {
+            _metrics.done(StoreMetrics.Op.PUT_ALL, startNano);
+        }
+    }
+    
     @Override
     public synchronized boolean put(byte[] key, byte[] value) throws Exception {
+        ensureWritable();
         if(value == null) return delete(key);
+        
+        long startNano = _metrics.start();
+        try {
+            return putValue(key, value);
+        } finally {
+            _metrics.done(StoreMetrics.Op.PUT, startNano);
+        }
+    }
+    
+    private boolean putValue(byte[] key, byte[] value) throws Exception {
         if(key == null) return false;
         
         // Lookup index meta
@@ -386,6 +510,16 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
     
     @Override
     public synchronized boolean delete(byte[] key) throws Exception {
+        ensureWritable();
+        long startNano = _metrics.start();
+        try {
+            return deleteKey(key);
+        } finally {
+            _metrics.done(StoreMetrics.Op.DELETE, startNano);
+        }
+    }
+    
+    private boolean deleteKey(byte[] key) throws Exception {
         if(key == null) return false;
         
         // Lookup index meta
@@ -406,6 +540,7 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
     
     @Override
     public synchronized void clear() throws IOException {
+        ensureWritable();
         _bytesDB.clear();
         _index.clear();
     }
@@ -465,7 +600,51 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
         throw new StoreClosedException();
     }
     
-    private class IndexedDataStoreIterator implements IndexedIterator<Entry<byte[], byte[]>> {
+    /**
+     * Splits the indexes of the underlying key index into the specified number of ranges, each of which is scanned
+     * by its own iterator. The iterators are independent of each other and can be consumed by different threads.
+     * Key indexes other than {@link HashIndex} are not partitioned and are scanned by a single iterator.
+     * 
+     * <p>
+     * Bucket splits of the key index are paused until every returned iterator is exhausted or closed.
+     * Callers that stop early must close the iterators via {@link java.io.Closeable#close()}.
+     * 
+     * @param numPartitions - the number of partitions
+     * @return a list of partition iterators.
+     * @throws StoreClosedException if this store is not open.
+     * @see DynamicDataStore#partitionIterators(int)
+     */
+    public List<IndexedIterator<Entry<byte[], byte[]>>> partitionIterators(int numPartitions) {
+        if(!isOpen()) {
+            throw new StoreClosedException();
+        }
+        
+        List<IndexedIterator<Entry<byte[], byte[]>>> list = new ArrayList<IndexedIterator<Entry<byte[], byte[]>>>(numPartitions);
+        if(_index instanceof HashIndex) {
+            for(IndexedIterator<Entry<byte[], byte[]>> iter : ((HashIndex)_index).partitionIterators(numPartitions)) {
+                list.add(new IndexedDataStoreIterator(iter));
+            }
+        } else {
+            list.add(new IndexedDataStoreIterator(_index.iterator()));
+        }
+        return list;
+    }
+    
+    /**
+     * Scans all entries in this store in parallel. The entries of each partition are passed to
+     * the specified handler from a task running on the specified executor.
+     * 
+     * @param handler       - the thread-safe handler of entries
+     * @param executor      - the executor for running partition scans
+     * @param numPartitions - the number of partitions, usually a small multiple of the executor threads
+     * @return the number of entries handled.
+     * @throws Exception if the handler fails on any entry. The scan is then stopped.
+     */
+    public long forEachParallel(ScanHandler<? super Entry<byte[], byte[]>> handler, ExecutorService executor, int numPartitions) throws Exception {
+        return ParallelScan.forEach(partitionIterators(numPartitions), handler, executor);
+    }
+    
+    private class IndexedDataStoreIterator implements IndexedIterator<Entry<byte[], byte[]>>, Closeable {
         final IndexedIterator<Entry<byte[], byte[]>> _indexIter;
         
         IndexedDataStoreIterator(IndexedIterator<Entry<byte[], byte[]>> indexIter) {
@@ -506,6 +685,13 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
         public void reset(int indexStart) {
             _indexIter.reset(indexStart);
         }
+        
+        @Override
+        public void close() throws IOException {
+            if(_indexIter instanceof Closeable) {
+                ((Closeable)_indexIter).close();
+            }
+        }
     }
     
     @Override
@@ -513,11 +699,28 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
         return _index.isOpen();
     }
     
+    /**
+     * @return <code>true</code> if this store is opened in read-only mode.
+     */
+    public final boolean isReadOnly() {
+        return _bytesDB.isReadOnly();
+    }
+    
+    /**
+     * @throws UnsupportedOperationException if this store is opened in read-only mode.
+     */
+    private void ensureWritable() {
+        if(_bytesDB.isReadOnly()) {
+            throw new UnsupportedOperationException("Read-only store");
+        }
+    }
+    
     @Override
     public synchronized void open() throws IOException {
         try {
             _bytesDB.open();
             _index.open();
+            _metrics.open();
         } catch(IOException ioe) {
             _index.close();
             _bytesDB.close();
@@ -533,9 +736,18 @@ public class IndexedDataStore implements DataStore<byte[], byte[]> {
         } catch(IOException ioe) {
             _bytesDB.close();
             throw ioe;
+        } finally {
+            _metrics.close();
         }
     }
     
+    /**
+     * Gets the store metrics, which is {@link StoreMetrics#DISABLED} unless metrics are enabled in the store config.
+     */
+    public final StoreMetrics getMetrics() {
+        return _metrics;
+    }
+    
     /**
      * Gets the persistable event listener.
      */
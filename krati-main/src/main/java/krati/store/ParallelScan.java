@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import krati.util.IndexedIterator;
+import krati.util.Range;
+
+/**
+ * ParallelScan splits the indexes of a store into partitions and scans them concurrently.
+ * 
+ * <p>
+ * The partitions are contiguous ranges of indexes. A store which moves entries between indexes,
+ * i.e. splits buckets of linear hashing, must not do so while its partitions are scanned, or an
+ * entry may move from a partition not yet scanned into one already scanned. Such a store pauses
+ * splits for the lifetime of its partition iterators, see {@link #guard(List, Runnable)}.
+ * 
+ * @since 0.4.9
+ */
+final class ParallelScan {
+    
+    private ParallelScan() {}
+    
+    /**
+     * Splits the indexes from 0 to the specified length into contiguous ranges of equal size.
+     * The last range is open-ended so that it covers the capacity grown during a scan.
+     * 
+     * @param length        - the number of indexes
+     * @param numPartitions - the number of partitions
+     * @return a list of index ranges.
+     * @throws IllegalArgumentException if <code>numPartitions</code> is less than 1.
+     */
+    static List<Range> partition(int length, int numPartitions) {
+        if(numPartitions < 1) {
+            throw new IllegalArgumentException("Invalid numPartitions: " + numPartitions);
+        }
+        
+        int cnt = Math.max(1, Math.min(numPartitions, length));
+        List<Range> ranges = new ArrayList<Range>(cnt);
+        for(int i = 0; i < cnt; i++) {
+            int start = (int)((long)length * i / cnt);
+            int end = (i == cnt - 1) ? Integer.MAX_VALUE : (int)((long)length * (i + 1) / cnt);
+            ranges.add(new Range(start, end - start));
+        }
+        return ranges;
+    }
+    
+    /**
+     * Wraps the specified partition iterators so that the specified callback is run once all
+     * of them have been exhausted or closed.
+     * 
+     * @param partitions - the partition iterators
+     * @param onDone     - the callback run when the last partition is released
+     * @return a list of {@link PartitionIterator}s.
+     */
+    static <E> List<IndexedIterator<E>> guard(List<IndexedIterator<E>> partitions, Runnable onDone) {
+        AtomicInteger remaining = new AtomicInteger(partitions.size());
+        List<IndexedIterator<E>> list = new ArrayList<IndexedIterator<E>>(partitions.size());
+        for(IndexedIterator<E> iter : partitions) {
+            list.add(new PartitionIterator<E>(iter, remaining, onDone));
+        }
+        return list;
+    }
+    
+    /**
+     * Closes the specified iterators which implement {@link Closeable}.
+     */
+    static void close(List<? extends Iterator<?>> iterators) {
+        for(Iterator<?> iter : iterators) {
+            if(iter instanceof Closeable) {
+                try {
+                    ((Closeable)iter).close();
+                } catch(IOException e) {
+                    // Partition iterators release without I/O
+                }
+            }
+        }
+    }
+    
+    /**
+     * Scans the specified partitions concurrently using the specified executor.
+     * The scan stops at the first failure, which is then thrown to the caller.
+     * All partitions are closed when the scan is done.
+     * 
+     * @param partitions - the partition iterators
+     * @param handler    - the handler of scan elements
+     * @param executor   - the executor for running partition scans
+     * @return the number of elements handled.
+     * @throws Exception if any element cannot be handled.
+     */
+    static <E> long forEach(List<? extends Iterator<? extends E>> partitions, final ScanHandler<? super E> handler, ExecutorService executor) throws Exception {
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        List<Future<Long>> futures = new ArrayList<Future<Long>>(partitions.size());
+        
+        long total = 0;
+        Exception error = null;
+        try {
+            for(final Iterator<? extends E> iter : partitions) {
+                futures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        long cnt = 0;
+                        boolean done = false;
+                        try {
+                            while(!stopped.get() && iter.hasNext()) {
+                                E element = iter.next();
+                                if(element != null) {
+                                    handler.handle(element);
+                                    cnt++;
+                                }
+                            }
+                            done = true;
+                        } finally {
+                            if(!done) stopped.set(true);
+                        }
+                        return cnt;
+                    }
+                }));
+            }
+        } catch(RuntimeException e) {
+            // Stop the partitions submitted before the executor rejected a task
+            stopped.set(true);
+            error = e;
+        }
+        
+        try {
+            for(Future<Long> f : futures) {
+                try {
+                    total += f.get();
+                } catch(ExecutionException e) {
+                    if(error == null) {
+                        Throwable cause = e.getCause();
+                        error = (cause instanceof Exception) ? (Exception)cause : e;
+                    }
+                }
+            }
+        } finally {
+            close(partitions);
+        }
+        
+        if(error != null) {
+            throw error;
+        }
+        
+        return total;
+    }
+    
+    /**
+     * PartitionIterator releases its partition once it is exhausted or closed. The callback
+     * shared by a scan is run when the last partition of the scan is released. Callers which
+     * abandon a partition iterator before it is exhausted must {@link #close()} it.
+     */
+    static final class PartitionIterator<E> implements IndexedIterator<E>, Closeable {
+        private final IndexedIterator<E> _iter;
+        private final AtomicInteger _remaining;
+        private final Runnable _onDone;
+        private final AtomicBoolean _released = new AtomicBoolean(false);
+        
+        PartitionIterator(IndexedIterator<E> iter, AtomicInteger remaining, Runnable onDone) {
+            this._iter = iter;
+            this._remaining = remaining;
+            this._onDone = onDone;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if(_released.get()) {
+                return false;
+            }
+            
+            boolean hasNext = _iter.hasNext();
+            if(!hasNext) {
+                close();
+            }
+            return hasNext;
+        }
+        
+        @Override
+        public E next() {
+            if(_released.get()) {
+                throw new NoSuchElementException();
+            }
+            return _iter.next();
+        }
+        
+        @Override
+        public void remove() {
+            _iter.remove();
+        }
+        
+        @Override
+        public int index() {
+            return _iter.index();
+        }
+        
+        /**
+         * Resets the underlying iterator if this partition has not been released.
+         */
+        @Override
+        public void reset(int indexStart) {
+            if(_released.get()) {
+                throw new IllegalStateException("Partition released");
+            }
+            _iter.reset(indexStart);
+        }
+        
+        /**
+         * Releases this partition. Calling this method more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if(_released.compareAndSet(false, true) && _remaining.decrementAndGet() == 0) {
+                _onDone.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package krati.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import krati.core.StoreConfig;
+import krati.store.factory.DataStoreFactory;
+import krati.util.IndexedIterator;
+
+/**
+ * ReloadableDataStore serves reads from a {@link DataStore} with keys and values in the form of byte array,
+ * and can switch to another store directory, e.g. one built offline by {@link DataStoreBuilder}, without
+ * a restart. Writes are not supported.
+ * 
+ * <p>
+ * Every store is opened in read-only mode, so that no redo log, compactor or writer segment is started
+ * and nothing is written to the store directories, which therefore need not be writable.
+ * 
+ * <p>
+ * A {@link #reload(StoreConfig)} opens the new store, flips the reference to it and retires the old store.
+ * Every store is reference counted. The ReloadableDataStore holds one reference to the current store, and
+ * every reader and every iterator holds one reference to the store it reads from. A retired store is closed
+ * by whoever releases its last reference, so neither reloads nor readers ever wait for each other.
+ * 
+ * <p>
+ * The iterators returned by {@link #keyIterator()} and {@link #iterator()} implement {@link Closeable}. An iterator
+ * releases its reference once it is exhausted or closed. Callers must close an iterator which is abandoned before
+ * being exhausted, or else it keeps its store open.
+ * 
+ * @since 0.4.9
+ */
+public class ReloadableDataStore implements DataStore<byte[], byte[]> {
+    private final static Logger _log = Logger.getLogger(ReloadableDataStore.class);
+    
+    private final DataStoreFactory _factory;
+    private volatile StoreRef _current;
+    private volatile StoreConfig _config;
+    
+    /**
+     * Creates a new ReloadableDataStore.
+     * 
+     * @param config  - the config of the store to serve, which is set to read-only
+     * @param factory - the factory for opening stores, e.g. {@link krati.store.factory.StaticDataStoreFactory}
+     * @throws IOException if the store cannot be opened.
+     */
+    public ReloadableDataStore(StoreConfig config, DataStoreFactory factory) throws IOException {
+        if(factory == null) {
+            throw new NullPointerException("factory");
+        }
+        
+        this._factory = factory;
+        this._config = config;
+        this._current = new StoreRef(create(config));
+    }
+    
+    /**
+     * Gets the config of the store being served.
+     */
+    public final StoreConfig getConfig() {
+        return _config;
+    }
+    
+    /**
+     * Gets the home directory of the store being served.
+     */
+    public final File getHomeDir() {
+        return _config.getHomeDir();
+    }
+    
+    /**
+     * Gets the store being served.
+     * 
+     * @return <code>null</code> if this ReloadableDataStore is closed.
+     */
+    public final DataStore<byte[], byte[]> getStore() {
+        StoreRef ref = _current;
+        return ref == null ? null : ref.store;
+    }
+    
+    /**
+     * Switches to the store located at the specified home directory using its saved config.
+     * 
+     * @param homeDir - the home directory of the new store
+     * @throws IOException if the new store cannot be opened. The current store is still served.
+     */
+    public void reload(File homeDir) throws IOException {
+        reload(StoreConfig.newInstance(homeDir));
+    }
+    
+    /**
+     * Switches to the store of the specified config. The new store is opened first. The old store is
+     * retired and closed as soon as its last reader or iterator releases it.
+     * 
+     * @param config - the config of the new store, which is set to read-only
+     * @throws IOException if the new store cannot be opened. The current store is still served.
+     */
+    public synchronized void reload(StoreConfig config) throws IOException {
+        StoreRef oldRef = _current;
+        if(oldRef == null) {
+            throw new StoreClosedException();
+        }
+        
+        StoreRef newRef = new StoreRef(create(config));
+        _config = config;
+        _current = newRef;
+        
+        oldRef.release();
+        _log.info("reloaded " + config.getHomeDir().getAbsolutePath());
+    }
+    
+    /**
+     * Opens the store of the specified config in read-only mode.
+     */
+    private DataStore<byte[], byte[]> create(StoreConfig config) throws IOException {
+        config.setReadOnly(true);
+        return _factory.create(config);
+    }
+    
+    /**
+     * Acquires the current store for reading. The caller must {@link StoreRef#release() release} it.
+     */
+    private StoreRef acquire() {
+        while(true) {
+            StoreRef ref = _current;
+            if(ref == null) {
+                throw new StoreClosedException();
+            }
+            
+            if(ref.tryAcquire()) {
+                return ref;
+            }
+            
+            // Retired and released by all its readers, retry on the new store
+        }
+    }
+    
+    @Override
+    public int capacity() {
+        StoreRef ref = acquire();
+        try {
+            return ref.store.capacity();
+        } finally {
+            ref.release();
+        }
+    }
+    
+    @Override
+    public int getLength(byte[] key) {
+        StoreRef ref = acquire();
+        try {
+            return ref.store.getLength(key);
+        } finally {
+            ref.release();
+        }
+    }
+    
+    @Override
+    public byte[] get(byte[] key) {
+        StoreRef ref = acquire();
+        try {
+            return ref.store.get(key);
+        } finally {
+            ref.release();
+        }
+    }
+    
+    @Override
+    public boolean put(byte[] key, byte[] value) throws Exception {
+        throw new UnsupportedOperationException("Read-only store");
+    }
+    
+    @Override
+    public boolean delete(byte[] key) throws Exception {
+        throw new UnsupportedOperationException("Read-only store");
+    }
+    
+    @Override
+    public void clear() throws IOException {
+        throw new UnsupportedOperationException("Read-only store");
+    }
+    
+    @Override
+    public void sync() throws IOException {
+        // Nothing to sync in a read-only store
+    }
+    
+    @Override
+    public void persist() throws IOException {
+        // Nothing to persist in a read-only store
+    }
+    
+    /**
+     * Gets an iterator of the keys of the current store. The iterator holds the store open until it is
+     * exhausted or closed via {@link Closeable#close()}. Callers must close an iterator which is not exhausted.
+     */
+    @Override
+    public IndexedIterator<byte[]> keyIterator() {
+        StoreRef ref = acquire();
+        try {
+            return new RefIterator<byte[]>(ref, ref.store.keyIterator());
+        } catch(RuntimeException e) {
+            ref.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Gets an iterator of the entries of the current store. The iterator holds the store open until it is
+     * exhausted or closed via {@link Closeable#close()}. Callers must close an iterator which is not exhausted.
+     */
+    @Override
+    public IndexedIterator<Entry<byte[], byte[]>> iterator() {
+        StoreRef ref = acquire();
+        try {
+            return new RefIterator<Entry<byte[], byte[]>>(ref, ref.store.iterator());
+        } catch(RuntimeException e) {
+            ref.release();
+            throw e;
+        }
+    }
+    
+    @Override
+    public boolean isOpen() {
+        return _current != null;
+    }
+    
+    /**
+     * Opens the store of the config most recently loaded.
+     */
+    @Override
+    public synchronized void open() throws IOException {
+        if(_current == null) {
+            _current = new StoreRef(create(_config));
+        }
+    }
+    
+    /**
+     * Stops serving reads. The current store is closed as soon as its last reader or iterator releases it.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        StoreRef ref = _current;
+        if(ref != null) {
+            _current = null;
+            ref.release();
+        }
+    }
+    
+    /**
+     * StoreRef counts the references to a store and closes the store when the last reference is released.
+     * The count starts at one for the reference held while the store is current.
+     */
+    private static final class StoreRef {
+        final DataStore<byte[], byte[]> store;
+        final AtomicInteger refCount = new AtomicInteger(1);
+        
+        StoreRef(DataStore<byte[], byte[]> store) {
+            this.store = store;
+        }
+        
+        /**
+         * @return <code>false</code> if the store has been closed upon the release of its last reference.
+         */
+        boolean tryAcquire() {
+            while(true) {
+                int count = refCount.get();
+                if(count == 0) {
+                    return false;
+                }
+                if(refCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+        
+        void release() {
+            if(refCount.decrementAndGet() == 0) {
+                try {
+                    store.close();
+                } catch(IOException e) {
+                    _log.error("Failed to close " + store, e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * RefIterator holds a reference to the store it iterates until it is exhausted or closed.
+     */
+    private static final class RefIterator<E> implements IndexedIterator<E>, Closeable {
+        private final StoreRef _ref;
+        private final IndexedIterator<E> _iter;
+        private final AtomicBoolean _released = new AtomicBoolean(false);
+        
+        RefIterator(StoreRef ref, IndexedIterator<E> iter) {
+            this._ref = ref;
+            this._iter = iter;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if(_released.get()) {
+                return false;
+            }
+            
+            boolean hasNext = _iter.hasNext();
+            if(!hasNext) {
+                close();
+            }
+            return hasNext;
+        }
+        
+        @Override
+        public E next() {
+            if(_released.get()) {
+                throw new NoSuchElementException();
+            }
+            return _iter.next();
+        }
+        
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Read-only store");
+        }
+        
+        @Override
+        public int index() {
+            return _iter.index();
+        }
+        
+        /**
+         * Resets the underlying iterator if it has not been exhausted or closed.
+         */
+        @Override
+        public void reset(int indexStart) {
+            if(_released.get()) {
+                throw new IllegalStateException("Iterator released");
+            }
+            _iter.reset(indexStart);
+        }
+        
+        /**
+         * Releases the reference to the store. Closing an iterator more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if(_released.compareAndSet(false, true)) {
+                _ref.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.store;
+
+/**
+ * ScanHandler handles the elements visited by a parallel store scan.
+ * A handler is called concurrently from multiple threads and must be thread-safe.
+ * 
+ * @param <E> Scan element
+ * 
+ * @since 0.4.9
+ */
+public interface ScanHandler<E> {
+    
+    /**
+     * Handles an element visited by a scan.
+     * 
+     * @param element - the scan element
+     * @throws Exception if the element cannot be handled. The scan is then stopped.
+     */
+    public void handle(E element) throws Exception;
+}
@@ -43,6 +43,7 @@ import krati.core.segment.SegmentManager;
  * 05/30, 2011 - Added support for Closeable <br/>
  * 06/03, 2011 - Constructor cleanup <br/>
  * 06/26, 2011 - Added StorePartitionConfig-based constructor <br/>
+ * 10/17, 2026 - Added read-only mode <br/>
  */
 public class StaticArrayStorePartition implements ArrayStorePartition {
     private final static Logger _log = Logger.getLogger(StaticArrayStorePartition.class);
@@ -72,9 +73,10 @@ public class StaticArrayStorePartition implements ArrayStorePartition {
         SegmentManager segManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
-        _dataArray = new SimpleDataArray(addressArray, segManager, _config.getSegmentCompactFactor());
+        _dataArray = new SimpleDataArray(addressArray, segManager, _config);
         
         _log.info("init: " + getStatus());
     }
@@ -206,9 +208,10 @@ public class StaticArrayStorePartition implements ArrayStorePartition {
         SegmentManager segManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
-        _dataArray = new SimpleDataArray(addressArray, segManager, _config.getSegmentCompactFactor());
+        _dataArray = new SimpleDataArray(addressArray, segManager, _config);
         
         if (checked) {
             // TODO
@@ -223,6 +226,7 @@ public class StaticArrayStorePartition implements ArrayStorePartition {
                                               int numSyncBatches,
                                               boolean indexesCached) throws Exception {
         AddressArrayFactory factory = new AddressArrayFactory(indexesCached);
+        factory.setReadOnly(_config.isReadOnly());
         AddressArray addrArray = factory.createStaticAddressArray(homeDir, length, batchSize, numSyncBatches);
         
         if(addrArray.length() != length) {
@@ -386,6 +390,13 @@ public class StaticArrayStorePartition implements ArrayStorePartition {
         return _dataArray.isOpen();
     }
     
+    /**
+     * @return <code>true</code> if this partition is opened in read-only mode. Otherwise, <code>false</code>.
+     */
+    public final boolean isReadOnly() {
+        return _dataArray.isReadOnly();
+    }
+    
     @Override
     public synchronized void open() throws IOException {
         _dataArray.open();
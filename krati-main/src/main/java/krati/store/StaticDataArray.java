@@ -141,6 +141,7 @@ public final class StaticDataArray extends AbstractDataArray implements ArraySto
                                               int numSyncBatches,
                                               boolean indexesCached) throws Exception {
         AddressArrayFactory factory = new AddressArrayFactory(indexesCached);
+        factory.setReadOnly(_config.isReadOnly());
         AddressArray addrArray = factory.createStaticAddressArray(homeDir, length, batchSize, numSyncBatches);
         
         if(length != addrArray.length()) {
@@ -50,6 +50,7 @@ import krati.util.IndexedIterator;
  * <p>
  * 06/06, 2011 - Added support for Closeable <br/>
  * 06/25, 2011 - Added constructor using StoreConfig <br/>
+ * 10/17, 2026 - Added read-only mode <br/>
  */
 public class StaticDataSet implements DataSet<byte[]> {
     private final static Logger _log = Logger.getLogger(StaticDataSet.class);
@@ -101,10 +102,11 @@ public class StaticDataSet implements DataSet<byte[]> {
         SegmentManager segmentManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
         this._scn = addressArray.getHWMark();
-        this._dataArray = new SimpleDataArray(addressArray, segmentManager, _config.getSegmentCompactFactor());
+        this._dataArray = new SimpleDataArray(addressArray, segmentManager, _config);
         this._hashFunction = _config.getHashFunction();
     }
     
@@ -285,10 +287,11 @@ public class StaticDataSet implements DataSet<byte[]> {
         SegmentManager segmentManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
         this._scn = addressArray.getHWMark();
-        this._dataArray = new SimpleDataArray(addressArray, segmentManager, _config.getSegmentCompactFactor());
+        this._dataArray = new SimpleDataArray(addressArray, segmentManager, _config);
         this._hashFunction = _config.getHashFunction();
     }
     
@@ -298,6 +301,10 @@ public class StaticDataSet implements DataSet<byte[]> {
                                               int numSyncBatches,
                                               boolean indexesCached) throws Exception {
         AddressArrayFactory factory = new AddressArrayFactory(indexesCached);
+        factory.setReadOnly(_config.isReadOnly());
+        factory.setIndexesOffHeap(_config.isIndexesOffHeap());
+        factory.setIndexesPacked(_config.isIndexesPacked());
+        factory.setSegmentFileSizeMB(_config.getSegmentFileSizeMB());
         AddressArray addrArray = factory.createStaticAddressArray(homeDir, length, batchSize, numSyncBatches);
         return addrArray;
     }
@@ -433,6 +440,13 @@ public class StaticDataSet implements DataSet<byte[]> {
         return _dataArray.isOpen();
     }
     
+    /**
+     * @return <code>true</code> if this data set is opened in read-only mode.
+     */
+    public final boolean isReadOnly() {
+        return _dataArray.isReadOnly();
+    }
+    
     @Override
     public synchronized void open() throws IOException {
         if(!_dataArray.isOpen()) {
@@ -18,7 +18,12 @@ package krati.store;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
 
 import krati.PersistableListener;
 import krati.core.StoreParams;
@@ -29,13 +34,17 @@ import krati.core.StoreConfig;
 import krati.core.array.AddressArray;
 import krati.core.array.AddressArrayFactory;
 import krati.core.array.SimpleDataArray;
+import krati.core.segment.AddressFormat;
+import krati.core.segment.Segment;
 import krati.core.segment.SegmentFactory;
 import krati.core.segment.SegmentManager;
+import krati.metrics.StoreMetrics;
 import krati.store.DataStore;
 import krati.store.DataStoreHandler;
 import krati.util.FnvHashFunction;
 import krati.util.HashFunction;
 import krati.util.IndexedIterator;
+import krati.util.Range;
 
 /**
  * A simple implementation of key value store. The store has a fixed capacity.
@@ -52,8 +61,14 @@ import krati.util.IndexedIterator;
  * 06/04, 2011 - Added support for Closeable <br/>
  * 06/04, 2011 - Added getHomeDir <br/>
  * 06/25, 2011 - Added constructor using StoreConfig <br/>
+ * 10/17, 2026 - Added batch methods getAll and putAll <br/>
+ * 10/17, 2026 - Added zero-copy method get(byte[], ByteBuffer) <br/>
+ * 10/17, 2026 - Added store metrics <br/>
+ * 10/17, 2026 - Added read-only mode <br/>
+ * 10/17, 2026 - Added sequential iterator <br/>
+ * 10/17, 2026 - Added partition iterators and parallel scan <br/>
  */
-public class StaticDataStore implements DataStore<byte[], byte[]> {
+public class StaticDataStore implements BatchDataStore<byte[], byte[]> {
     private final static Logger _log = Logger.getLogger(StaticDataStore.class);
     
     private final File _homeDir;
@@ -61,6 +76,7 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
     private final SimpleDataArray _dataArray;
     private final DataStoreHandler _dataHandler;
     private final HashFunction<byte[]> _hashFunction;
+    private final StoreMetrics _metrics;
 
     /**
      * System change number is not volatile for it is used by synchronized write only.
@@ -85,6 +101,10 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
         _dataHandler = (config.getDataHandler() == null) ?
                 new DefaultDataStoreHandler() : (DataStoreHandler)config.getDataHandler();
         
+        if(_config.isReadOnly() && !new File(_homeDir, "indexes.dat").exists()) {
+            throw new IOException("Read-only store not found: " + _homeDir.getCanonicalPath());
+        }
+        
         // Create address array
         AddressArray addressArray = createAddressArray(
                 _config.getHomeDir(),
@@ -103,11 +123,15 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
         SegmentManager segmentManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
         this._scn = addressArray.getHWMark();
-        this._dataArray = new SimpleDataArray(addressArray, segmentManager, _config.getSegmentCompactFactor());
+        this._dataArray = new SimpleDataArray(addressArray, segmentManager, _config);
         this._hashFunction = _config.getHashFunction();
+        this._metrics = StoreMetrics.newInstance(_config);
+        this._dataArray.setMetrics(_metrics);
+        this._metrics.open();
     }
     
     /**
@@ -287,11 +311,15 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
         SegmentManager segmentManager = SegmentManager.getInstance(
                 segmentHome,
                 _config.getSegmentFactory(),
-                _config.getSegmentFileSizeMB());
+                _config.getSegmentFileSizeMB(),
+                _config.isReadOnly());
         
         this._scn = addressArray.getHWMark();
-        this._dataArray = new SimpleDataArray(addressArray, segmentManager, _config.getSegmentCompactFactor());
+        this._dataArray = new SimpleDataArray(addressArray, segmentManager, _config);
         this._hashFunction = _config.getHashFunction();
+        this._metrics = StoreMetrics.newInstance(_config);
+        this._dataArray.setMetrics(_metrics);
+        this._metrics.open();
     }
     
     protected AddressArray createAddressArray(File homeDir,
@@ -300,6 +328,10 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
                                               int numSyncBatches,
                                               boolean indexesCached) throws Exception {
         AddressArrayFactory factory = new AddressArrayFactory(indexesCached);
+        factory.setReadOnly(_config.isReadOnly());
+        factory.setIndexesOffHeap(_config.isIndexesOffHeap());
+        factory.setIndexesPacked(_config.isIndexesPacked());
+        factory.setSegmentFileSizeMB(_config.getSegmentFileSizeMB());
         AddressArray addrArray = factory.createStaticAddressArray(homeDir, length, batchSize, numSyncBatches);
         return addrArray;
     }
@@ -320,6 +352,15 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
     
     @Override
     public byte[] get(byte[] key) {
+        long startNano = _metrics.start();
+        try {
+            return getValue(key);
+        } finally {
+            _metrics.done(StoreMetrics.Op.GET, startNano);
+        }
+    }
+    
+    private byte[] getValue(byte[] key) {
         long hashCode = hash(key);
         int index = (int)(hashCode % _dataArray.length());
         if (index < 0) index = -index;
@@ -328,10 +369,88 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
         return existingData == null ? null : _dataHandler.extractByKey(key, existingData);
     }
     
+    /**
+     * Gets the value to which the specified <code>key</code> is mapped in this store without allocating
+     * intermediate byte arrays. The data at the mapped array index is scanned in place inside its
+     * segment and only the matching value is copied into the destination ByteBuffer.
+     * 
+     * @param key - store key
+     * @param dst - the destination ByteBuffer
+     * @return the length of the value, or <code>-1</code> if the <code>key</code> is unknown to this store.
+     *         The value is copied into <code>dst</code> only if <code>dst</code> has enough remaining space.
+     */
+    public int get(byte[] key, ByteBuffer dst) {
+        long startNano = _metrics.start();
+        try {
+            return getValue(key, dst);
+        } finally {
+            _metrics.done(StoreMetrics.Op.GET, startNano);
+        }
+    }
+    
+    private int getValue(byte[] key, ByteBuffer dst) {
+        if(key == null) return -1;
+        
+        if(!(_dataHandler instanceof InPlaceDataStoreHandler)) {
+            byte[] value = getValue(key);
+            if(value == null) return -1;
+            if(value.length <= dst.remaining()) {
+                dst.put(value);
+            }
+            return value.length;
+        }
+        
+        long hashCode = hash(key);
+        int index = (int)(hashCode % _dataArray.length());
+        if (index < 0) index = -index;
+        int position = dst.position();
+        
+        // Need SPIN as the address might have changed with writes or compaction
+        do {
+            int len = -1;
+            long address = _dataArray.getAddress(index);
+            try {
+                len = getInPlace(address, key, dst);
+            } catch(Exception e) {
+                _log.warn(e.getMessage());
+            }
+            
+            if(address == _dataArray.getAddress(index)) {
+                return len;
+            }
+            
+            dst.position(position);
+        } while(true);
+    }
+    
+    /**
+     * Reads the value of the specified <code>key</code> in place from the data at the specified address.
+     */
+    private int getInPlace(long address, byte[] key, ByteBuffer dst) throws IOException {
+        Segment seg = _dataArray.getSegment(address);
+        if(seg == null) return -1;
+        
+        AddressFormat addrFormat = _dataArray.getAddressFormat();
+        int segPos = addrFormat.getOffset(address);
+        int size = addrFormat.getDataSize(address);
+        int len = (size == 0) ? seg.readInt(segPos) : size;
+        
+        return ((InPlaceDataStoreHandler)_dataHandler).extractByKey(key, seg, segPos + 4, len, dst);
+    }
+    
     @Override
     public synchronized boolean put(byte[] key, byte[] value) throws Exception {
         if(value == null) return delete(key);
         
+        long startNano = _metrics.start();
+        try {
+            return putValue(key, value);
+        } finally {
+            _metrics.done(StoreMetrics.Op.PUT, startNano);
+        }
+    }
+    
+    private boolean putValue(byte[] key, byte[] value) throws Exception {
         long hashCode = hash(key);
         int index = (int)(hashCode % _dataArray.length());
         if (index < 0) index = -index;
@@ -353,6 +472,15 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
     
     @Override
     public synchronized boolean delete(byte[] key) throws Exception {
+        long startNano = _metrics.start();
+        try {
+            return deleteKey(key);
+        } finally {
+            _metrics.done(StoreMetrics.Op.DELETE, startNano);
+        }
+    }
+    
+    private boolean deleteKey(byte[] key) throws Exception {
         long hashCode = hash(key);
         int index = (int)(hashCode % _dataArray.length());
         if (index < 0) index = -index;
@@ -380,6 +508,80 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
         return false;
     }
     
+    @Override
+    public List<byte[]> getAll(List<byte[]> keys) {
+        long startNano = _metrics.start();
+        try {
+            return getAllValues(keys);
+        } finally {
+            _metrics.done(StoreMetrics.Op.GET_ALL, startNano);
+        }
+    }
+    
+    private List<byte[]> getAllValues(List<byte[]> keys) {
+        final int cnt = keys.size();
+        int[] indexes = new int[cnt];
+        int[] positions = new int[cnt];
+        
+        // Map non-null keys to array indexes
+        int num = 0;
+        for(int i = 0; i < cnt; i++) {
+            byte[] key = keys.get(i);
+            if(key != null) {
+                int index = (int)(hash(key) % _dataArray.length());
+                if (index < 0) index = -index;
+                indexes[num] = index;
+                positions[num] = i;
+                num++;
+            }
+        }
+        
+        if(num < cnt) {
+            int[] temp = new int[num];
+            System.arraycopy(indexes, 0, temp, 0, num);
+            indexes = temp;
+        }
+        
+        // Read data sorted by segment and offset
+        byte[][] dataArray = _dataArray.getAll(indexes);
+        
+        List<byte[]> values = new ArrayList<byte[]>(cnt);
+        for(int i = 0; i < cnt; i++) {
+            values.add(null);
+        }
+        
+        for(int j = 0; j < num; j++) {
+            byte[] data = dataArray[j];
+            if(data != null) {
+                values.set(positions[j], _dataHandler.extractByKey(keys.get(positions[j]), data));
+            }
+        }
+        
+        return values;
+    }
+    
+    @Override
+    public synchronized boolean putAll(Map<byte[], byte[]> map) throws Exception {
+        long startNano = _metrics.start();
+        try {
+            for(Entry<byte[], byte[]> e : map.entrySet()) {
+                byte[] key = e.getKey();
+                if(key != null) {
+                    byte[] value = e.getValue();
+                    if(value == null) {
+                        deleteKey(key);
+                    } else {
+                        putValue(key, value);
+                    }
+                }
+            }
+            
+            return true;
+        } finally {
+            _metrics.done(StoreMetrics.Op.PUT_ALL, startNano);
+        }
+    }
+    
     @Override
     public synchronized void sync() throws IOException {
         _dataArray.sync();
@@ -395,6 +597,13 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
         _dataArray.clear();
     }
     
+    /**
+     * @return <code>true</code> if this store is opened in read-only mode.
+     */
+    public final boolean isReadOnly() {
+        return _dataArray.isReadOnly();
+    }
+    
     /**
      * @return the capacity of this data store.
      */
@@ -417,6 +626,13 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
         return _dataArray;
     }
     
+    /**
+     * @return the store metrics, which is {@link StoreMetrics#DISABLED} unless metrics are enabled in the store config.
+     */
+    public final StoreMetrics getMetrics() {
+        return _metrics;
+    }
+    
     @Override
     public IndexedIterator<byte[]> keyIterator() {
         if(isOpen()) {
@@ -435,6 +651,68 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
         throw new StoreClosedException();
     }
     
+    /**
+     * Creates an iterator over the entries in this store in the order of segment and segment offset
+     * rather than in the order of index. The underlying segments are read sequentially with large
+     * read-ahead buffers, which makes full scans such as exports much faster on channel-based segments.
+     * 
+     * @return an iterator over store entries.
+     * @throws StoreClosedException if this store is not open.
+     */
+    public IndexedIterator<Entry<byte[], byte[]>> sequentialIterator() {
+        if(isOpen()) {
+            return new DataStoreSequentialIterator(_dataArray.sequentialIterator(), _dataHandler);
+        }
+        
+        throw new StoreClosedException();
+    }
+    
+    /**
+     * Creates an iterator over the entries at the specified range of indexes in the order of segment and segment offset.
+     * 
+     * @param indexStart - the start index (inclusive)
+     * @param indexEnd   - the end index (exclusive)
+     * @return an iterator over entries.
+     * @throws StoreClosedException if this store is not open.
+     */
+    public IndexedIterator<Entry<byte[], byte[]>> sequentialIterator(int indexStart, int indexEnd) {
+        if(isOpen()) {
+            return new DataStoreSequentialIterator(_dataArray.sequentialIterator(indexStart, indexEnd), _dataHandler);
+        }
+        
+        throw new StoreClosedException();
+    }
+    
+    /**
+     * Splits the indexes of this store into the specified number of ranges, each of which is scanned by its own
+     * sequential iterator. The iterators are independent of each other and can be consumed by different threads.
+     * 
+     * @param numPartitions - the number of partitions
+     * @return a list of partition iterators.
+     * @throws StoreClosedException if this store is not open.
+     */
+    public List<IndexedIterator<Entry<byte[], byte[]>>> partitionIterators(int numPartitions) {
+        List<IndexedIterator<Entry<byte[], byte[]>>> list = new ArrayList<IndexedIterator<Entry<byte[], byte[]>>>(numPartitions);
+        for(Range range : ParallelScan.partition(capacity(), numPartitions)) {
+            list.add(sequentialIterator(range.getStart(), range.getEnd()));
+        }
+        return list;
+    }
+    
+    /**
+     * Scans all entries in this store in parallel. The entries of each partition are passed to
+     * the specified handler from a task running on the specified executor.
+     * 
+     * @param handler       - the thread-safe handler of entries
+     * @param executor      - the executor for running partition scans
+     * @param numPartitions - the number of partitions, usually a small multiple of the executor threads
+     * @return the number of entries handled.
+     * @throws Exception if the handler fails on any entry. The scan is then stopped.
+     */
+    public long forEachParallel(ScanHandler<? super Entry<byte[], byte[]>> handler, ExecutorService executor, int numPartitions) throws Exception {
+        return ParallelScan.forEach(partitionIterators(numPartitions), handler, executor);
+    }
+    
     @Override
     public boolean isOpen() {
         return _dataArray.isOpen();
@@ -444,6 +722,7 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
     public synchronized void open() throws IOException {
         if(!_dataArray.isOpen()) {
             _dataArray.open();
+            _metrics.open();
         }
     }
     
@@ -451,6 +730,7 @@ public class StaticDataStore implements DataStore<byte[], byte[]> {
     public synchronized void close() throws IOException {
         if(_dataArray.isOpen()) {
             _dataArray.close();
+            _metrics.close();
         }
     }
     
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.store.cache;
+
+/**
+ * AbstractValueCache keeps track of the number of bytes occupied by a {@link ValueCache}.
+ * 
+ * @since 0.4.9
+ */
+public abstract class AbstractValueCache implements ValueCache {
+    /**
+     * The approximate number of bytes used by the cache for each entry in addition to key and value.
+     */
+    public final static int ENTRY_OVERHEAD = 64;
+    
+    protected final long _capacity;
+    protected long _size = 0;
+    protected long _evictionCount = 0;
+    
+    /**
+     * Creates a new AbstractValueCache.
+     * 
+     * @param capacity - the maximum number of bytes
+     */
+    protected AbstractValueCache(long capacity) {
+        if(capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this._capacity = capacity;
+    }
+    
+    /**
+     * Gets the number of bytes accounted for the specified <code>key</code> and <code>value</code>.
+     */
+    protected static long weigh(CacheKey key, byte[] value) {
+        return key.getBytes().length + value.length + ENTRY_OVERHEAD;
+    }
+    
+    @Override
+    public final long capacity() {
+        return _capacity;
+    }
+    
+    @Override
+    public final long size() {
+        return _size;
+    }
+    
+    @Override
+    public final long getEvictionCount() {
+        return _evictionCount;
+    }
+}
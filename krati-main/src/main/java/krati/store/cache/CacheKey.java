@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.store.cache;
+
+import java.util.Arrays;
+
+/**
+ * CacheKey wraps a byte array key with value-based equality so that it can be used in hash-based caches.
+ * 
+ * @since 0.4.9
+ */
+public final class CacheKey {
+    private final byte[] _bytes;
+    private final int _hashCode;
+    
+    /**
+     * Creates a new CacheKey. The specified <code>bytes</code> is not copied.
+     * 
+     * @param bytes - the key bytes
+     */
+    public CacheKey(byte[] bytes) {
+        this._bytes = bytes;
+        
+        // Spread the hash code so that both low and high bits are usable
+        int h = Arrays.hashCode(bytes);
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        this._hashCode = h;
+    }
+    
+    /**
+     * Gets the key bytes.
+     */
+    public byte[] getBytes() {
+        return _bytes;
+    }
+    
+    @Override
+    public int hashCode() {
+        return _hashCode;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(o instanceof CacheKey) {
+            CacheKey k = (CacheKey)o;
+            return _hashCode == k._hashCode && Arrays.equals(_bytes, k._bytes);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.store.cache;
+
+/**
+ * CachePolicy defines the eviction policies of {@link ValueCache}.
+ * 
+ * @since 0.4.9
+ */
+public enum CachePolicy {
+    /**
+     * Evicts the least recently used entries first.
+     */
+    LRU {
+        @Override
+        public ValueCache newValueCache(long capacity) {
+            return new LruValueCache(capacity);
+        }
+    },
+    
+    /**
+     * Approximates LRU using the CLOCK (second chance) algorithm, which does not reorder entries on hits.
+     */
+    CLOCK {
+        @Override
+        public ValueCache newValueCache(long capacity) {
+            return new ClockValueCache(capacity);
+        }
+    },
+    
+    /**
+     * Evicts the least recently used entries first, but admits new entries based on access frequency.
+     */
+    TINYLFU {
+        @Override
+        public ValueCache newValueCache(long capacity) {
+            return new TinyLfuValueCache(capacity);
+        }
+    };
+    
+    /**
+     * Creates a new {@link ValueCache} using this policy.
+     * 
+     * @param capacity - the maximum number of bytes
+     */
+    public abstract ValueCache newValueCache(long capacity);
+}
@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.store.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import krati.store.BatchDataStore;
+import krati.store.DataStore;
+import krati.util.IndexedIterator;
+
+/**
+ * CachedDataStore is a read-through cache of hot values above any {@link DataStore} with keys and values
+ * in the form of byte array. The cache is bounded by the number of bytes of cached keys and values.
+ * It is split into a fixed number of stripes, each guarded by its own lock and evicting entries
+ * independently according to a {@link CachePolicy}.
+ * 
+ * <p>
+ * Writes go through to the underlying store first and then invalidate the cached values.
+ * A value read from the underlying store is cached only if its stripe has not seen any
+ * invalidation since the read started, so that a stale value is never cached.
+ * Keys and values are copied in and out of the cache.
+ * 
+ * @since 0.4.9
+ */
+public class CachedDataStore implements BatchDataStore<byte[], byte[]> {
+    /**
+     * The number of cache stripes.
+     */
+    public final static int NUM_STRIPES = 16;
+    
+    private final DataStore<byte[], byte[]> _store;
+    private final CachePolicy _policy;
+    private final Stripe[] _stripes;
+    private final AtomicLong _hitCount = new AtomicLong(0);
+    private final AtomicLong _missCount = new AtomicLong(0);
+    
+    /**
+     * Creates a new CachedDataStore.
+     * 
+     * @param store    - the underlying store
+     * @param capacity - the maximum number of bytes of cached keys and values
+     * @param policy   - the cache eviction policy
+     */
+    public CachedDataStore(DataStore<byte[], byte[]> store, long capacity, CachePolicy policy) {
+        if(store == null) {
+            throw new NullPointerException("store");
+        }
+        
+        this._store = store;
+        this._policy = policy;
+        this._stripes = new Stripe[NUM_STRIPES];
+        for(int i = 0; i < NUM_STRIPES; i++) {
+            _stripes[i] = new Stripe(policy.newValueCache(capacity / NUM_STRIPES));
+        }
+    }
+    
+    /**
+     * Gets the underlying store.
+     */
+    public final DataStore<byte[], byte[]> getStore() {
+        return _store;
+    }
+    
+    /**
+     * Gets the cache eviction policy.
+     */
+    public final CachePolicy getPolicy() {
+        return _policy;
+    }
+    
+    private Stripe getStripe(CacheKey key) {
+        return _stripes[(key.hashCode() >>> 16) & (NUM_STRIPES - 1)];
+    }
+    
+    /**
+     * Looks up the cache for the specified <code>key</code>.
+     * 
+     * @return a copy of the cached value, or <code>null</code> upon a cache miss.
+     */
+    private byte[] lookup(CacheKey key) {
+        Stripe stripe = getStripe(key);
+        byte[] value;
+        synchronized(stripe) {
+            value = stripe.cache.get(key);
+        }
+        
+        if(value == null) {
+            _missCount.incrementAndGet();
+            return null;
+        }
+        
+        _hitCount.incrementAndGet();
+        return value.clone();
+    }
+    
+    /**
+     * Caches the specified <code>value</code> read from the underlying store unless
+     * the stripe of the specified <code>key</code> has been invalidated since <code>version</code>.
+     */
+    private void populate(CacheKey key, byte[] value, long version) {
+        if(value == null) return;
+        
+        CacheKey k = new CacheKey(key.getBytes().clone());
+        byte[] v = value.clone();
+        
+        Stripe stripe = getStripe(key);
+        synchronized(stripe) {
+            if(stripe.version == version) {
+                stripe.cache.put(k, v);
+            }
+        }
+    }
+    
+    private long getVersion(CacheKey key) {
+        Stripe stripe = getStripe(key);
+        synchronized(stripe) {
+            return stripe.version;
+        }
+    }
+    
+    private void invalidate(byte[] key) {
+        CacheKey k = new CacheKey(key);
+        Stripe stripe = getStripe(k);
+        synchronized(stripe) {
+            stripe.cache.remove(k);
+            stripe.version++;
+        }
+    }
+    
+    private void invalidateAll() {
+        for(Stripe stripe : _stripes) {
+            synchronized(stripe) {
+                stripe.cache.clear();
+                stripe.version++;
+            }
+        }
+    }
+    
+    @Override
+    public int capacity() {
+        return _store.capacity();
+    }
+    
+    @Override
+    public int getLength(byte[] key) {
+        if(key == null) return -1;
+        
+        CacheKey k = new CacheKey(key);
+        Stripe stripe = getStripe(k);
+        synchronized(stripe) {
+            byte[] value = stripe.cache.get(k);
+            if(value != null) {
+                return value.length;
+            }
+        }
+        
+        return _store.getLength(key);
+    }
+    
+    @Override
+    public byte[] get(byte[] key) {
+        if(key == null) return null;
+        
+        CacheKey k = new CacheKey(key);
+        byte[] value = lookup(k);
+        if(value != null) {
+            return value;
+        }
+        
+        long version = getVersion(k);
+        value = _store.get(key);
+        populate(k, value, version);
+        return value;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<byte[]> getAll(List<byte[]> keys) {
+        final int cnt = keys.size();
+        List<byte[]> values = new ArrayList<byte[]>(cnt);
+        List<byte[]> missKeys = new ArrayList<byte[]>();
+        int[] missPositions = new int[cnt];
+        long[] missVersions = new long[cnt];
+        
+        for(int i = 0; i < cnt; i++) {
+            byte[] key = keys.get(i);
+            byte[] value = null;
+            
+            if(key != null) {
+                CacheKey k = new CacheKey(key);
+                value = lookup(k);
+                if(value == null) {
+                    missPositions[missKeys.size()] = i;
+                    missVersions[missKeys.size()] = getVersion(k);
+                    missKeys.add(key);
+                }
+            }
+            
+            values.add(value);
+        }
+        
+        if(missKeys.size() > 0) {
+            List<byte[]> missValues;
+            if(_store instanceof BatchDataStore) {
+                missValues = ((BatchDataStore<byte[], byte[]>)_store).getAll(missKeys);
+            } else {
+                missValues = new ArrayList<byte[]>(missKeys.size());
+                for(byte[] key : missKeys) {
+                    missValues.add(_store.get(key));
+                }
+            }
+            
+            for(int j = 0, num = missKeys.size(); j < num; j++) {
+                byte[] value = missValues.get(j);
+                values.set(missPositions[j], value);
+                populate(new CacheKey(missKeys.get(j)), value, missVersions[j]);
+            }
+        }
+        
+        return values;
+    }
+    
+    @Override
+    public boolean put(byte[] key, byte[] value) throws Exception {
+        if(value == null) {
+            return delete(key);
+        }
+        
+        try {
+            return _store.put(key, value);
+        } finally {
+            invalidate(key);
+        }
+    }
+    
+    @Override
+    public boolean delete(byte[] key) throws Exception {
+        try {
+            return _store.delete(key);
+        } finally {
+            invalidate(key);
+        }
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean putAll(Map<byte[], byte[]> map) throws Exception {
+        try {
+            if(_store instanceof BatchDataStore) {
+                return ((BatchDataStore<byte[], byte[]>)_store).putAll(map);
+            }
+            
+            for(Entry<byte[], byte[]> e : map.entrySet()) {
+                if(e.getKey() != null) {
+                    _store.put(e.getKey(), e.getValue());
+                }
+            }
+            return true;
+        } finally {
+            for(byte[] key : map.keySet()) {
+                if(key != null) {
+                    invalidate(key);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void sync() throws IOException {
+        _store.sync();
+    }
+    
+    @Override
+    public void persist() throws IOException {
+        _store.persist();
+    }
+    
+    @Override
+    public void clear() throws IOException {
+        try {
+            _store.clear();
+        } finally {
+            invalidateAll();
+        }
+    }
+    
+    @Override
+    public IndexedIterator<byte[]> keyIterator() {
+        return _store.keyIterator();
+    }
+    
+    @Override
+    public IndexedIterator<Entry<byte[], byte[]>> iterator() {
+        return _store.iterator();
+    }
+    
+    @Override
+    public boolean isOpen() {
+        return _store.isOpen();
+    }
+    
+    @Override
+    public void open() throws IOException {
+        _store.open();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            _store.close();
+        } finally {
+            invalidateAll();
+        }
+    }
+    
+    /**
+     * Gets the number of lookups served from the cache.
+     */
+    public long getHitCount() {
+        return _hitCount.get();
+    }
+    
+    /**
+     * Gets the number of lookups not served from the cache.
+     */
+    public long getMissCount() {
+        return _missCount.get();
+    }
+    
+    /**
+     * Gets the ratio of lookups served from the cache.
+     */
+    public double getHitRatio() {
+        long hits = _hitCount.get();
+        long total = hits + _missCount.get();
+        return total == 0 ? 0 : (double)hits / total;
+    }
+    
+    /**
+     * Resets the hit and miss counters.
+     */
+    public void resetStats() {
+        _hitCount.set(0);
+        _missCount.set(0);
+    }
+    
+    /**
+     * Gets the number of entries evicted from the cache.
+     */
+    public long getEvictionCount() {
+        long cnt = 0;
+        for(Stripe stripe : _stripes) {
+            synchronized(stripe) {
+                cnt += stripe.cache.getEvictionCount();
+            }
+        }
+        return cnt;
+    }
+    
+    /**
+     * Gets the maximum number of bytes of the cache.
+     */
+    public long getCacheCapacity() {
+        long capacity = 0;
+        for(Stripe stripe : _stripes) {
+            capacity += stripe.cache.capacity();
+        }
+        return capacity;
+    }
+    
+    /**
+     * Gets the number of bytes occupied by the cached entries.
+     */
+    public long getCacheSize() {
+        long size = 0;
+        for(Stripe stripe : _stripes) {
+            synchronized(stripe) {
+                size += stripe.cache.size();
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * Gets the number of cached entries.
+     */
+    public int getCacheCount() {
+        int cnt = 0;
+        for(Stripe stripe : _stripes) {
+            synchronized(stripe) {
+                cnt += stripe.cache.count();
+            }
+        }
+        return cnt;
+    }
+    
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{policy=" + _policy + " capacity=" + getCacheCapacity() +
+               " size=" + getCacheSize() + " count=" + getCacheCount() + " hits=" + getHitCount() +
+               " misses=" + getMissCount() + "}";
+    }
+    
+    /**
+     * Stripe is a cache guarded by its own monitor. The version is advanced on every invalidation.
+     */
+    private final static class Stripe {
+        final ValueCache cache;
+        long version = 0;
+        
+        Stripe(ValueCache cache) {
+            this.cache = cache;
+        }
+    }
+}
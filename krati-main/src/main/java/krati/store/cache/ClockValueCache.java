@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.store.cache;
+
+import java.util.HashMap;
+
+/**
+ * ClockValueCache approximates LRU using the CLOCK algorithm. Entries are kept in a ring and a hit only
+ * sets the reference bit of an entry without any reordering. On eviction, the clock hand sweeps the ring,
+ * giving referenced entries a second chance and evicting the first entry not referenced since the last sweep.
+ * 
+ * @since 0.4.9
+ */
+public class ClockValueCache extends AbstractValueCache {
+    private final HashMap<CacheKey, Node> _map = new HashMap<CacheKey, Node>();
+    private Node _hand = null;
+    
+    /**
+     * Creates a new ClockValueCache.
+     * 
+     * @param capacity - the maximum number of bytes
+     */
+    public ClockValueCache(long capacity) {
+        super(capacity);
+    }
+    
+    @Override
+    public byte[] get(CacheKey key) {
+        Node node = _map.get(key);
+        if(node != null) {
+            node.referenced = true;
+            return node.value;
+        }
+        return null;
+    }
+    
+    @Override
+    public void put(CacheKey key, byte[] value) {
+        remove(key);
+        
+        long weight = weigh(key, value);
+        if(weight > _capacity) {
+            return;
+        }
+        
+        while(_size + weight > _capacity && _hand != null) {
+            evict();
+        }
+        
+        Node node = new Node(key, value, weight);
+        if(_hand == null) {
+            node.prev = node;
+            node.next = node;
+            _hand = node;
+        } else {
+            // Insert right behind the hand so that the new entry is swept last
+            node.next = _hand;
+            node.prev = _hand.prev;
+            _hand.prev.next = node;
+            _hand.prev = node;
+        }
+        
+        _map.put(key, node);
+        _size += weight;
+    }
+    
+    private void evict() {
+        while(_hand.referenced) {
+            _hand.referenced = false;
+            _hand = _hand.next;
+        }
+        
+        Node victim = _hand;
+        _map.remove(victim.key);
+        unlink(victim);
+        _evictionCount++;
+    }
+    
+    private void unlink(Node node) {
+        if(node.next == node) {
+            _hand = null;
+        } else {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            if(_hand == node) {
+                _hand = node.next;
+            }
+        }
+        _size -= node.weight;
+    }
+    
+    @Override
+    public boolean remove(CacheKey key) {
+        Node node = _map.remove(key);
+        if(node != null) {
+            unlink(node);
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public void clear() {
+        _map.clear();
+        _hand = null;
+        _size = 0;
+    }
+    
+    @Override
+    public int count() {
+        return _map.size();
+    }
+    
+    private final static class Node {
+        final CacheKey key;
+        final byte[] value;
+        final long weight;
+        boolean referenced = false;
+        Node prev;
+        Node next;
+        
+        Node(CacheKey key, byte[] value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.store.cache;
+
+/**
+ * FrequencySketch is a count-min sketch of 4-bit counters estimating the access frequency of keys.
+ * All counters are halved periodically so that the sketch ages out stale popularity.
+ * 
+ * @since 0.4.9
+ */
+final class FrequencySketch {
+    private final static int MAX_COUNT = 15;
+    private final static int[] SEEDS = { 0x97cb3127, 0xbe98f273, 0x2f905b57, 0x6a2a4c73 };
+    
+    private final byte[] _counters;
+    private final int _mask;
+    private final int _sampleSize;
+    private int _additions = 0;
+    
+    /**
+     * Creates a new FrequencySketch.
+     * 
+     * @param width - the minimum number of counters, which is rounded up to a power of two no less than 1024.
+     */
+    FrequencySketch(int width) {
+        int size = 1024;
+        while(size < width && size < (1 << 24)) {
+            size <<= 1;
+        }
+        
+        this._counters = new byte[size];
+        this._mask = size - 1;
+        this._sampleSize = size * 10;
+    }
+    
+    private int indexOf(int hashCode, int i) {
+        int h = (hashCode + SEEDS[i]) * SEEDS[i];
+        h ^= (h >>> 16);
+        return h & _mask;
+    }
+    
+    /**
+     * Increments the frequency of the key of the specified <code>hashCode</code>.
+     */
+    void increment(int hashCode) {
+        boolean added = false;
+        for(int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hashCode, i);
+            if(_counters[index] < MAX_COUNT) {
+                _counters[index]++;
+                added = true;
+            }
+        }
+        
+        if(added && ++_additions >= _sampleSize) {
+            reset();
+        }
+    }
+    
+    /**
+     * Estimates the frequency of the key of the specified <code>hashCode</code>.
+     */
+    int frequency(int hashCode) {
+        int freq = MAX_COUNT;
+        for(int i = 0; i < SEEDS.length; i++) {
+            freq = Math.min(freq, _counters[indexOf(hashCode, i)]);
+        }
+        return freq;
+    }
+    
+    /**
+     * Halves all the counters.
+     */
+    private void reset() {
+        for(int i = 0; i < _counters.length; i++) {
+            _counters[i] >>>= 1;
+        }
+        _additions >>>= 1;
+    }
+}
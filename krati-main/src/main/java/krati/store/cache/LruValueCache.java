@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.store.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+/**
+ * LruValueCache evicts the least recently used entries first.
+ * 
+ * @since 0.4.9
+ */
+public class LruValueCache extends AbstractValueCache {
+    private final LinkedHashMap<CacheKey, byte[]> _map;
+    
+    /**
+     * Creates a new LruValueCache.
+     * 
+     * @param capacity - the maximum number of bytes
+     */
+    public LruValueCache(long capacity) {
+        super(capacity);
+        this._map = new LinkedHashMap<CacheKey, byte[]>(16, 0.75f, true);
+    }
+    
+    @Override
+    public byte[] get(CacheKey key) {
+        return _map.get(key);
+    }
+    
+    @Override
+    public void put(CacheKey key, byte[] value) {
+        remove(key);
+        
+        long weight = weigh(key, value);
+        if(weight > _capacity) {
+            return;
+        }
+        
+        _map.put(key, value);
+        _size += weight;
+        
+        // Evict from the least recently used end
+        Iterator<Entry<CacheKey, byte[]>> iter = _map.entrySet().iterator();
+        while(_size > _capacity && iter.hasNext()) {
+            Entry<CacheKey, byte[]> e = iter.next();
+            _size -= weigh(e.getKey(), e.getValue());
+            _evictionCount++;
+            iter.remove();
+        }
+    }
+    
+    @Override
+    public boolean remove(CacheKey key) {
+        byte[] value = _map.remove(key);
+        if(value != null) {
+            _size -= weigh(key, value);
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public void clear() {
+        _map.clear();
+        _size = 0;
+    }
+    
+    @Override
+    public int count() {
+        return _map.size();
+    }
+}
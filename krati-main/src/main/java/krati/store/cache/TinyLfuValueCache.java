@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.store.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * TinyLfuValueCache is an LRU cache guarded by a TinyLFU admission policy. The access frequency of
+ * all keys, cached or not, is estimated by a {@link FrequencySketch}. A new entry is admitted only if
+ * it is accessed more frequently than each of the least recently used entries it would evict.
+ * This keeps one-hit wonders of a scan from flushing out hot entries.
+ * 
+ * @since 0.4.9
+ */
+public class TinyLfuValueCache extends AbstractValueCache {
+    /**
+     * The expected average number of bytes per entry, which determines the width of the sketch.
+     */
+    private final static int AVG_ENTRY_SIZE = 256;
+    
+    private final LinkedHashMap<CacheKey, byte[]> _map;
+    private final FrequencySketch _sketch;
+    
+    /**
+     * Creates a new TinyLfuValueCache.
+     * 
+     * @param capacity - the maximum number of bytes
+     */
+    public TinyLfuValueCache(long capacity) {
+        super(capacity);
+        this._map = new LinkedHashMap<CacheKey, byte[]>(16, 0.75f, true);
+        this._sketch = new FrequencySketch((int)Math.min(1 << 24, capacity / AVG_ENTRY_SIZE));
+    }
+    
+    @Override
+    public byte[] get(CacheKey key) {
+        _sketch.increment(key.hashCode());
+        return _map.get(key);
+    }
+    
+    @Override
+    public void put(CacheKey key, byte[] value) {
+        boolean replace = remove(key);
+        
+        long weight = weigh(key, value);
+        if(weight > _capacity) {
+            return;
+        }
+        
+        long excess = _size + weight - _capacity;
+        if(excess > 0) {
+            int freq = _sketch.frequency(key.hashCode());
+            
+            // Collect victims from the least recently used end
+            List<CacheKey> victims = new ArrayList<CacheKey>();
+            Iterator<Entry<CacheKey, byte[]>> iter = _map.entrySet().iterator();
+            while(excess > 0 && iter.hasNext()) {
+                Entry<CacheKey, byte[]> e = iter.next();
+                
+                // Reject the new entry unless it is more popular than every victim
+                if(!replace && _sketch.frequency(e.getKey().hashCode()) >= freq) {
+                    return;
+                }
+                
+                victims.add(e.getKey());
+                excess -= weigh(e.getKey(), e.getValue());
+            }
+            
+            for(CacheKey victim : victims) {
+                remove(victim);
+                _evictionCount++;
+            }
+        }
+        
+        _map.put(key, value);
+        _size += weight;
+    }
+    
+    @Override
+    public boolean remove(CacheKey key) {
+        byte[] value = _map.remove(key);
+        if(value != null) {
+            _size -= weigh(key, value);
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public void clear() {
+        _map.clear();
+        _size = 0;
+    }
+    
+    @Override
+    public int count() {
+        return _map.size();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.store.cache;
+
+/**
+ * ValueCache defines a bounded cache of values, which is measured by the number of bytes of
+ * cached keys and values rather than the number of entries. The eviction policy is up to
+ * the implementation. A ValueCache is not thread-safe and must be guarded by its user.
+ * 
+ * @since 0.4.9
+ */
+public interface ValueCache {
+    
+    /**
+     * Gets the value cached for the specified <code>key</code>.
+     * 
+     * @param key - the key
+     * @return the cached value, or <code>null</code> if the key is not cached.
+     */
+    public byte[] get(CacheKey key);
+    
+    /**
+     * Caches the specified <code>value</code> for the specified <code>key</code>,
+     * which may evict other entries or be rejected altogether by the eviction policy.
+     * 
+     * @param key   - the key
+     * @param value - the value
+     */
+    public void put(CacheKey key, byte[] value);
+    
+    /**
+     * Removes the specified <code>key</code> from this cache.
+     * 
+     * @param key - the key
+     * @return <code>true</code> if the key was cached.
+     */
+    public boolean remove(CacheKey key);
+    
+    /**
+     * Removes all the entries from this cache.
+     */
+    public void clear();
+    
+    /**
+     * Gets the maximum number of bytes of this cache.
+     */
+    public long capacity();
+    
+    /**
+     * Gets the number of bytes occupied by the entries of this cache.
+     */
+    public long size();
+    
+    /**
+     * Gets the number of entries of this cache.
+     */
+    public int count();
+    
+    /**
+     * Gets the number of entries evicted from this cache.
+     */
+    public long getEvictionCount();
+}
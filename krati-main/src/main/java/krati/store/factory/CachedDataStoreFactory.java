@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package krati.store.factory;
+
+import java.io.IOException;
+
+import krati.core.StoreConfig;
+import krati.core.StoreFactory;
+import krati.store.DataStore;
+import krati.store.cache.CachedDataStore;
+
+/**
+ * CachedDataStoreFactory creates a {@link DataStore} using another {@link DataStoreFactory} and wraps it
+ * in a read-through {@link CachedDataStore} if the value cache is enabled by the store configuration
+ * (i.e. <code>krati.store.cache.size</code> is greater than 0).
+ * 
+ * @since 0.4.9
+ */
+public class CachedDataStoreFactory implements DataStoreFactory {
+    private final DataStoreFactory _factory;
+    
+    /**
+     * Creates a new CachedDataStoreFactory.
+     * 
+     * @param factory - the factory for creating the underlying store
+     */
+    public CachedDataStoreFactory(DataStoreFactory factory) {
+        this._factory = factory;
+    }
+    
+    /**
+     * Creates a {@link DataStore} with keys and values in the form of byte array.
+     * 
+     * @param config - the store configuration
+     * @return a CachedDataStore if the value cache is enabled. Otherwise, the store created by the underlying factory.
+     * @throws IOException if the store cannot be created.
+     */
+    @Override
+    public DataStore<byte[], byte[]> create(StoreConfig config) throws IOException {
+        DataStore<byte[], byte[]> store = _factory.create(config);
+        if(config.getValueCacheSizeMB() > 0) {
+            return StoreFactory.createCachedDataStore(store, config);
+        }
+        return store;
+    }
+}
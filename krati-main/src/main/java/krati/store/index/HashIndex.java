@@ -17,6 +17,7 @@
 package krati.store.index;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map.Entry;
 
 import org.apache.log4j.Logger;
@@ -37,6 +38,7 @@ import krati.util.IndexedIterator;
  * 06/04, 2011 - Added support for Closeable <br/>
  * 06/28, 2011 - Added constructor using StoreConfig <br/>
  * 08/21, 2011 - code cleanup <br/>
+ * 10/17, 2026 - Added partitionIterators for parallel scans <br/>
  */
 public class HashIndex implements Index {
     private final static Logger _logger = Logger.getLogger(HashIndex.class);
@@ -93,6 +95,17 @@ public class HashIndex implements Index {
         return _store.iterator();
     }
     
+    /**
+     * Splits this index into the specified number of partitions for parallel scans.
+     * 
+     * @param numPartitions - the number of partitions
+     * @return a list of partition iterators.
+     * @see DynamicDataStore#partitionIterators(int)
+     */
+    public List<IndexedIterator<Entry<byte[], byte[]>>> partitionIterators(int numPartitions) {
+        return _store.partitionIterators(numPartitions);
+    }
+    
     @Override
     public boolean isOpen() {
         return _store.isOpen();
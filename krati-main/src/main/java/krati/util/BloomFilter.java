@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BloomFilter is a thread-safe Bloom filter over 64-bit key hash codes. Each key sets <code>k</code> bits
+ * derived by double hashing from its hash code. Bits are set by compare-and-swap so that concurrent
+ * writers never lose bits. A Bloom filter never yields false negatives but may yield false positives.
+ * Bits cannot be cleared on removal of a key, which simply adds to the false positive probability.
+ * 
+ * @since 0.4.9
+ */
+public final class BloomFilter {
+    private final static int MAGIC = 0x4B424C4D;  // KBLM
+    private final static int VERSION = 1;
+    
+    private final AtomicLongArray _words;
+    private final long _numBits;
+    private final int _numHashes;
+    private final long _expectedInsertions;
+    private final AtomicLong _insertions;
+    
+    /**
+     * Creates a new BloomFilter.
+     * 
+     * @param expectedInsertions - the expected number of distinct keys
+     * @param fpp                - the expected false positive probability (between 0 and 1)
+     */
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if(fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Invalid fpp: " + fpp);
+        }
+        
+        this._expectedInsertions = Math.max(1, expectedInsertions);
+        long numBits = (long)Math.ceil(-_expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int numWords = (int)Math.min(Integer.MAX_VALUE, Math.max(1, (numBits + 63) >>> 6));
+        
+        this._words = new AtomicLongArray(numWords);
+        this._numBits = ((long)numWords) << 6;
+        this._numHashes = Math.max(1, (int)Math.round((double)_numBits / _expectedInsertions * Math.log(2)));
+        this._insertions = new AtomicLong(0);
+    }
+    
+    private BloomFilter(long[] words, int numHashes, long expectedInsertions, long insertions) {
+        this._words = new AtomicLongArray(words);
+        this._numBits = ((long)words.length) << 6;
+        this._numHashes = numHashes;
+        this._expectedInsertions = expectedInsertions;
+        this._insertions = new AtomicLong(insertions);
+    }
+    
+    /**
+     * Adds the key of the specified hash code to this BloomFilter.
+     * 
+     * @param hashCode - the 64-bit hash code of a key
+     * @return <code>true</code> if any bit has changed, namely the key was definitely absent.
+     */
+    public boolean add(long hashCode) {
+        long h1 = mix(hashCode);
+        long h2 = mix(h1 ^ hashCode) | 1;
+        boolean changed = false;
+        
+        for(int i = 0; i < _numHashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % _numBits;
+            int w = (int)(bit >>> 6);
+            long mask = 1L << bit;
+            
+            long word;
+            while(((word = _words.get(w)) & mask) == 0) {
+                if(_words.compareAndSet(w, word, word | mask)) {
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        
+        if(changed) {
+            _insertions.incrementAndGet();
+        }
+        return changed;
+    }
+    
+    /**
+     * Tests whether the key of the specified hash code might have been added to this BloomFilter.
+     * 
+     * @param hashCode - the 64-bit hash code of a key
+     * @return <code>false</code> if the key was definitely never added.
+     */
+    public boolean mightContain(long hashCode) {
+        long h1 = mix(hashCode);
+        long h2 = mix(h1 ^ hashCode) | 1;
+        
+        for(int i = 0; i < _numHashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % _numBits;
+            if((_words.get((int)(bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Clears all the bits of this BloomFilter.
+     */
+    public void clear() {
+        for(int i = 0, cnt = _words.length(); i < cnt; i++) {
+            _words.set(i, 0);
+        }
+        _insertions.set(0);
+    }
+    
+    /**
+     * Gets the number of bits of this BloomFilter.
+     */
+    public long getNumBits() {
+        return _numBits;
+    }
+    
+    /**
+     * Gets the number of bits set per key.
+     */
+    public int getNumHashes() {
+        return _numHashes;
+    }
+    
+    /**
+     * Gets the expected number of distinct keys, for which this BloomFilter was sized.
+     */
+    public long getExpectedInsertions() {
+        return _expectedInsertions;
+    }
+    
+    /**
+     * Gets the approximate number of distinct keys added to this BloomFilter.
+     */
+    public long getInsertions() {
+        return _insertions.get();
+    }
+    
+    /**
+     * Tests whether the number of distinct keys added exceeds the expected number of keys,
+     * namely the false positive probability has grown beyond the one it was sized for.
+     */
+    public boolean isSaturated() {
+        return _insertions.get() > _expectedInsertions;
+    }
+    
+    /**
+     * Saves this BloomFilter to the specified file. The file is first written to a temporary file
+     * and then renamed over the existing file so that a partially written file is never observed.
+     * Where such a rename is not supported, the existing file is kept as a backup until the new
+     * file is in place.
+     * 
+     * @param file - the file to save to
+     * @param scn  - the system change number, up to which all keys have been added to this BloomFilter
+     * @throws IOException if this BloomFilter cannot be saved.
+     */
+    public void save(File file, long scn) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        FileOutputStream fos = new FileOutputStream(tmpFile);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16));
+        try {
+            int numWords = _words.length();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(scn);
+            out.writeInt(_numHashes);
+            out.writeLong(_expectedInsertions);
+            out.writeLong(_insertions.get());
+            out.writeInt(numWords);
+            for(int i = 0; i < numWords; i++) {
+                out.writeLong(_words.get(i));
+            }
+            out.flush();
+            fos.getFD().sync();
+        } finally {
+            out.close();
+        }
+        
+        // Rename atomically over the existing file (POSIX)
+        if(tmpFile.renameTo(file)) {
+            return;
+        }
+        
+        File bakFile = new File(file.getPath() + ".bak");
+        if(bakFile.exists() && !bakFile.delete()) {
+            throw new IOException("Failed to delete " + bakFile.getPath());
+        }
+        if(file.exists() && !file.renameTo(bakFile)) {
+            throw new IOException("Failed to rename " + file.getPath() + " to " + bakFile.getPath());
+        }
+        if(!tmpFile.renameTo(file)) {
+            bakFile.renameTo(file);
+            throw new IOException("Failed to rename " + tmpFile.getPath() + " to " + file.getPath());
+        }
+        bakFile.delete();
+    }
+    
+    /**
+     * Loads a BloomFilter from the specified file.
+     * 
+     * @param file - the file to load from
+     * @param scn  - the expected system change number
+     * @return the BloomFilter loaded, or <code>null</code> if the file does not exist,
+     *         is not a valid BloomFilter file or was saved at a different <code>scn</code>.
+     * @throws IOException if the file cannot be read.
+     */
+    public static BloomFilter load(File file, long scn) throws IOException {
+        if(!file.exists()) {
+            return null;
+        }
+        
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        try {
+            if(file.length() < 40 || in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != scn) {
+                return null;
+            }
+            
+            int numHashes = in.readInt();
+            long expectedInsertions = in.readLong();
+            long insertions = in.readLong();
+            int numWords = in.readInt();
+            if(numHashes < 1 || numWords < 1 || file.length() != 40 + ((long)numWords << 3)) {
+                return null;
+            }
+            
+            long[] words = new long[numWords];
+            for(int i = 0; i < numWords; i++) {
+                words[i] = in.readLong();
+            }
+            
+            return new BloomFilter(words, numHashes, expectedInsertions, insertions);
+        } finally {
+            in.close();
+        }
+    }
+    
+    /**
+     * Mixes the bits of the specified value using the MurmurHash3 64-bit finalizer.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * FreeIndexBitmap keeps track of free indexes in an array with one bit per index. Indexes are
+ * allocated and released by compare-and-swap on 64-bit words, so that {@link #allocate()} and
+ * {@link #release(int)} are lock-free. Allocation starts from a cursor that is moved back upon
+ * release of a lower index, so free indexes are reused from the low end of the array and the
+ * cost of allocation is amortized O(1).
+ * 
+ * <p>
+ * {@link #grow(int)} and {@link #clear()} are not lock-free and must be externally synchronized
+ * with all other mutating methods.
+ * 
+ * @since 0.4.9
+ */
+public final class FreeIndexBitmap {
+    private volatile AtomicLongArray _words;
+    private volatile int _length;
+    private final AtomicInteger _freeCount = new AtomicInteger(0);
+    private final AtomicInteger _cursor = new AtomicInteger(0);
+    
+    /**
+     * Creates a new FreeIndexBitmap with all indexes in use.
+     * 
+     * @param length - the number of indexes
+     */
+    public FreeIndexBitmap(int length) {
+        if(length < 0) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        this._length = length;
+        this._words = new AtomicLongArray(numWords(length));
+    }
+    
+    private static int numWords(int length) {
+        return (length + 63) >>> 6;
+    }
+    
+    /**
+     * @return the number of indexes tracked by this bitmap.
+     */
+    public int length() {
+        return _length;
+    }
+    
+    /**
+     * @return the number of free indexes.
+     */
+    public int freeCount() {
+        return _freeCount.get();
+    }
+    
+    /**
+     * @return <code>true</code> if the specified index is free.
+     */
+    public boolean isFree(int index) {
+        if(index < 0 || index >= _length) {
+            return false;
+        }
+        return (_words.get(index >>> 6) & (1L << index)) != 0;
+    }
+    
+    /**
+     * Allocates a free index and marks it in use.
+     * 
+     * @return the allocated index, or <code>-1</code> if there are no free indexes.
+     */
+    public int allocate() {
+        AtomicLongArray words = _words;
+        int numWords = words.length();
+        int start = _cursor.get();
+        if(start >= numWords) {
+            start = 0;
+        }
+        
+        for(int n = 0; n < numWords; n++) {
+            int w = start + n;
+            if(w >= numWords) {
+                w -= numWords;
+            }
+            
+            long word;
+            while((word = words.get(w)) != 0) {
+                long bit = Long.lowestOneBit(word);
+                long newWord = word & ~bit;
+                if(words.compareAndSet(w, word, newWord)) {
+                    _freeCount.decrementAndGet();
+                    
+                    // Skip the word from now on if it has no more free indexes
+                    int next = (newWord == 0) ? w + 1 : w;
+                    if(next != start) {
+                        _cursor.set(next);
+                    }
+                    return (w << 6) + Long.numberOfTrailingZeros(bit);
+                }
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Marks the specified index free.
+     * 
+     * @param index - the index to release
+     * @return <code>true</code> if the index was in use.
+     */
+    public boolean release(int index) {
+        if(index < 0 || index >= _length) {
+            return false;
+        }
+        
+        AtomicLongArray words = _words;
+        int w = index >>> 6;
+        long bit = 1L << index;
+        long word;
+        do {
+            word = words.get(w);
+            if((word & bit) != 0) {
+                return false;
+            }
+        } while(!words.compareAndSet(w, word, word | bit));
+        
+        _freeCount.incrementAndGet();
+        
+        // Move the cursor back to reuse low indexes first
+        int c;
+        while(w < (c = _cursor.get()) && !_cursor.compareAndSet(c, w));
+        return true;
+    }
+    
+    /**
+     * Marks the specified index in use.
+     * 
+     * @param index - the index to acquire
+     * @return <code>true</code> if the index was free.
+     */
+    public boolean acquire(int index) {
+        if(index < 0 || index >= _length) {
+            return false;
+        }
+        
+        AtomicLongArray words = _words;
+        int w = index >>> 6;
+        long bit = 1L << index;
+        long word;
+        do {
+            word = words.get(w);
+            if((word & bit) == 0) {
+                return false;
+            }
+        } while(!words.compareAndSet(w, word, word & ~bit));
+        
+        _freeCount.decrementAndGet();
+        return true;
+    }
+    
+    /**
+     * Grows this bitmap to the specified length. New indexes are in use.
+     * 
+     * @param newLength - the new number of indexes
+     */
+    public void grow(int newLength) {
+        if(newLength <= _length) {
+            return;
+        }
+        
+        AtomicLongArray words = _words;
+        int numWords = numWords(newLength);
+        if(numWords > words.length()) {
+            AtomicLongArray newWords = new AtomicLongArray(numWords);
+            for(int i = 0, cnt = words.length(); i < cnt; i++) {
+                newWords.set(i, words.get(i));
+            }
+            _words = newWords;
+        }
+        _length = newLength;
+    }
+    
+    /**
+     * Marks all indexes in use.
+     */
+    public void clear() {
+        _words = new AtomicLongArray(numWords(_length));
+        _freeCount.set(0);
+        _cursor.set(0);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.util;
+
+/**
+ * Murmur3Hash64 is a port of MurmurHash3_x64_128 (https://github.com/aappleby/smhasher)
+ * which returns the first 64 bits of the 128-bit hash.
+ * 
+ * <p>
+ * Keys are consumed sixteen bytes at a time as two little-endian words. Unlike
+ * {@link MurmurHashFunction}, which is MurmurHash 2.0 over 32-bit words, the result
+ * carries 64 bits of entropy.
+ * </p>
+ * 
+ * @since 0.4.9
+ */
+public class Murmur3Hash64 implements HashFunction<byte[]> {
+    private final static long C1 = 0x87C37B91114253D5L;
+    private final static long C2 = 0x4CF5AD432745937FL;
+    
+    private final int _seed;
+    
+    /**
+     * Creates a Murmur3Hash64 with the seed <code>0</code>.
+     */
+    public Murmur3Hash64() {
+        this(0);
+    }
+    
+    /**
+     * Creates a Murmur3Hash64 with the specified seed.
+     * 
+     * @param seed - the hash seed
+     */
+    public Murmur3Hash64(int seed) {
+        this._seed = seed;
+    }
+    
+    /**
+     * @return the hash seed.
+     */
+    public final int getSeed() {
+        return _seed;
+    }
+    
+    @Override
+    public final long hash(byte[] key) {
+        long hash = hash(key, 0, key.length, _seed);
+        return (hash == HashFunction.NON_HASH_CODE) ? HashFunction.MAX_HASH_CODE : hash;
+    }
+    
+    /**
+     * Computes the first 64 bits of MurmurHash3_x64_128 of a byte range.
+     * 
+     * @param data   - the bytes to hash
+     * @param offset - the offset of the first byte
+     * @param length - the number of bytes to hash
+     * @param seed   - the hash seed
+     * @return the 64-bit hash code.
+     */
+    public static long hash(byte[] data, int offset, int length, int seed) {
+        final int end = offset + length;
+        final int limit = offset + (length & ~15);
+        long h1 = seed & 0xFFFFFFFFL;
+        long h2 = seed & 0xFFFFFFFFL;
+        int pos = offset;
+        
+        for(; pos < limit; pos += 16) {
+            long k1 = Numbers.longValueLE(data, pos);
+            long k2 = Numbers.longValueLE(data, pos + 8);
+            
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52DCE729;
+            
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495AB5;
+        }
+        
+        long k1 = 0;
+        long k2 = 0;
+        switch(end - pos) {
+        case 15: k2 ^= (long)(data[pos + 14] & 0xFF) << 48;
+        case 14: k2 ^= (long)(data[pos + 13] & 0xFF) << 40;
+        case 13: k2 ^= (long)(data[pos + 12] & 0xFF) << 32;
+        case 12: k2 ^= (long)(data[pos + 11] & 0xFF) << 24;
+        case 11: k2 ^= (long)(data[pos + 10] & 0xFF) << 16;
+        case 10: k2 ^= (long)(data[pos +  9] & 0xFF) << 8;
+        case  9: k2 ^= (long)(data[pos +  8] & 0xFF);
+                 h2 ^= mixK2(k2);
+        case  8: k1 ^= (long)(data[pos +  7] & 0xFF) << 56;
+        case  7: k1 ^= (long)(data[pos +  6] & 0xFF) << 48;
+        case  6: k1 ^= (long)(data[pos +  5] & 0xFF) << 40;
+        case  5: k1 ^= (long)(data[pos +  4] & 0xFF) << 32;
+        case  4: k1 ^= (long)(data[pos +  3] & 0xFF) << 24;
+        case  3: k1 ^= (long)(data[pos +  2] & 0xFF) << 16;
+        case  2: k1 ^= (long)(data[pos +  1] & 0xFF) << 8;
+        case  1: k1 ^= (long)(data[pos     ] & 0xFF);
+                 h1 ^= mixK1(k1);
+        }
+        
+        h1 ^= length;
+        h2 ^= length;
+        
+        h1 += h2;
+        h2 += h1;
+        
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        
+        return h1 + h2;
+    }
+    
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+    
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+    
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
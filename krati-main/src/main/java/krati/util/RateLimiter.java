@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimiter hands out permits (e.g. bytes) at a fixed rate per second. Callers are
+ * spaced out evenly so that the rate is never exceeded over any one-second window.
+ * A rate less than or equal to zero means unlimited.
+ * 
+ * @since 0.4.9
+ */
+public final class RateLimiter {
+    private final static long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private volatile long _permitsPerSecond;
+    private long _nextFreeNanos = 0;
+    
+    /**
+     * Creates a new RateLimiter.
+     * 
+     * @param permitsPerSecond - the number of permits per second, zero or negative for unlimited.
+     */
+    public RateLimiter(long permitsPerSecond) {
+        this._permitsPerSecond = permitsPerSecond;
+    }
+    
+    /**
+     * Gets the number of permits per second.
+     */
+    public long getRate() {
+        return _permitsPerSecond;
+    }
+    
+    /**
+     * Sets the number of permits per second, zero or negative for unlimited.
+     */
+    public void setRate(long permitsPerSecond) {
+        this._permitsPerSecond = permitsPerSecond;
+    }
+    
+    /**
+     * Checks whether this RateLimiter is unlimited.
+     */
+    public boolean isUnlimited() {
+        return _permitsPerSecond <= 0;
+    }
+    
+    /**
+     * Acquires the specified number of permits, blocking until they are available.
+     * 
+     * @param permits - the number of permits
+     * @return the time in nanoseconds spent waiting for the permits.
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    public long acquire(long permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        if(waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        
+        return waitNanos;
+    }
+    
+    /**
+     * Reserves the specified number of permits without blocking. The caller is expected
+     * to wait for the returned time before using the permits.
+     * 
+     * @param permits - the number of permits
+     * @return the time in nanoseconds until the permits are available.
+     */
+    public long reserve(long permits) {
+        long rate = _permitsPerSecond;
+        if(rate <= 0 || permits <= 0) {
+            return 0;
+        }
+        
+        synchronized(this) {
+            long now = System.nanoTime();
+            if(_nextFreeNanos < now) {
+                _nextFreeNanos = now;
+            }
+            
+            long waitNanos = _nextFreeNanos - now;
+            _nextFreeNanos += (long)((double)permits * NANOS_PER_SECOND / rate);
+            return waitNanos;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * RecoveryService is a bounded pool of daemon threads shared by all stores in a JVM for reading and
+ * validating files in parallel upon startup recovery, e.g. segment files and redo entry files.
+ * Results are always returned in the order of tasks so that callers can apply them in order.
+ * The progress of every recovery is logged at each 10 percent of completed tasks.
+ * 
+ * <p>
+ * The pool size can be specified via the system property <code>krati.recovery.threads</code>.
+ * It defaults to the number of available processors up to 4.
+ * 
+ * @since 0.4.9
+ */
+public final class RecoveryService {
+    private final static Logger _log = Logger.getLogger(RecoveryService.class);
+    
+    /**
+     * The system property for specifying the number of recovery threads.
+     */
+    public static final String PARAM_RECOVERY_THREADS = "krati.recovery.threads";
+    
+    /**
+     * The default maximum number of recovery threads.
+     */
+    public static final int RECOVERY_THREADS_MAX_DEFAULT = 4;
+    
+    private static volatile RecoveryService _instance = null;
+    
+    private final int _poolSize;
+    private final ExecutorService _executor;
+    
+    private RecoveryService(int poolSize) {
+        this._poolSize = poolSize;
+        this._executor = (poolSize > 1) ? Executors.newFixedThreadPool(poolSize, new DaemonThreadFactory()) : null;
+        _log.info("poolSize=" + poolSize);
+    }
+    
+    /**
+     * @return the shared instance of RecoveryService.
+     */
+    public static RecoveryService getInstance() {
+        if(_instance == null) {
+            synchronized(RecoveryService.class) {
+                if(_instance == null) {
+                    _instance = new RecoveryService(getDefaultPoolSize());
+                }
+            }
+        }
+        return _instance;
+    }
+    
+    static int getDefaultPoolSize() {
+        int poolSize = Math.min(RECOVERY_THREADS_MAX_DEFAULT, Runtime.getRuntime().availableProcessors());
+        String value = System.getProperty(PARAM_RECOVERY_THREADS);
+        if(value != null) {
+            try {
+                poolSize = Integer.parseInt(value.trim());
+            } catch(NumberFormatException e) {
+                _log.warn("Invalid " + PARAM_RECOVERY_THREADS + ": " + value);
+            }
+        }
+        return Math.max(1, poolSize);
+    }
+    
+    /**
+     * @return the number of recovery threads.
+     */
+    public int getPoolSize() {
+        return _poolSize;
+    }
+    
+    /**
+     * Runs the specified tasks in parallel and waits for all of them to complete.
+     * Tasks must not depend on each other. A single task is run in the calling thread.
+     * 
+     * @param name  - the name of recovery for logging progress
+     * @param tasks - the tasks to run
+     * @return the results of tasks in the order of the specified <code>tasks</code>.
+     * @throws IOException if any task fails. The failure of the first failed task in order is thrown
+     *         after all the tasks are completed.
+     */
+    public <T> List<T> invokeAll(final String name, List<? extends Callable<T>> tasks) throws IOException {
+        final int total = tasks.size();
+        final Chronos c = new Chronos();
+        final AtomicInteger completed = new AtomicInteger();
+        List<T> results = new ArrayList<T>(total);
+        
+        if(_executor == null || total < 2) {
+            IOException failure = null;
+            for(Callable<T> task : tasks) {
+                T result = null;
+                try {
+                    result = task.call();
+                } catch(Exception e) {
+                    if(failure == null) {
+                        failure = toIOException(e);
+                    }
+                }
+                results.add(result);
+                progress(name, completed.incrementAndGet(), total, c);
+            }
+            
+            if(failure != null) {
+                throw failure;
+            }
+            return results;
+        }
+        
+        List<Future<T>> futures = new ArrayList<Future<T>>(total);
+        for(final Callable<T> task : tasks) {
+            futures.add(_executor.submit(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    try {
+                        return task.call();
+                    } finally {
+                        progress(name, completed.incrementAndGet(), total, c);
+                    }
+                }
+            }));
+        }
+        
+        IOException failure = null;
+        boolean interrupted = false;
+        for(Future<T> f : futures) {
+            T result = null;
+            while(true) {
+                try {
+                    result = f.get();
+                    break;
+                } catch(InterruptedException e) {
+                    interrupted = true;
+                } catch(ExecutionException e) {
+                    if(failure == null) {
+                        failure = toIOException(e.getCause());
+                    }
+                    break;
+                }
+            }
+            results.add(result);
+        }
+        
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if(failure != null) {
+            throw failure;
+        }
+        
+        return results;
+    }
+    
+    private static IOException toIOException(Throwable t) {
+        if(t instanceof IOException) {
+            return (IOException)t;
+        }
+        if(t instanceof InterruptedException) {
+            InterruptedIOException e = new InterruptedIOException(t.getMessage());
+            e.initCause(t);
+            return e;
+        }
+        return new IOException(t);
+    }
+    
+    private static void progress(String name, int completed, int total, Chronos c) {
+        if(completed == total) {
+            _log.info(name + ": completed " + completed + "/" + total + " in " + c.getTotalTime() + " ms");
+        } else if((completed * 10L / total) > ((completed - 1) * 10L / total)) {
+            _log.info(name + ": completed " + completed + "/" + total + " " + (completed * 100L / total) + "%");
+        }
+    }
+}
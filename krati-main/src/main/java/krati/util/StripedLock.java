@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * StripedLock maps array indexes onto a fixed number of reentrant locks (stripes)
+ * so that writers to different indexes can proceed in parallel.
+ * 
+ * @since 0.4.9
+ */
+public final class StripedLock {
+    private final ReentrantLock[] _locks;
+    private final int _mask;
+    
+    /**
+     * Creates a new StripedLock.
+     * 
+     * @param numStripes - the minimum number of stripes, which is rounded up to a power of two.
+     */
+    public StripedLock(int numStripes) {
+        if(numStripes < 1) {
+            throw new IllegalArgumentException("Invalid numStripes: " + numStripes);
+        }
+        
+        int size = 1;
+        while(size < numStripes) {
+            size <<= 1;
+        }
+        
+        _mask = size - 1;
+        _locks = new ReentrantLock[size];
+        for(int i = 0; i < size; i++) {
+            _locks[i] = new ReentrantLock();
+        }
+    }
+    
+    /**
+     * Gets the number of stripes.
+     */
+    public int getStripeCount() {
+        return _locks.length;
+    }
+    
+    /**
+     * Gets the lock guarding the specified <code>index</code>.
+     */
+    public ReentrantLock getLock(int index) {
+        return _locks[index & _mask];
+    }
+    
+    /**
+     * Acquires all the stripes in ascending order.
+     */
+    public void lockAll() {
+        for(int i = 0; i < _locks.length; i++) {
+            _locks[i].lock();
+        }
+    }
+    
+    /**
+     * Releases all the stripes in descending order.
+     */
+    public void unlockAll() {
+        for(int i = _locks.length - 1; i >= 0; i--) {
+            _locks[i].unlock();
+        }
+    }
+}
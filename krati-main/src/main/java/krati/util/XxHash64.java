@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package krati.util;
+
+/**
+ * XxHash64 is a port of the 64-bit xxHash (https://github.com/Cyan4973/xxHash).
+ * 
+ * <p>
+ * Keys are consumed eight bytes at a time as little-endian words, which costs far fewer
+ * multiplications than byte-at-a-time functions such as {@link FnvHashFunction} for long
+ * keys and spreads entropy across all 64 bits of the resulting hash code.
+ * </p>
+ * 
+ * @since 0.4.9
+ */
+public class XxHash64 implements HashFunction<byte[]> {
+    private final static long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private final static long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private final static long PRIME64_3 = 0x165667B19E3779F9L;
+    private final static long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private final static long PRIME64_5 = 0x27D4EB2F165667C5L;
+    
+    private final long _seed;
+    
+    /**
+     * Creates a XxHash64 with the seed <code>0</code>.
+     */
+    public XxHash64() {
+        this(0);
+    }
+    
+    /**
+     * Creates a XxHash64 with the specified seed.
+     * 
+     * @param seed - the hash seed
+     */
+    public XxHash64(long seed) {
+        this._seed = seed;
+    }
+    
+    /**
+     * @return the hash seed.
+     */
+    public final long getSeed() {
+        return _seed;
+    }
+    
+    @Override
+    public final long hash(byte[] key) {
+        long hash = hash(key, 0, key.length, _seed);
+        return (hash == HashFunction.NON_HASH_CODE) ? HashFunction.MAX_HASH_CODE : hash;
+    }
+    
+    /**
+     * Computes the raw 64-bit xxHash of a byte range.
+     * 
+     * @param data   - the bytes to hash
+     * @param offset - the offset of the first byte
+     * @param length - the number of bytes to hash
+     * @param seed   - the hash seed
+     * @return the 64-bit hash code.
+     */
+    public static long hash(byte[] data, int offset, int length, long seed) {
+        final int end = offset + length;
+        int pos = offset;
+        long h;
+        
+        if(length >= 32) {
+            final int limit = end - 32;
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+            
+            do {
+                v1 = round(v1, Numbers.longValueLE(data, pos));
+                v2 = round(v2, Numbers.longValueLE(data, pos + 8));
+                v3 = round(v3, Numbers.longValueLE(data, pos + 16));
+                v4 = round(v4, Numbers.longValueLE(data, pos + 24));
+                pos += 32;
+            } while(pos <= limit);
+            
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = seed + PRIME64_5;
+        }
+        
+        h += length;
+        
+        while(pos + 8 <= end) {
+            h ^= round(0, Numbers.longValueLE(data, pos));
+            h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+            pos += 8;
+        }
+        
+        if(pos + 4 <= end) {
+            h ^= (Numbers.intValueLE(data, pos) & 0xFFFFFFFFL) * PRIME64_1;
+            h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+            pos += 4;
+        }
+        
+        while(pos < end) {
+            h ^= (data[pos] & 0xFF) * PRIME64_5;
+            h = Long.rotateLeft(h, 11) * PRIME64_1;
+            pos++;
+        }
+        
+        h ^= h >>> 33;
+        h *= PRIME64_2;
+        h ^= h >>> 29;
+        h *= PRIME64_3;
+        h ^= h >>> 32;
+        return h;
+    }
+    
+    private static long round(long acc, long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+    
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * PRIME64_1 + PRIME64_4;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.core.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import krati.core.array.basic.DynamicIntArray;
+import krati.core.array.basic.EntryApplyService;
+import test.util.DirUtils;
+
+/**
+ * TestEntryApplyService
+ * 
+ * @since 0.4.9
+ */
+public class TestEntryApplyService extends TestCase {
+    static Random random = new Random(System.currentTimeMillis());
+    
+    @Override
+    protected void tearDown() {
+        File dir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(dir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    public void testSharedService() {
+        EntryApplyService service = EntryApplyService.getInstance();
+        assertSame(service, EntryApplyService.getInstance());
+        assertTrue(service.getPoolSize() >= 1);
+        assertTrue(service.getPoolSize() <= Math.max(EntryApplyService.APPLY_THREADS_MAX_DEFAULT, Integer.getInteger(EntryApplyService.PARAM_APPLY_THREADS, 0)));
+    }
+    
+    public void testBackgroundApply() throws Exception {
+        File dir = DirUtils.getTestDir(getClass());
+        int numArrays = 8;
+        int length = 2000;
+        
+        DynamicIntArray[] arrays = new DynamicIntArray[numArrays];
+        int[][] values = new int[numArrays][length];
+        for(int n = 0; n < numArrays; n++) {
+            // Small entries trigger many non-blocking applies
+            arrays[n] = new DynamicIntArray(100, 2, new File(dir, "array" + n));
+        }
+        
+        long scn = 0;
+        for(int round = 0; round < 5; round++) {
+            for(int i = 0; i < length; i++) {
+                // Overwrite random positions to exercise merged applies
+                int index = (round == 0) ? i : random.nextInt(length);
+                for(int n = 0; n < numArrays; n++) {
+                    int value = random.nextInt();
+                    values[n][index] = value;
+                    arrays[n].set(index, value, scn++);
+                }
+            }
+        }
+        
+        for(int n = 0; n < numArrays; n++) {
+            arrays[n].sync();
+            for(int i = 0; i < length; i++) {
+                assertEquals(values[n][i], arrays[n].get(i));
+            }
+        }
+        
+        // Reopen and validate against the array files
+        for(int n = 0; n < numArrays; n++) {
+            arrays[n] = new DynamicIntArray(100, 2, new File(dir, "array" + n));
+            for(int i = 0; i < length; i++) {
+                assertEquals(values[n][i], arrays[n].get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.core.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import krati.core.array.basic.ArrayEntryManager;
+import krati.core.array.basic.DynamicIntArray;
+import krati.core.array.entry.Entry;
+import krati.core.array.entry.EntryIntFactory;
+import krati.core.array.entry.EntryLog;
+import krati.core.array.entry.EntryPool;
+import krati.core.array.entry.EntryValueInt;
+import test.util.DirUtils;
+
+/**
+ * TestEntryLog
+ * 
+ * @since 0.4.9
+ */
+public class TestEntryLog extends TestCase {
+    static Random random = new Random(System.currentTimeMillis());
+    
+    @Override
+    protected void tearDown() {
+        File dir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(dir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected File getLogFile() {
+        File dir = DirUtils.getTestDir(getClass());
+        dir.mkdirs();
+        return new File(dir, ArrayEntryManager.ENTRY_LOG_NAME);
+    }
+    
+    protected EntryPool<EntryValueInt> createPool() {
+        return new EntryPool<EntryValueInt>(new EntryIntFactory(), 100);
+    }
+    
+    protected List<Entry<EntryValueInt>> appendEntries(EntryLog log, EntryPool<EntryValueInt> pool, int num, long scn) throws IOException {
+        List<Entry<EntryValueInt>> list = new ArrayList<Entry<EntryValueInt>>();
+        for(int i = 0; i < num; i++) {
+            Entry<EntryValueInt> entry = pool.next();
+            for(int j = 0; j < 100; j++) {
+                entry.add(new EntryValueInt(random.nextInt(10000), random.nextInt(), scn++));
+            }
+            log.append(entry);
+            list.add(entry);
+        }
+        return list;
+    }
+    
+    protected void assertEntriesEqual(List<Entry<EntryValueInt>> expected, List<Entry<EntryValueInt>> actual) {
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); i++) {
+            Entry<EntryValueInt> e1 = expected.get(i);
+            Entry<EntryValueInt> e2 = actual.get(i);
+            assertEquals(e1.getMinScn(), e2.getMinScn());
+            assertEquals(e1.getMaxScn(), e2.getMaxScn());
+            assertEquals(e1.getValueList(), e2.getValueList());
+            assertNull(e2.getFile());
+        }
+    }
+    
+    public void testAppendLoad() throws Exception {
+        File file = getLogFile();
+        EntryPool<EntryValueInt> pool = createPool();
+        
+        EntryLog log = new EntryLog(file, 1 << 20);
+        log.open();
+        assertEquals(EntryLog.INITIAL_PREALLOCATE_SIZE, file.length());
+        assertEquals(EntryLog.HEADER_LENGTH, log.getPosition());
+        
+        List<Entry<EntryValueInt>> list = appendEntries(log, pool, 10, 1);
+        assertEquals(10, log.getAppendCount());
+        
+        // Group commit
+        assertTrue(log.force());
+        assertFalse(log.force());
+        assertEquals(1, log.getForceCount());
+        
+        long position = log.getPosition();
+        log.close();
+        
+        log = new EntryLog(file, 1 << 20);
+        List<Entry<EntryValueInt>> loaded = log.load(createPool());
+        assertEntriesEqual(list, loaded);
+        assertEquals(position, log.getPosition());
+        
+        // Append after load
+        list.addAll(appendEntries(log, pool, 5, 1001));
+        log.close();
+        
+        log = new EntryLog(file, 1 << 20);
+        assertEntriesEqual(list, log.load(createPool()));
+        log.close();
+    }
+    
+    public void testReset() throws Exception {
+        File file = getLogFile();
+        EntryPool<EntryValueInt> pool = createPool();
+        
+        EntryLog log = new EntryLog(file, 1 << 20);
+        log.open();
+        long epoch = log.getEpoch();
+        
+        appendEntries(log, pool, 10, 1);
+        log.applied(5);
+        assertEquals(epoch, log.getEpoch());
+        
+        log.applied(5);
+        assertEquals(epoch + 1, log.getEpoch());
+        assertEquals(EntryLog.HEADER_LENGTH, log.getPosition());
+        
+        // Records of the previous epoch are not replayed
+        List<Entry<EntryValueInt>> list = appendEntries(log, pool, 3, 2001);
+        log.close();
+        
+        log = new EntryLog(file, 1 << 20);
+        assertEntriesEqual(list, log.load(createPool()));
+        assertEquals(epoch + 1, log.getEpoch());
+        log.close();
+    }
+    
+    public void testPreallocate() throws Exception {
+        File file = getLogFile();
+        EntryPool<EntryValueInt> pool = createPool();
+        int preallocateSize = 1 << 20;
+        
+        EntryLog log = new EntryLog(file, preallocateSize);
+        log.open();
+        assertEquals(EntryLog.INITIAL_PREALLOCATE_SIZE, file.length());
+        
+        // The file doubles in size as records are appended
+        while(log.getPosition() <= EntryLog.INITIAL_PREALLOCATE_SIZE) {
+            appendEntries(log, pool, 1, 1);
+        }
+        assertEquals(EntryLog.INITIAL_PREALLOCATE_SIZE << 1, file.length());
+        
+        // The file does not grow past the preallocate size ahead of the records
+        while(log.getPosition() <= preallocateSize) {
+            appendEntries(log, pool, 1, 1);
+        }
+        assertEquals(log.getPosition(), file.length());
+        
+        // The allocated size is kept across a reset
+        log.applied((int)log.getAppendCount());
+        assertEquals(EntryLog.HEADER_LENGTH, log.getPosition());
+        assertTrue(file.length() > preallocateSize);
+        log.close();
+    }
+    
+    public void testTruncate() throws Exception {
+        File file = getLogFile();
+        EntryPool<EntryValueInt> pool = createPool();
+        int preallocateSize = 1 << 14;
+        
+        EntryLog log = new EntryLog(file, preallocateSize);
+        log.open();
+        long epoch = log.getEpoch();
+        
+        // Keep 3 records not yet applied under sustained writes
+        List<Entry<EntryValueInt>> list = appendEntries(log, pool, 3, 1);
+        long maxPosition = 0;
+        for(int i = 0; i < 100; i++) {
+            list.addAll(appendEntries(log, pool, 1, 1000 + i * 100));
+            log.applied(1);
+            maxPosition = Math.max(maxPosition, log.getPosition());
+        }
+        
+        assertTrue(log.getTruncateCount() > 0);
+        assertTrue(log.getEpoch() > epoch);
+        assertTrue(maxPosition < 2 * preallocateSize);
+        assertTrue(file.length() < 2 * preallocateSize);
+        assertFalse(new File(file.getPath() + ".new").exists());
+        log.close();
+        
+        // Only records appended since the last truncation are replayed
+        log = new EntryLog(file, preallocateSize);
+        List<Entry<EntryValueInt>> loaded = log.load(createPool());
+        assertTrue(loaded.size() >= 3);
+        assertEntriesEqual(list.subList(list.size() - loaded.size(), list.size()), loaded);
+        
+        // Append after load
+        list.addAll(appendEntries(log, pool, 2, 20001));
+        log.close();
+        
+        log = new EntryLog(file, preallocateSize);
+        assertEntriesEqual(list.subList(list.size() - loaded.size() - 2, list.size()), log.load(createPool()));
+        log.close();
+    }
+    
+    public void testCorruptedRecord() throws Exception {
+        File file = getLogFile();
+        EntryPool<EntryValueInt> pool = createPool();
+        
+        EntryLog log = new EntryLog(file, 1 << 20);
+        log.open();
+        List<Entry<EntryValueInt>> list = appendEntries(log, pool, 10, 1);
+        long position = log.getPosition();
+        log.close();
+        
+        // Flip one byte in the body of the last record
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        long corruptPos = position - EntryLog.RECORD_TAIL_LENGTH - 1;
+        raf.seek(corruptPos);
+        int b = raf.read();
+        raf.seek(corruptPos);
+        raf.write(b ^ 0xFF);
+        raf.close();
+        
+        log = new EntryLog(file, 1 << 20);
+        assertEntriesEqual(list.subList(0, 9), log.load(createPool()));
+        log.close();
+    }
+    
+    public void testArrayRecovery() throws Exception {
+        File dir = DirUtils.getTestDir(getClass());
+        DynamicIntArray array = new DynamicIntArray(1000, 10, dir);
+        
+        int length = 5000;
+        int[] values = new int[length];
+        long scn = 0;
+        for(int i = 0; i < length; i++) {
+            values[i] = random.nextInt();
+            array.set(i, values[i], scn++);
+        }
+        array.persist();
+        
+        ArrayEntryManager<EntryValueInt> entryManager = array.getEntryManager();
+        assertTrue(entryManager.getEntryLog().getFile().exists());
+        
+        // Simulate a crash by reopening without sync
+        array = new DynamicIntArray(1000, 10, dir);
+        for(int i = 0; i < length; i++) {
+            assertEquals(values[i], array.get(i));
+        }
+        
+        array.sync();
+        assertEquals(0, array.getEntryManager().getEntryLog().getAppendCount());
+        array.getEntryManager().clear();
+    }
+}
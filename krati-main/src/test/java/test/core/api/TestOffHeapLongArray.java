@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.core.api;
+
+import java.io.File;
+
+import krati.array.Array;
+import krati.core.array.AddressArray;
+import krati.core.array.AddressArrayFactory;
+import krati.core.array.basic.DynamicConstants;
+import krati.core.array.basic.OffHeapLongArray;
+
+/**
+ * TestOffHeapLongArray
+ * 
+ * @since 0.4.9
+ */
+public class TestOffHeapLongArray extends AbstractTestDynamicAddressArray {
+    
+    @Override
+    protected AddressArray createAddressArray(File homeDir) throws Exception {
+        return new OffHeapLongArray(Array.Type.DYNAMIC, DynamicConstants.SUB_ARRAY_SIZE, getBatchSize(), getNumSyncBatches(), homeDir);
+    }
+    
+    public void testPersistence() throws Exception {
+        int length = _array.length();
+        long scn = _array.getHWMark();
+        
+        for(int i = 0; i < length; i++) {
+            _array.set(i, i + 1L, ++scn);
+        }
+        
+        int index = length + _rand.nextInt(length);
+        _array.set(index, index + 1L, ++scn);
+        assertTrue(length < _array.length());
+        
+        _array.sync();
+        _array.close();
+        _array.open();
+        
+        assertEquals(scn, _array.getHWMark());
+        for(int i = 0; i < length; i++) {
+            assertEquals(i + 1L, _array.get(i));
+        }
+        assertEquals(index + 1L, _array.get(index));
+        
+        long[] internal = _array.getInternalArray();
+        assertEquals(_array.length(), internal.length);
+        assertEquals(index + 1L, internal[index]);
+    }
+    
+    public void testStaticType() throws Exception {
+        _array.close();
+        
+        AddressArrayFactory factory = new AddressArrayFactory(true);
+        factory.setIndexesOffHeap(true);
+        
+        File homeDir = new File(getHomeDir(), "static");
+        int length = DynamicConstants.SUB_ARRAY_SIZE + 100;
+        AddressArray array = factory.createStaticAddressArray(homeDir, length, getBatchSize(), getNumSyncBatches());
+        assertTrue(array instanceof OffHeapLongArray);
+        assertEquals(Array.Type.STATIC, array.getType());
+        assertEquals(length, array.length());
+        
+        array.set(length - 1, 100L, 1L);
+        assertEquals(100L, array.get(length - 1));
+        
+        try {
+            array.set(length, 100L, 2L);
+            fail("ArrayIndexOutOfBoundsException expected");
+        } catch(ArrayIndexOutOfBoundsException e) {}
+        
+        try {
+            array.expandCapacity(length);
+            fail("UnsupportedOperationException expected");
+        } catch(UnsupportedOperationException e) {}
+        
+        array.close();
+        array.open();
+        assertEquals(length, array.length());
+        assertEquals(100L, array.get(length - 1));
+        array.close();
+    }
+}
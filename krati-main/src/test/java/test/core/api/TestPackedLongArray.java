@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.core.api;
+
+import java.io.File;
+
+import krati.array.Array;
+import krati.core.array.AddressArray;
+import krati.core.array.AddressArrayFactory;
+import krati.core.array.basic.DynamicConstants;
+import krati.core.array.basic.DynamicLongArray;
+import krati.core.array.basic.PackedLongArray;
+import krati.core.segment.AddressFormat;
+
+/**
+ * TestPackedLongArray
+ * 
+ * @since 0.4.9
+ */
+public class TestPackedLongArray extends AbstractTestDynamicAddressArray {
+    private final AddressFormat _addrFormat = new AddressFormat();
+    
+    @Override
+    protected AddressArray createAddressArray(File homeDir) throws Exception {
+        return new PackedLongArray(Array.Type.DYNAMIC, DynamicConstants.SUB_ARRAY_SIZE, getBatchSize(), getNumSyncBatches(), homeDir, 64);
+    }
+    
+    protected long nextAddress(int numSegments) {
+        return _addrFormat.composeAddress(_rand.nextInt(1 << 26), _rand.nextInt(numSegments), _rand.nextInt(4096));
+    }
+    
+    public void testPersistence() throws Exception {
+        PackedLongArray array = (PackedLongArray)_array;
+        int length = array.length();
+        long scn = array.getHWMark();
+        long[] addresses = new long[length << 1];
+        
+        for(int i = 0; i < length; i++) {
+            addresses[i] = nextAddress(10);
+            array.set(i, addresses[i], ++scn);
+        }
+        
+        // 26 offset bits, 4 segment bits and 12 size bits
+        assertEquals(42, array.getBitsPerElement());
+        
+        int index = length + _rand.nextInt(length);
+        addresses[index] = nextAddress(10);
+        array.set(index, addresses[index], ++scn);
+        assertTrue(length < array.length());
+        
+        array.sync();
+        array.close();
+        array.open();
+        
+        assertEquals(scn, array.getHWMark());
+        assertEquals(42, array.getBitsPerElement());
+        for(int i = 0; i < addresses.length; i++) {
+            assertEquals(addresses[i], array.get(i));
+        }
+        
+        long[] internal = array.getInternalArray();
+        assertEquals(array.length(), internal.length);
+        assertEquals(addresses[index], internal[index]);
+        
+        // Packed words are smaller than 8 bytes per element
+        File file = new File(getHomeDir(), "indexes.dat");
+        assertTrue(file.length() < (array.length() * 6L));
+    }
+    
+    public void testRepack() throws Exception {
+        PackedLongArray array = (PackedLongArray)_array;
+        int length = array.length();
+        long scn = array.getHWMark();
+        long[] addresses = new long[length];
+        
+        // Grow the number of segments to force repacking
+        for(int numSegments = 1; numSegments <= 1000; numSegments *= 10) {
+            for(int i = 0; i < 1000; i++) {
+                int index = _rand.nextInt(length);
+                addresses[index] = nextAddress(numSegments);
+                array.set(index, addresses[index], ++scn);
+            }
+        }
+        assertEquals(26 + 12 + 12, array.getBitsPerElement());
+        
+        // Addresses with large data sizes
+        addresses[0] = _addrFormat.composeAddress(100, 5, 50000);
+        array.set(0, addresses[0], ++scn);
+        assertEquals(26 + 12 + 16, array.getBitsPerElement());
+        
+        for(int i = 0; i < length; i++) {
+            assertEquals(addresses[i], array.get(i));
+        }
+        
+        // Reload redo entries which are not yet applied to the array file
+        array.persist();
+        AddressArray array2 = createAddressArray(getHomeDir());
+        assertEquals(scn, array2.getHWMark());
+        for(int i = 0; i < length; i++) {
+            assertEquals(addresses[i], array2.get(i));
+        }
+        array2.close();
+    }
+    
+    public void testConversion() throws Exception {
+        _array.close();
+        
+        File homeDir = new File(getHomeDir(), "conversion");
+        DynamicLongArray array = new DynamicLongArray(getBatchSize(), getNumSyncBatches(), homeDir);
+        int length = array.length();
+        long[] addresses = new long[length];
+        for(int i = 0; i < length; i++) {
+            addresses[i] = nextAddress(100);
+            array.set(i, addresses[i], i + 1L);
+        }
+        array.close();
+        
+        PackedLongArray packed = (PackedLongArray)createAddressArray(homeDir);
+        assertEquals(length, packed.length());
+        assertEquals(length, packed.getHWMark());
+        assertTrue(packed.getBitsPerElement() < 64);
+        for(int i = 0; i < length; i++) {
+            assertEquals(addresses[i], packed.get(i));
+        }
+        packed.close();
+        
+        // Bit-packed indexes.dat cannot be opened without packing
+        try {
+            new DynamicLongArray(getBatchSize(), getNumSyncBatches(), homeDir);
+            fail("IOException expected");
+        } catch(Exception e) {}
+    }
+    
+    @Override
+    public void testAddressArrayFactory() throws Exception {
+        AddressArrayFactory factory = new AddressArrayFactory(true);
+        factory.setIndexesPacked(true);
+        
+        for(int i = 0; i < 5; i++) {
+            _array.expandCapacity(_array.length() + _rand.nextInt(_array.length()));
+            int length = _array.length();
+            
+            AddressArray array = factory.createDynamicAddressArray(getHomeDir(), getBatchSize(), getNumSyncBatches());
+            assertTrue(array instanceof PackedLongArray);
+            assertEquals(length, array.length());
+            array.close();
+        }
+    }
+    
+    public void testStaticType() throws Exception {
+        _array.close();
+        
+        AddressArrayFactory factory = new AddressArrayFactory(true);
+        factory.setIndexesPacked(true);
+        
+        File homeDir = new File(getHomeDir(), "static");
+        int length = DynamicConstants.SUB_ARRAY_SIZE + 100;
+        AddressArray array = factory.createStaticAddressArray(homeDir, length, getBatchSize(), getNumSyncBatches());
+        assertTrue(array instanceof PackedLongArray);
+        assertEquals(Array.Type.STATIC, array.getType());
+        assertEquals(length, array.length());
+        
+        long address = nextAddress(10);
+        array.set(length - 1, address, 1L);
+        assertEquals(address, array.get(length - 1));
+        
+        try {
+            array.set(length, 100L, 2L);
+            fail("ArrayIndexOutOfBoundsException expected");
+        } catch(ArrayIndexOutOfBoundsException e) {}
+        
+        try {
+            array.expandCapacity(length);
+            fail("UnsupportedOperationException expected");
+        } catch(UnsupportedOperationException e) {}
+        
+        array.close();
+        array.open();
+        assertEquals(length, array.length());
+        assertEquals(address, array.get(length - 1));
+        array.close();
+    }
+}
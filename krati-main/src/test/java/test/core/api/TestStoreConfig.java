@@ -21,13 +21,16 @@ import java.io.IOException;
 
 import test.util.FileUtils;
 import junit.framework.TestCase;
+import krati.core.InvalidStoreConfigException;
 import krati.core.StoreConfig;
 import krati.core.StoreParams;
 import krati.core.StorePartitionConfig;
 import krati.core.segment.MappedSegmentFactory;
 import krati.core.segment.MemorySegmentFactory;
+import krati.store.cache.CachePolicy;
 import krati.util.Fnv1aHash64;
 import krati.util.FnvHashFunction;
+import krati.util.XxHash64;
 
 /**
  * TestStoreConfig
@@ -60,25 +63,58 @@ public class TestStoreConfig extends TestCase {
         
         assertEquals(StoreParams.INDEXES_CACHED_DEFAULT, config.isIndexesCached());
         assertEquals(StoreParams.INDEXES_CACHED_DEFAULT, config.getIndexesCached());
+        assertEquals(StoreParams.INDEXES_OFF_HEAP_DEFAULT, config.isIndexesOffHeap());
+        assertEquals(StoreParams.INDEXES_PACKED_DEFAULT, config.isIndexesPacked());
+        assertEquals(StoreParams.SPLIT_BACKGROUND_DEFAULT, config.isSplitBackground());
+        assertEquals(StoreParams.SPLIT_STEPS_PER_WRITE_DEFAULT, config.getSplitStepsPerWrite());
+        assertEquals(StoreParams.READ_ONLY_DEFAULT, config.isReadOnly());
         
         assertEquals(StoreParams.BATCH_SIZE_DEFAULT, config.getBatchSize());
         assertEquals(StoreParams.NUM_SYNC_BATCHES_DEFAULT, config.getNumSyncBatches());
         
         assertEquals(StoreParams.SEGMENT_FILE_SIZE_MB_DEFAULT, config.getSegmentFileSizeMB());
         assertEquals(StoreParams.SEGMENT_COMPACT_FACTOR_DEFAULT, config.getSegmentCompactFactor());
+        assertEquals(StoreParams.SEGMENT_COMPACT_PARALLELISM_DEFAULT, config.getSegmentCompactParallelism());
+        assertEquals(StoreParams.SEGMENT_COMPACT_RATE_MB_DEFAULT, config.getSegmentCompactRateMB());
+        assertEquals(StoreParams.SEGMENT_COMPACT_BACKOFF_LATENCY_DEFAULT, config.getSegmentCompactBackoffLatency());
         assertEquals(StoreParams.HASH_LOAD_FACTOR_DEFAULT, config.getHashLoadFactor());
+        assertEquals(StoreParams.BLOOM_FILTER_ENABLED_DEFAULT, config.isBloomFilterEnabled());
+        assertEquals(StoreParams.BLOOM_FILTER_FPP_DEFAULT, config.getBloomFilterFpp());
+        assertEquals(StoreParams.VALUE_CACHE_SIZE_MB_DEFAULT, config.getValueCacheSizeMB());
+        assertEquals(StoreParams.VALUE_CACHE_POLICY_DEFAULT, config.getValueCachePolicy());
+        assertEquals(StoreParams.METRICS_ENABLED_DEFAULT, config.isMetricsEnabled());
+        assertNull(config.getMetricsRegistry());
         
         assertEquals(MappedSegmentFactory.class, config.getSegmentFactory().getClass());
         assertEquals(MappedSegmentFactory.class.getName(), config.getProperty(StoreParams.PARAM_SEGMENT_FACTORY_CLASS));
         
-        assertEquals(FnvHashFunction.class, config.getHashFunction().getClass());
-        assertEquals(FnvHashFunction.class.getName(), config.getProperty(StoreParams.PARAM_HASH_FUNCTION_CLASS));
+        assertEquals(XxHash64.class, config.getHashFunction().getClass());
+        assertEquals(XxHash64.class.getName(), config.getProperty(StoreParams.PARAM_HASH_FUNCTION_CLASS));
         
         boolean indexesCached = false; 
         config.setIndexesCached(indexesCached);
         assertEquals(indexesCached, config.isIndexesCached());
         assertEquals(indexesCached, config.getIndexesCached());
         
+        boolean indexesOffHeap = true;
+        config.setIndexesOffHeap(indexesOffHeap);
+        assertEquals(indexesOffHeap, config.isIndexesOffHeap());
+        assertEquals(indexesOffHeap, config.getIndexesOffHeap());
+        
+        boolean indexesPacked = true;
+        config.setIndexesPacked(indexesPacked);
+        assertEquals(indexesPacked, config.isIndexesPacked());
+        assertEquals(indexesPacked, config.getIndexesPacked());
+        
+        boolean splitBackground = true;
+        config.setSplitBackground(splitBackground);
+        assertEquals(splitBackground, config.isSplitBackground());
+        assertEquals(splitBackground, config.getSplitBackground());
+        
+        int splitStepsPerWrite = StoreParams.SPLIT_STEPS_PER_WRITE_DEFAULT + 3;
+        config.setSplitStepsPerWrite(splitStepsPerWrite);
+        assertEquals(splitStepsPerWrite, config.getSplitStepsPerWrite());
+        
         int batchSize = StoreParams.BATCH_SIZE_DEFAULT + 100;
         config.setBatchSize(batchSize);
         assertEquals(batchSize, config.getBatchSize());
@@ -95,10 +131,44 @@ public class TestStoreConfig extends TestCase {
         config.setSegmentCompactFactor(segmentCompactFactor);
         assertEquals(segmentCompactFactor, config.getSegmentCompactFactor());
         
+        int segmentCompactParallelism = StoreParams.SEGMENT_COMPACT_PARALLELISM_DEFAULT + 2;
+        config.setSegmentCompactParallelism(segmentCompactParallelism);
+        assertEquals(segmentCompactParallelism, config.getSegmentCompactParallelism());
+        
+        int segmentCompactRateMB = 32;
+        config.setSegmentCompactRateMB(segmentCompactRateMB);
+        assertEquals(segmentCompactRateMB, config.getSegmentCompactRateMB());
+        
+        int segmentCompactBackoffLatency = 500;
+        config.setSegmentCompactBackoffLatency(segmentCompactBackoffLatency);
+        assertEquals(segmentCompactBackoffLatency, config.getSegmentCompactBackoffLatency());
+        
         double hashLoadFactor = StoreParams.HASH_LOAD_FACTOR_DEFAULT - 0.07;
         config.setHashLoadFactor(hashLoadFactor);
         assertEquals(hashLoadFactor, config.getHashLoadFactor());
         
+        boolean bloomFilterEnabled = true;
+        config.setBloomFilterEnabled(bloomFilterEnabled);
+        assertEquals(bloomFilterEnabled, config.isBloomFilterEnabled());
+        assertEquals(bloomFilterEnabled, config.getBloomFilterEnabled());
+        
+        double bloomFilterFpp = 0.001;
+        config.setBloomFilterFpp(bloomFilterFpp);
+        assertEquals(bloomFilterFpp, config.getBloomFilterFpp());
+        
+        int valueCacheSizeMB = 64;
+        config.setValueCacheSizeMB(valueCacheSizeMB);
+        assertEquals(valueCacheSizeMB, config.getValueCacheSizeMB());
+        
+        CachePolicy valueCachePolicy = CachePolicy.TINYLFU;
+        config.setValueCachePolicy(valueCachePolicy);
+        assertEquals(valueCachePolicy, config.getValueCachePolicy());
+        
+        boolean metricsEnabled = true;
+        config.setMetricsEnabled(metricsEnabled);
+        assertEquals(metricsEnabled, config.isMetricsEnabled());
+        assertEquals(metricsEnabled, config.getMetricsEnabled());
+        
         config.validate();
         config.save();
         
@@ -106,13 +176,22 @@ public class TestStoreConfig extends TestCase {
         
         assertEquals(config.isIndexesCached(), config2.isIndexesCached());
         assertEquals(config.getIndexesCached(), config2.getIndexesCached());
+        assertEquals(config.isIndexesOffHeap(), config2.isIndexesOffHeap());
         
         assertEquals(config.getBatchSize(), config2.getBatchSize());
         assertEquals(config.getNumSyncBatches(), config2.getNumSyncBatches());
         
         assertEquals(config.getSegmentFileSizeMB(), config.getSegmentFileSizeMB());
         assertEquals(config.getSegmentCompactFactor(), config.getSegmentCompactFactor());
+        assertEquals(config.getSegmentCompactParallelism(), config2.getSegmentCompactParallelism());
+        assertEquals(config.getSegmentCompactRateMB(), config2.getSegmentCompactRateMB());
+        assertEquals(config.getSegmentCompactBackoffLatency(), config2.getSegmentCompactBackoffLatency());
         assertEquals(config.getHashLoadFactor(), config.getHashLoadFactor());
+        assertEquals(config.isBloomFilterEnabled(), config2.isBloomFilterEnabled());
+        assertEquals(config.getBloomFilterFpp(), config2.getBloomFilterFpp());
+        assertEquals(config.getValueCacheSizeMB(), config2.getValueCacheSizeMB());
+        assertEquals(config.getValueCachePolicy(), config2.getValueCachePolicy());
+        assertEquals(config.isMetricsEnabled(), config2.isMetricsEnabled());
         
         File propertiesFile = new File(getHomeDir(), StoreConfig.CONFIG_PROPERTIES_FILE+".new");
         
@@ -121,6 +200,9 @@ public class TestStoreConfig extends TestCase {
         config.setSegmentFileSizeMB(StoreParams.SEGMENT_FILE_SIZE_MB_MIN);
         config.setNumSyncBatches(StoreParams.BATCH_SIZE_MIN);
         config.setBatchSize(StoreParams.BATCH_SIZE_MIN);
+        config.setReadOnly(true);
+        assertEquals(true, config.isReadOnly());
+        assertEquals(true, config.getReadOnly());
         config.save(propertiesFile, null);
         
         config2.load(propertiesFile);
@@ -131,10 +213,37 @@ public class TestStoreConfig extends TestCase {
         assertEquals(StoreParams.SEGMENT_FILE_SIZE_MB_MIN, config2.getSegmentFileSizeMB());
         assertEquals(StoreParams.NUM_SYNC_BATCHES_MIN, config2.getNumSyncBatches());
         assertEquals(StoreParams.BATCH_SIZE_MIN, config2.getBatchSize());
+        assertEquals(true, config2.isReadOnly());
         
         config2.validate();
     }
     
+    public void testHashFunction() throws IOException {
+        File homeDir = getHomeDir();
+        
+        // Legacy store without config.properties keeps FnvHashFunction
+        File legacyDir = new File(homeDir, "legacy");
+        legacyDir.mkdirs();
+        new File(legacyDir, "indexes.dat").createNewFile();
+        assertEquals(FnvHashFunction.class, new StoreConfig(legacyDir, getInitialCapacity()).getHashFunction().getClass());
+        
+        // New store defaults to XxHash64 and keeps it on reopen
+        File storeDir = new File(homeDir, "store");
+        assertEquals(XxHash64.class, new StoreConfig(storeDir, getInitialCapacity()).getHashFunction().getClass());
+        new File(storeDir, "indexes.dat").createNewFile();
+        
+        StoreConfig config = new StoreConfig(storeDir, getInitialCapacity());
+        assertEquals(XxHash64.class, config.getHashFunction().getClass());
+        config.setHashFunction(new XxHash64());
+        config.validate();
+        
+        config.setHashFunction(new FnvHashFunction());
+        try {
+            config.validate();
+            fail("InvalidStoreConfigException expected");
+        } catch(InvalidStoreConfigException e) {}
+    }
+    
     public void testNewInstance() throws IOException {
         StoreConfig config = new StoreConfig(getHomeDir(), getInitialCapacity());
         StoreConfig config1 = StoreConfig.newInstance(new File(getHomeDir(), StoreConfig.CONFIG_PROPERTIES_FILE));
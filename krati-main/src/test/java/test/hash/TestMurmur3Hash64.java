@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.hash;
+
+import krati.util.HashFunction;
+import krati.util.Murmur3Hash64;
+
+public class TestMurmur3Hash64 extends EvalHash {
+    public TestMurmur3Hash64() {
+        super(TestMurmur3Hash64.class.getSimpleName());
+    }
+    
+    @Override
+    protected HashFunction<byte[]> createHashFunction() {
+        return new Murmur3Hash64();
+    }
+    
+    public void testReferenceValues() {
+        assertEquals(0L, hash(""));
+        assertEquals(0x85555565F6597889L, hash("a"));
+        assertEquals(0xB4963F3F3FAD7867L, hash("abc"));
+        assertEquals(0xCBD8A7B341BD9B02L, hash("hello"));
+        assertEquals(0xE34BBC7BBC071B6CL, hash("The quick brown fox jumps over the lazy dog"));
+        
+        byte[] key = "The quick brown fox jumps over the lazy dog".getBytes();
+        byte[] padded = new byte[key.length + 11];
+        System.arraycopy(key, 0, padded, 5, key.length);
+        assertEquals(hash("The quick brown fox jumps over the lazy dog"), Murmur3Hash64.hash(padded, 5, key.length, 0));
+        assertEquals(HashFunction.MAX_HASH_CODE, new Murmur3Hash64().hash(new byte[0]));
+        assertTrue(new Murmur3Hash64().hash(key) != new Murmur3Hash64(1).hash(key));
+    }
+    
+    private static long hash(String s) {
+        byte[] bytes = s.getBytes();
+        return Murmur3Hash64.hash(bytes, 0, bytes.length, 0);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.hash;
+
+import krati.util.HashFunction;
+import krati.util.XxHash64;
+
+public class TestXxHash64 extends EvalHash {
+    public TestXxHash64() {
+        super(TestXxHash64.class.getSimpleName());
+    }
+    
+    @Override
+    protected HashFunction<byte[]> createHashFunction() {
+        return new XxHash64();
+    }
+    
+    public void testReferenceValues() {
+        assertEquals(0xEF46DB3751D8E999L, hash(""));
+        assertEquals(0xD24EC4F1A98C6E5BL, hash("a"));
+        assertEquals(0x44BC2CF5AD770999L, hash("abc"));
+        assertEquals(0x0B242D361FDA71BCL, hash("The quick brown fox jumps over the lazy dog"));
+        
+        byte[] key = "The quick brown fox jumps over the lazy dog".getBytes();
+        byte[] padded = new byte[key.length + 11];
+        System.arraycopy(key, 0, padded, 5, key.length);
+        assertEquals(hash("The quick brown fox jumps over the lazy dog"), XxHash64.hash(padded, 5, key.length, 0));
+        assertEquals(new XxHash64().hash(key), new XxHash64(0).hash(key));
+        assertTrue(new XxHash64().hash(key) != new XxHash64(1).hash(key));
+    }
+    
+    private static long hash(String s) {
+        byte[] bytes = s.getBytes();
+        return XxHash64.hash(bytes, 0, bytes.length, 0);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.misc;
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import krati.util.BloomFilter;
+import krati.util.FnvHashFunction;
+import krati.util.HashFunction;
+import test.util.DirUtils;
+
+/**
+ * TestBloomFilter
+ * 
+ * @since 0.4.9
+ */
+public class TestBloomFilter extends TestCase {
+    protected final HashFunction<byte[]> _hashFunction = new FnvHashFunction();
+    
+    @Override
+    protected void tearDown() {
+        File dir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(dir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected long hash(String key) {
+        return _hashFunction.hash(key.getBytes());
+    }
+    
+    public void testFalsePositiveRate() {
+        int num = 100000;
+        BloomFilter filter = new BloomFilter(num, 0.01);
+        assertEquals(num, filter.getExpectedInsertions());
+        assertTrue(filter.getNumHashes() > 1);
+        
+        for(int i = 0; i < num; i++) {
+            filter.add(hash("key." + i));
+        }
+        assertFalse(filter.isSaturated());
+        
+        // No false negatives
+        for(int i = 0; i < num; i++) {
+            assertTrue(filter.mightContain(hash("key." + i)));
+        }
+        
+        // False positives
+        int cnt = 0;
+        for(int i = 0; i < num; i++) {
+            if(filter.mightContain(hash("absent." + i))) cnt++;
+        }
+        assertTrue("falsePositives=" + cnt, cnt < num * 0.02);
+        
+        filter.clear();
+        assertEquals(0, filter.getInsertions());
+        assertFalse(filter.mightContain(hash("key.0")));
+    }
+    
+    public void testSaturation() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        assertTrue(filter.add(hash("key.0")));
+        assertFalse(filter.add(hash("key.0")));
+        
+        for(int i = 0; i < 1000; i++) {
+            filter.add(hash("key." + i));
+        }
+        assertTrue(filter.isSaturated());
+    }
+    
+    public void testSaveLoad() throws Exception {
+        File file = new File(DirUtils.getTestDir(getClass()), "bloom.dat");
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for(int i = 0; i < 1000; i++) {
+            filter.add(hash("key." + i));
+        }
+        
+        long scn = 12345;
+        filter.save(file, scn);
+        
+        assertNull(BloomFilter.load(new File(file.getPath() + ".absent"), scn));
+        assertNull(BloomFilter.load(file, scn + 1));
+        
+        BloomFilter filter2 = BloomFilter.load(file, scn);
+        assertNotNull(filter2);
+        assertEquals(filter.getNumBits(), filter2.getNumBits());
+        assertEquals(filter.getNumHashes(), filter2.getNumHashes());
+        assertEquals(filter.getExpectedInsertions(), filter2.getExpectedInsertions());
+        assertEquals(filter.getInsertions(), filter2.getInsertions());
+        
+        for(int i = 0; i < 1000; i++) {
+            assertTrue(filter2.mightContain(hash("key." + i)));
+        }
+        
+        // Save over the existing file
+        filter.add(hash("key.new"));
+        filter.save(file, scn + 1);
+        assertNull(BloomFilter.load(file, scn));
+        assertEquals(filter.getInsertions(), BloomFilter.load(file, scn + 1).getInsertions());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        assertFalse(new File(file.getPath() + ".bak").exists());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.misc;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+import krati.util.FreeIndexBitmap;
+
+/**
+ * TestFreeIndexBitmap
+ * 
+ * @since 0.4.9
+ */
+public class TestFreeIndexBitmap extends TestCase {
+    
+    public void testAllocateRelease() {
+        FreeIndexBitmap bitmap = new FreeIndexBitmap(200);
+        assertEquals(200, bitmap.length());
+        assertEquals(0, bitmap.freeCount());
+        assertEquals(-1, bitmap.allocate());
+        
+        for(int i = 0; i < 200; i++) {
+            assertTrue(bitmap.release(i));
+        }
+        assertFalse(bitmap.release(10));
+        assertFalse(bitmap.release(200));
+        assertEquals(200, bitmap.freeCount());
+        
+        // Allocate from the low end
+        for(int i = 0; i < 200; i++) {
+            assertEquals(i, bitmap.allocate());
+        }
+        assertEquals(-1, bitmap.allocate());
+        assertEquals(0, bitmap.freeCount());
+        
+        // Reuse released low indexes first
+        bitmap.release(150);
+        bitmap.release(3);
+        assertEquals(3, bitmap.allocate());
+        assertEquals(150, bitmap.allocate());
+        
+        bitmap.release(70);
+        assertTrue(bitmap.isFree(70));
+        assertTrue(bitmap.acquire(70));
+        assertFalse(bitmap.acquire(70));
+        assertFalse(bitmap.isFree(70));
+        assertEquals(0, bitmap.freeCount());
+    }
+    
+    public void testGrowClear() {
+        FreeIndexBitmap bitmap = new FreeIndexBitmap(10);
+        bitmap.release(5);
+        bitmap.grow(1000);
+        assertEquals(1000, bitmap.length());
+        assertTrue(bitmap.isFree(5));
+        assertFalse(bitmap.isFree(500));
+        
+        bitmap.release(999);
+        assertEquals(2, bitmap.freeCount());
+        assertEquals(5, bitmap.allocate());
+        assertEquals(999, bitmap.allocate());
+        
+        bitmap.release(1);
+        bitmap.clear();
+        assertEquals(0, bitmap.freeCount());
+        assertEquals(-1, bitmap.allocate());
+    }
+    
+    public void testConcurrentAllocate() throws Exception {
+        final int length = 100000;
+        final FreeIndexBitmap bitmap = new FreeIndexBitmap(length);
+        for(int i = 0; i < length; i++) {
+            bitmap.release(i);
+        }
+        
+        final ConcurrentHashMap<Integer, Boolean> allocated = new ConcurrentHashMap<Integer, Boolean>();
+        final AtomicReference<String> error = new AtomicReference<String>();
+        Thread[] threads = new Thread[4];
+        for(int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Set<Integer> own = new HashSet<Integer>();
+                    int index;
+                    while((index = bitmap.allocate()) >= 0) {
+                        if(allocated.putIfAbsent(index, Boolean.TRUE) != null) {
+                            error.compareAndSet(null, "Duplicate index " + index);
+                        }
+                        
+                        // Release every tenth index for reuse once per thread
+                        if(own.add(index) && index % 10 == 0) {
+                            allocated.remove(index);
+                            bitmap.release(index);
+                        }
+                    }
+                }
+            });
+        }
+        
+        for(Thread t : threads) {
+            t.start();
+        }
+        for(Thread t : threads) {
+            t.join();
+        }
+        
+        assertNull(error.get());
+        assertEquals(0, bitmap.freeCount());
+        assertEquals(length, allocated.size());
+    }
+}
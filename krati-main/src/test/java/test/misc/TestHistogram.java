@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package test.misc;
+
+import junit.framework.TestCase;
+import krati.metrics.Histogram;
+
+/**
+ * TestHistogram
+ * 
+ * @since 0.4.9
+ */
+public class TestHistogram extends TestCase {
+    
+    public void testEmpty() {
+        Histogram h = new Histogram();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getMax());
+        assertEquals(0.0, h.getMean());
+        assertEquals(0, h.getPercentile(99));
+    }
+    
+    public void testSmallValues() {
+        Histogram h = new Histogram();
+        for(int i = 0; i < 8; i++) {
+            h.record(i);
+        }
+        
+        assertEquals(8, h.getCount());
+        assertEquals(28, h.getSum());
+        assertEquals(7, h.getMax());
+        assertEquals(3, h.getPercentile(50));
+        assertEquals(7, h.getPercentile(100));
+    }
+    
+    public void testPercentiles() {
+        Histogram h = new Histogram();
+        int num = 100000;
+        for(int i = 1; i <= num; i++) {
+            h.record(i * 1000L);
+        }
+        
+        assertEquals(num, h.getCount());
+        assertEquals(num * 1000L, h.getMax());
+        assertEquals((num + 1) * 500.0, h.getMean(), 1.0);
+        
+        double[] percentiles = { 1, 10, 50, 90, 99, 99.9 };
+        for(double p : percentiles) {
+            long expected = (long)(p / 100 * num) * 1000L;
+            long actual = h.getPercentile(p);
+            assertTrue(p + ": " + actual + " < " + expected, actual >= expected);
+            assertTrue(p + ": " + actual + " > " + expected, actual <= expected * 1.125);
+        }
+        
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getMax());
+    }
+    
+    public void testConcurrentRecords() throws Exception {
+        final Histogram h = new Histogram();
+        final int numThreads = 4;
+        final int numRecords = 50000;
+        
+        Thread[] threads = new Thread[numThreads];
+        for(int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int i = 0; i < numRecords; i++) {
+                        h.record(i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        
+        for(Thread t : threads) {
+            t.join();
+        }
+        
+        assertEquals(numThreads * numRecords, h.getCount());
+        assertEquals(numRecords - 1, h.getMax());
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.misc;
+
+import junit.framework.TestCase;
+import krati.util.RateLimiter;
+
+/**
+ * TestRateLimiter
+ * 
+ * @since 0.4.9
+ */
+public class TestRateLimiter extends TestCase {
+    
+    public void testUnlimited() throws Exception {
+        RateLimiter limiter = new RateLimiter(0);
+        assertTrue(limiter.isUnlimited());
+        
+        long startTime = System.currentTimeMillis();
+        for(int i = 0; i < 1000; i++) {
+            assertEquals(0, limiter.acquire(1 << 20));
+        }
+        assertTrue(System.currentTimeMillis() - startTime < 1000);
+    }
+    
+    public void testRate() throws Exception {
+        RateLimiter limiter = new RateLimiter(1 << 20);
+        assertFalse(limiter.isUnlimited());
+        assertEquals(1 << 20, limiter.getRate());
+        
+        // The first acquire is free, the next four wait for 250 ms each
+        long startTime = System.currentTimeMillis();
+        for(int i = 0; i < 5; i++) {
+            limiter.acquire(1 << 18);
+        }
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        assertTrue("elapsedTime=" + elapsedTime, elapsedTime >= 950);
+        
+        limiter.setRate(0);
+        assertTrue(limiter.isUnlimited());
+        assertEquals(0, limiter.acquire(1 << 30));
+    }
+}
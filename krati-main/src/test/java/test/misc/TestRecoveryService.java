@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.misc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import krati.util.RecoveryService;
+
+/**
+ * TestRecoveryService
+ * 
+ * @since 0.4.9
+ */
+public class TestRecoveryService extends TestCase {
+    
+    public void testResultOrder() throws Exception {
+        final Random rand = new Random();
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for(int i = 0; i < 100; i++) {
+            final int value = i;
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    Thread.sleep(rand.nextInt(5));
+                    return value;
+                }
+            });
+        }
+        
+        List<Integer> results = RecoveryService.getInstance().invokeAll(getName(), tasks);
+        assertEquals(tasks.size(), results.size());
+        for(int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).intValue());
+        }
+    }
+    
+    public void testFailure() throws Exception {
+        final AtomicInteger completed = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for(int i = 0; i < 20; i++) {
+            final int value = i;
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    if(value == 5) {
+                        throw new IOException("task " + value);
+                    }
+                    if(value == 15) {
+                        throw new IllegalStateException("task " + value);
+                    }
+                    completed.incrementAndGet();
+                    return value;
+                }
+            });
+        }
+        
+        try {
+            RecoveryService.getInstance().invokeAll(getName(), tasks);
+            fail("IOException expected");
+        } catch(IOException e) {
+            assertEquals("task 5", e.getMessage());
+        }
+        
+        // All the other tasks are completed
+        assertEquals(18, completed.get());
+    }
+    
+    public void testEmpty() throws Exception {
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        assertEquals(0, RecoveryService.getInstance().invokeAll(getName(), tasks).size());
+        assertTrue(RecoveryService.getInstance().getPoolSize() >= 1);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package test.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import krati.core.StoreConfig;
+import krati.core.segment.ChannelSegmentFactory;
+import krati.store.DynamicDataStore;
+import krati.store.cache.CacheKey;
+import krati.store.cache.CachePolicy;
+import krati.store.cache.CachedDataStore;
+import krati.store.cache.ValueCache;
+import test.util.DirUtils;
+
+/**
+ * TestCachedDataStore
+ * 
+ * @since 0.4.9
+ */
+public class TestCachedDataStore extends TestCase {
+    protected final int _numKeys = 1000;
+    
+    protected StoreConfig createConfig() throws Exception {
+        File storeDir = DirUtils.getTestDir(getClass());
+        StoreConfig config = new StoreConfig(storeDir, 10000);
+        config.setSegmentFactory(new ChannelSegmentFactory());
+        config.setSegmentFileSizeMB(16);
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected static byte[] key(int i) {
+        return ("key." + i).getBytes();
+    }
+    
+    protected static byte[] value(int i) {
+        return ("value." + i).getBytes();
+    }
+    
+    protected void doReadThrough(CachePolicy policy) throws Exception {
+        CachedDataStore store = new CachedDataStore(new DynamicDataStore(createConfig()), 1 << 20, policy);
+        for(int i = 0; i < _numKeys; i++) {
+            store.put(key(i), value(i));
+        }
+        assertEquals(0, store.getCacheCount());
+        
+        // The first read misses and the second read hits
+        for(int i = 0; i < _numKeys; i++) {
+            assertTrue(Arrays.equals(value(i), store.get(key(i))));
+        }
+        assertEquals(_numKeys, store.getMissCount());
+        assertEquals(0, store.getHitCount());
+        
+        for(int i = 0; i < _numKeys; i++) {
+            assertTrue(Arrays.equals(value(i), store.get(key(i))));
+            assertEquals(value(i).length, store.getLength(key(i)));
+        }
+        assertEquals(_numKeys, store.getHitCount());
+        assertEquals(0.5, store.getHitRatio());
+        assertEquals(_numKeys, store.getCacheCount());
+        assertTrue(store.getCacheSize() <= store.getCacheCapacity());
+        
+        // Modifying returned values does not affect the cache
+        byte[] value = store.get(key(0));
+        Arrays.fill(value, (byte)0);
+        assertTrue(Arrays.equals(value(0), store.get(key(0))));
+        
+        // Write-through invalidation
+        store.put(key(0), value(1));
+        assertTrue(Arrays.equals(value(1), store.get(key(0))));
+        store.delete(key(1));
+        assertNull(store.get(key(1)));
+        assertEquals(-1, store.getLength(key(1)));
+        
+        Map<byte[], byte[]> map = new HashMap<byte[], byte[]>();
+        map.put(key(2), value(3));
+        map.put(key(3), null);
+        store.putAll(map);
+        
+        List<byte[]> keys = new ArrayList<byte[]>();
+        keys.add(key(2));
+        keys.add(null);
+        keys.add(key(3));
+        keys.add(key(4));
+        List<byte[]> values = store.getAll(keys);
+        assertTrue(Arrays.equals(value(3), values.get(0)));
+        assertNull(values.get(1));
+        assertNull(values.get(2));
+        assertTrue(Arrays.equals(value(4), values.get(3)));
+        
+        store.clear();
+        assertEquals(0, store.getCacheCount());
+        assertNull(store.get(key(4)));
+        store.close();
+    }
+    
+    public void testReadThroughLru() throws Exception {
+        doReadThrough(CachePolicy.LRU);
+    }
+    
+    public void testReadThroughClock() throws Exception {
+        doReadThrough(CachePolicy.CLOCK);
+    }
+    
+    public void testReadThroughTinyLfu() throws Exception {
+        doReadThrough(CachePolicy.TINYLFU);
+    }
+    
+    public void testBoundedSize() throws Exception {
+        for(CachePolicy policy : CachePolicy.values()) {
+            CachedDataStore store = new CachedDataStore(new DynamicDataStore(createConfig()), 1 << 16, policy);
+            byte[] bigValue = new byte[1000];
+            for(int i = 0; i < _numKeys; i++) {
+                store.put(key(i), bigValue);
+                store.get(key(i));
+            }
+            
+            assertTrue(policy + " size=" + store.getCacheSize(), store.getCacheSize() <= 1 << 16);
+            assertTrue(policy + " count=" + store.getCacheCount(), store.getCacheCount() < _numKeys);
+            if(policy != CachePolicy.TINYLFU) {
+                assertTrue(store.getEvictionCount() > 0);
+            }
+            store.close();
+        }
+    }
+    
+    protected int countHits(ValueCache cache, int hotKeys) {
+        int hits = 0;
+        for(int i = 0; i < hotKeys; i++) {
+            if(cache.get(new CacheKey(key(i))) != null) hits++;
+        }
+        return hits;
+    }
+    
+    public void testEvictionPolicies() throws Exception {
+        int hotKeys = 10;
+        long capacity = 20 * (key(0).length + 100 + 64);
+        
+        for(CachePolicy policy : CachePolicy.values()) {
+            ValueCache cache = policy.newValueCache(capacity);
+            
+            // Warm up hot keys
+            for(int r = 0; r < 5; r++) {
+                for(int i = 0; i < hotKeys; i++) {
+                    CacheKey k = new CacheKey(key(i));
+                    if(cache.get(k) == null) {
+                        cache.put(k, new byte[100]);
+                    }
+                }
+            }
+            assertEquals(policy.toString(), hotKeys, countHits(cache, hotKeys));
+            
+            // Scan cold keys only once
+            for(int i = 1000; i < 1100; i++) {
+                CacheKey k = new CacheKey(key(i));
+                if(cache.get(k) == null) {
+                    cache.put(k, new byte[100]);
+                }
+            }
+            
+            assertTrue(cache.size() <= capacity);
+            if(policy == CachePolicy.TINYLFU) {
+                // Hot keys survive the scan
+                assertEquals(hotKeys, countHits(cache, hotKeys));
+            } else if(policy == CachePolicy.LRU) {
+                // Hot keys are flushed out by the scan
+                assertEquals(0, countHits(cache, hotKeys));
+            }
+            
+            assertTrue(cache.remove(new CacheKey(key(1099))) || policy == CachePolicy.TINYLFU);
+            cache.clear();
+            assertEquals(0, cache.count());
+            assertEquals(0, cache.size());
+        }
+    }
+}
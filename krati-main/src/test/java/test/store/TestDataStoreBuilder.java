@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package test.store;
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import krati.array.Array;
+import krati.core.StoreConfig;
+import krati.core.segment.MappedSegmentFactory;
+import krati.store.DataStore;
+import krati.store.DataStoreBuilder;
+import krati.store.DefaultHashedDataStoreHandler;
+import krati.store.DynamicDataStore;
+import krati.store.StaticDataStore;
+import krati.util.FnvHashFunction;
+import test.util.DirUtils;
+
+/**
+ * TestDataStoreBuilder
+ * 
+ * @since 0.4.9
+ */
+public class TestDataStoreBuilder extends TestCase {
+    protected final int _numKeys = 100000;
+    
+    protected StoreConfig createConfig() throws Exception {
+        File storeDir = DirUtils.getTestDir(getClass());
+        StoreConfig config = new StoreConfig(storeDir, 50000);
+        config.setSegmentFactory(new MappedSegmentFactory());
+        config.setSegmentFileSizeMB(8);
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected static byte[] key(int i) {
+        return ("key." + i).getBytes();
+    }
+    
+    protected static byte[] value(int i) {
+        return ("value." + i + ".0123456789012345678901234567890123456789").getBytes();
+    }
+    
+    protected void build(StoreConfig config, Array.Type type) throws Exception {
+        // Use small runs to merge multiple runs
+        DataStoreBuilder builder = new DataStoreBuilder(config, type, _numKeys, 2, 1);
+        for(int i = 0; i < _numKeys; i++) {
+            builder.add(key(i), ("stale." + i).getBytes());
+        }
+        
+        // Later values win and null values are ignored
+        for(int i = 0; i < _numKeys; i++) {
+            builder.add(key(i), value(i));
+        }
+        builder.add(key(_numKeys), null);
+        assertEquals(2L * _numKeys, builder.count());
+        
+        builder.build();
+        assertFalse(new File(config.getHomeDir(), "runs").exists());
+        assertTrue(new File(config.getHomeDir(), "segs/0.sib").exists());
+        
+        try {
+            new DataStoreBuilder(config, type, _numKeys);
+            fail("IOException expected");
+        } catch(IOException e) {}
+    }
+    
+    public void testStaticDataStore() throws Exception {
+        StoreConfig config = createConfig();
+        build(config, Array.Type.STATIC);
+        
+        StaticDataStore store = new StaticDataStore(config);
+        assertEquals(config.getInitialCapacity(), store.capacity());
+        validate(store);
+        store.close();
+    }
+    
+    public void testDynamicDataStore() throws Exception {
+        StoreConfig config = createConfig();
+        build(config, Array.Type.DYNAMIC);
+        
+        DynamicDataStore store = new DynamicDataStore(config);
+        int capacity = store.capacity();
+        assertTrue(capacity * store.getLoadThreshold() >= _numKeys);
+        validate(store);
+        
+        // Write to the built store and reopen
+        store.put(key(_numKeys), value(_numKeys));
+        store.close();
+        
+        store.open();
+        assertEquals(capacity, store.capacity());
+        validate(store);
+        assertEquals(new String(value(_numKeys)), new String(store.get(key(_numKeys))));
+        store.close();
+    }
+    
+    public void testDynamicDataStoreHashed() throws Exception {
+        StoreConfig config = createConfig();
+        config.setHashFunction(new FnvHashFunction());
+        config.setDataHandler(new DefaultHashedDataStoreHandler());
+        
+        // The handler caches the hash codes of the store hash function
+        DefaultHashedDataStoreHandler handler = (DefaultHashedDataStoreHandler)config.getDataHandler();
+        assertEquals(FnvHashFunction.class, handler.getHashFunction().getClass());
+        
+        build(config, Array.Type.DYNAMIC);
+        
+        DynamicDataStore store = new DynamicDataStore(config);
+        int capacity = store.capacity();
+        validate(store);
+        
+        // Write enough keys to split buckets assembled by the builder
+        for(int i = _numKeys; i < 5 * _numKeys; i++) {
+            store.put(key(i), value(i));
+        }
+        assertTrue(store.capacity() > capacity);
+        store.close();
+        
+        store.open();
+        for(int i = 0; i < 5 * _numKeys; i++) {
+            assertEquals(new String(value(i)), new String(store.get(key(i))));
+        }
+        store.close();
+    }
+    
+    protected void validate(DataStore<byte[], byte[]> store) throws Exception {
+        for(int i = 0; i < _numKeys; i++) {
+            assertEquals(new String(value(i)), new String(store.get(key(i))));
+        }
+    }
+}
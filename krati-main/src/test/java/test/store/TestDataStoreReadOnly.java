@@ -0,0 +1,584 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.store;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+import krati.array.Array;
+import krati.core.StoreConfig;
+import krati.core.StorePartitionConfig;
+import krati.core.array.basic.ArrayEntryManager;
+import krati.core.array.basic.ReadOnlyLongArray;
+import krati.core.segment.MappedSegmentFactory;
+import krati.store.ArrayStore;
+import krati.store.DataSet;
+import krati.store.DataStore;
+import krati.store.DynamicDataArray;
+import krati.store.DynamicDataSet;
+import krati.store.DynamicDataStore;
+import krati.store.IndexedDataStore;
+import krati.store.StaticArrayStorePartition;
+import krati.store.StaticDataArray;
+import krati.store.StaticDataSet;
+import krati.store.StaticDataStore;
+import test.util.DirUtils;
+
+/**
+ * TestDataStoreReadOnly
+ * 
+ * @since 0.4.9
+ */
+public class TestDataStoreReadOnly extends TestCase {
+    
+    protected StoreConfig createConfig(String name, int capacity, boolean readOnly) throws Exception {
+        File storeDir = new File(DirUtils.getTestDir(getClass()), name);
+        StoreConfig config = new StoreConfig(storeDir, capacity);
+        config.setSegmentFactory(new MappedSegmentFactory());
+        config.setSegmentFileSizeMB(16);
+        config.setReadOnly(readOnly);
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected void populate(DataStore<byte[], byte[]> store, int numKeys) throws Exception {
+        for(int i = 0; i < numKeys; i++) {
+            store.put(("key." + i).getBytes(), ("value." + i).getBytes());
+        }
+        
+        // Delete every tenth key
+        for(int i = 0; i < numKeys; i += 10) {
+            store.delete(("key." + i).getBytes());
+        }
+        
+        store.sync();
+    }
+    
+    protected void check(DataStore<byte[], byte[]> store, int numKeys) throws Exception {
+        for(int i = 0; i < numKeys; i++) {
+            byte[] value = store.get(("key." + i).getBytes());
+            if(i % 10 == 0) {
+                assertNull(value);
+            } else {
+                assertTrue(Arrays.equals(("value." + i).getBytes(), value));
+            }
+        }
+        
+        int count = 0;
+        Iterator<byte[]> iter = store.keyIterator();
+        while(iter.hasNext()) {
+            if(iter.next() != null) count++;
+        }
+        assertEquals(numKeys - numKeys / 10, count);
+    }
+    
+    protected void checkWritesRejected(DataStore<byte[], byte[]> store) throws Exception {
+        try {
+            store.put("key.new".getBytes(), "value.new".getBytes());
+            fail("UnsupportedOperationException expected");
+        } catch(UnsupportedOperationException e) {}
+        
+        try {
+            store.delete("key.1".getBytes());
+            fail("UnsupportedOperationException expected");
+        } catch(UnsupportedOperationException e) {}
+        
+        try {
+            store.clear();
+            fail("UnsupportedOperationException expected");
+        } catch(UnsupportedOperationException e) {}
+        
+        // Sync and persist are no-ops
+        store.sync();
+        store.persist();
+    }
+    
+    protected void populate(DataSet<byte[]> set, int numValues) throws Exception {
+        for(int i = 0; i < numValues; i++) {
+            set.add(("value." + i).getBytes());
+        }
+        
+        // Delete every tenth value
+        for(int i = 0; i < numValues; i += 10) {
+            set.delete(("value." + i).getBytes());
+        }
+        
+        set.sync();
+    }
+    
+    protected void check(DataSet<byte[]> set, int numValues) throws Exception {
+        for(int i = 0; i < numValues; i++) {
+            assertEquals(i % 10 != 0, set.has(("value." + i).getBytes()));
+        }
+    }
+    
+    protected void checkWritesRejected(DataSet<byte[]> set) throws Exception {
+        try {
+            set.add("value.new".getBytes());
+            fail("UnsupportedOperationException expected");
+        } catch(UnsupportedOperationException e) {}
+        
+        try {
+            set.delete("value.1".getBytes());
+            fail("UnsupportedOperationException expected");
+        } catch(UnsupportedOperationException e) {}
+        
+        try {
+            set.clear();
+            fail("UnsupportedOperationException expected");
+        } catch(UnsupportedOperationException e) {}
+        
+        set.sync();
+        set.persist();
+    }
+    
+    protected void populate(ArrayStore array, int start, int count) throws Exception {
+        for(int i = start, end = start + count; i < end; i++) {
+            if(i % 10 != 0) {
+                array.set(i, ("value." + i).getBytes(), i);
+            }
+        }
+        
+        array.sync();
+    }
+    
+    protected void check(ArrayStore array, int start, int count) throws Exception {
+        for(int i = start, end = start + count; i < end; i++) {
+            byte[] value = array.get(i);
+            if(i % 10 == 0) {
+                assertNull(value);
+            } else {
+                assertTrue(Arrays.equals(("value." + i).getBytes(), value));
+            }
+        }
+    }
+    
+    protected void checkWritesRejected(ArrayStore array, int index) throws Exception {
+        try {
+            array.set(index, "value.new".getBytes(), Long.MAX_VALUE);
+            fail("UnsupportedOperationException expected");
+        } catch(UnsupportedOperationException e) {}
+        
+        try {
+            array.clear();
+            fail("UnsupportedOperationException expected");
+        } catch(UnsupportedOperationException e) {}
+        
+        array.sync();
+        array.persist();
+    }
+    
+    /**
+     * Captures the names, lengths and last modified times of all files under the specified directory.
+     */
+    protected Map<String, String> snapshot(File dir) {
+        Map<String, String> map = new TreeMap<String, String>();
+        snapshot(dir, "", map);
+        return map;
+    }
+    
+    private void snapshot(File dir, String prefix, Map<String, String> map) {
+        File[] files = dir.listFiles();
+        if(files != null) {
+            for(File f : files) {
+                if(f.isDirectory()) {
+                    snapshot(f, prefix + f.getName() + "/", map);
+                } else {
+                    map.put(prefix + f.getName(), f.length() + "@" + f.lastModified());
+                }
+            }
+        }
+    }
+    
+    private static void setWritable(File dir, boolean writable) {
+        File[] files = dir.listFiles();
+        if(files != null) {
+            for(File f : files) {
+                if(f.isDirectory()) {
+                    setWritable(f, writable);
+                } else {
+                    f.setWritable(writable);
+                }
+            }
+        }
+        dir.setWritable(writable);
+    }
+    
+    private static int deleteRedoLogs(File dir) {
+        int cnt = 0;
+        File[] files = dir.listFiles();
+        if(files != null) {
+            for(File f : files) {
+                if(f.isDirectory()) {
+                    cnt += deleteRedoLogs(f);
+                } else if(f.getName().equals(ArrayEntryManager.ENTRY_LOG_NAME) && f.delete()) {
+                    cnt++;
+                }
+            }
+        }
+        return cnt;
+    }
+    
+    /**
+     * Removes the redo logs of a closed store and makes its home directory not writable.
+     * 
+     * @return the snapshot of the store home directory.
+     */
+    protected Map<String, String> lockHome(File homeDir) {
+        assertTrue(deleteRedoLogs(homeDir) > 0);
+        Map<String, String> files = snapshot(homeDir);
+        setWritable(homeDir, false);
+        return files;
+    }
+    
+    /**
+     * Makes the store home directory writable again and verifies that nothing has been written.
+     */
+    protected void unlockHome(File homeDir, Map<String, String> files) {
+        setWritable(homeDir, true);
+        assertEquals(files, snapshot(homeDir));
+        assertEquals(0, deleteRedoLogs(homeDir));
+    }
+    
+    public void testDynamicDataStore() throws Exception {
+        // Use enough keys to leave the last unit partially split
+        int numKeys = 100000;
+        DynamicDataStore store = new DynamicDataStore(createConfig("dynamic", 1000, false));
+        populate(store, numKeys);
+        store.close();
+        
+        File homeDir = store.getHomeDir();
+        Map<String, String> files = snapshot(homeDir);
+        long lastModified = new File(homeDir, StoreConfig.CONFIG_PROPERTIES_FILE).lastModified();
+        
+        store = new DynamicDataStore(createConfig("dynamic", 1000, true));
+        assertTrue(store.isReadOnly());
+        check(store, numKeys);
+        checkWritesRejected(store);
+        check(store, numKeys);
+        store.close();
+        
+        // Nothing is written in read-only mode
+        assertEquals(files, snapshot(homeDir));
+        assertEquals(lastModified, new File(homeDir, StoreConfig.CONFIG_PROPERTIES_FILE).lastModified());
+        
+        // Reopen in read-only mode
+        store.open();
+        check(store, numKeys);
+        store.close();
+        
+        // Reopen in read-write mode
+        store = new DynamicDataStore(createConfig("dynamic", 1000, false));
+        assertFalse(store.isReadOnly());
+        check(store, numKeys);
+        store.put("key.new".getBytes(), "value.new".getBytes());
+        assertTrue(Arrays.equals("value.new".getBytes(), store.get("key.new".getBytes())));
+        store.close();
+    }
+    
+    public void testStaticDataStore() throws Exception {
+        int numKeys = 5000;
+        StaticDataStore store = new StaticDataStore(createConfig("static", 10000, false));
+        populate(store, numKeys);
+        store.close();
+        
+        File homeDir = store.getHomeDir();
+        Map<String, String> files = snapshot(homeDir);
+        
+        store = new StaticDataStore(createConfig("static", 10000, true));
+        assertTrue(store.isReadOnly());
+        check(store, numKeys);
+        checkWritesRejected(store);
+        store.close();
+        
+        // Nothing is written in read-only mode
+        assertEquals(files, snapshot(homeDir));
+        
+        // Reopen in read-write mode
+        store = new StaticDataStore(createConfig("static", 10000, false));
+        assertFalse(store.isReadOnly());
+        check(store, numKeys);
+        store.put("key.new".getBytes(), "value.new".getBytes());
+        store.close();
+    }
+    
+    protected void checkDynamicDataStoreHomeLocked(StoreConfig config) throws Exception {
+        int numKeys = 50000;
+        DynamicDataStore store = new DynamicDataStore(config);
+        populate(store, numKeys);
+        store.close();
+        
+        File homeDir = store.getHomeDir();
+        Map<String, String> files = lockHome(homeDir);
+        try {
+            config.setReadOnly(true);
+            store = new DynamicDataStore(config);
+            assertTrue(store.isReadOnly());
+            check(store, numKeys);
+            checkWritesRejected(store);
+            store.close();
+        } finally {
+            unlockHome(homeDir, files);
+        }
+    }
+    
+    public void testDynamicDataStoreHomeLocked() throws Exception {
+        checkDynamicDataStoreHomeLocked(createConfig("dynamic.locked", 1000, false));
+    }
+    
+    public void testDynamicDataStoreHomeLockedPacked() throws Exception {
+        StoreConfig config = createConfig("dynamic.packed", 1000, false);
+        config.setIndexesPacked(true);
+        checkDynamicDataStoreHomeLocked(config);
+    }
+    
+    public void testDynamicDataStorePackedOnLoad() throws Exception {
+        int numKeys = 50000;
+        DynamicDataStore store = new DynamicDataStore(createConfig("dynamic.packing", 1000, false));
+        populate(store, numKeys);
+        store.close();
+        
+        // Indexes not bit-packed in indexes.dat are bit-packed on load
+        File homeDir = store.getHomeDir();
+        ReadOnlyLongArray array = new ReadOnlyLongArray(Array.Type.DYNAMIC, homeDir, false, false);
+        ReadOnlyLongArray packed = new ReadOnlyLongArray(Array.Type.DYNAMIC, homeDir, false, true);
+        assertEquals(array.length(), packed.length());
+        for(int i = 0; i < array.length(); i++) {
+            assertEquals(array.get(i), packed.get(i));
+        }
+        array.close();
+        packed.close();
+        
+        StoreConfig config = createConfig("dynamic.packing", 1000, true);
+        config.setIndexesPacked(true);
+        store = new DynamicDataStore(config);
+        check(store, numKeys);
+        store.close();
+    }
+    
+    public void testDynamicDataStoreHomeLockedOffHeap() throws Exception {
+        StoreConfig config = createConfig("dynamic.offheap", 1000, false);
+        config.setIndexesOffHeap(true);
+        checkDynamicDataStoreHomeLocked(config);
+    }
+    
+    public void testStaticDataStoreHomeLocked() throws Exception {
+        int numKeys = 5000;
+        StaticDataStore store = new StaticDataStore(createConfig("static.locked", 10000, false));
+        populate(store, numKeys);
+        store.close();
+        
+        File homeDir = store.getHomeDir();
+        Map<String, String> files = lockHome(homeDir);
+        try {
+            store = new StaticDataStore(createConfig("static.locked", 10000, true));
+            assertTrue(store.isReadOnly());
+            check(store, numKeys);
+            checkWritesRejected(store);
+            store.close();
+        } finally {
+            unlockHome(homeDir, files);
+        }
+    }
+    
+    public void testIndexedDataStoreHomeLocked() throws Exception {
+        int numKeys = 5000;
+        IndexedDataStore store = new IndexedDataStore(createConfig("indexed.locked", 1000, false));
+        populate(store, numKeys);
+        store.close();
+        
+        File homeDir = store.getHomeDir();
+        Map<String, String> files = lockHome(homeDir);
+        try {
+            store = new IndexedDataStore(createConfig("indexed.locked", 1000, true));
+            assertTrue(store.isReadOnly());
+            check(store, numKeys);
+            checkWritesRejected(store);
+            store.close();
+        } finally {
+            unlockHome(homeDir, files);
+        }
+    }
+    
+    public void testDynamicDataSetHomeLocked() throws Exception {
+        int numValues = 50000;
+        DynamicDataSet set = new DynamicDataSet(createConfig("dynamic.set", 1000, false));
+        populate(set, numValues);
+        set.close();
+        
+        File homeDir = set.getHomeDir();
+        Map<String, String> files = lockHome(homeDir);
+        try {
+            set = new DynamicDataSet(createConfig("dynamic.set", 1000, true));
+            assertTrue(set.isReadOnly());
+            check(set, numValues);
+            checkWritesRejected(set);
+            set.close();
+        } finally {
+            unlockHome(homeDir, files);
+        }
+    }
+    
+    public void testStaticDataSetHomeLocked() throws Exception {
+        int numValues = 5000;
+        StaticDataSet set = new StaticDataSet(createConfig("static.set", 10000, false));
+        populate(set, numValues);
+        set.close();
+        
+        File homeDir = set.getHomeDir();
+        Map<String, String> files = lockHome(homeDir);
+        try {
+            set = new StaticDataSet(createConfig("static.set", 10000, true));
+            assertTrue(set.isReadOnly());
+            check(set, numValues);
+            checkWritesRejected(set);
+            set.close();
+        } finally {
+            unlockHome(homeDir, files);
+        }
+    }
+    
+    public void testDataArraysHomeLocked() throws Exception {
+        int length = 5000;
+        StaticDataArray staticArray = new StaticDataArray(createConfig("static.array", length, false));
+        populate(staticArray, 0, length);
+        staticArray.close();
+        
+        DynamicDataArray dynamicArray = new DynamicDataArray(createConfig("dynamic.array", 1000, false));
+        populate(dynamicArray, 0, length);
+        dynamicArray.close();
+        
+        File homeDir = DirUtils.getTestDir(getClass());
+        Map<String, String> files = lockHome(homeDir);
+        try {
+            staticArray = new StaticDataArray(createConfig("static.array", length, true));
+            assertTrue(staticArray.isReadOnly());
+            check(staticArray, 0, length);
+            checkWritesRejected(staticArray, 1);
+            staticArray.close();
+            
+            dynamicArray = new DynamicDataArray(createConfig("dynamic.array", 1000, true));
+            assertTrue(dynamicArray.isReadOnly());
+            check(dynamicArray, 0, length);
+            checkWritesRejected(dynamicArray, length);
+            dynamicArray.close();
+        } finally {
+            unlockHome(homeDir, files);
+        }
+    }
+    
+    public void testArrayStorePartitionHomeLocked() throws Exception {
+        int start = 1000, count = 5000;
+        File homeDir = new File(DirUtils.getTestDir(getClass()), "partition");
+        StorePartitionConfig config = new StorePartitionConfig(homeDir, start, count);
+        config.setSegmentFileSizeMB(16);
+        StaticArrayStorePartition partition = new StaticArrayStorePartition(config);
+        populate(partition, start, count);
+        partition.close();
+        
+        Map<String, String> files = lockHome(homeDir);
+        try {
+            config = new StorePartitionConfig(homeDir, start, count);
+            config.setReadOnly(true);
+            partition = new StaticArrayStorePartition(config);
+            assertTrue(partition.isReadOnly());
+            check(partition, start, count);
+            checkWritesRejected(partition, start + 1);
+            partition.close();
+        } finally {
+            unlockHome(homeDir, files);
+        }
+    }
+    
+    private static void copy(File src, File dst) throws IOException {
+        if(src.isDirectory()) {
+            dst.mkdirs();
+            for(File f : src.listFiles()) {
+                copy(f, new File(dst, f.getName()));
+            }
+        } else {
+            FileChannel in = new FileInputStream(src).getChannel();
+            FileChannel out = new FileOutputStream(dst).getChannel();
+            try {
+                in.transferTo(0, in.size(), out);
+            } finally {
+                in.close();
+                out.close();
+            }
+        }
+    }
+    
+    public void testUnappliedRedoEntries() throws Exception {
+        int numKeys = 5000;
+        StaticDataStore store = new StaticDataStore(createConfig("static.redo", 10000, false));
+        populate(store, numKeys);
+        
+        // Copy the home directory with redo entries not yet applied to indexes.dat as if the writer had crashed
+        store.put("key.new".getBytes(), "value.new".getBytes());
+        store.persist();
+        File homeDir = new File(DirUtils.getTestDir(getClass()), "static.crashed");
+        copy(store.getHomeDir(), homeDir);
+        store.close();
+        
+        try {
+            new StaticDataStore(createConfig("static.crashed", 10000, true));
+            fail("IOException expected");
+        } catch(IOException e) {
+            assertTrue(e.getMessage().contains("writable mode"));
+        }
+        
+        // Recover redo entries in read-write mode
+        store = new StaticDataStore(createConfig("static.crashed", 10000, false));
+        store.close();
+        
+        store = new StaticDataStore(createConfig("static.crashed", 10000, true));
+        assertTrue(Arrays.equals("value.1".getBytes(), store.get("key.1".getBytes())));
+        assertTrue(Arrays.equals("value.new".getBytes(), store.get("key.new".getBytes())));
+        store.close();
+    }
+    
+    public void testStoreNotFound() throws Exception {
+        try {
+            new DynamicDataStore(createConfig("dynamic.none", 1000, true));
+            fail("IOException expected");
+        } catch(IOException e) {}
+        
+        try {
+            new StaticDataStore(createConfig("static.none", 1000, true));
+            fail("IOException expected");
+        } catch(IOException e) {}
+        
+        assertFalse(new File(new File(DirUtils.getTestDir(getClass()), "dynamic.none"), "indexes.dat").exists());
+    }
+}
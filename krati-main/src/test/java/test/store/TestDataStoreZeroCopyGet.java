@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import krati.core.StoreConfig;
+import krati.core.segment.ChannelSegmentFactory;
+import krati.core.segment.DirectBufferSegmentFactory;
+import krati.core.segment.MappedSegmentFactory;
+import krati.core.segment.MemorySegmentFactory;
+import krati.core.segment.SegmentFactory;
+import krati.core.segment.WriteBufferSegmentFactory;
+import krati.store.DynamicDataStore;
+import krati.store.StaticDataStore;
+import test.util.DirUtils;
+import test.util.RandomBytes;
+
+/**
+ * TestDataStoreZeroCopyGet
+ * 
+ * @since 0.4.9
+ */
+public class TestDataStoreZeroCopyGet extends TestCase {
+    
+    protected StoreConfig createConfig(SegmentFactory segmentFactory) throws Exception {
+        File storeDir = DirUtils.getTestDir(getClass());
+        StoreConfig config = new StoreConfig(storeDir, 1000);
+        config.setSegmentFactory(segmentFactory);
+        config.setSegmentFileSizeMB(16);
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected Map<String, byte[]> populate(DynamicDataStore dynamicStore, StaticDataStore staticStore) throws Exception {
+        Map<String, byte[]> map = new HashMap<String, byte[]>();
+        
+        // Use more keys than capacity to populate buckets with collisions
+        for(int i = 0; i < 5000; i++) {
+            String key = "key." + i;
+            byte[] value = RandomBytes.getBytes();
+            map.put(key, value);
+            
+            if(dynamicStore != null) {
+                dynamicStore.put(key.getBytes(), value);
+            }
+            if(staticStore != null) {
+                staticStore.put(key.getBytes(), value);
+            }
+        }
+        
+        return map;
+    }
+    
+    protected void doDynamicDataStore(SegmentFactory segmentFactory) throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(segmentFactory));
+        Map<String, byte[]> map = populate(store, null);
+        
+        ByteBuffer dst = ByteBuffer.allocate(1 << 16);
+        for(Map.Entry<String, byte[]> e : map.entrySet()) {
+            byte[] key = e.getKey().getBytes();
+            byte[] value = e.getValue();
+            
+            dst.clear();
+            assertEquals(value.length, store.get(key, dst));
+            assertEquals(value.length, dst.position());
+            assertTrue(Arrays.equals(value, Arrays.copyOf(dst.array(), dst.position())));
+        }
+        
+        // Unknown key
+        dst.clear();
+        assertEquals(-1, store.get("key.unknown".getBytes(), dst));
+        assertEquals(-1, store.get(null, dst));
+        assertEquals(0, dst.position());
+        
+        // Insufficient space
+        byte[] key = "key.0".getBytes();
+        byte[] value = map.get("key.0");
+        if(value.length > 0) {
+            ByteBuffer small = ByteBuffer.allocate(value.length - 1);
+            assertEquals(value.length, store.get(key, small));
+            assertEquals(0, small.position());
+        }
+        
+        // Deleted key
+        store.delete(key);
+        dst.clear();
+        assertEquals(-1, store.get(key, dst));
+        
+        store.close();
+    }
+    
+    public void testDynamicDataStoreMemory() throws Exception {
+        doDynamicDataStore(new MemorySegmentFactory());
+    }
+    
+    public void testDynamicDataStoreMapped() throws Exception {
+        doDynamicDataStore(new MappedSegmentFactory());
+    }
+    
+    public void testDynamicDataStoreChannel() throws Exception {
+        doDynamicDataStore(new ChannelSegmentFactory());
+    }
+    
+    public void testDynamicDataStoreWriteBuffer() throws Exception {
+        doDynamicDataStore(new WriteBufferSegmentFactory());
+    }
+    
+    public void testDynamicDataStoreDirectBuffer() throws Exception {
+        doDynamicDataStore(new DirectBufferSegmentFactory());
+    }
+    
+    public void testStaticDataStore() throws Exception {
+        StaticDataStore store = new StaticDataStore(createConfig(new MappedSegmentFactory()));
+        Map<String, byte[]> map = populate(null, store);
+        
+        ByteBuffer dst = ByteBuffer.allocateDirect(1 << 16);
+        for(Map.Entry<String, byte[]> e : map.entrySet()) {
+            byte[] key = e.getKey().getBytes();
+            byte[] value = e.getValue();
+            
+            dst.clear();
+            assertEquals(value.length, store.get(key, dst));
+            
+            dst.flip();
+            byte[] result = new byte[dst.remaining()];
+            dst.get(result);
+            assertTrue(Arrays.equals(value, result));
+        }
+        
+        dst.clear();
+        assertEquals(-1, store.get("key.unknown".getBytes(), dst));
+        
+        store.close();
+    }
+}
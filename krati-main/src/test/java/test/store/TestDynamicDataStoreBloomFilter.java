@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.store;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import krati.core.StoreConfig;
+import krati.core.segment.MemorySegmentFactory;
+import krati.store.DynamicDataStore;
+import krati.store.IndexedDataStore;
+import krati.util.BloomFilter;
+import test.util.DirUtils;
+
+/**
+ * TestDynamicDataStoreBloomFilter
+ * 
+ * @since 0.4.9
+ */
+public class TestDynamicDataStoreBloomFilter extends TestCase {
+    protected final int _numKeys = 5000;
+    
+    protected StoreConfig createConfig(boolean bloomFilterEnabled) throws Exception {
+        File storeDir = DirUtils.getTestDir(getClass());
+        StoreConfig config = new StoreConfig(storeDir, 10000);
+        config.setSegmentFactory(new MemorySegmentFactory());
+        config.setSegmentFileSizeMB(16);
+        config.setBloomFilterEnabled(bloomFilterEnabled);
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected static byte[] key(int i) {
+        return ("key." + i).getBytes();
+    }
+    
+    protected static byte[] value(int i) {
+        return ("value." + i).getBytes();
+    }
+    
+    protected void populate(DynamicDataStore store, int start, int end) throws Exception {
+        for(int i = start; i < end; i++) {
+            store.put(key(i), value(i));
+        }
+    }
+    
+    protected void validate(DynamicDataStore store, int start, int end) throws Exception {
+        for(int i = start; i < end; i++) {
+            assertEquals(new String(value(i)), new String(store.get(key(i))));
+        }
+        for(int i = end; i < end + _numKeys; i++) {
+            assertNull(store.get(key(i)));
+        }
+    }
+    
+    public void testAbsentKeys() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(true));
+        BloomFilter filter = store.getBloomFilter();
+        assertNotNull(filter);
+        
+        populate(store, 0, _numKeys);
+        validate(store, 0, _numKeys);
+        assertTrue(filter.getInsertions() > 0);
+        
+        // Deleted keys remain in the filter but are still absent from the store
+        store.delete(key(0));
+        assertNull(store.get(key(0)));
+        assertEquals(-1, store.getLength(key(0)));
+        
+        store.clear();
+        assertEquals(0, filter.getInsertions());
+        assertNull(store.get(key(1)));
+        
+        store.close();
+    }
+    
+    public void testPersistence() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(true));
+        File file = new File(store.getHomeDir(), DynamicDataStore.BLOOM_FILTER_FILE_NAME);
+        
+        populate(store, 0, _numKeys);
+        for(int i = 0; i < _numKeys; i += 2) {
+            store.delete(key(i));
+        }
+        long insertions = store.getBloomFilter().getInsertions();
+        store.close();
+        assertTrue(file.exists());
+        
+        // Load the filter persisted on close, which still counts deleted keys
+        store.open();
+        assertEquals(insertions, store.getBloomFilter().getInsertions());
+        store.sync();
+        
+        // Keep the filter persisted at the current high water mark
+        File staleFile = new File(file.getPath() + ".stale");
+        copy(file, staleFile);
+        
+        populate(store, _numKeys, _numKeys << 1);
+        store.close();
+        
+        // Rebuild the filter from store keys upon a stale file
+        copy(staleFile, file);
+        store.open();
+        assertTrue(store.getBloomFilter().getInsertions() < insertions + _numKeys);
+        validate(store, _numKeys, _numKeys << 1);
+        store.close();
+        
+        // Rebuild the filter from store keys upon a missing file
+        assertTrue(file.delete());
+        store.open();
+        validate(store, _numKeys, _numKeys << 1);
+        store.close();
+    }
+    
+    public void testDisabled() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(true));
+        populate(store, 0, _numKeys);
+        store.close();
+        
+        File file = new File(store.getHomeDir(), DynamicDataStore.BLOOM_FILTER_FILE_NAME);
+        assertTrue(file.exists());
+        
+        store = new DynamicDataStore(createConfig(false));
+        assertNull(store.getBloomFilter());
+        assertFalse(file.exists());
+        validate(store, 0, _numKeys);
+        store.close();
+    }
+    
+    public void testIndexedDataStore() throws Exception {
+        StoreConfig config = createConfig(true);
+        IndexedDataStore store = new IndexedDataStore(config);
+        for(int i = 0; i < _numKeys; i++) {
+            store.put(key(i), value(i));
+        }
+        
+        for(int i = 0; i < _numKeys; i++) {
+            assertEquals(new String(value(i)), new String(store.get(key(i))));
+        }
+        for(int i = _numKeys; i < _numKeys << 1; i++) {
+            assertNull(store.get(key(i)));
+        }
+        store.close();
+        
+        File file = new File(new File(config.getHomeDir(), "index"), DynamicDataStore.BLOOM_FILTER_FILE_NAME);
+        assertTrue(file.exists());
+    }
+    
+    protected static void copy(File src, File dst) throws IOException {
+        FileInputStream in = new FileInputStream(src);
+        FileOutputStream out = new FileOutputStream(dst);
+        try {
+            byte[] buf = new byte[8192];
+            int len;
+            while((len = in.read(buf)) > 0) {
+                out.write(buf, 0, len);
+            }
+        } finally {
+            in.close();
+            out.close();
+        }
+    }
+}
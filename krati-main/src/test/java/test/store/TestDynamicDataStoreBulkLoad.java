@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package test.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import junit.framework.TestCase;
+import krati.core.StoreConfig;
+import krati.core.array.basic.DynamicConstants;
+import krati.core.segment.MemorySegmentFactory;
+import krati.store.DynamicDataStore;
+import test.util.DirUtils;
+
+/**
+ * TestDynamicDataStoreBulkLoad
+ * 
+ * @since 0.4.9
+ */
+public class TestDynamicDataStoreBulkLoad extends TestCase {
+    protected final int _numKeys = 200000;
+    
+    protected StoreConfig createConfig(int writerConcurrency) throws Exception {
+        File storeDir = DirUtils.getTestDir(getClass());
+        StoreConfig config = new StoreConfig(storeDir, DynamicConstants.SUB_ARRAY_SIZE);
+        config.setSegmentFactory(new MemorySegmentFactory());
+        config.setSegmentFileSizeMB(32);
+        config.setWriterConcurrency(writerConcurrency);
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected static byte[] key(int i) {
+        return ("key." + i).getBytes();
+    }
+    
+    protected static byte[] value(int i) {
+        return ("value." + i).getBytes();
+    }
+    
+    public void testPresize() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(1));
+        store.presize(_numKeys);
+        
+        int capacity = store.capacity();
+        assertTrue(capacity * store.getLoadThreshold() >= _numKeys);
+        assertEquals(0, store.getSplit());
+        assertEquals(capacity, store.getLevelCapacity());
+        
+        // Presizing for fewer keys has no effect
+        store.presize(_numKeys >> 1);
+        assertEquals(capacity, store.capacity());
+        
+        // Writes do not split
+        for(int i = 0; i < _numKeys; i++) {
+            store.put(key(i), value(i));
+        }
+        assertEquals(capacity, store.capacity());
+        validate(store, _numKeys);
+        
+        store.sync();
+        store.close();
+        
+        // Reopen and validate
+        store.open();
+        assertEquals(capacity, store.capacity());
+        validate(store, _numKeys);
+        store.close();
+    }
+    
+    public void testPresizeNonEmpty() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(1));
+        int initialCapacity = store.capacity();
+        
+        for(int i = 0; i < 10000; i++) {
+            store.put(key(i), value(i));
+        }
+        assertEquals(initialCapacity, store.capacity());
+        
+        store.presize(_numKeys);
+        assertTrue(store.capacity() > initialCapacity);
+        assertEquals(0, store.getSplit());
+        validate(store, 10000);
+        store.close();
+    }
+    
+    public void testBulkLoad() throws Exception {
+        doBulkLoad(1);
+    }
+    
+    public void testBulkLoadConcurrentWriters() throws Exception {
+        doBulkLoad(4);
+    }
+    
+    public void testBulkLoadUnderestimated() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(1));
+        int initialCapacity = store.capacity();
+        
+        List<Entry<byte[], byte[]>> entries = new ArrayList<Entry<byte[], byte[]>>(_numKeys);
+        for(int i = 0; i < _numKeys; i++) {
+            entries.add(new AbstractMap.SimpleEntry<byte[], byte[]>(key(i), value(i)));
+        }
+        
+        // Linear hashing reaches the level needed by the actual number of keys
+        assertEquals(_numKeys, store.bulkLoad(entries.iterator(), 100));
+        int capacity = store.capacity();
+        assertTrue(capacity > initialCapacity);
+        assertTrue(capacity * store.getLoadThreshold() >= _numKeys);
+        assertEquals(0, store.getSplit());
+        assertEquals(capacity, store.getLevelCapacity());
+        assertTrue(store.getLevel() > 0);
+        validate(store, _numKeys);
+        store.close();
+        
+        // Reopen and validate
+        store.open();
+        assertEquals(capacity, store.capacity());
+        validate(store, _numKeys);
+        store.close();
+    }
+    
+    protected void doBulkLoad(int writerConcurrency) throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(writerConcurrency));
+        
+        List<Entry<byte[], byte[]>> entries = new ArrayList<Entry<byte[], byte[]>>(_numKeys + 2);
+        for(int i = 0; i < _numKeys; i++) {
+            entries.add(new AbstractMap.SimpleEntry<byte[], byte[]>(key(i), value(i)));
+        }
+        
+        // Later entries of the same key win and null values are skipped
+        entries.add(0, new AbstractMap.SimpleEntry<byte[], byte[]>(key(0), "stale.0".getBytes()));
+        entries.add(new AbstractMap.SimpleEntry<byte[], byte[]>(key(_numKeys), null));
+        
+        assertEquals(_numKeys + 1, store.bulkLoad(entries.iterator(), _numKeys));
+        int capacity = store.capacity();
+        assertTrue(capacity * store.getLoadThreshold() >= _numKeys);
+        assertNull(store.get(key(_numKeys)));
+        validate(store, _numKeys);
+        
+        // Load into a non-empty store
+        entries.clear();
+        entries.add(new AbstractMap.SimpleEntry<byte[], byte[]>(key(_numKeys), value(_numKeys)));
+        assertEquals(1, store.bulkLoad(entries.iterator(), _numKeys + 1));
+        validate(store, _numKeys + 1);
+        store.close();
+        
+        // Reopen and validate
+        store.open();
+        assertEquals(capacity, store.capacity());
+        validate(store, _numKeys + 1);
+        store.close();
+    }
+    
+    protected void validate(DynamicDataStore store, int numKeys) throws Exception {
+        for(int i = 0; i < numKeys; i++) {
+            assertEquals(new String(value(i)), new String(store.get(key(i))));
+        }
+    }
+}
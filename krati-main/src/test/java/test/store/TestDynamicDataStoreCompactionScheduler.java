@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import krati.core.StoreConfig;
+import krati.core.StoreParams;
+import krati.core.array.CompactionScheduler;
+import krati.core.array.SimpleDataArray;
+import krati.core.segment.MappedSegmentFactory;
+import krati.store.DynamicDataStore;
+import test.util.DirUtils;
+
+/**
+ * TestDynamicDataStoreCompactionScheduler
+ * 
+ * @since 0.4.9
+ */
+public class TestDynamicDataStoreCompactionScheduler extends TestCase {
+    protected final int _numKeys = 5000;
+    protected final int _numRounds = 10;
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    public void testBackoff() {
+        CompactionScheduler scheduler = new CompactionScheduler(0, 100);
+        assertTrue(scheduler.isLatencyTracked());
+        assertEquals(100, scheduler.getBackoffLatencyMicros());
+        
+        // No foreground reads
+        scheduler.acquire(1024);
+        assertEquals(0, scheduler.getBackoffCount());
+        assertEquals(1024, scheduler.getBytesTransferred());
+        
+        // Slow foreground reads
+        for(int i = 0; i < 100; i++) {
+            scheduler.recordReadLatency(10000000L);
+        }
+        assertTrue(scheduler.getReadLatencyMicros() > 100);
+        
+        scheduler.acquire(1024);
+        assertTrue(scheduler.getBackoffCount() > 0);
+        assertTrue(scheduler.getBackoffCount() <= CompactionScheduler.BACKOFF_MAX);
+        assertTrue(scheduler.getThrottleTimeMillis() > 0);
+        assertEquals(2048, scheduler.getBytesTransferred());
+        
+        // No backoff without latency tracking
+        scheduler = new CompactionScheduler();
+        assertFalse(scheduler.isLatencyTracked());
+        scheduler.recordReadLatency(10000000L);
+        scheduler.acquire(1024);
+        assertEquals(0, scheduler.getBackoffCount());
+    }
+    
+    public void testWriterBlocked() {
+        CompactionScheduler scheduler = new CompactionScheduler(1, 100);
+        for(int i = 0; i < 100; i++) {
+            scheduler.recordReadLatency(10000000L);
+        }
+        
+        // Neither backoff nor rate limit applies while a writer waits for free segments
+        scheduler.writerBlocked();
+        assertTrue(scheduler.isWriterBlocked());
+        long startTime = System.currentTimeMillis();
+        for(int i = 0; i < 10; i++) {
+            scheduler.acquire(1 << 20);
+        }
+        assertTrue(System.currentTimeMillis() - startTime < 1000);
+        assertEquals(0, scheduler.getBackoffCount());
+        assertEquals(10 << 20, scheduler.getBytesTransferred());
+        
+        scheduler.writerUnblocked();
+        assertFalse(scheduler.isWriterBlocked());
+        scheduler.acquire(1024);
+        assertTrue(scheduler.getBackoffCount() > 0);
+    }
+    
+    public void testCompactionStats() throws Exception {
+        StoreConfig config = new StoreConfig(DirUtils.getTestDir(getClass()), _numKeys);
+        config.setSegmentFactory(new MappedSegmentFactory());
+        config.setSegmentFileSizeMB(StoreParams.SEGMENT_FILE_SIZE_MB_MIN);
+        config.setSegmentCompactRateMB(64);
+        config.setSegmentCompactBackoffLatency(1000);
+        
+        DynamicDataStore store = new DynamicDataStore(config);
+        CompactionScheduler scheduler = ((SimpleDataArray)store.getDataArray()).getCompactionScheduler();
+        assertEquals(64, scheduler.getRateLimitMB());
+        assertEquals(1000, scheduler.getBackoffLatencyMicros());
+        
+        byte[][] values = new byte[_numKeys][];
+        for(int round = 0; round < _numRounds; round++) {
+            for(int i = 0; i < _numKeys; i++) {
+                values[i] = new byte[1024 + (i % 2048)];
+                Arrays.fill(values[i], (byte)(i + round));
+                store.put(("key." + i).getBytes(), values[i]);
+            }
+            
+            for(int i = 0; i < _numKeys; i++) {
+                assertTrue(Arrays.equals(values[i], store.get(("key." + i).getBytes())));
+            }
+        }
+        store.sync();
+        
+        assertTrue(scheduler.getCompactionCycles() > 0);
+        assertTrue(scheduler.getSegmentsCompacted() > 0);
+        assertTrue(scheduler.getBytesTransferred() > 0);
+        
+        store.close();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+import krati.core.StoreConfig;
+import krati.core.array.basic.DynamicConstants;
+import krati.core.segment.MemorySegmentFactory;
+import krati.store.DynamicDataStore;
+import krati.util.IndexedIterator;
+import test.util.DirUtils;
+
+/**
+ * TestDynamicDataStoreConcurrentWriters
+ * 
+ * @since 0.4.9
+ */
+public class TestDynamicDataStoreConcurrentWriters extends TestCase {
+    protected final int _numWriters = 8;
+    protected final int _numKeysPerWriter = 20000;
+    
+    protected StoreConfig createConfig(int writerConcurrency) throws Exception {
+        File storeDir = DirUtils.getTestDir(getClass());
+        StoreConfig config = new StoreConfig(storeDir, DynamicConstants.SUB_ARRAY_SIZE);
+        config.setSegmentFactory(new MemorySegmentFactory());
+        config.setSegmentFileSizeMB(32);
+        config.setWriterConcurrency(writerConcurrency);
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected static byte[] key(int writer, int i) {
+        return ("key." + writer + "." + i).getBytes();
+    }
+    
+    protected static byte[] value(int writer, int i) {
+        return ("value." + writer + "." + i).getBytes();
+    }
+    
+    public void testWriteLockStripes() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(1));
+        assertEquals(0, store.getWriteLockStripes());
+        store.close();
+        
+        store = new DynamicDataStore(createConfig(_numWriters));
+        assertEquals(_numWriters << 2, store.getWriteLockStripes());
+        store.close();
+    }
+    
+    public void testConcurrentWriters() throws Exception {
+        final DynamicDataStore store = new DynamicDataStore(createConfig(_numWriters));
+        final int initialCapacity = store.capacity();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        
+        Thread[] writers = new Thread[_numWriters];
+        for(int w = 0; w < _numWriters; w++) {
+            final int writer = w;
+            writers[w] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for(int i = 0; i < _numKeysPerWriter; i++) {
+                            store.put(key(writer, i), value(writer, i));
+                        }
+                        
+                        // Delete every other key
+                        for(int i = 0; i < _numKeysPerWriter; i += 2) {
+                            store.delete(key(writer, i));
+                        }
+                    } catch(Throwable t) {
+                        error.compareAndSet(null, t);
+                    }
+                }
+            });
+        }
+        
+        for(Thread t : writers) {
+            t.start();
+        }
+        for(Thread t : writers) {
+            t.join();
+        }
+        
+        assertNull(error.get());
+        assertTrue(store.capacity() > initialCapacity);
+        
+        validate(store);
+        store.sync();
+        store.close();
+        
+        // Reopen and validate
+        store.open();
+        validate(store);
+        store.close();
+    }
+    
+    protected void validate(DynamicDataStore store) throws Exception {
+        for(int w = 0; w < _numWriters; w++) {
+            for(int i = 0; i < _numKeysPerWriter; i++) {
+                byte[] value = store.get(key(w, i));
+                if(i % 2 == 0) {
+                    assertNull(value);
+                } else {
+                    assertEquals(new String(value(w, i)), new String(value));
+                }
+            }
+        }
+        
+        int count = 0;
+        IndexedIterator<byte[]> iter = store.keyIterator();
+        while(iter.hasNext()) {
+            iter.next();
+            count++;
+        }
+        assertEquals(_numWriters * _numKeysPerWriter / 2, count);
+    }
+}
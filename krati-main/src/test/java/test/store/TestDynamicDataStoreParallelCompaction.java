@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.store;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import krati.core.StoreConfig;
+import krati.core.StoreParams;
+import krati.core.segment.MappedSegmentFactory;
+import krati.store.DynamicDataStore;
+import test.util.DirUtils;
+
+/**
+ * TestDynamicDataStoreParallelCompaction
+ * 
+ * @since 0.4.9
+ */
+public class TestDynamicDataStoreParallelCompaction extends TestCase {
+    protected final int _numKeys = 5000;
+    protected final int _numRounds = 20;
+    protected final Random _rand = new Random();
+    
+    protected StoreConfig createConfig(int parallelism) throws Exception {
+        File storeDir = DirUtils.getTestDir(getClass());
+        StoreConfig config = new StoreConfig(storeDir, _numKeys);
+        config.setSegmentFactory(new MappedSegmentFactory());
+        config.setSegmentFileSizeMB(StoreParams.SEGMENT_FILE_SIZE_MB_MIN);
+        config.setSegmentCompactParallelism(parallelism);
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected byte[] value(int i, int round) {
+        byte[] value = new byte[1024 + _rand.nextInt(2048)];
+        Arrays.fill(value, (byte)(i + round));
+        return value;
+    }
+    
+    protected void doCompaction(int parallelism) throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(parallelism));
+        byte[][] values = new byte[_numKeys][];
+        
+        // Overwrite all keys repeatedly to fragment segments
+        for(int round = 0; round < _numRounds; round++) {
+            for(int i = 0; i < _numKeys; i++) {
+                values[i] = value(i, round);
+                store.put(("key." + i).getBytes(), values[i]);
+            }
+        }
+        
+        store.sync();
+        validate(store, values);
+        
+        // About 200MB written in total, segments must be reclaimed by the compactor
+        File[] segFiles = new File(store.getHomeDir(), "segs").listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".seg");
+            }
+        });
+        assertTrue("segFileCount=" + segFiles.length, segFiles.length < _numRounds);
+        
+        store.close();
+        store.open();
+        validate(store, values);
+        store.close();
+    }
+    
+    protected void validate(DynamicDataStore store, byte[][] values) throws Exception {
+        for(int i = 0; i < _numKeys; i++) {
+            assertTrue(Arrays.equals(values[i], store.get(("key." + i).getBytes())));
+        }
+    }
+    
+    public void testSequentialCompaction() throws Exception {
+        doCompaction(1);
+    }
+    
+    public void testParallelCompaction() throws Exception {
+        doCompaction(4);
+    }
+}
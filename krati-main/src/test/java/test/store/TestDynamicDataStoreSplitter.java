@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package test.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+import krati.core.StoreConfig;
+import krati.core.array.basic.DynamicConstants;
+import krati.core.segment.MemorySegmentFactory;
+import krati.store.DynamicDataStore;
+import test.util.DirUtils;
+
+/**
+ * TestDynamicDataStoreSplitter
+ * 
+ * @since 0.4.9
+ */
+public class TestDynamicDataStoreSplitter extends TestCase {
+    protected final int _numWriters = 4;
+    protected final int _numKeysPerWriter = 40000;
+    
+    protected StoreConfig createConfig(int writerConcurrency, boolean splitBackground, int splitStepsPerWrite) throws Exception {
+        File storeDir = DirUtils.getTestDir(getClass());
+        StoreConfig config = new StoreConfig(storeDir, DynamicConstants.SUB_ARRAY_SIZE);
+        config.setSegmentFactory(new MemorySegmentFactory());
+        config.setSegmentFileSizeMB(32);
+        config.setWriterConcurrency(writerConcurrency);
+        config.setSplitBackground(splitBackground);
+        config.setSplitStepsPerWrite(splitStepsPerWrite);
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected static byte[] key(int writer, int i) {
+        return ("key." + writer + "." + i).getBytes();
+    }
+    
+    protected static byte[] value(int writer, int i) {
+        return ("value." + writer + "." + i).getBytes();
+    }
+    
+    public void testRehash() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(1, false, 0));
+        final int initialCapacity = store.capacity();
+        assertFalse(store.isSplitBackground());
+        
+        // Writes do not split
+        write(store);
+        assertEquals(initialCapacity, store.capacity());
+        assertTrue(store.getLoadFactor() > store.getLoadThreshold());
+        
+        store.rehash();
+        assertTrue(store.capacity() > initialCapacity);
+        assertTrue(store.getLoadFactor() <= store.getLoadThreshold());
+        validate(store);
+        store.close();
+    }
+    
+    public void testBackgroundSplitter() throws Exception {
+        doBackgroundSplitter(1);
+    }
+    
+    public void testBackgroundSplitterConcurrentWriters() throws Exception {
+        doBackgroundSplitter(_numWriters);
+    }
+    
+    protected void doBackgroundSplitter(int writerConcurrency) throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(writerConcurrency, true, 0));
+        final int initialCapacity = store.capacity();
+        assertTrue(store.isSplitBackground());
+        
+        write(store);
+        awaitSplit(store);
+        assertTrue(store.capacity() > initialCapacity);
+        validate(store);
+        
+        store.sync();
+        store.close();
+        assertFalse(store.isSplitBackground());
+        
+        // Reopen and validate
+        store.open();
+        assertTrue(store.isSplitBackground());
+        validate(store);
+        store.close();
+    }
+    
+    protected void write(final DynamicDataStore store) throws Exception {
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        
+        Thread[] writers = new Thread[_numWriters];
+        for(int w = 0; w < _numWriters; w++) {
+            final int writer = w;
+            writers[w] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for(int i = 0; i < _numKeysPerWriter; i++) {
+                            store.put(key(writer, i), value(writer, i));
+                        }
+                    } catch(Throwable t) {
+                        error.compareAndSet(null, t);
+                    }
+                }
+            });
+        }
+        
+        for(Thread t : writers) {
+            t.start();
+        }
+        for(Thread t : writers) {
+            t.join();
+        }
+        
+        assertNull(error.get());
+    }
+    
+    protected void awaitSplit(DynamicDataStore store) throws Exception {
+        long deadline = System.currentTimeMillis() + 30000;
+        while(store.getLoadFactor() > store.getLoadThreshold()) {
+            assertTrue("splitter timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+    
+    protected void validate(DynamicDataStore store) throws Exception {
+        for(int w = 0; w < _numWriters; w++) {
+            for(int i = 0; i < _numKeysPerWriter; i++) {
+                assertEquals(new String(value(w, i)), new String(store.get(key(w, i))));
+            }
+        }
+    }
+}
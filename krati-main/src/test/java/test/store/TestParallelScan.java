@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+import krati.core.StoreConfig;
+import krati.core.segment.ChannelSegmentFactory;
+import krati.store.DataStore;
+import krati.store.DynamicDataSet;
+import krati.store.DynamicDataStore;
+import krati.store.IndexedDataStore;
+import krati.store.ScanHandler;
+import krati.store.StaticDataArray;
+import krati.store.StaticDataStore;
+import krati.util.IndexedIterator;
+import test.util.DirUtils;
+import test.util.RandomBytes;
+
+/**
+ * TestParallelScan
+ * 
+ * @since 0.4.9
+ */
+public class TestParallelScan extends TestCase {
+    protected final int _numKeys = 20000;
+    protected ExecutorService _executor;
+    
+    protected StoreConfig createConfig(String name, int capacity) throws Exception {
+        File storeDir = new File(DirUtils.getTestDir(getClass()), name);
+        StoreConfig config = new StoreConfig(storeDir, capacity);
+        config.setSegmentFactory(new ChannelSegmentFactory());
+        config.setSegmentFileSizeMB(16);
+        return config;
+    }
+    
+    @Override
+    protected void setUp() {
+        _executor = Executors.newFixedThreadPool(4);
+    }
+    
+    @Override
+    protected void tearDown() {
+        _executor.shutdownNow();
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * ScanHandler collecting entries of string keys.
+     */
+    static class EntryCollector implements ScanHandler<Entry<byte[], byte[]>> {
+        final ConcurrentHashMap<String, byte[]> _map = new ConcurrentHashMap<String, byte[]>();
+        
+        @Override
+        public void handle(Entry<byte[], byte[]> e) {
+            if(_map.put(new String(e.getKey()), e.getValue()) != null) {
+                throw new IllegalStateException("Duplicate key " + new String(e.getKey()));
+            }
+        }
+    }
+    
+    protected Map<String, byte[]> populate(DataStore<byte[], byte[]> store) throws Exception {
+        Map<String, byte[]> map = new HashMap<String, byte[]>();
+        for(int i = 0; i < _numKeys; i++) {
+            String key = "key." + i;
+            byte[] value = RandomBytes.getBytes();
+            store.put(key.getBytes(), value);
+            map.put(key, value);
+        }
+        return map;
+    }
+    
+    protected void check(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for(Map.Entry<String, byte[]> e : expected.entrySet()) {
+            assertTrue(Arrays.equals(e.getValue(), actual.get(e.getKey())));
+        }
+    }
+    
+    public void testDynamicDataStore() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig("dynamic", 1000));
+        Map<String, byte[]> map = populate(store);
+        
+        EntryCollector collector = new EntryCollector();
+        assertEquals(map.size(), store.forEachParallel(collector, _executor, 8));
+        check(map, collector._map);
+        
+        // Partition iterators
+        List<IndexedIterator<Entry<byte[], byte[]>>> partitions = store.partitionIterators(3);
+        assertEquals(3, partitions.size());
+        int cnt = 0;
+        for(Iterator<Entry<byte[], byte[]>> iter : partitions) {
+            while(iter.hasNext()) {
+                Entry<byte[], byte[]> e = iter.next();
+                assertTrue(Arrays.equals(map.get(new String(e.getKey())), e.getValue()));
+                cnt++;
+            }
+        }
+        assertEquals(map.size(), cnt);
+        
+        store.close();
+    }
+    
+    public void testSplitsPaused() throws Exception {
+        StoreConfig config = createConfig("paused", 1000);
+        config.setHashLoadFactor(0.5);
+        DynamicDataStore store = new DynamicDataStore(config);
+        Map<String, byte[]> map = populate(store);
+        
+        // Splits are paused while partition iterators are open
+        List<IndexedIterator<Entry<byte[], byte[]>>> partitions = store.partitionIterators(4);
+        int capacity = store.capacity();
+        int split = store.getSplit();
+        for(int i = _numKeys; i < _numKeys * 3; i++) {
+            store.put(("key." + i).getBytes(), RandomBytes.getBytes());
+        }
+        assertTrue(store.getLoadFactor() > store.getLoadThreshold());
+        assertEquals(capacity, store.capacity());
+        assertEquals(split, store.getSplit());
+        
+        int cnt = 0;
+        for(Iterator<Entry<byte[], byte[]>> iter : partitions) {
+            while(iter.hasNext()) {
+                if(map.containsKey(new String(iter.next().getKey()))) cnt++;
+            }
+        }
+        assertEquals(map.size(), cnt);
+        
+        // Splits are resumed after all partition iterators are exhausted or closed
+        partitions = store.partitionIterators(4);
+        for(IndexedIterator<Entry<byte[], byte[]>> iter : partitions) {
+            ((Closeable)iter).close();
+            ((Closeable)iter).close();
+        }
+        assertFalse(partitions.get(0).hasNext());
+        
+        for(int i = _numKeys * 3; i < _numKeys * 4; i++) {
+            store.put(("key." + i).getBytes(), RandomBytes.getBytes());
+        }
+        assertTrue(capacity < store.capacity() || split < store.getSplit());
+        
+        store.close();
+    }
+    
+    public void testStaticDataStore() throws Exception {
+        StaticDataStore store = new StaticDataStore(createConfig("static", 10000));
+        Map<String, byte[]> map = populate(store);
+        
+        EntryCollector collector = new EntryCollector();
+        assertEquals(map.size(), store.forEachParallel(collector, _executor, 5));
+        check(map, collector._map);
+        store.close();
+    }
+    
+    public void testIndexedDataStore() throws Exception {
+        IndexedDataStore store = new IndexedDataStore(createConfig("indexed", 1000));
+        Map<String, byte[]> map = populate(store);
+        
+        EntryCollector collector = new EntryCollector();
+        assertEquals(map.size(), store.forEachParallel(collector, _executor, 6));
+        check(map, collector._map);
+        store.close();
+    }
+    
+    public void testDynamicDataSet() throws Exception {
+        DynamicDataSet set = new DynamicDataSet(createConfig("set", 1000));
+        for(int i = 0; i < _numKeys; i++) {
+            set.add(("value." + i).getBytes());
+        }
+        
+        final ConcurrentHashMap<String, Boolean> values = new ConcurrentHashMap<String, Boolean>();
+        long cnt = set.forEachParallel(new ScanHandler<byte[]>() {
+            @Override
+            public void handle(byte[] value) {
+                assertNull(values.put(new String(value), Boolean.TRUE));
+            }
+        }, _executor, 4);
+        
+        assertEquals(_numKeys, cnt);
+        assertEquals(_numKeys, values.size());
+        assertTrue(values.containsKey("value.0"));
+        set.close();
+    }
+    
+    public void testArrayStore() throws Exception {
+        StaticDataArray array = new StaticDataArray(createConfig("array", 10000));
+        for(int i = 0; i < array.length(); i += 2) {
+            array.set(i, ("value." + i).getBytes(), System.nanoTime());
+        }
+        
+        final ConcurrentHashMap<Integer, byte[]> map = new ConcurrentHashMap<Integer, byte[]>();
+        long cnt = array.forEachParallel(new ScanHandler<Entry<Integer, byte[]>>() {
+            @Override
+            public void handle(Entry<Integer, byte[]> e) {
+                map.put(e.getKey(), e.getValue());
+            }
+        }, _executor, 7);
+        
+        assertEquals(array.length() / 2, cnt);
+        assertEquals(array.length() / 2, map.size());
+        for(Map.Entry<Integer, byte[]> e : map.entrySet()) {
+            assertEquals("value." + e.getKey(), new String(e.getValue()));
+        }
+        array.close();
+    }
+    
+    public void testHandlerFailure() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig("failure", 1000));
+        populate(store);
+        
+        try {
+            store.forEachParallel(new ScanHandler<Entry<byte[], byte[]>>() {
+                @Override
+                public void handle(Entry<byte[], byte[]> e) throws Exception {
+                    throw new IOException("Failed");
+                }
+            }, _executor, 4);
+            fail("IOException expected");
+        } catch(IOException e) {
+            assertEquals("Failed", e.getMessage());
+        }
+        
+        try {
+            store.partitionIterators(0);
+            fail("IllegalArgumentException expected");
+        } catch(IllegalArgumentException e) {}
+        
+        store.close();
+    }
+}
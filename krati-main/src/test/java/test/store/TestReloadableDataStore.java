@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package test.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+import krati.array.Array;
+import krati.core.StoreConfig;
+import krati.core.segment.MappedSegmentFactory;
+import krati.store.DataStore;
+import krati.store.DataStoreBuilder;
+import krati.store.ReloadableDataStore;
+import krati.store.StoreClosedException;
+import krati.store.factory.DynamicDataStoreFactory;
+import krati.store.factory.StaticDataStoreFactory;
+import test.util.DirUtils;
+
+/**
+ * TestReloadableDataStore
+ * 
+ * @since 0.4.9
+ */
+public class TestReloadableDataStore extends TestCase {
+    protected final int _numKeys = 10000;
+    protected final int _numReaders = 4;
+    
+    protected StoreConfig build(String name, String prefix) throws Exception {
+        return build(name, prefix, Array.Type.STATIC);
+    }
+    
+    protected StoreConfig build(String name, String prefix, Array.Type type) throws Exception {
+        File storeDir = new File(DirUtils.getTestDir(getClass()), name);
+        StoreConfig config = new StoreConfig(storeDir, _numKeys);
+        config.setSegmentFactory(new MappedSegmentFactory());
+        config.setSegmentFileSizeMB(8);
+        
+        DataStoreBuilder builder = new DataStoreBuilder(config, type, _numKeys);
+        for(int i = 0; i < _numKeys; i++) {
+            builder.add(("key." + i).getBytes(), (prefix + i).getBytes());
+        }
+        builder.build();
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    public void testReload() throws Exception {
+        StoreConfig config1 = build("store1", "v1.");
+        StoreConfig config2 = build("store2", "v2.");
+        StoreConfig config3 = build("store3", "v3.");
+        
+        final ReloadableDataStore store = new ReloadableDataStore(config1, new StaticDataStoreFactory());
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong reads = new AtomicLong(0);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        
+        Thread[] readers = new Thread[_numReaders];
+        for(int r = 0; r < _numReaders; r++) {
+            readers[r] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        int i = 0;
+                        while(running.get()) {
+                            String value = new String(store.get(("key." + i).getBytes()));
+                            if(!value.endsWith("." + i) || !value.startsWith("v")) {
+                                error.compareAndSet(null, new Exception("Unexpected value " + value));
+                            }
+                            reads.incrementAndGet();
+                            i = (i + 1) % _numKeys;
+                        }
+                    } catch(Throwable t) {
+                        error.compareAndSet(null, t);
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        
+        Thread.sleep(100);
+        DataStore<byte[], byte[]> store1 = store.getStore();
+        store.reload(config2);
+        assertEquals(config2.getHomeDir(), store.getHomeDir());
+        
+        Thread.sleep(100);
+        DataStore<byte[], byte[]> store2 = store.getStore();
+        store.reload(config3.getHomeDir());
+        
+        Thread.sleep(100);
+        running.set(false);
+        for(Thread t : readers) {
+            t.join();
+        }
+        
+        // Retired stores are closed by their last readers
+        assertFalse(store1.isOpen());
+        assertFalse(store2.isOpen());
+        
+        assertNull(error.get());
+        assertTrue(reads.get() > 0);
+        assertEquals("v3.0", new String(store.get("key.0".getBytes())));
+        
+        // Writes are not supported
+        try {
+            store.put("key.0".getBytes(), "v4.0".getBytes());
+            fail("UnsupportedOperationException expected");
+        } catch(UnsupportedOperationException e) {}
+        
+        DataStore<byte[], byte[]> store3 = store.getStore();
+        store.close();
+        assertFalse(store.isOpen());
+        assertFalse(store3.isOpen());
+        
+        try {
+            store.get("key.0".getBytes());
+            fail("StoreClosedException expected");
+        } catch(StoreClosedException e) {}
+        
+        store.open();
+        assertEquals("v3.1", new String(store.get("key.1".getBytes())));
+        store.close();
+    }
+    
+    public void testIterator() throws Exception {
+        StoreConfig config1 = build("store1", "v1.");
+        StoreConfig config2 = build("store2", "v2.");
+        
+        ReloadableDataStore store = new ReloadableDataStore(config1, new StaticDataStoreFactory());
+        DataStore<byte[], byte[]> store1 = store.getStore();
+        Iterator<Entry<byte[], byte[]>> iter = store.iterator();
+        assertTrue(iter.hasNext());
+        
+        // The old store stays open for the iterator
+        store.reload(config2);
+        assertTrue(store1.isOpen());
+        
+        int count = 0;
+        while(iter.hasNext()) {
+            Entry<byte[], byte[]> e = iter.next();
+            assertTrue(new String(e.getValue()).startsWith("v1."));
+            count++;
+        }
+        assertEquals(_numKeys, count);
+        assertFalse(store1.isOpen());
+        
+        // The current store stays open for the iterator after close
+        DataStore<byte[], byte[]> store2 = store.getStore();
+        Iterator<byte[]> keyIter = store.keyIterator();
+        store.close();
+        assertTrue(store2.isOpen());
+        
+        while(keyIter.hasNext()) {
+            keyIter.next();
+        }
+        assertFalse(store2.isOpen());
+    }
+    
+    public void testIteratorClose() throws Exception {
+        StoreConfig config1 = build("store1", "v1.");
+        StoreConfig config2 = build("store2", "v2.");
+        
+        ReloadableDataStore store = new ReloadableDataStore(config1, new StaticDataStoreFactory());
+        DataStore<byte[], byte[]> store1 = store.getStore();
+        Iterator<Entry<byte[], byte[]>> iter = store.iterator();
+        assertTrue(iter.hasNext());
+        iter.next();
+        
+        // The old store is closed once the abandoned iterator is closed
+        store.reload(config2);
+        assertTrue(store1.isOpen());
+        ((Closeable)iter).close();
+        assertFalse(store1.isOpen());
+        assertFalse(iter.hasNext());
+        
+        // Closing again has no effect on the current store
+        DataStore<byte[], byte[]> store2 = store.getStore();
+        Iterator<byte[]> keyIter = store.keyIterator();
+        ((Closeable)iter).close();
+        ((Closeable)keyIter).close();
+        ((Closeable)keyIter).close();
+        assertTrue(store2.isOpen());
+        assertEquals("v2.1", new String(store.get("key.1".getBytes())));
+        
+        store.close();
+        assertFalse(store2.isOpen());
+    }
+    
+    /**
+     * Captures the names, lengths and last modified times of all files under the specified directory.
+     */
+    protected Map<String, String> snapshot(File dir) {
+        Map<String, String> map = new TreeMap<String, String>();
+        snapshot(dir, "", map);
+        return map;
+    }
+    
+    private void snapshot(File dir, String prefix, Map<String, String> map) {
+        File[] files = dir.listFiles();
+        if(files != null) {
+            for(File f : files) {
+                if(f.isDirectory()) {
+                    snapshot(f, prefix + f.getName() + "/", map);
+                } else {
+                    map.put(prefix + f.getName(), f.length() + "@" + f.lastModified());
+                }
+            }
+        }
+    }
+    
+    private static void setWritable(File dir, boolean writable) {
+        File[] files = dir.listFiles();
+        if(files != null) {
+            for(File f : files) {
+                if(f.isDirectory()) {
+                    setWritable(f, writable);
+                } else {
+                    f.setWritable(writable);
+                }
+            }
+        }
+        dir.setWritable(writable);
+    }
+    
+    public void testReloadHomeLocked() throws Exception {
+        StoreConfig config1 = build("store1", "v1.", Array.Type.DYNAMIC);
+        StoreConfig config2 = build("store2", "v2.", Array.Type.DYNAMIC);
+        
+        File testDir = DirUtils.getTestDir(getClass());
+        Map<String, String> files = snapshot(testDir);
+        setWritable(testDir, false);
+        
+        try {
+            ReloadableDataStore store = new ReloadableDataStore(config1, new DynamicDataStoreFactory());
+            assertEquals("v1.0", new String(store.get("key.0".getBytes())));
+            
+            store.reload(config2.getHomeDir());
+            assertTrue(store.getConfig().isReadOnly());
+            assertEquals("v2.0", new String(store.get("key.0".getBytes())));
+            
+            store.reload(config1);
+            assertEquals("v1.1", new String(store.get("key.1".getBytes())));
+            store.close();
+        } finally {
+            setWritable(testDir, true);
+        }
+        
+        // Nothing is written to the store directories
+        assertEquals(files, snapshot(testDir));
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.Map.Entry;
+
+import junit.framework.TestCase;
+import krati.core.StoreConfig;
+import krati.core.array.SequentialScanIterator;
+import krati.core.array.SimpleDataArray;
+import krati.core.segment.ChannelSegmentFactory;
+import krati.core.segment.MappedSegmentFactory;
+import krati.core.segment.MemorySegmentFactory;
+import krati.core.segment.SegmentFactory;
+import krati.core.segment.WriteBufferSegmentFactory;
+import krati.store.DynamicDataStore;
+import krati.store.StaticDataArray;
+import krati.store.StaticDataStore;
+import test.util.DirUtils;
+import test.util.RandomBytes;
+
+/**
+ * TestSequentialIterator
+ * 
+ * @since 0.4.9
+ */
+public class TestSequentialIterator extends TestCase {
+    
+    protected StoreConfig createConfig(String name, int capacity, SegmentFactory segmentFactory) throws Exception {
+        File storeDir = new File(DirUtils.getTestDir(getClass()), name);
+        StoreConfig config = new StoreConfig(storeDir, capacity);
+        config.setSegmentFactory(segmentFactory);
+        config.setSegmentFileSizeMB(16);
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected Map<String, byte[]> populate(StaticDataStore store, int numKeys) throws Exception {
+        Map<String, byte[]> map = new HashMap<String, byte[]>();
+        for(int i = 0; i < numKeys; i++) {
+            String key = "key." + i;
+            byte[] value = RandomBytes.getBytes();
+            store.put(key.getBytes(), value);
+            map.put(key, value);
+        }
+        
+        // Overwrite and delete keys to scatter live data across segments
+        for(int i = 0; i < numKeys; i += 3) {
+            String key = "key." + i;
+            byte[] value = RandomBytes.getBytes();
+            store.put(key.getBytes(), value);
+            map.put(key, value);
+        }
+        for(int i = 0; i < numKeys; i += 7) {
+            String key = "key." + i;
+            store.delete(key.getBytes());
+            map.remove(key);
+        }
+        
+        return map;
+    }
+    
+    protected void checkEntries(Map<String, byte[]> map, Iterator<Entry<byte[], byte[]>> iter) {
+        Set<String> keys = new HashSet<String>();
+        while(iter.hasNext()) {
+            Entry<byte[], byte[]> e = iter.next();
+            String key = new String(e.getKey());
+            assertTrue("Duplicate key " + key, keys.add(key));
+            assertTrue(Arrays.equals(map.get(key), e.getValue()));
+        }
+        assertEquals(map.size(), keys.size());
+    }
+    
+    protected void doStaticDataStore(SegmentFactory segmentFactory) throws Exception {
+        StaticDataStore store = new StaticDataStore(createConfig("static", 5000, segmentFactory));
+        Map<String, byte[]> map = populate(store, 10000);
+        checkEntries(map, store.sequentialIterator());
+        store.close();
+    }
+    
+    public void testStaticDataStoreChannel() throws Exception {
+        doStaticDataStore(new ChannelSegmentFactory());
+    }
+    
+    public void testStaticDataStoreMapped() throws Exception {
+        doStaticDataStore(new MappedSegmentFactory());
+    }
+    
+    public void testStaticDataStoreWriteBuffer() throws Exception {
+        doStaticDataStore(new WriteBufferSegmentFactory());
+    }
+    
+    public void testStaticDataStoreMemory() throws Exception {
+        doStaticDataStore(new MemorySegmentFactory());
+    }
+    
+    public void testDynamicDataStore() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig("dynamic", 1000, new ChannelSegmentFactory()));
+        Map<String, byte[]> map = new HashMap<String, byte[]>();
+        for(int i = 0; i < 20000; i++) {
+            String key = "key." + i;
+            byte[] value = RandomBytes.getBytes();
+            store.put(key.getBytes(), value);
+            map.put(key, value);
+        }
+        
+        checkEntries(map, store.sequentialIterator());
+        store.close();
+    }
+    
+    public void testSmallBatchAndReadAhead() throws Exception {
+        StaticDataStore store = new StaticDataStore(createConfig("static", 5000, new ChannelSegmentFactory()));
+        populate(store, 10000);
+        
+        // Scan a range of indexes in small batches through a small read-ahead buffer
+        SimpleDataArray dataArray = (SimpleDataArray)store.getDataArray();
+        Iterator<Entry<Integer, byte[]>> iter = new SequentialScanIterator(dataArray, 100, 4000, 97, 1024);
+        Set<Integer> indexes = new HashSet<Integer>();
+        while(iter.hasNext()) {
+            Entry<Integer, byte[]> e = iter.next();
+            assertTrue(e.getKey() >= 100 && e.getKey() < 4000);
+            assertTrue(indexes.add(e.getKey()));
+            assertTrue(Arrays.equals(dataArray.get(e.getKey()), e.getValue()));
+        }
+        
+        int cnt = 0;
+        for(int i = 100; i < 4000; i++) {
+            if(dataArray.hasData(i)) cnt++;
+        }
+        assertEquals(cnt, indexes.size());
+        
+        store.close();
+    }
+    
+    public void testArrayStore() throws Exception {
+        StaticDataArray array = new StaticDataArray(createConfig("array", 10000, new ChannelSegmentFactory()));
+        Map<Integer, byte[]> map = new HashMap<Integer, byte[]>();
+        for(int round = 0; round < 3; round++) {
+            for(int i = round; i < array.length(); i += (round + 1)) {
+                byte[] data = RandomBytes.getBytes();
+                array.set(i, data, System.nanoTime());
+                map.put(i, data);
+            }
+        }
+        
+        // Update data while scanning
+        Set<Integer> indexes = new HashSet<Integer>();
+        Iterator<Entry<Integer, byte[]>> iter = array.sequentialIterator();
+        int cnt = 0;
+        while(iter.hasNext()) {
+            Entry<Integer, byte[]> e = iter.next();
+            assertTrue(indexes.add(e.getKey()));
+            assertTrue(Arrays.equals(map.get(e.getKey()), e.getValue()));
+            
+            if(++cnt % 10 == 0) {
+                int index = (e.getKey() + 5000) % array.length();
+                byte[] data = RandomBytes.getBytes();
+                array.set(index, data, System.nanoTime());
+                map.put(index, data);
+            }
+        }
+        assertEquals(array.length(), indexes.size());
+        
+        array.close();
+    }
+    
+    public void testMovedData() throws Exception {
+        StaticDataArray array = new StaticDataArray(createConfig("moved", 100, new ChannelSegmentFactory()));
+        byte[] data10 = "data.10".getBytes();
+        byte[] data20 = "data.20".getBytes();
+        array.set(10, data10, System.nanoTime());
+        array.set(20, data20, System.nanoTime());
+        
+        // Move data from a collected index to an index which has no data at collection time
+        Iterator<Entry<Integer, byte[]>> iter = array.sequentialIterator();
+        Entry<Integer, byte[]> e = iter.next();
+        assertEquals(10, e.getKey().intValue());
+        array.set(50, data20, System.nanoTime());
+        array.set(20, null, System.nanoTime());
+        
+        e = iter.next();
+        assertEquals(50, e.getKey().intValue());
+        assertTrue(Arrays.equals(data20, e.getValue()));
+        assertFalse(iter.hasNext());
+        
+        array.close();
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package test.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+import krati.core.StoreConfig;
+import krati.core.segment.MemorySegmentFactory;
+import krati.metrics.DefaultMetricsRegistry;
+import krati.metrics.MetricsRegistry;
+import krati.metrics.StoreMetrics;
+import krati.store.DynamicDataStore;
+import krati.store.IndexedDataStore;
+import krati.store.StaticDataStore;
+import test.util.DirUtils;
+
+/**
+ * TestStoreMetrics
+ * 
+ * @since 0.4.9
+ */
+public class TestStoreMetrics extends TestCase {
+    
+    protected StoreConfig createConfig(boolean metricsEnabled) throws Exception {
+        File storeDir = DirUtils.getTestDir(getClass());
+        StoreConfig config = new StoreConfig(storeDir, 1000);
+        config.setSegmentFactory(new MemorySegmentFactory());
+        config.setSegmentFileSizeMB(16);
+        config.setMetricsEnabled(metricsEnabled);
+        return config;
+    }
+    
+    @Override
+    protected void tearDown() {
+        File storeDir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(storeDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    public void testDisabled() throws Exception {
+        DynamicDataStore store = new DynamicDataStore(createConfig(false));
+        assertSame(StoreMetrics.DISABLED, store.getMetrics());
+        assertEquals(0, StoreMetrics.DISABLED.start());
+        
+        store.put("key".getBytes(), "value".getBytes());
+        assertEquals("value", new String(store.get("key".getBytes())));
+        
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertFalse(server.isRegistered(StoreMetrics.getObjectName(store.getHomeDir())));
+        store.close();
+    }
+    
+    public void testDynamicDataStore() throws Exception {
+        DefaultMetricsRegistry registry = new DefaultMetricsRegistry();
+        StoreConfig config = createConfig(true);
+        config.setMetricsRegistry(registry);
+        config.setHashLoadFactor(0.5);
+        
+        DynamicDataStore store = new DynamicDataStore(config);
+        StoreMetrics metrics = store.getMetrics();
+        assertTrue(metrics.isEnabled());
+        assertSame(registry, metrics.getRegistry());
+        
+        int num = 60000;
+        for(int i = 0; i < num; i++) {
+            store.put(("key." + i).getBytes(), ("value." + i).getBytes());
+        }
+        for(int i = 0; i < num; i++) {
+            assertNotNull(store.get(("key." + i).getBytes()));
+        }
+        for(int i = 0; i < num; i += 2) {
+            store.delete(("key." + i).getBytes());
+        }
+        
+        Map<byte[], byte[]> map = new HashMap<byte[], byte[]>();
+        map.put("batch".getBytes(), "value".getBytes());
+        store.putAll(map);
+        
+        assertEquals(num, registry.counter("put.count").get());
+        assertEquals(num, registry.counter("get.count").get());
+        assertEquals(num / 2, registry.counter("delete.count").get());
+        assertEquals(1, registry.counter("put.all.count").get());
+        assertEquals(num, registry.histogram("get.nanos").getCount());
+        assertTrue(registry.histogram("put.nanos").getMax() > 0);
+        assertTrue(registry.counter(StoreMetrics.SEGMENT_BYTES_APPENDED).get() > 0);
+        
+        // Redo entries are flushed upon sync
+        store.sync();
+        assertTrue(registry.histogram(StoreMetrics.REDO_FLUSH_TIME).getCount() > 0);
+        
+        // Linear hashing splits upon growing beyond the initial capacity
+        assertTrue(registry.counter(StoreMetrics.SPLIT_STEPS).get() > 0);
+        assertEquals(store.getLevel(), registry.gauge(StoreMetrics.SPLIT_LEVEL).get());
+        
+        // Metrics are exported via JMX
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = StoreMetrics.getObjectName(store.getHomeDir());
+        assertTrue(server.isRegistered(name));
+        assertEquals((long)num, server.getAttribute(name, "get.count"));
+        assertEquals((long)num, server.getAttribute(name, "get.nanos.count"));
+        assertTrue(server.getMBeanInfo(name).getAttributes().length > 0);
+        
+        store.close();
+        assertFalse(server.isRegistered(name));
+        
+        // Segments are loaded upon reopen
+        store.open();
+        assertTrue(server.isRegistered(name));
+        assertTrue(registry.counter(StoreMetrics.SEGMENT_LOADS).get() > 0);
+        store.close();
+    }
+    
+    public void testStaticDataStore() throws Exception {
+        StaticDataStore store = new StaticDataStore(createConfig(true));
+        MetricsRegistry registry = store.getMetrics().getRegistry();
+        
+        store.put("key".getBytes(), "value".getBytes());
+        store.put("key".getBytes(), null);
+        assertNull(store.get("key".getBytes()));
+        
+        assertEquals(1, registry.counter("put.count").get());
+        assertEquals(1, registry.counter("delete.count").get());
+        assertEquals(1, registry.counter("get.count").get());
+        
+        store.close();
+    }
+    
+    public void testIndexedDataStore() throws Exception {
+        IndexedDataStore store = new IndexedDataStore(createConfig(true));
+        MetricsRegistry registry = store.getMetrics().getRegistry();
+        
+        store.put("key".getBytes(), "value".getBytes());
+        assertEquals("value", new String(store.get("key".getBytes())));
+        
+        assertEquals(1, registry.counter("put.count").get());
+        assertEquals(1, registry.counter("get.count").get());
+        assertTrue(registry.counter(StoreMetrics.SEGMENT_BYTES_APPENDED).get() > 0);
+        
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertTrue(server.isRegistered(StoreMetrics.getObjectName(store.getHomeDir())));
+        assertTrue(server.isRegistered(StoreMetrics.getObjectName(store.getIndexHome())));
+        
+        store.close();
+        assertFalse(server.isRegistered(StoreMetrics.getObjectName(store.getHomeDir())));
+        assertFalse(server.isRegistered(StoreMetrics.getObjectName(store.getIndexHome())));
+    }
+}
@@ -17,10 +17,14 @@
 package test.store.api;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.Map.Entry;
 
@@ -28,6 +32,7 @@ import test.util.FileUtils;
 import test.util.RandomBytes;
 
 import junit.framework.TestCase;
+import krati.store.BatchDataStore;
 import krati.store.DataStore;
 
 /**
@@ -101,6 +106,61 @@ public abstract class AbstractTestDataStoreApi extends TestCase {
         assertTrue(Arrays.equals(value, _store.get(key)));
     }
     
+    @SuppressWarnings("unchecked")
+    public void testBatchApi() throws Exception {
+        if(!(_store instanceof BatchDataStore)) {
+            return;
+        }
+        
+        BatchDataStore<byte[], byte[]> store = (BatchDataStore<byte[], byte[]>)_store;
+        
+        int cnt = 1000;
+        Map<byte[], byte[]> map = new LinkedHashMap<byte[], byte[]>();
+        for(int i = 0; i < cnt; i++) {
+            map.put(RandomBytes.getBytes(16), RandomBytes.getBytes());
+        }
+        assertTrue(store.putAll(map));
+        
+        List<byte[]> keys = new ArrayList<byte[]>(map.keySet());
+        keys.add(null);
+        keys.add(RandomBytes.getBytes(16));
+        
+        List<byte[]> values = store.getAll(keys);
+        assertEquals(keys.size(), values.size());
+        for(int i = 0; i < cnt; i++) {
+            byte[] key = keys.get(i);
+            assertTrue(Arrays.equals(map.get(key), values.get(i)));
+            assertTrue(Arrays.equals(map.get(key), store.get(key)));
+        }
+        assertNull(values.get(cnt));
+        assertNull(values.get(cnt + 1));
+        
+        // Delete every other key in one batch
+        Map<byte[], byte[]> deletes = new LinkedHashMap<byte[], byte[]>();
+        for(int i = 0; i < cnt; i += 2) {
+            deletes.put(keys.get(i), null);
+        }
+        assertTrue(store.putAll(deletes));
+        
+        values = store.getAll(keys);
+        for(int i = 0; i < cnt; i++) {
+            byte[] key = keys.get(i);
+            byte[] expected = (i % 2 == 0) ? null : map.get(key);
+            assertTrue(Arrays.equals(expected, values.get(i)));
+        }
+        
+        store.sync();
+        store.close();
+        store.open();
+        
+        values = store.getAll(keys);
+        for(int i = 0; i < cnt; i++) {
+            byte[] key = keys.get(i);
+            byte[] expected = (i % 2 == 0) ? null : map.get(key);
+            assertTrue(Arrays.equals(expected, values.get(i)));
+        }
+    }
+    
     public void testKeyIterator() throws Exception {
         Iterator<byte[]> keyIter;
         
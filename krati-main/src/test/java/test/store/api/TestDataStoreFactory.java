@@ -26,6 +26,9 @@ import krati.store.DataStore;
 import krati.store.DynamicDataStore;
 import krati.store.IndexedDataStore;
 import krati.store.StaticDataStore;
+import krati.store.cache.CachePolicy;
+import krati.store.cache.CachedDataStore;
+import krati.store.factory.CachedDataStoreFactory;
 import krati.store.factory.DataStoreFactory;
 import krati.store.factory.DynamicDataStoreFactory;
 import krati.store.factory.IndexedDataStoreFactory;
@@ -85,4 +88,19 @@ public class TestDataStoreFactory extends TestCase {
         assertEquals(IndexedDataStore.class, store.getClass());
         store.close();
     }
+    
+    public void testCachedDataStoreFactory() throws IOException {
+        DataStoreFactory storeFactory = new CachedDataStoreFactory(new DynamicDataStoreFactory());
+        DataStore<byte[], byte[]> store = storeFactory.create(_config);
+        assertEquals(DynamicDataStore.class, store.getClass());
+        store.close();
+        
+        _config.setValueCacheSizeMB(4);
+        _config.setValueCachePolicy(CachePolicy.CLOCK);
+        store = storeFactory.create(_config);
+        assertEquals(CachedDataStore.class, store.getClass());
+        assertEquals(CachePolicy.CLOCK, ((CachedDataStore)store).getPolicy());
+        assertEquals(DynamicDataStore.class, ((CachedDataStore)store).getStore().getClass());
+        store.close();
+    }
 }
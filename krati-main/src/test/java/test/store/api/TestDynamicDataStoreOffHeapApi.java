@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.store.api;
+
+import java.io.File;
+
+import krati.core.StoreConfig;
+import krati.core.segment.MappedSegmentFactory;
+import krati.store.DataStore;
+import krati.store.DynamicDataStore;
+
+/**
+ * TestDynamicDataStoreOffHeapApi
+ * 
+ * @since 0.4.9
+ */
+public class TestDynamicDataStoreOffHeapApi extends AbstractTestDataStoreApi {
+    
+    @Override
+    protected DataStore<byte[], byte[]> createStore(File homeDir) throws Exception {
+        StoreConfig config = new StoreConfig(homeDir, 1 << 17);
+        config.setBatchSize(100);
+        config.setNumSyncBatches(5);
+        config.setSegmentFileSizeMB(32);
+        config.setSegmentFactory(new MappedSegmentFactory());
+        config.setIndexesOffHeap(true);
+        return new DynamicDataStore(config);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.store.handler;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import krati.core.InvalidStoreConfigException;
+import krati.core.StoreConfig;
+import krati.core.segment.MemorySegmentFactory;
+import krati.store.DataStoreHandler;
+import krati.store.DefaultDataStoreHandler;
+import krati.store.DefaultHashedDataStoreHandler;
+import krati.store.DynamicDataStore;
+import krati.util.XxHash64;
+import test.util.FileUtils;
+
+/**
+ * TestDefaultHashedDataStoreHandler
+ * 
+ * @since 0.4.9
+ */
+public class TestDefaultHashedDataStoreHandler extends AbstractTestDataStoreHandler {
+    protected int keyLen;
+    protected int valueLen;
+    
+    @Override
+    protected void setUp() {
+        keyLen = rand.nextInt(10);
+        keyLen++;
+        
+        valueLen = rand.nextInt(50);
+        valueLen++;
+    }
+    
+    protected byte[] nextKey() {
+        return randomBytes(keyLen++);
+    }
+    
+    protected byte[] nextValue() {
+        return randomBytes(valueLen++);
+    }
+    
+    protected DataStoreHandler createDataStoreHandler() {
+        return new DefaultHashedDataStoreHandler();
+    }
+    
+    public void testApiHashed() {
+        DefaultHashedDataStoreHandler h = new DefaultHashedDataStoreHandler();
+        
+        byte[] key1 = nextKey();
+        byte[] value1 = nextValue();
+        byte[] key2 = nextKey();
+        byte[] value2 = nextValue();
+        
+        byte[] data = h.assemble(key1, 1L, value1);
+        data = h.assemble(key2, 2L, value2, data);
+        assertTrue(Arrays.equals(value1, h.extractByKey(key1, 1L, data)));
+        assertTrue(Arrays.equals(value2, h.extractByKey(key2, 2L, data)));
+        
+        // Hash codes are compared before key bytes
+        assertEquals(null, h.extractByKey(key1, 2L, data));
+        assertTrue(Arrays.equals(value1, h.extractByKey(key1, data)));
+        assertEquals(data.length, h.removeByKey(key1, 2L, data));
+        
+        // Replace the value of key1
+        byte[] value3 = nextValue();
+        data = h.assemble(key1, 1L, value3, data);
+        assertEquals(2, h.countCollisions(key1, data));
+        assertTrue(Arrays.equals(value3, h.extractByKey(key1, 1L, data)));
+        
+        int newLength = h.removeByKey(key2, 2L, data);
+        data = Arrays.copyOf(data, newLength);
+        assertEquals(null, h.extractByKey(key2, 2L, data));
+        assertEquals(1, h.countCollisions(key1, data));
+    }
+    
+    public void testApiSplit() {
+        DefaultHashedDataStoreHandler h = new DefaultHashedDataStoreHandler();
+        long capacity = 16;
+        int index = 3;
+        
+        byte[] data = null;
+        byte[][] keys = new byte[10][];
+        byte[][] values = new byte[10][];
+        for(int i = 0; i < keys.length; i++) {
+            keys[i] = nextKey();
+            values[i] = nextValue();
+            long hashCode = (i % 2 == 0) ? index + capacity * i : index + 8 - capacity * i;
+            data = h.assemble(keys[i], hashCode, values[i], data);
+        }
+        
+        byte[][] splitData = h.split(data, index, capacity);
+        assertEquals(5, h.extractKeys(splitData[0]).size());
+        assertEquals(5, h.extractKeys(splitData[1]).size());
+        for(int i = 0; i < keys.length; i++) {
+            byte[] stay = h.extractByKey(keys[i], splitData[0]);
+            byte[] move = h.extractByKey(keys[i], splitData[1]);
+            if(i % 2 == 0) {
+                assertTrue(Arrays.equals(values[i], stay));
+                assertEquals(null, move);
+            } else {
+                assertEquals(null, stay);
+                assertTrue(Arrays.equals(values[i], move));
+            }
+        }
+        
+        // Nothing to move
+        splitData = h.split(splitData[0], index, capacity);
+        assertEquals(5, h.extractKeys(splitData[0]).size());
+        assertEquals(null, splitData[1]);
+    }
+    
+    public void testStoreSplits() throws Exception {
+        File dir = FileUtils.getTestDir(getClass().getSimpleName() + ".splits");
+        
+        StoreConfig config = new StoreConfig(dir, 1000);
+        config.setSegmentFactory(new MemorySegmentFactory());
+        config.setSegmentFileSizeMB(32);
+        config.setDataHandler(new DefaultHashedDataStoreHandler());
+        
+        DynamicDataStore store = new DynamicDataStore(config);
+        int keyCount = 100000;
+        for(int i = 0; i < keyCount; i++) {
+            store.put(("key." + i).getBytes(), ("value." + i).getBytes());
+        }
+        assertTrue(store.getLevel() > 0 || store.getSplit() > 0);
+        
+        ByteBuffer dst = ByteBuffer.allocate(64);
+        for(int i = 0; i < keyCount; i++) {
+            byte[] value = ("value." + i).getBytes();
+            assertTrue(Arrays.equals(value, store.get(("key." + i).getBytes())));
+            
+            dst.clear();
+            assertEquals(value.length, store.get(("key." + i).getBytes(), dst));
+            assertTrue(Arrays.equals(value, Arrays.copyOf(dst.array(), value.length)));
+        }
+        
+        for(int i = 0; i < keyCount; i += 2) {
+            assertTrue(store.delete(("key." + i).getBytes()));
+        }
+        store.close();
+        
+        // Reopen the store in the persisted data format
+        store = new DynamicDataStore(StoreConfig.newInstance(dir));
+        for(int i = 0; i < keyCount; i++) {
+            byte[] value = store.get(("key." + i).getBytes());
+            if(i % 2 == 0) {
+                assertEquals(null, value);
+            } else {
+                assertTrue(Arrays.equals(("value." + i).getBytes(), value));
+            }
+        }
+        store.close();
+        
+        // The data format of an existing store cannot be changed
+        StoreConfig config2 = new StoreConfig(dir, 1000);
+        assertEquals(DefaultHashedDataStoreHandler.class, config2.getDataHandler().getClass());
+        assertEquals(XxHash64.class, config2.getHashFunction().getClass());
+        config2.setDataHandler(new DefaultDataStoreHandler());
+        try {
+            config2.validate();
+            fail("InvalidStoreConfigException expected");
+        } catch(InvalidStoreConfigException e) {}
+        
+        FileUtils.deleteDirectory(dir);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2010-2012 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package test.store.segment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import krati.core.segment.AbstractSegment;
+import krati.core.segment.ChannelSegment;
+import krati.core.segment.DirectBufferSegment;
+import krati.core.segment.MemorySegment;
+import krati.core.segment.Segment;
+import test.util.DirUtils;
+
+/**
+ * TestSegmentRead
+ * 
+ * @since 0.4.9
+ */
+public class TestSegmentRead extends TestCase {
+    protected Random _rand = new Random();
+    
+    @Override
+    protected void tearDown() {
+        File dir = DirUtils.getTestDir(getClass());
+        try {
+            DirUtils.deleteDirectory(dir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    protected File getSegmentFile(String name) {
+        File dir = DirUtils.getTestDir(getClass());
+        dir.mkdirs();
+        return new File(dir, name);
+    }
+    
+    /**
+     * Appends records of length-prefixed data and returns their positions.
+     */
+    protected List<Integer> append(Segment seg, List<byte[]> records) throws Exception {
+        List<Integer> positions = new ArrayList<Integer>();
+        for(int i = 0; i < 500; i++) {
+            // Mix small records with records larger than a read buffer
+            byte[] data = new byte[(i % 50 == 0) ? 5000 + _rand.nextInt(5000) : _rand.nextInt(200)];
+            _rand.nextBytes(data);
+            
+            int pos = seg.appendInt(data.length);
+            seg.append(data);
+            records.add(data);
+            positions.add(pos);
+        }
+        return positions;
+    }
+    
+    protected void check(AbstractSegment seg, List<Integer> positions, List<byte[]> records) throws Exception {
+        for(int i = 0; i < records.size(); i++) {
+            int pos = positions.get(i);
+            byte[] data = records.get(i);
+            
+            assertEquals(data.length, seg.readInt(pos));
+            
+            byte[] dst = new byte[data.length];
+            seg.read(pos + 4, dst);
+            assertTrue(Arrays.equals(data, dst));
+            
+            byte[] dst2 = new byte[data.length + 2];
+            seg.read(pos + 4, dst2, 1, data.length);
+            assertTrue(Arrays.equals(data, Arrays.copyOfRange(dst2, 1, data.length + 1)));
+            
+            ByteBuffer bb = ByteBuffer.allocateDirect(data.length);
+            seg.read(pos + 4, bb);
+            assertEquals(data.length, bb.position());
+            bb.flip();
+            byte[] dst3 = new byte[data.length];
+            bb.get(dst3);
+            assertTrue(Arrays.equals(data, dst3));
+            
+            assertTrue(seg.contentEquals(pos + 4, data));
+            if(data.length > 0) {
+                byte[] other = data.clone();
+                other[other.length - 1]++;
+                assertFalse(seg.contentEquals(pos + 4, other));
+            }
+        }
+    }
+    
+    protected void checkTransfer(AbstractSegment seg, List<Integer> positions, List<byte[]> records) throws Exception {
+        AbstractSegment target = new MemorySegment(1, getSegmentFile("target.seg"), 16, Segment.Mode.READ_WRITE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        for(int i = 0; i < records.size(); i++) {
+            byte[] data = records.get(i);
+            int targetPos = (int)target.getAppendPosition();
+            assertEquals(data.length, seg.transferTo(positions.get(i) + 4, data.length, target));
+            assertTrue(target.contentEquals(targetPos, data));
+            
+            out.reset();
+            seg.transferTo(positions.get(i) + 4, data.length, Channels.newChannel(out));
+            assertTrue(Arrays.equals(data, out.toByteArray()));
+        }
+        
+        target.close(false);
+    }
+    
+    protected void doRead(AbstractSegment seg) throws Exception {
+        List<byte[]> records = new ArrayList<byte[]>();
+        List<Integer> positions = append(seg, records);
+        
+        // Read from the writable segment
+        check(seg, positions, records);
+        
+        // Read from the read-only segment
+        seg.asReadOnly();
+        check(seg, positions, records);
+        checkTransfer(seg, positions, records);
+        
+        // Interleave reads from two segments
+        AbstractSegment seg2 = new ChannelSegment(2, getSegmentFile("2.seg"), 16, Segment.Mode.READ_WRITE);
+        List<byte[]> records2 = new ArrayList<byte[]>();
+        List<Integer> positions2 = append(seg2, records2);
+        seg2.asReadOnly();
+        for(int i = 0; i < records.size(); i++) {
+            assertEquals(records.get(i).length, seg.readInt(positions.get(i)));
+            assertEquals(records2.get(i).length, seg2.readInt(positions2.get(i)));
+            assertTrue(seg.contentEquals(positions.get(i) + 4, records.get(i)));
+            assertTrue(seg2.contentEquals(positions2.get(i) + 4, records2.get(i)));
+        }
+        
+        seg2.close(false);
+        seg.close(false);
+    }
+    
+    public void testChannelSegment() throws Exception {
+        doRead(new ChannelSegment(0, getSegmentFile("0.seg"), 16, Segment.Mode.READ_WRITE));
+    }
+    
+    public void testDirectBufferSegment() throws Exception {
+        doRead(new DirectBufferSegment(0, getSegmentFile("0.seg"), 16, Segment.Mode.READ_WRITE));
+    }
+}